@@ -1,5 +1,7 @@
 package com.nexaedi.api.controller;
 
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.service.AuditCounters;
 import com.nexaedi.infrastructure.persistence.EdiAuditLog;
 import com.nexaedi.infrastructure.persistence.EdiAuditLogRepository;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +24,7 @@ import java.util.Map;
 public class DevController {
 
     private final EdiAuditLogRepository auditLogRepository;
+    private final AuditCounters auditCounters;
 
     /**
      * Returns all audit log records — equivalent to: SELECT * FROM EDI_AUDIT_LOG
@@ -41,16 +44,15 @@ public class DevController {
     }
 
     /**
-     * Returns a live count of all records grouped by status.
+     * Returns a live count of all records grouped by status and by retailer, from the audit counters.
      */
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
-        List<EdiAuditLog> all = auditLogRepository.findAll();
-        Map<String, Long> byStatus = new java.util.LinkedHashMap<>();
-        all.forEach(log -> byStatus.merge(log.getStatus().name(), 1L, Long::sum));
+        Map<EdiProcessingStatus, Long> byStatus = auditCounters.statusTotals();
         return ResponseEntity.ok(Map.of(
-                "totalRecords", (long) all.size(),
-                "byStatus", byStatus
+                "totalRecords", byStatus.values().stream().mapToLong(Long::longValue).sum(),
+                "byStatus", byStatus,
+                "byRetailer", auditCounters.retailerTotals()
         ));
     }
 
@@ -61,6 +63,7 @@ public class DevController {
     public ResponseEntity<String> clearAll() {
         long count = auditLogRepository.count();
         auditLogRepository.deleteAll();
+        auditCounters.reset();
         return ResponseEntity.ok("Deleted " + count + " records.");
     }
 }
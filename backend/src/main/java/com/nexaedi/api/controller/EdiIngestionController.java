@@ -3,20 +3,30 @@ package com.nexaedi.api.controller;
 import com.nexaedi.api.dto.EdiSubmissionRequest;
 import com.nexaedi.api.dto.ProcessingResponse;
 import com.nexaedi.auth.service.JwtService;
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AdmissionControl;
+import com.nexaedi.core.pipeline.PipelineStage;
+import com.nexaedi.core.service.AuditCounters;
+import com.nexaedi.core.service.AuditSearchService;
 import com.nexaedi.core.service.EdiOrchestrationService;
 import com.nexaedi.infrastructure.persistence.EdiAuditLog;
 import com.nexaedi.infrastructure.persistence.EdiAuditLogRepository;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -24,6 +34,10 @@ import java.util.UUID;
  * Supports two ingestion modes:
  *  1. JSON body — for programmatic integrations and testing
  *  2. Multipart file upload — for direct file delivery (e.g., from SFTP gateway scripts)
+ *
+ * Both are guarded by {@link AdmissionControl}: when too many files or bytes are already in
+ * flight, globally or for the calling seller, the request is answered 429 with Retry-After. A
+ * file's permit is held until its job finishes, including while it waits on the shared queue.
  */
 @Slf4j
 @RestController
@@ -32,7 +46,10 @@ import java.util.UUID;
 public class EdiIngestionController {
 
     private final EdiOrchestrationService orchestrationService;
+    private final AdmissionControl admissionControl;
     private final EdiAuditLogRepository auditLogRepository;
+    private final AuditCounters auditCounters;
+    private final AuditSearchService auditSearchService;
     private final JwtService jwtService;
 
     /**
@@ -40,15 +57,27 @@ public class EdiIngestionController {
      * Returns immediately with a correlationId for tracking.
      */
     @PostMapping("/ingest")
-    public ResponseEntity<ProcessingResponse> ingest(
+    public ResponseEntity<Object> ingest(
             @Valid @RequestBody EdiSubmissionRequest request,
             @RequestHeader(value = "Authorization", required = false) String authHeader) {
 
         log.info("[API] EDI ingest request — retailer={} file={}", request.getRetailerId(), request.getFileName());
 
         Long sellerId = extractSellerId(authHeader);
+        Optional<AdmissionControl.Permit> permit =
+                admissionControl.tryAdmit(sellerId, request.getEdiContent());
+        if (permit.isEmpty()) {
+            return tooManyRequests();
+        }
+
         String correlationId = UUID.randomUUID().toString();
-        orchestrationService.processAsync(correlationId, request.getRetailerId(), request.getEdiContent(), request.getFileName(), sellerId);
+        try {
+            orchestrationService.processAsync(correlationId, request.getRetailerId(), request.getEdiContent(), request.getFileName(), sellerId)
+                    .whenComplete((result, error) -> permit.get().close());
+        } catch (RuntimeException e) {
+            permit.get().close();
+            throw e;
+        }
 
         return ResponseEntity.accepted().body(buildResponse(correlationId, request.getRetailerId()));
     }
@@ -56,25 +85,49 @@ public class EdiIngestionController {
     /**
      * Submits an EDI file for async processing via multipart file upload.
      * Useful for direct SFTP → HTTP gateway integrations.
+     * The upload is spooled to a temp file and parsed from a memory mapping rather than
+     * being decoded into a String, so multi-GB interchanges do not need a matching heap.
      */
     @PostMapping("/ingest/upload")
-    public ResponseEntity<ProcessingResponse> ingestFile(
+    public ResponseEntity<Object> ingestFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("retailerId") String retailerId,
             @RequestHeader(value = "Authorization", required = false) String authHeader) throws IOException {
 
-        String content = new String(file.getBytes(), StandardCharsets.UTF_8);
         String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "upload.edi";
 
         log.info("[API] EDI file upload — retailer={} file={} size={} bytes", retailerId, fileName, file.getSize());
 
         Long sellerId = extractSellerId(authHeader);
+        Optional<AdmissionControl.Permit> permit = admissionControl.tryAdmit(sellerId, file.getSize());
+        if (permit.isEmpty()) {
+            return tooManyRequests();
+        }
+
         String correlationId = UUID.randomUUID().toString();
-        orchestrationService.processAsync(correlationId, retailerId, content, fileName, sellerId);
+        try {
+            Path spooled = Files.createTempFile("nexaedi-upload-", ".edi");
+            file.transferTo(spooled);
+            orchestrationService.processFileAsync(correlationId, retailerId, spooled, fileName, sellerId)
+                    .whenComplete((result, error) -> permit.get().close());
+        } catch (IOException | RuntimeException e) {
+            permit.get().close();
+            throw e;
+        }
 
         return ResponseEntity.accepted().body(buildResponse(correlationId, retailerId));
     }
 
+    /**
+     * Load shedding: the node already holds as many files or bytes as it is configured to.
+     */
+    private ResponseEntity<Object> tooManyRequests() {
+        long retryAfter = admissionControl.getRetryAfterSeconds();
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of("error", "Too many EDI files in flight. Retry after " + retryAfter + " seconds."));
+    }
+
     private Long extractSellerId(String authHeader) {
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
@@ -86,11 +139,13 @@ public class EdiIngestionController {
 
     /**
      * Retrieves the full audit trail for a specific processing run.
-     * Clients poll this endpoint to track the lifecycle of a submitted file.
+     * Clients poll this endpoint to track the lifecycle of a submitted file; for an interchange
+     * the rows of every transaction set it was split into are included.
      */
     @GetMapping("/audit/{correlationId}")
     public ResponseEntity<List<EdiAuditLog>> getAuditTrail(@PathVariable String correlationId) {
-        List<EdiAuditLog> logs = auditLogRepository.findByCorrelationIdOrderByCreatedAtAsc(correlationId);
+        List<EdiAuditLog> logs = auditLogRepository
+                .findByCorrelationIdOrParentCorrelationIdOrderByCreatedAtAsc(correlationId, correlationId);
         if (logs.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
@@ -98,19 +153,58 @@ public class EdiIngestionController {
     }
 
     /**
-     * Health summary: counts of files by status. Useful for operational dashboards.
+     * Searches the audit trail, newest first. Every filter is optional; {@code from} is inclusive
+     * and {@code to} exclusive. Pass the returned {@code nextCursor} back as {@code cursor} for
+     * the next page.
+     */
+    @GetMapping("/audit")
+    public ResponseEntity<Object> searchAudit(
+            @RequestParam(required = false) String retailerId,
+            @RequestParam(required = false) EdiProcessingStatus status,
+            @RequestParam(required = false) String poNumber,
+            @RequestParam(required = false) String transactionSet,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        AuditSearchService.Filter filter =
+                new AuditSearchService.Filter(retailerId, status, poNumber, transactionSet, from, to);
+        try {
+            return ResponseEntity.ok(auditSearchService.search(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Health summary: counts of files by status, optionally for one retailer. Useful for
+     * operational dashboards. Served from in-memory counters, so it never queries the audit table.
      */
     @GetMapping("/status/summary")
-    public ResponseEntity<Object> getStatusSummary() {
-        return ResponseEntity.ok(java.util.Map.of(
-                "received",     auditLogRepository.countByStatus(com.nexaedi.core.model.EdiProcessingStatus.RECEIVED),
-                "parsed",       auditLogRepository.countByStatus(com.nexaedi.core.model.EdiProcessingStatus.PARSED),
-                "transmitted",  auditLogRepository.countByStatus(com.nexaedi.core.model.EdiProcessingStatus.TRANSMITTED),
-                "acknowledged", auditLogRepository.countByStatus(com.nexaedi.core.model.EdiProcessingStatus.ACKNOWLEDGED),
-                "failed",       auditLogRepository.countByStatus(com.nexaedi.core.model.EdiProcessingStatus.FAILED)
+    public ResponseEntity<Object> getStatusSummary(@RequestParam(required = false) String retailerId) {
+        Map<EdiProcessingStatus, Long> totals = retailerId != null
+                ? auditCounters.statusTotals(retailerId)
+                : auditCounters.statusTotals();
+        return ResponseEntity.ok(Map.of(
+                "received",     totals.get(EdiProcessingStatus.RECEIVED),
+                "parsed",       totals.get(EdiProcessingStatus.PARSED),
+                "transmitted",  totals.get(EdiProcessingStatus.TRANSMITTED),
+                "acknowledged", totals.get(EdiProcessingStatus.ACKNOWLEDGED),
+                "failed",       totals.get(EdiProcessingStatus.FAILED),
+                "duplicate",    totals.get(EdiProcessingStatus.DUPLICATE)
         ));
     }
 
+    /**
+     * Queue depth and busy workers for each pipeline stage. A stage whose queue stays near
+     * capacity is the current bottleneck. Also published as the
+     * {@code nexaedi.pipeline.queue.depth} gauge on /actuator/metrics.
+     */
+    @GetMapping("/pipeline/stages")
+    public ResponseEntity<List<PipelineStage.Snapshot>> getPipelineStages() {
+        return ResponseEntity.ok(orchestrationService.getStageSnapshots());
+    }
+
     private ProcessingResponse buildResponse(String correlationId, String retailerId) {
         return ProcessingResponse.builder()
                 .correlationId(correlationId)
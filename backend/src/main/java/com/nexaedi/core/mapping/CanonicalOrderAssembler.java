@@ -0,0 +1,122 @@
+package com.nexaedi.core.mapping;
+
+import com.nexaedi.core.model.CanonicalOrder;
+import com.nexaedi.core.model.CanonicalOrderLine;
+import com.nexaedi.core.model.X12Segment;
+import com.nexaedi.core.parser.EdiParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-pass mapping engine: segments are pushed in transaction order via {@link #accept}, each
+ * is dispatched to the {@link CompiledMappingPlan} steps registered for its segment ID, and the
+ * header and current line builders are filled as they arrive. No segment is looked up twice and
+ * the transaction never has to be complete, so this also works on segments that are still being
+ * streamed.
+ *
+ * Semantics match the original per-rule lookups:
+ *  - a header step fires on the first segment of its ID that satisfies its qualifier;
+ *  - every {@value CompiledMappingPlan#LINE_SEGMENT_ID} opens a new line; line steps for other
+ *    segment IDs fire on the first such segment inside that line's loop;
+ *  - required steps that never fired are reported when the line closes or in {@link #finish()}.
+ *
+ * Not thread-safe; one assembler per transaction.
+ */
+public class CanonicalOrderAssembler {
+
+    private final CompiledMappingPlan plan;
+    private final CanonicalOrder.CanonicalOrderBuilder header;
+    private final boolean[] headerApplied;
+
+    private final List<CanonicalOrderLine> lines = new ArrayList<>();
+    private final boolean[] lineApplied;
+    private CanonicalOrderLine.CanonicalOrderLineBuilder currentLine;
+
+    /**
+     * @param header builder already holding the non-mapped fields (correlation ID, retailer, ...)
+     */
+    public CanonicalOrderAssembler(CompiledMappingPlan plan, CanonicalOrder.CanonicalOrderBuilder header) {
+        this.plan = plan;
+        this.header = header;
+        this.headerApplied = new boolean[plan.headerSteps().size()];
+        this.lineApplied = new boolean[plan.lineSteps().size()];
+    }
+
+    public void accept(X12Segment segment) {
+        CompiledMappingPlan.SegmentDispatch dispatch = plan.dispatch(segment.getSegmentId());
+
+        if (CompiledMappingPlan.LINE_SEGMENT_ID.equals(segment.getSegmentId())) {
+            closeLine();
+            currentLine = CanonicalOrderLine.builder().lineSequenceNumber(lines.size() + 1);
+        }
+
+        for (CompiledMappingPlan.HeaderStep step : dispatch.headerSteps()) {
+            if (!headerApplied[step.index()] && step.matches(segment)) {
+                headerApplied[step.index()] = true;
+                applyHeaderStep(step, segment);
+            }
+        }
+
+        if (currentLine != null) {
+            for (CompiledMappingPlan.LineStep step : dispatch.lineSteps()) {
+                if (!lineApplied[step.index()]) {
+                    lineApplied[step.index()] = true;
+                    applyLineStep(step, segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the last line, checks for required segments that never arrived and builds the order.
+     */
+    public CanonicalOrder finish() {
+        closeLine();
+        for (CompiledMappingPlan.HeaderStep step : plan.headerSteps()) {
+            if (!headerApplied[step.index()] && step.required()) {
+                throw new EdiParseException(step.missingSegmentMessage(), step.segmentId(), 0);
+            }
+        }
+        return header.lines(lines).build();
+    }
+
+    private void applyHeaderStep(CompiledMappingPlan.HeaderStep step, X12Segment segment) {
+        String value = segment.getElement(step.elementPosition());
+        if ((value == null || value.isBlank()) && step.defaultValue() != null) {
+            value = step.defaultValue();
+        }
+        if ((value == null || value.isBlank()) && step.required()) {
+            throw new EdiParseException(step.emptyElementMessage(), step.segmentId(), segment.getLineNumber());
+        }
+        step.setter().apply(header, value, segment);
+    }
+
+    private void applyLineStep(CompiledMappingPlan.LineStep step, X12Segment segment) {
+        String value = segment.getElement(step.elementPosition());
+        if ((value == null || value.isBlank()) && step.defaultValue() != null) {
+            value = step.defaultValue();
+        }
+        if ((value == null || value.isBlank()) && step.required()) {
+            throw new EdiParseException(step.emptyElementMessagePrefix() + (lines.size() + 1),
+                    step.segmentId(), segment.getLineNumber());
+        }
+        step.setter().apply(currentLine, value, segment);
+    }
+
+    private void closeLine() {
+        if (currentLine == null) {
+            return;
+        }
+        for (CompiledMappingPlan.LineStep step : plan.lineSteps()) {
+            if (!lineApplied[step.index()] && step.required()) {
+                throw new EdiParseException(step.missingSegmentMessagePrefix() + (lines.size() + 1),
+                        step.segmentId(), 0);
+            }
+        }
+        lines.add(currentLine.build());
+        currentLine = null;
+        Arrays.fill(lineApplied, false);
+    }
+}
@@ -0,0 +1,240 @@
+package com.nexaedi.core.mapping;
+
+import com.nexaedi.core.model.CanonicalOrder;
+import com.nexaedi.core.model.CanonicalOrderLine;
+import com.nexaedi.core.model.X12Segment;
+import com.nexaedi.core.parser.EdiParseException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable execution plan compiled from a {@link MappingProfile}.
+ *
+ * Everything that used to be interpreted per transaction is resolved once at compile time:
+ * qualifiers are parsed into (position, value), target field names are bound to builder setters,
+ * defaults are normalized and error messages are pre-formatted.
+ *
+ * Steps are also indexed by segment ID into a dispatch table, so a {@link CanonicalOrderAssembler}
+ * can map a transaction in one pass over its segments: each segment is handed only to the steps
+ * registered for its ID.
+ */
+@Slf4j
+public final class CompiledMappingPlan {
+
+    /**
+     * The repeating loop that produces one {@link CanonicalOrderLine} per occurrence.
+     */
+    static final String LINE_SEGMENT_ID = "PO1";
+
+    private static final DateTimeFormatter EDI_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final Map<String, FieldSetter<CanonicalOrder.CanonicalOrderBuilder>> HEADER_SETTERS = Map.of(
+            "poNumber",              (b, v, s) -> b.poNumber(v),
+            "purchaseOrderType",     (b, v, s) -> b.purchaseOrderType(v),
+            "poDate",                (b, v, s) -> b.poDate(parseDate(v, s)),
+            "requestedDeliveryDate", (b, v, s) -> b.requestedDeliveryDate(parseDate(v, s)),
+            "shipToName",            (b, v, s) -> b.shipToName(v),
+            "shipToAddress",         (b, v, s) -> b.shipToAddress(v),
+            "shipToCity",            (b, v, s) -> b.shipToCity(v),
+            "shipToState",           (b, v, s) -> b.shipToState(v),
+            "shipToZip",             (b, v, s) -> b.shipToZip(v),
+            "departmentNumber",      (b, v, s) -> b.departmentNumber(v));
+
+    private static final Map<String, FieldSetter<CanonicalOrderLine.CanonicalOrderLineBuilder>> LINE_SETTERS = Map.of(
+            "quantityOrdered",    (b, v, s) -> b.quantityOrdered(parseInt(v, s)),
+            "unitOfMeasure",      (b, v, s) -> b.unitOfMeasure(v),
+            "unitPrice",          (b, v, s) -> b.unitPrice(parseBigDecimal(v, s)),
+            "sku",                (b, v, s) -> b.sku(v),
+            "productDescription", (b, v, s) -> b.productDescription(v));
+
+    private static final SegmentDispatch NO_DISPATCH = new SegmentDispatch(List.of(), List.of());
+
+    private final List<HeaderStep> headerSteps;
+    private final List<LineStep> lineSteps;
+    private final Map<String, SegmentDispatch> dispatchTable;
+
+    private CompiledMappingPlan(List<HeaderStep> headerSteps, List<LineStep> lineSteps) {
+        this.headerSteps = headerSteps;
+        this.lineSteps = lineSteps;
+        this.dispatchTable = buildDispatchTable(headerSteps, lineSteps);
+    }
+
+    /**
+     * Compiles {@code profile}. Unknown target fields are reported once here and compiled to
+     * no-op setters, so their required-segment / required-element checks still apply.
+     */
+    public static CompiledMappingPlan compile(MappingProfile profile) {
+        List<MappingRule> headerRules = profile.getHeaderMappings() == null ? List.of() : profile.getHeaderMappings();
+        List<MappingRule> lineRules = profile.getLineMappings() == null ? List.of() : profile.getLineMappings();
+
+        List<HeaderStep> headerSteps = new ArrayList<>(headerRules.size());
+        for (int i = 0; i < headerRules.size(); i++) {
+            headerSteps.add(compileHeaderStep(i, headerRules.get(i)));
+        }
+        List<LineStep> lineSteps = new ArrayList<>(lineRules.size());
+        for (int i = 0; i < lineRules.size(); i++) {
+            lineSteps.add(compileLineStep(i, lineRules.get(i)));
+        }
+        return new CompiledMappingPlan(List.copyOf(headerSteps), List.copyOf(lineSteps));
+    }
+
+    public List<HeaderStep> headerSteps() {
+        return headerSteps;
+    }
+
+    public List<LineStep> lineSteps() {
+        return lineSteps;
+    }
+
+    /**
+     * Steps interested in segments with this ID; empty for segments no rule refers to.
+     */
+    public SegmentDispatch dispatch(String segmentId) {
+        return dispatchTable.getOrDefault(segmentId, NO_DISPATCH);
+    }
+
+    private static Map<String, SegmentDispatch> buildDispatchTable(List<HeaderStep> headerSteps,
+                                                                   List<LineStep> lineSteps) {
+        Map<String, List<HeaderStep>> headerById = new HashMap<>();
+        Map<String, List<LineStep>> lineById = new HashMap<>();
+        headerSteps.forEach(step -> headerById.computeIfAbsent(step.segmentId(), id -> new ArrayList<>()).add(step));
+        lineSteps.forEach(step -> lineById.computeIfAbsent(step.segmentId(), id -> new ArrayList<>()).add(step));
+
+        Set<String> segmentIds = new HashSet<>(headerById.keySet());
+        segmentIds.addAll(lineById.keySet());
+        segmentIds.add(LINE_SEGMENT_ID);
+
+        Map<String, SegmentDispatch> table = new HashMap<>();
+        for (String segmentId : segmentIds) {
+            table.put(segmentId, new SegmentDispatch(
+                    List.copyOf(headerById.getOrDefault(segmentId, List.of())),
+                    List.copyOf(lineById.getOrDefault(segmentId, List.of()))));
+        }
+        return Map.copyOf(table);
+    }
+
+    private static HeaderStep compileHeaderStep(int index, MappingRule rule) {
+        String segmentId = rule.getSegmentId();
+        int qualifierPosition = 0;
+        String qualifierValue = null;
+
+        String qualifier = rule.getQualifier();
+        if (qualifier != null && !qualifier.isBlank()) {
+            String[] qualifierParts = qualifier.split(":");
+            if (qualifierParts.length == 2) {
+                qualifierPosition = Integer.parseInt(qualifierParts[0]);
+                qualifierValue = qualifierParts[1];
+            }
+        }
+
+        FieldSetter<CanonicalOrder.CanonicalOrderBuilder> setter = HEADER_SETTERS.get(rule.getTargetField());
+        if (setter == null) {
+            log.warn("Unknown header target field '{}' in mapping profile — skipping", rule.getTargetField());
+            setter = (b, v, s) -> { };
+        }
+
+        return new HeaderStep(
+                index, segmentId, qualifierPosition, qualifierValue,
+                rule.getElementPosition(), rule.isRequired(), rule.getDefaultValue(), setter,
+                "Required segment '" + segmentId + "' not found in transaction",
+                String.format("Required element %s%02d is empty", segmentId, rule.getElementPosition()));
+    }
+
+    private static LineStep compileLineStep(int index, MappingRule rule) {
+        String segmentId = rule.getSegmentId() == null || rule.getSegmentId().isBlank()
+                ? LINE_SEGMENT_ID : rule.getSegmentId();
+        FieldSetter<CanonicalOrderLine.CanonicalOrderLineBuilder> setter = LINE_SETTERS.get(rule.getTargetField());
+        if (setter == null) {
+            log.warn("Unknown line-level target field '{}' in mapping profile — skipping", rule.getTargetField());
+            setter = (b, v, s) -> { };
+        }
+
+        return new LineStep(
+                index, segmentId, rule.getElementPosition(), rule.isRequired(), rule.getDefaultValue(), setter,
+                "Required line-level segment '" + segmentId + "' not found on line sequence ",
+                String.format("Required line-level element %s%02d is empty on line sequence ",
+                        segmentId, rule.getElementPosition()));
+    }
+
+    /**
+     * Binds a decoded element value to a builder; the segment is passed for error reporting.
+     */
+    @FunctionalInterface
+    public interface FieldSetter<B> {
+        void apply(B builder, String value, X12Segment segment);
+    }
+
+    /**
+     * One header-level rule with its qualifier pre-parsed (position 0 means unqualified).
+     * It applies to the first segment of its ID that satisfies the qualifier.
+     *
+     * @param index position of the rule in the profile, used to track which steps have fired
+     */
+    public record HeaderStep(int index, String segmentId, int qualifierPosition, String qualifierValue,
+                             int elementPosition, boolean required, String defaultValue,
+                             FieldSetter<CanonicalOrder.CanonicalOrderBuilder> setter,
+                             String missingSegmentMessage, String emptyElementMessage) {
+
+        public boolean matches(X12Segment segment) {
+            return qualifierValue == null || qualifierValue.equalsIgnoreCase(segment.getElement(qualifierPosition));
+        }
+    }
+
+    /**
+     * One line-level rule. It reads the {@value #LINE_SEGMENT_ID} that opens a line, or the first
+     * segment of its ID inside that line's loop. Error messages only need the line sequence appended.
+     */
+    public record LineStep(int index, String segmentId, int elementPosition, boolean required, String defaultValue,
+                           FieldSetter<CanonicalOrderLine.CanonicalOrderLineBuilder> setter,
+                           String missingSegmentMessagePrefix, String emptyElementMessagePrefix) {
+    }
+
+    /**
+     * Dispatch table entry for one segment ID.
+     */
+    public record SegmentDispatch(List<HeaderStep> headerSteps, List<LineStep> lineSteps) {
+    }
+
+    private static LocalDate parseDate(String value, X12Segment segment) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value, EDI_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new EdiParseException(
+                    "Invalid date format '" + value + "' — expected yyyyMMdd",
+                    segment.getSegmentId(), segment.getLineNumber(), e);
+        }
+    }
+
+    private static Integer parseInt(String value, X12Segment segment) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new EdiParseException(
+                    "Expected integer but got '" + value + "'",
+                    segment.getSegmentId(), segment.getLineNumber(), e);
+        }
+    }
+
+    private static BigDecimal parseBigDecimal(String value, X12Segment segment) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new EdiParseException(
+                    "Expected decimal number but got '" + value + "'",
+                    segment.getSegmentId(), segment.getLineNumber(), e);
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.nexaedi.core.mapping;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.List;
 
@@ -51,4 +57,35 @@ public class MappingProfile {
      * All field-level mapping rules for line-item (PO1 loop) CDM fields.
      */
     private List<MappingRule> lineMappings;
+
+    /**
+     * Execution plan compiled from the rules above. Built by {@link MappingRegistry} at load time;
+     * profiles are treated as immutable once registered.
+     */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile CompiledMappingPlan compiledPlan;
+
+    /**
+     * Returns the compiled plan, compiling on first use for profiles built outside the registry.
+     */
+    public CompiledMappingPlan compiledPlan() {
+        CompiledMappingPlan plan = compiledPlan;
+        if (plan == null) {
+            plan = compile();
+        }
+        return plan;
+    }
+
+    /**
+     * (Re)compiles the plan from the current rules.
+     */
+    public CompiledMappingPlan compile() {
+        CompiledMappingPlan plan = CompiledMappingPlan.compile(this);
+        compiledPlan = plan;
+        return plan;
+    }
 }
@@ -2,17 +2,43 @@ package com.nexaedi.core.mapping;
 
 import tools.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
+/**
+ * Holds the active {@link MappingProfile}s, keyed by RETAILER:transactionSet.
+ *
+ * Profiles bundled under {@code classpath:/mappings/} are loaded first; profiles in
+ * {@code nexaedi.mappings.directory} are layered on top and override bundled ones with the same key.
+ * When {@code nexaedi.mappings.watch} is enabled the directory is watched with a {@link WatchService}:
+ * only the changed file is re-parsed and compiled, and the profile map is replaced copy-on-write,
+ * so a pipeline that already looked up a profile keeps using a consistent snapshot.
+ *
+ * A file that fails to parse is logged and ignored; the previously loaded version stays active.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
@@ -20,10 +46,92 @@ public class MappingRegistry {
 
     private final ObjectMapper objectMapper;
 
-    private final Map<String, MappingProfile> profiles = new ConcurrentHashMap<>();
+    @Value("${nexaedi.mappings.directory:}")
+    private String mappingsDirectory;
+
+    @Value("${nexaedi.mappings.watch:true}")
+    private boolean watchEnabled;
+
+    /**
+     * Immutable snapshot; every change publishes a new map.
+     */
+    private volatile Map<String, MappingProfile> profiles = Map.of();
+
+    /**
+     * Upper-cased retailer IDs of {@link #profiles}, published together with it.
+     */
+    private volatile Set<String> retailerIds = Set.of();
+
+    private final Map<String, MappingProfile> classpathProfiles = new HashMap<>();
+    private final Map<Path, String> directoryKeys = new HashMap<>();
+
+    private WatchService watchService;
+    private Thread watcherThread;
 
     @PostConstruct
     public void loadMappings() {
+        synchronized (this) {
+            classpathProfiles.clear();
+            directoryKeys.clear();
+            loadClasspathMappings();
+
+            Map<String, MappingProfile> loaded = new HashMap<>(classpathProfiles);
+            Path directory = resolveDirectory();
+            if (directory != null) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+                    for (Path file : files) {
+                        MappingProfile profile = readProfile(file);
+                        if (profile != null) {
+                            String key = buildKey(profile.getRetailerId(), profile.getTransactionSetCode());
+                            loaded.put(key, profile);
+                            directoryKeys.put(file.getFileName(), key);
+                        }
+                    }
+                } catch (IOException e) {
+                    log.error("Failed to scan mappings directory {}", directory, e);
+                }
+            }
+            publish(loaded);
+        }
+
+        log.info("MappingRegistry initialized with {} profile(s)",
+                profiles.size());
+
+        if (watchEnabled) {
+            startWatching();
+        }
+    }
+
+    @PreDestroy
+    public void stopWatching() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("Failed closing mapping directory watcher: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Optional<MappingProfile> find(String retailerId,
+                                         String transactionSetCode) {
+        return Optional.ofNullable(
+                profiles.get(buildKey(retailerId, transactionSetCode))
+        );
+    }
+
+    public Map<String, MappingProfile> getAllProfiles() {
+        return profiles;
+    }
+
+    /**
+     * True if at least one active profile belongs to {@code retailerId}, ignoring case.
+     */
+    public boolean isKnownRetailer(String retailerId) {
+        return retailerId != null && retailerIds.contains(retailerId.toUpperCase(Locale.ROOT));
+    }
+
+    private void loadClasspathMappings() {
         try {
             PathMatchingResourcePatternResolver resolver =
                     new PathMatchingResourcePatternResolver();
@@ -41,13 +149,14 @@ public class MappingRegistry {
 
                     MappingProfile profile =
                             objectMapper.readValue(is, MappingProfile.class);
+                    profile.compile();
 
                     String key = buildKey(
                             profile.getRetailerId(),
                             profile.getTransactionSetCode()
                     );
 
-                    profiles.put(key, profile);
+                    classpathProfiles.put(key, profile);
 
                     log.info("Loaded mapping profile: {} v{}",
                             key, profile.getVersion());
@@ -58,27 +167,136 @@ public class MappingRegistry {
                 }
             }
 
-            log.info("MappingRegistry initialized with {} profile(s)",
-                    profiles.size());
-
         } catch (Exception e) {
             log.error("Failed to scan classpath mappings directory", e);
         }
     }
 
-    public Optional<MappingProfile> find(String retailerId,
-                                         String transactionSetCode) {
-        return Optional.ofNullable(
-                profiles.get(buildKey(retailerId, transactionSetCode))
-        );
+    /**
+     * Parses and compiles one profile file, or returns null if it cannot be loaded.
+     */
+    private MappingProfile readProfile(Path file) {
+        try (InputStream is = Files.newInputStream(file)) {
+            MappingProfile profile = objectMapper.readValue(is, MappingProfile.class);
+            profile.compile();
+            log.info("Loaded mapping profile: {} v{} from {}",
+                    buildKey(profile.getRetailerId(), profile.getTransactionSetCode()),
+                    profile.getVersion(), file);
+            return profile;
+        } catch (Exception e) {
+            log.error("Failed loading mapping from {}: {}", file, e.getMessage());
+            return null;
+        }
     }
 
-    public Map<String, MappingProfile> getAllProfiles() {
-        return Map.copyOf(profiles);
+    private Path resolveDirectory() {
+        if (mappingsDirectory == null || mappingsDirectory.isBlank()) {
+            return null;
+        }
+        Path directory = Paths.get(mappingsDirectory).toAbsolutePath();
+        if (!Files.isDirectory(directory)) {
+            log.info("Mappings directory {} does not exist — using bundled profiles only", directory);
+            return null;
+        }
+        return directory;
+    }
+
+    private synchronized void startWatching() {
+        Path directory = resolveDirectory();
+        if (directory == null || watcherThread != null) {
+            return;
+        }
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            log.error("Failed to watch mappings directory {} — hot reload disabled", directory, e);
+            return;
+        }
+        watcherThread = Thread.ofVirtual()
+                .name("mapping-profile-watcher")
+                .start(() -> watch(directory));
+        log.info("Watching {} for mapping profile changes", directory);
+    }
+
+    private void watch(Path directory) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        loadMappings();
+                        continue;
+                    }
+                    Path fileName = (Path) event.context();
+                    if (fileName.toString().endsWith(".json")) {
+                        reload(directory.resolve(fileName), event.kind() == StandardWatchEventKinds.ENTRY_DELETE);
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Mappings directory {} is no longer accessible — hot reload stopped", directory);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Re-reads a single profile file and publishes a new snapshot. A deleted file falls back to
+     * the bundled profile with the same key, if there is one.
+     */
+    private synchronized void reload(Path file, boolean deleted) {
+        Map<String, MappingProfile> next = new HashMap<>(profiles);
+        String previousKey = directoryKeys.remove(file.getFileName());
+        if (previousKey != null) {
+            restoreBundled(next, previousKey);
+        }
+
+        if (!deleted && Files.exists(file)) {
+            MappingProfile profile = readProfile(file);
+            if (profile == null) {
+                if (previousKey != null) {
+                    directoryKeys.put(file.getFileName(), previousKey);
+                }
+                return;
+            }
+            String key = buildKey(profile.getRetailerId(), profile.getTransactionSetCode());
+            next.put(key, profile);
+            directoryKeys.put(file.getFileName(), key);
+        } else {
+            log.info("Mapping profile file {} removed", file);
+        }
+
+        publish(next);
+    }
+
+    private void publish(Map<String, MappingProfile> next) {
+        Set<String> retailers = new HashSet<>();
+        for (MappingProfile profile : next.values()) {
+            retailers.add(profile.getRetailerId().toUpperCase(Locale.ROOT));
+        }
+        profiles = Map.copyOf(next);
+        retailerIds = Set.copyOf(retailers);
+    }
+
+    private void restoreBundled(Map<String, MappingProfile> target, String key) {
+        MappingProfile bundled = classpathProfiles.get(key);
+        if (bundled != null) {
+            target.put(key, bundled);
+        } else {
+            target.remove(key);
+        }
     }
 
     private String buildKey(String retailerId,
                             String transactionSetCode) {
         return retailerId.toUpperCase() + ":" + transactionSetCode;
     }
-}
\ No newline at end of file
+}
@@ -33,5 +33,18 @@ public enum EdiProcessingStatus {
     /**
      * Processing failed at some stage; a .error file exists in the Dead Letter Queue.
      */
-    FAILED
+    FAILED,
+
+    /**
+     * The interchange (sender + ISA13) or purchase order (retailer + BEG03) was already processed
+     * under another correlation ID; nothing was mapped or transmitted.
+     */
+    DUPLICATE,
+
+    /**
+     * Every transaction set of an interchange has finished; the interchange-level summary row, with
+     * the per-transaction outcomes in its message. Kept apart from the transaction-set statuses so
+     * an interchange is not counted again on top of its own transaction sets.
+     */
+    COMPLETED
 }
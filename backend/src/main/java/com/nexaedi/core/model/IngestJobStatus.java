@@ -0,0 +1,28 @@
+package com.nexaedi.core.model;
+
+/**
+ * Ownership state of a durable ingest job. Progress through the pipeline itself is tracked
+ * separately as the last completed {@link EdiProcessingStatus}.
+ */
+public enum IngestJobStatus {
+
+    /**
+     * Accepted and durable; waiting for any node to claim it.
+     */
+    QUEUED,
+
+    /**
+     * Leased by one node. If the lease expires, the job is claimable again.
+     */
+    CLAIMED,
+
+    /**
+     * Every transaction set reached a final outcome.
+     */
+    COMPLETED,
+
+    /**
+     * The interchange itself could not be processed, or the job ran out of attempts.
+     */
+    FAILED
+}
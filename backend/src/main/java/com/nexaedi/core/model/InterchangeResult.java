@@ -0,0 +1,77 @@
+package com.nexaedi.core.model;
+
+import java.util.List;
+
+/**
+ * Aggregate outcome of one inbound interchange whose transaction sets were processed as
+ * independent units. Each unit carries its own child correlation ID; the interchange keeps the
+ * correlation ID returned to the client at ingest time.
+ *
+ * @param duplicateOf correlation ID that already processed this interchange, in which case no
+ *                    transaction set was run; null otherwise
+ */
+public record InterchangeResult(String correlationId, String interchangeControlNumber,
+                                List<TransactionResult> transactions, String duplicateOf) {
+
+    public InterchangeResult(String correlationId, String interchangeControlNumber,
+                             List<TransactionResult> transactions) {
+        this(correlationId, interchangeControlNumber, transactions, null);
+    }
+
+    public static InterchangeResult duplicate(String correlationId, String interchangeControlNumber,
+                                              String duplicateOf) {
+        return new InterchangeResult(correlationId, interchangeControlNumber, List.of(), duplicateOf);
+    }
+
+    public boolean duplicate() {
+        return duplicateOf != null;
+    }
+
+    public long succeeded() {
+        return transactions.stream().filter(TransactionResult::succeeded).count();
+    }
+
+    public long duplicates() {
+        return transactions.stream().filter(TransactionResult::duplicate).count();
+    }
+
+    public long failed() {
+        return transactions.size() - succeeded() - duplicates();
+    }
+
+    public boolean allSucceeded() {
+        return failed() == 0;
+    }
+
+    /**
+     * Outcome of one ST...SE unit.
+     *
+     * @param poNumber    null if the transaction failed before it was mapped
+     * @param error       null unless the transaction failed
+     * @param duplicateOf correlation ID of the transaction set that already carried this PO; null
+     *                    unless the transaction was skipped as a duplicate
+     */
+    public record TransactionResult(String correlationId, String transactionControlNumber,
+                                    String poNumber, boolean succeeded, String error, String duplicateOf) {
+
+        public static TransactionResult success(String correlationId, String transactionControlNumber,
+                                                String poNumber) {
+            return new TransactionResult(correlationId, transactionControlNumber, poNumber, true, null, null);
+        }
+
+        public static TransactionResult failure(String correlationId, String transactionControlNumber,
+                                                String error) {
+            return new TransactionResult(correlationId, transactionControlNumber, null, false, error, null);
+        }
+
+        public static TransactionResult duplicate(String correlationId, String transactionControlNumber,
+                                                  String poNumber, String duplicateOf) {
+            return new TransactionResult(correlationId, transactionControlNumber, poNumber, false, null,
+                    duplicateOf);
+        }
+
+        public boolean duplicate() {
+            return duplicateOf != null;
+        }
+    }
+}
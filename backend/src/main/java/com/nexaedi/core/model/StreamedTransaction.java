@@ -0,0 +1,12 @@
+package com.nexaedi.core.model;
+
+/**
+ * A single transaction set handed out by the streaming parser, together with the envelope
+ * it arrived in.
+ *
+ * The interchange and group carry their header fields only: the streaming parser never adds
+ * groups or transactions to them, so memory stays bounded by the largest single transaction
+ * set rather than the whole file.
+ */
+public record StreamedTransaction(X12Interchange interchange, X12Group group, X12Transaction transaction) {
+}
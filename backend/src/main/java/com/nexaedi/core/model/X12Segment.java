@@ -1,39 +1,134 @@
 package com.nexaedi.core.model;
 
-import lombok.Getter;
-
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Represents a single parsed X12 segment, e.g. "BEG*00*SA*PO-12345**20260101"
  * Segment ID is the first element (index 0); data elements follow from index 1.
+ *
+ * Elements are decoded lazily: the segment keeps a reference to the raw bytes plus the offsets
+ * of its element delimiters, and a String is only created when an element is first read. Mappers
+ * touch a handful of elements per segment, so most of a 25-element PO1 is never decoded.
+ * Decoded values are cached; concurrent readers may at worst decode the same element twice.
+ *
+ * A segment keeps the buffer it was tokenized from reachable for as long as the segment lives.
  */
-@Getter
 public class X12Segment {
 
     private final String segmentId;
-    private final List<String> elements;
+    private final ByteBuffer content;
+    private final int[] delimiterOffsets;
+    private final int segmentEnd;
     private final int lineNumber;
+    private String[] decoded;
 
     public X12Segment(String rawSegment, char elementDelimiter, int lineNumber) {
-        String[] parts = rawSegment.split(java.util.regex.Pattern.quote(String.valueOf(elementDelimiter)), -1);
-        this.segmentId = parts[0].trim();
-        this.elements = Collections.unmodifiableList(Arrays.asList(parts).subList(1, parts.length));
+        byte[] bytes = rawSegment.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        int[] offsets = new int[8];
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == elementDelimiter) {
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count++] = i;
+            }
+        }
+
+        this.content = ByteBuffer.wrap(bytes);
+        this.delimiterOffsets = Arrays.copyOf(offsets, count);
+        this.segmentEnd = bytes.length;
+        this.segmentId = decode(content, 0, count > 0 ? offsets[0] : bytes.length).trim();
         this.lineNumber = lineNumber;
     }
 
+    /**
+     * Creates a segment over a tokenized slice of {@code content} (see {@code X12Tokenizer}).
+     *
+     * @param delimiterOffsets absolute buffer offsets of the element delimiters, in order
+     * @param segmentEnd       absolute offset just past the last byte of the segment
+     */
+    public X12Segment(String segmentId, ByteBuffer content, int[] delimiterOffsets, int segmentEnd, int lineNumber) {
+        this.segmentId = segmentId;
+        this.content = content;
+        this.delimiterOffsets = delimiterOffsets;
+        this.segmentEnd = segmentEnd;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Creates a segment from elements that have already been decoded.
+     */
+    public X12Segment(String segmentId, List<String> elements, int lineNumber) {
+        this.segmentId = segmentId;
+        this.content = null;
+        this.delimiterOffsets = new int[elements.size()];
+        this.segmentEnd = 0;
+        this.lineNumber = lineNumber;
+        this.decoded = elements.toArray(new String[0]);
+    }
+
+    public String getSegmentId() {
+        return segmentId;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Number of data elements after the segment ID.
+     */
+    public int getElementCount() {
+        return delimiterOffsets.length;
+    }
+
     /**
      * Returns element at 1-based position (matching X12 notation: BEG03 = position 3).
      * Returns empty string if position is out of range.
      */
     public String getElement(int position) {
         int index = position - 1;
-        if (index < 0 || index >= elements.size()) {
+        if (index < 0 || index >= delimiterOffsets.length) {
             return "";
         }
-        return elements.get(index);
+        String[] cache = decoded;
+        if (cache == null) {
+            cache = new String[delimiterOffsets.length];
+            decoded = cache;
+        }
+        String value = cache[index];
+        if (value == null) {
+            int from = delimiterOffsets[index] + 1;
+            int to = index + 1 < delimiterOffsets.length ? delimiterOffsets[index + 1] : segmentEnd;
+            value = decode(content, from, to);
+            cache[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Read-only view of all data elements; each element is decoded on first access.
+     */
+    public List<String> getElements() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                if (index < 0 || index >= delimiterOffsets.length) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return getElement(index + 1);
+            }
+
+            @Override
+            public int size() {
+                return delimiterOffsets.length;
+            }
+        };
     }
 
     /**
@@ -45,6 +140,19 @@ public class X12Segment {
 
     @Override
     public String toString() {
-        return segmentId + "*" + String.join("*", elements);
+        return segmentId + "*" + String.join("*", getElements());
+    }
+
+    private static String decode(ByteBuffer content, int from, int to) {
+        int length = to - from;
+        if (length <= 0) {
+            return "";
+        }
+        if (content.hasArray()) {
+            return new String(content.array(), content.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        content.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
     }
 }
@@ -1,14 +1,21 @@
 package com.nexaedi.core.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents an X12 Transaction Set, bounded by ST...SE envelope segments.
  * Example: a single 850 Purchase Order transaction.
+ *
+ * Segments are indexed by segment ID as they are added, so {@link #findFirst} is O(1) and
+ * {@link #findAll} / qualified lookups are O(k) in the number of segments sharing that ID,
+ * instead of a scan of the whole transaction per lookup.
  */
 @Getter
 public class X12Transaction {
@@ -16,15 +23,19 @@ public class X12Transaction {
     private final String transactionSetCode;
     private final String controlNumber;
     private final List<X12Segment> segments;
+    @Getter(AccessLevel.NONE)
+    private final Map<String, List<X12Segment>> segmentsById;
 
     public X12Transaction(String transactionSetCode, String controlNumber) {
         this.transactionSetCode = transactionSetCode;
         this.controlNumber = controlNumber;
         this.segments = new ArrayList<>();
+        this.segmentsById = new HashMap<>();
     }
 
     public void addSegment(X12Segment segment) {
         segments.add(segment);
+        segmentsById.computeIfAbsent(segment.getSegmentId(), id -> new ArrayList<>()).add(segment);
     }
 
     public List<X12Segment> getSegments() {
@@ -35,18 +46,28 @@ public class X12Transaction {
      * Finds the first segment matching the given segment ID.
      */
     public X12Segment findFirst(String segmentId) {
-        return segments.stream()
-                .filter(s -> s.getSegmentId().equals(segmentId))
-                .findFirst()
-                .orElse(null);
+        List<X12Segment> matches = segmentsById.get(segmentId);
+        return matches == null ? null : matches.get(0);
     }
 
     /**
-     * Returns all segments matching the given segment ID (e.g., all PO1 line items).
+     * Finds the first segment with the given ID whose element at {@code qualifierPosition} equals
+     * {@code qualifierValue}, ignoring case (e.g. the N1 with N101 = "ST" for ship-to).
+     */
+    public X12Segment findFirst(String segmentId, int qualifierPosition, String qualifierValue) {
+        for (X12Segment segment : findAll(segmentId)) {
+            if (qualifierValue.equalsIgnoreCase(segment.getElement(qualifierPosition))) {
+                return segment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all segments matching the given segment ID (e.g., all PO1 line items), in transaction order.
      */
     public List<X12Segment> findAll(String segmentId) {
-        return segments.stream()
-                .filter(s -> s.getSegmentId().equals(segmentId))
-                .toList();
+        List<X12Segment> matches = segmentsById.get(segmentId);
+        return matches == null ? List.of() : Collections.unmodifiableList(matches);
     }
 }
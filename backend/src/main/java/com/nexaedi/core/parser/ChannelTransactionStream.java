@@ -0,0 +1,170 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * {@link X12TransactionStream} over a {@link ReadableByteChannel}.
+ *
+ * Bytes are read through a fixed-size window and copied one segment at a time into a small
+ * reusable buffer for tokenizing. The raw bytes of the open ST...SE transaction set are
+ * buffered until its SE arrives, so heap usage is bounded by the read window plus the
+ * largest single transaction set, independent of the interchange size.
+ */
+final class ChannelTransactionStream extends X12TransactionStream {
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 512;
+    private static final int INITIAL_TRANSACTION_CAPACITY = 16 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer window;
+    private boolean endOfInput;
+
+    private X12Delimiters delimiters;
+    private byte[] segment = new byte[INITIAL_SEGMENT_CAPACITY];
+    private int segmentLength;
+    private X12Tokenizer segmentTokenizer;
+    private int lineNumber;
+
+    private byte[] transactionBytes = new byte[INITIAL_TRANSACTION_CAPACITY];
+    private int transactionLength;
+    private int transactionStartLine;
+
+    ChannelTransactionStream(ReadableByteChannel channel, int windowSize) {
+        this.channel = channel;
+        this.window = ByteBuffer.allocate(Math.max(windowSize, X12Delimiters.ISA_LENGTH));
+        this.window.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    protected X12Delimiters delimiters() {
+        return delimiters;
+    }
+
+    @Override
+    protected X12Tokenizer nextSegment() {
+        if (delimiters == null) {
+            detectDelimiters();
+        }
+        while (readSegment()) {
+            segmentTokenizer.reset(0, segmentLength, lineNumber);
+            if (segmentTokenizer.next()) {
+                lineNumber = segmentTokenizer.lineNumber();
+                return segmentTokenizer;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void onTransactionStart(X12Tokenizer tokenizer, X12Transaction transaction) {
+        transactionLength = 0;
+        transactionStartLine = tokenizer.lineNumber();
+    }
+
+    @Override
+    protected void onBodySegment(X12Tokenizer tokenizer, X12Transaction transaction) {
+        int from = tokenizer.segmentStart();
+        int to = tokenizer.segmentEnd();
+        int needed = transactionLength + (to - from) + 1;
+        if (needed > transactionBytes.length) {
+            transactionBytes = Arrays.copyOf(transactionBytes, Math.max(needed, transactionBytes.length * 2));
+        }
+        System.arraycopy(segment, from, transactionBytes, transactionLength, to - from);
+        transactionLength += to - from;
+        transactionBytes[transactionLength++] = delimiters.segmentTerminator();
+    }
+
+    /**
+     * Tokenizes the buffered body from a private copy, so the handed-out segments stay valid
+     * after the buffer is reused for the next transaction set.
+     */
+    @Override
+    protected void onTransactionEnd(X12Transaction transaction) {
+        byte[] body = Arrays.copyOf(transactionBytes, transactionLength);
+        X12Tokenizer bodyTokenizer = new X12Tokenizer(
+                ByteBuffer.wrap(body), 0, body.length, delimiters, transactionStartLine);
+        while (bodyTokenizer.next()) {
+            transaction.addSegment(bodyTokenizer.toSegment());
+        }
+    }
+
+    /**
+     * Peeks at the first 106 bytes without consuming them; the ISA is then read as a normal segment.
+     */
+    private void detectDelimiters() {
+        while (window.remaining() < X12Delimiters.ISA_LENGTH && fill()) {
+            // keep reading until the full ISA header is buffered
+        }
+        if (isBlank(window)) {
+            throw new EdiParseException("EDI content is empty or null", X12Envelopes.ISA, 0);
+        }
+        delimiters = X12Delimiters.detect(window, window.position(), window.limit());
+        segmentTokenizer = new X12Tokenizer(ByteBuffer.wrap(segment), 0, 0, delimiters, 0);
+    }
+
+    /**
+     * Copies the next segment (terminator excluded) into {@link #segment}.
+     *
+     * @return false once the input is exhausted and no bytes remain
+     */
+    private boolean readSegment() {
+        segmentLength = 0;
+        boolean sawBytes = false;
+        while (true) {
+            if (!window.hasRemaining() && !fill()) {
+                return sawBytes;
+            }
+            sawBytes = true;
+            byte b = window.get();
+            if (delimiters.isTerminator(b)) {
+                return true;
+            }
+            if (segmentLength == segment.length) {
+                segment = Arrays.copyOf(segment, segment.length * 2);
+                segmentTokenizer = new X12Tokenizer(ByteBuffer.wrap(segment), 0, 0, delimiters, lineNumber);
+            }
+            segment[segmentLength++] = b;
+        }
+    }
+
+    private boolean fill() {
+        if (endOfInput) {
+            return false;
+        }
+        try {
+            window.compact();
+            int read = 0;
+            while (read == 0) {
+                read = channel.read(window);
+            }
+            window.flip();
+            if (read < 0) {
+                endOfInput = true;
+                return window.hasRemaining();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading EDI stream", e);
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer buffer) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (!X12Tokenizer.isWhitespace(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
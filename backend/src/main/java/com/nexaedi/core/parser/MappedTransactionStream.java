@@ -0,0 +1,136 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Transaction;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link X12TransactionStream} over a memory-mapped file.
+ *
+ * The file is mapped read-only with {@link FileChannel#map} and tokenized directly from the
+ * mapped pages — nothing is copied onto the heap except the element values that are decoded.
+ * A single mapping is limited to 2 GB, so larger files are mapped as consecutive regions whose
+ * boundaries are snapped back to the last segment terminator; no segment ever spans two regions.
+ *
+ * Mapped pages are released by the JVM when the buffers become unreachable, not on {@link #close()}.
+ */
+final class MappedTransactionStream extends X12TransactionStream {
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long maxRegionSize;
+
+    private X12Delimiters delimiters;
+    private MappedByteBuffer region;
+    private X12Tokenizer tokenizer;
+    private long nextRegionStart;
+    private int lineNumber;
+
+    MappedTransactionStream(FileChannel channel, long maxRegionSize) {
+        this.channel = channel;
+        this.maxRegionSize = maxRegionSize;
+        try {
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading EDI file size", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    protected X12Delimiters delimiters() {
+        return delimiters;
+    }
+
+    @Override
+    protected X12Tokenizer nextSegment() {
+        if (delimiters == null) {
+            mapFirstRegion();
+        }
+        while (true) {
+            if (tokenizer.next()) {
+                lineNumber = tokenizer.lineNumber();
+                return tokenizer;
+            }
+            if (nextRegionStart >= fileSize) {
+                return null;
+            }
+            mapRegion(nextRegionStart);
+        }
+    }
+
+    @Override
+    protected void onTransactionStart(X12Tokenizer tokenizer, X12Transaction transaction) {
+        // body segments are added as they are tokenized; nothing to buffer
+    }
+
+    @Override
+    protected void onBodySegment(X12Tokenizer tokenizer, X12Transaction transaction) {
+        transaction.addSegment(tokenizer.toSegment());
+    }
+
+    @Override
+    protected void onTransactionEnd(X12Transaction transaction) {
+        // already complete
+    }
+
+    private void mapFirstRegion() {
+        mapRegionBuffer(0);
+        int limit = region.limit();
+        boolean blank = true;
+        for (int i = 0; i < limit && blank; i++) {
+            blank = X12Tokenizer.isWhitespace(region.get(i));
+        }
+        if (blank) {
+            throw new EdiParseException("EDI content is empty or null", X12Envelopes.ISA, 0);
+        }
+        delimiters = X12Delimiters.detect(region, 0, limit);
+        tokenizer = new X12Tokenizer(region, 0, snapToTerminator(0), delimiters, 0);
+    }
+
+    private void mapRegion(long start) {
+        mapRegionBuffer(start);
+        tokenizer = new X12Tokenizer(region, 0, snapToTerminator(start), delimiters, lineNumber);
+    }
+
+    private void mapRegionBuffer(long start) {
+        long size = Math.min(maxRegionSize, fileSize - start);
+        try {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to memory-map EDI file at offset " + start, e);
+        }
+    }
+
+    /**
+     * Trims the current region to end just after its last segment terminator (unless it reaches
+     * end of file) and records where the next region starts.
+     *
+     * @return the usable limit of the region
+     */
+    private int snapToTerminator(long regionStart) {
+        int limit = region.limit();
+        if (regionStart + limit >= fileSize) {
+            nextRegionStart = fileSize;
+            return limit;
+        }
+        int end = limit;
+        while (end > 0 && !delimiters.isTerminator(region.get(end - 1))) {
+            end--;
+        }
+        if (end == 0) {
+            throw new EdiParseException(
+                    "Segment exceeds the maximum mapped region size of " + maxRegionSize + " bytes",
+                    "N/A", lineNumber + 1);
+        }
+        nextRegionStart = regionStart + end;
+        return end;
+    }
+}
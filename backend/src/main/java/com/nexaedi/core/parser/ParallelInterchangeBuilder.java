@@ -0,0 +1,163 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Group;
+import com.nexaedi.core.model.X12Interchange;
+import com.nexaedi.core.model.X12Transaction;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.nexaedi.core.parser.X12Envelopes.GE;
+import static com.nexaedi.core.parser.X12Envelopes.GS;
+import static com.nexaedi.core.parser.X12Envelopes.IEA;
+import static com.nexaedi.core.parser.X12Envelopes.ISA;
+import static com.nexaedi.core.parser.X12Envelopes.SE;
+import static com.nexaedi.core.parser.X12Envelopes.ST;
+
+/**
+ * Two-phase interchange builder that materializes transaction sets in parallel.
+ *
+ *  1. Pre-scan — one sequential pass builds the envelope tree (ISA/GS/ST headers, validation,
+ *     transaction order within each group) but records only the byte range of every ST...SE
+ *     body instead of materializing its segments.
+ *  2. Fill — the bodies are re-tokenized and their segments built on a {@link ForkJoinPool}.
+ *
+ * Each transaction is filled by exactly one task and was already placed in its group during the
+ * pre-scan, so ordering is identical to the sequential parse. {@link ForkJoinPool#invoke} gives the
+ * caller a happens-before edge over every task's writes.
+ */
+final class ParallelInterchangeBuilder {
+
+    private final ByteBuffer content;
+    private final X12Delimiters delimiters;
+    private final List<TransactionSlice> slices = new ArrayList<>();
+
+    ParallelInterchangeBuilder(ByteBuffer content, X12Delimiters delimiters) {
+        this.content = content;
+        this.delimiters = delimiters;
+    }
+
+    /**
+     * @param parallelThreshold below this many transaction sets the bodies are filled on the calling thread
+     */
+    X12Interchange build(X12Tokenizer tokenizer, ForkJoinPool pool, int parallelThreshold) {
+        X12Interchange interchange = prescan(tokenizer);
+        if (slices.size() < parallelThreshold) {
+            slices.forEach(this::fill);
+        } else {
+            int leafSize = Math.max(1, slices.size() / (pool.getParallelism() * 4));
+            pool.invoke(new FillTask(0, slices.size(), leafSize));
+        }
+        return interchange;
+    }
+
+    /**
+     * Same envelope state machine as {@code UniversalX12Parser#buildInterchange}, but body
+     * segments are skipped over rather than decoded.
+     */
+    private X12Interchange prescan(X12Tokenizer tokenizer) {
+        X12Interchange interchange = null;
+        X12Group currentGroup = null;
+        TransactionSlice currentSlice = null;
+
+        while (tokenizer.next()) {
+            if (tokenizer.segmentIdEquals(ISA)) {
+                currentSlice = splitAroundEnvelope(currentSlice, tokenizer);
+                interchange = X12Envelopes.readInterchange(tokenizer, delimiters);
+            } else if (tokenizer.segmentIdEquals(GS)) {
+                currentSlice = splitAroundEnvelope(currentSlice, tokenizer);
+                currentGroup = X12Envelopes.readGroup(tokenizer, interchange);
+            } else if (tokenizer.segmentIdEquals(ST)) {
+                X12Transaction transaction = X12Envelopes.readTransaction(tokenizer, currentGroup);
+                currentSlice = new TransactionSlice(transaction, tokenizer.segmentEnd(), tokenizer.lineNumber());
+            } else if (tokenizer.segmentIdEquals(SE)) {
+                X12Envelopes.requireTransaction(currentSlice == null ? null : currentSlice.transaction, tokenizer);
+                X12Envelopes.requireGroup(currentGroup, tokenizer);
+                currentSlice.bodyEnd = tokenizer.segmentStart();
+                currentGroup.addTransaction(currentSlice.transaction);
+                slices.add(currentSlice);
+                currentSlice = null;
+            } else if (tokenizer.segmentIdEquals(GE)) {
+                currentSlice = splitAroundEnvelope(currentSlice, tokenizer);
+                X12Envelopes.requireGroup(currentGroup, tokenizer);
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+                interchange.addGroup(currentGroup);
+                currentGroup = null;
+            } else if (tokenizer.segmentIdEquals(IEA)) {
+                currentSlice = splitAroundEnvelope(currentSlice, tokenizer);
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+            }
+        }
+
+        if (interchange == null) {
+            throw new EdiParseException("No ISA segment found in EDI content", ISA, 0);
+        }
+        return interchange;
+    }
+
+    /**
+     * An envelope segment inside an open ST...SE is not part of the body. This never happens in
+     * well-formed X12, so the body read so far is simply materialized here and the slice resumes
+     * after the envelope segment.
+     */
+    private TransactionSlice splitAroundEnvelope(TransactionSlice slice, X12Tokenizer tokenizer) {
+        if (slice == null) {
+            return null;
+        }
+        slice.bodyEnd = tokenizer.segmentStart();
+        fill(slice);
+        return new TransactionSlice(slice.transaction, tokenizer.segmentEnd(), tokenizer.lineNumber());
+    }
+
+    private void fill(TransactionSlice slice) {
+        X12Tokenizer body = new X12Tokenizer(content, slice.bodyStart, slice.bodyEnd, delimiters, slice.firstLine);
+        while (body.next()) {
+            slice.transaction.addSegment(body.toSegment());
+        }
+    }
+
+    /**
+     * Byte range of one transaction body: from the end of its ST to the start of its SE.
+     */
+    private static final class TransactionSlice {
+
+        private final X12Transaction transaction;
+        private final int bodyStart;
+        private final int firstLine;
+        private int bodyEnd;
+
+        private TransactionSlice(X12Transaction transaction, int bodyStart, int firstLine) {
+            this.transaction = transaction;
+            this.bodyStart = bodyStart;
+            this.firstLine = firstLine;
+        }
+    }
+
+    private final class FillTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private FillTask(int from, int to, int leafSize) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    fill(slices.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FillTask(from, mid, leafSize), new FillTask(mid, to, leafSize));
+        }
+    }
+}
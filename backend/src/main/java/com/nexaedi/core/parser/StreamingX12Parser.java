@@ -0,0 +1,110 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.StreamedTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streaming counterpart of {@link UniversalX12Parser} for interchanges too large to hold in memory.
+ *
+ * Instead of building a full {@link com.nexaedi.core.model.X12Interchange} tree, it detects the
+ * ISA delimiters from the first 106 bytes and then hands out one transaction set at a time,
+ * either as a pull iterator ({@link #stream}) or through a callback ({@link #forEachTransaction}).
+ * Only the current envelope headers and the open transaction's bytes are retained.
+ *
+ * Two input modes are supported:
+ *  - Channel / InputStream — bytes are read through a fixed-size window.
+ *  - File on local disk — the file is memory-mapped and tokenized in place, so a multi-GB
+ *    file is processed without its content ever being copied onto the heap.
+ *
+ * The parser itself is stateless and thread-safe; each returned stream is single-threaded.
+ */
+@Slf4j
+@Component
+public class StreamingX12Parser {
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAX_REGION_SIZE = 1L << 30;
+
+    private final int windowSize;
+    private final long maxRegionSize;
+
+    public StreamingX12Parser() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MAX_REGION_SIZE);
+    }
+
+    /**
+     * @param windowSize    size in bytes of the read buffer between a channel and the tokenizer
+     * @param maxRegionSize largest single memory mapping used for file input (at most 2 GB)
+     */
+    public StreamingX12Parser(int windowSize, long maxRegionSize) {
+        this.windowSize = windowSize;
+        this.maxRegionSize = Math.min(maxRegionSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Opens a pull iterator over the transaction sets in {@code input}.
+     * The caller must close the returned stream, which also closes {@code input}.
+     */
+    public X12TransactionStream stream(InputStream input) {
+        return stream(Channels.newChannel(input));
+    }
+
+    public X12TransactionStream stream(ReadableByteChannel channel) {
+        return new ChannelTransactionStream(channel, windowSize);
+    }
+
+    /**
+     * Opens a pull iterator over the transaction sets of a local file by memory-mapping it.
+     * The caller must close the returned stream.
+     */
+    public X12TransactionStream stream(Path file) {
+        try {
+            return new MappedTransactionStream(FileChannel.open(file, StandardOpenOption.READ), maxRegionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open EDI file " + file, e);
+        }
+    }
+
+    /**
+     * Pushes every transaction set in {@code channel} to {@code handler}, in file order,
+     * and closes the channel when done.
+     *
+     * @return the number of transaction sets handled
+     */
+    public int forEachTransaction(ReadableByteChannel channel, Consumer<StreamedTransaction> handler) {
+        return drain(stream(channel), handler);
+    }
+
+    public int forEachTransaction(InputStream input, Consumer<StreamedTransaction> handler) {
+        return forEachTransaction(Channels.newChannel(input), handler);
+    }
+
+    public int forEachTransaction(Path file, Consumer<StreamedTransaction> handler) {
+        return drain(stream(file), handler);
+    }
+
+    private int drain(X12TransactionStream stream, Consumer<StreamedTransaction> handler) {
+        int count = 0;
+        try (X12TransactionStream transactions = stream) {
+            while (transactions.hasNext()) {
+                handler.accept(transactions.next());
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed closing EDI stream", e);
+        }
+        log.debug("Streamed {} transaction set(s)", count);
+        return count;
+    }
+}
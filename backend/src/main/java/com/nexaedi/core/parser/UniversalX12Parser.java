@@ -2,13 +2,20 @@ package com.nexaedi.core.parser;
 
 import com.nexaedi.core.model.X12Group;
 import com.nexaedi.core.model.X12Interchange;
-import com.nexaedi.core.model.X12Segment;
 import com.nexaedi.core.model.X12Transaction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.nexaedi.core.parser.X12Envelopes.GE;
+import static com.nexaedi.core.parser.X12Envelopes.GS;
+import static com.nexaedi.core.parser.X12Envelopes.IEA;
+import static com.nexaedi.core.parser.X12Envelopes.ISA;
+import static com.nexaedi.core.parser.X12Envelopes.SE;
+import static com.nexaedi.core.parser.X12Envelopes.ST;
 
 /**
  * Parses raw X12 EDI content into a structured {@link X12Interchange} object tree,
@@ -18,20 +25,39 @@ import java.util.List;
  *
  * Parsing strategy:
  *  1. Read the ISA segment (always exactly 106 characters) to extract delimiters.
- *  2. Split the remaining content by the segment terminator.
+ *  2. Tokenize the raw bytes in a single pass with {@link X12Tokenizer}, recording
+ *     segment and element boundaries as offsets — the content is never copied or split.
  *  3. Walk segments sequentially, maintaining envelope state (ISA > GS > ST).
+ *     Envelope elements are decoded straight from the tokenizer; only segments inside
+ *     a transaction set are materialized as {@link com.nexaedi.core.model.X12Segment}s.
+ *
+ * {@link #parseParallel} replaces step 3 with a pre-scan that only builds the envelope tree and
+ * records each ST...SE body range; the bodies are then materialized on a fork-join pool.
  */
 @Slf4j
 @Component
 public class UniversalX12Parser {
 
-    private static final int ISA_LENGTH = 106;
-    private static final String ISA = "ISA";
-    private static final String IEA = "IEA";
-    private static final String GS = "GS";
-    private static final String GE = "GE";
-    private static final String ST = "ST";
-    private static final String SE = "SE";
+    /**
+     * Interchanges with fewer transaction sets than this are not worth forking for.
+     */
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 8;
+
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public UniversalX12Parser() {
+        this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param pool              pool that materializes transaction bodies in {@link #parseParallel}
+     * @param parallelThreshold minimum number of transaction sets before work is handed to the pool
+     */
+    public UniversalX12Parser(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
 
     /**
      * Parses the raw EDI string content into an X12Interchange object.
@@ -44,117 +70,100 @@ public class UniversalX12Parser {
         if (rawContent == null || rawContent.isBlank()) {
             throw new EdiParseException("EDI content is empty or null", ISA, 0);
         }
+        return parseBytes(rawContent.getBytes(StandardCharsets.UTF_8));
+    }
 
-        String normalized = rawContent.replace("\r\n", "\n").replace("\r", "\n");
+    /**
+     * Parses raw UTF-8 (or ASCII) EDI bytes without first decoding them into a String.
+     */
+    public X12Interchange parseBytes(byte[] rawContent) {
+        if (rawContent == null) {
+            throw new EdiParseException("EDI content is empty or null", ISA, 0);
+        }
+        return parseBuffer(ByteBuffer.wrap(rawContent));
+    }
 
-        if (normalized.length() < ISA_LENGTH) {
-            throw new EdiParseException(
-                    "Content too short to contain a valid ISA segment (min 106 chars)", ISA, 1);
+    /**
+     * Parses the bytes between the buffer's position and limit. The buffer's position is not modified.
+     */
+    public X12Interchange parseBuffer(ByteBuffer rawContent) {
+        int start = rawContent.position();
+        int limit = rawContent.limit();
+        if (isBlank(rawContent, start, limit)) {
+            throw new EdiParseException("EDI content is empty or null", ISA, 0);
         }
 
-        char elementDelimiter = normalized.charAt(3);
-        char componentDelimiter = normalized.charAt(104);
-        char segmentTerminator = normalized.charAt(105);
+        X12Delimiters delimiters = X12Delimiters.detect(rawContent, start, limit);
 
         log.debug("Detected delimiters — element: '{}', component: '{}', segment terminator: '{}'",
-                elementDelimiter, componentDelimiter, (int) segmentTerminator);
-
-        List<String> rawSegments = splitByTerminator(normalized, segmentTerminator);
-        List<X12Segment> segments = parseSegments(rawSegments, elementDelimiter);
+                (char) delimiters.element(), (char) delimiters.component(), (int) delimiters.terminatorChar());
 
-        return buildInterchange(segments, elementDelimiter, componentDelimiter, segmentTerminator);
+        X12Tokenizer tokenizer = new X12Tokenizer(rawContent, start, limit, delimiters, 0);
+        return buildInterchange(tokenizer, delimiters);
     }
 
-    private List<String> splitByTerminator(String content, char terminator) {
-        List<String> result = new ArrayList<>();
-        StringBuilder buffer = new StringBuilder();
-        for (char c : content.toCharArray()) {
-            if (c == terminator) {
-                String seg = buffer.toString().trim();
-                if (!seg.isBlank()) {
-                    result.add(seg);
-                }
-                buffer.setLength(0);
-            } else {
-                buffer.append(c);
-            }
+    /**
+     * Produces the same tree as {@link #parse(String)}, but transaction sets are tokenized and
+     * built in parallel. Transaction order within each group is preserved. Worthwhile for
+     * interchanges carrying many transaction sets; small ones are built on the calling thread.
+     */
+    public X12Interchange parseParallel(String rawContent) {
+        if (rawContent == null || rawContent.isBlank()) {
+            throw new EdiParseException("EDI content is empty or null", ISA, 0);
         }
-        if (!buffer.toString().isBlank()) {
-            result.add(buffer.toString().trim());
+        return parseBufferParallel(ByteBuffer.wrap(rawContent.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parallel variant of {@link #parseBuffer(ByteBuffer)}. The buffer must not be modified until this returns.
+     */
+    public X12Interchange parseBufferParallel(ByteBuffer rawContent) {
+        int start = rawContent.position();
+        int limit = rawContent.limit();
+        if (isBlank(rawContent, start, limit)) {
+            throw new EdiParseException("EDI content is empty or null", ISA, 0);
         }
-        return result;
+
+        X12Delimiters delimiters = X12Delimiters.detect(rawContent, start, limit);
+        X12Tokenizer tokenizer = new X12Tokenizer(rawContent, start, limit, delimiters, 0);
+        return new ParallelInterchangeBuilder(rawContent, delimiters).build(tokenizer, pool, parallelThreshold);
     }
 
-    private List<X12Segment> parseSegments(List<String> rawSegments, char elementDelimiter) {
-        List<X12Segment> segments = new ArrayList<>();
-        for (int i = 0; i < rawSegments.size(); i++) {
-            String raw = rawSegments.get(i);
-            if (!raw.isBlank()) {
-                segments.add(new X12Segment(raw, elementDelimiter, i + 1));
+    private boolean isBlank(ByteBuffer content, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            if (!X12Tokenizer.isWhitespace(content.get(i))) {
+                return false;
             }
         }
-        return segments;
+        return true;
     }
 
-    private X12Interchange buildInterchange(List<X12Segment> segments, char elementDelimiter,
-                                            char componentDelimiter, char segmentTerminator) {
+    private X12Interchange buildInterchange(X12Tokenizer tokenizer, X12Delimiters delimiters) {
         X12Interchange interchange = null;
         X12Group currentGroup = null;
         X12Transaction currentTransaction = null;
 
-        for (X12Segment seg : segments) {
-            switch (seg.getSegmentId()) {
-                case ISA -> {
-                    validateMinElements(seg, 16);
-                    interchange = new X12Interchange(
-                            seg.getElement(6).trim(),
-                            seg.getElement(8).trim(),
-                            seg.getElement(9),
-                            seg.getElement(10),
-                            seg.getElement(13),
-                            elementDelimiter,
-                            componentDelimiter,
-                            segmentTerminator
-                    );
-                }
-                case GS -> {
-                    requireInterchange(interchange, seg);
-                    validateMinElements(seg, 8);
-                    currentGroup = new X12Group(
-                            seg.getElement(1),
-                            seg.getElement(2),
-                            seg.getElement(3),
-                            seg.getElement(6)
-                    );
-                }
-                case ST -> {
-                    requireGroup(currentGroup, seg);
-                    validateMinElements(seg, 2);
-                    currentTransaction = new X12Transaction(
-                            seg.getElement(1),
-                            seg.getElement(2)
-                    );
-                }
-                case SE -> {
-                    requireTransaction(currentTransaction, seg);
-                    requireGroup(currentGroup, seg);
-                    currentGroup.addTransaction(currentTransaction);
-                    currentTransaction = null;
-                }
-                case GE -> {
-                    requireGroup(currentGroup, seg);
-                    requireInterchange(interchange, seg);
-                    interchange.addGroup(currentGroup);
-                    currentGroup = null;
-                }
-                case IEA -> {
-                    requireInterchange(interchange, seg);
-                }
-                default -> {
-                    if (currentTransaction != null) {
-                        currentTransaction.addSegment(seg);
-                    }
-                }
+        while (tokenizer.next()) {
+            if (tokenizer.segmentIdEquals(ISA)) {
+                interchange = X12Envelopes.readInterchange(tokenizer, delimiters);
+            } else if (tokenizer.segmentIdEquals(GS)) {
+                currentGroup = X12Envelopes.readGroup(tokenizer, interchange);
+            } else if (tokenizer.segmentIdEquals(ST)) {
+                currentTransaction = X12Envelopes.readTransaction(tokenizer, currentGroup);
+            } else if (tokenizer.segmentIdEquals(SE)) {
+                X12Envelopes.requireTransaction(currentTransaction, tokenizer);
+                X12Envelopes.requireGroup(currentGroup, tokenizer);
+                currentGroup.addTransaction(currentTransaction);
+                currentTransaction = null;
+            } else if (tokenizer.segmentIdEquals(GE)) {
+                X12Envelopes.requireGroup(currentGroup, tokenizer);
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+                interchange.addGroup(currentGroup);
+                currentGroup = null;
+            } else if (tokenizer.segmentIdEquals(IEA)) {
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+            } else if (currentTransaction != null) {
+                currentTransaction.addSegment(tokenizer.toSegment());
             }
         }
 
@@ -164,34 +173,4 @@ public class UniversalX12Parser {
 
         return interchange;
     }
-
-    private void validateMinElements(X12Segment seg, int minCount) {
-        if (seg.getElements().size() < minCount) {
-            throw new EdiParseException(
-                    String.format("Expected at least %d elements but found %d",
-                            minCount, seg.getElements().size()),
-                    seg.getSegmentId(), seg.getLineNumber());
-        }
-    }
-
-    private void requireInterchange(X12Interchange interchange, X12Segment seg) {
-        if (interchange == null) {
-            throw new EdiParseException(
-                    "Encountered segment outside of ISA envelope", seg.getSegmentId(), seg.getLineNumber());
-        }
-    }
-
-    private void requireGroup(X12Group group, X12Segment seg) {
-        if (group == null) {
-            throw new EdiParseException(
-                    "Encountered segment outside of GS envelope", seg.getSegmentId(), seg.getLineNumber());
-        }
-    }
-
-    private void requireTransaction(X12Transaction transaction, X12Segment seg) {
-        if (transaction == null) {
-            throw new EdiParseException(
-                    "Encountered SE without a matching ST segment", seg.getSegmentId(), seg.getLineNumber());
-        }
-    }
 }
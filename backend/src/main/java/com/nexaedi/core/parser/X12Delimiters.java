@@ -0,0 +1,62 @@
+package com.nexaedi.core.parser;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The three delimiter bytes an interchange declares in its fixed-width ISA header:
+ * element separator (ISA position 3), component separator (ISA16, position 104)
+ * and segment terminator (position 105).
+ *
+ * X12 delimiters are always single-byte ASCII characters, so they can be matched
+ * directly against raw UTF-8 bytes without decoding the surrounding content.
+ */
+public record X12Delimiters(byte element, byte component, byte segmentTerminator) {
+
+    /**
+     * The ISA segment is fixed-width: always exactly 106 characters including its terminator.
+     */
+    public static final int ISA_LENGTH = 106;
+
+    private static final int ELEMENT_OFFSET = 3;
+    private static final int COMPONENT_OFFSET = 104;
+    private static final int TERMINATOR_OFFSET = 105;
+
+    /**
+     * Reads the delimiters from the ISA header starting at {@code isaStart}.
+     *
+     * @throws EdiParseException if fewer than 106 bytes are available after {@code isaStart}
+     */
+    public static X12Delimiters detect(ByteBuffer content, int isaStart, int limit) {
+        if (limit - isaStart < ISA_LENGTH) {
+            throw new EdiParseException(
+                    "Content too short to contain a valid ISA segment (min 106 chars)", "ISA", 1);
+        }
+        return new X12Delimiters(
+                content.get(isaStart + ELEMENT_OFFSET),
+                content.get(isaStart + COMPONENT_OFFSET),
+                content.get(isaStart + TERMINATOR_OFFSET));
+    }
+
+    /**
+     * Returns true if the byte ends a segment. When the declared terminator is a line
+     * break, CR and LF are treated interchangeably so CRLF files split the same way as LF files.
+     */
+    public boolean isTerminator(byte b) {
+        if (b == segmentTerminator) {
+            return true;
+        }
+        return isLineBreak(segmentTerminator) && isLineBreak(b);
+    }
+
+    /**
+     * The terminator as reported on {@link com.nexaedi.core.model.X12Interchange}.
+     * A CR terminator is reported as LF, matching the line-ending normalization applied on read.
+     */
+    public char terminatorChar() {
+        return segmentTerminator == '\r' ? '\n' : (char) segmentTerminator;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
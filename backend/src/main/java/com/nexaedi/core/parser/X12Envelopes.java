@@ -0,0 +1,86 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Group;
+import com.nexaedi.core.model.X12Interchange;
+import com.nexaedi.core.model.X12Transaction;
+
+/**
+ * Envelope (ISA/GS/ST) header extraction and nesting checks shared by every parse mode —
+ * tree, streaming and memory-mapped — so they all accept and reject exactly the same input.
+ */
+final class X12Envelopes {
+
+    static final String ISA = "ISA";
+    static final String IEA = "IEA";
+    static final String GS = "GS";
+    static final String GE = "GE";
+    static final String ST = "ST";
+    static final String SE = "SE";
+
+    private X12Envelopes() {
+    }
+
+    static X12Interchange readInterchange(X12Tokenizer tokenizer, X12Delimiters delimiters) {
+        validateMinElements(tokenizer, 16);
+        return new X12Interchange(
+                tokenizer.element(6).trim(),
+                tokenizer.element(8).trim(),
+                tokenizer.element(9),
+                tokenizer.element(10),
+                tokenizer.element(13),
+                (char) delimiters.element(),
+                (char) delimiters.component(),
+                delimiters.terminatorChar()
+        );
+    }
+
+    static X12Group readGroup(X12Tokenizer tokenizer, X12Interchange interchange) {
+        requireInterchange(interchange, tokenizer);
+        validateMinElements(tokenizer, 8);
+        return new X12Group(
+                tokenizer.element(1),
+                tokenizer.element(2),
+                tokenizer.element(3),
+                tokenizer.element(6)
+        );
+    }
+
+    static X12Transaction readTransaction(X12Tokenizer tokenizer, X12Group group) {
+        requireGroup(group, tokenizer);
+        validateMinElements(tokenizer, 2);
+        return new X12Transaction(
+                tokenizer.element(1),
+                tokenizer.element(2)
+        );
+    }
+
+    static void validateMinElements(X12Tokenizer tokenizer, int minCount) {
+        if (tokenizer.elementCount() < minCount) {
+            throw new EdiParseException(
+                    String.format("Expected at least %d elements but found %d",
+                            minCount, tokenizer.elementCount()),
+                    tokenizer.segmentId(), tokenizer.lineNumber());
+        }
+    }
+
+    static void requireInterchange(X12Interchange interchange, X12Tokenizer tokenizer) {
+        if (interchange == null) {
+            throw new EdiParseException(
+                    "Encountered segment outside of ISA envelope", tokenizer.segmentId(), tokenizer.lineNumber());
+        }
+    }
+
+    static void requireGroup(X12Group group, X12Tokenizer tokenizer) {
+        if (group == null) {
+            throw new EdiParseException(
+                    "Encountered segment outside of GS envelope", tokenizer.segmentId(), tokenizer.lineNumber());
+        }
+    }
+
+    static void requireTransaction(X12Transaction transaction, X12Tokenizer tokenizer) {
+        if (transaction == null) {
+            throw new EdiParseException(
+                    "Encountered SE without a matching ST segment", tokenizer.segmentId(), tokenizer.lineNumber());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Segment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass, allocation-free tokenizer over raw X12 bytes.
+ *
+ * The tokenizer is a cursor: each call to {@link #next()} advances to the next non-blank
+ * segment and records its boundaries and element delimiter positions as int offsets into
+ * the underlying buffer. No Strings are created while scanning — an element is decoded
+ * only when it is read via {@link #element(int)}.
+ *
+ * Whitespace (any byte &lt;= 0x20, i.e. the same set {@link String#trim()} removes) is
+ * trimmed from both ends of every segment, so line breaks between segments are ignored.
+ *
+ * Not thread-safe; create one tokenizer per parse (or {@link #reset} it between ranges).
+ */
+public final class X12Tokenizer {
+
+    private static final int INITIAL_ELEMENT_CAPACITY = 32;
+
+    private final ByteBuffer content;
+    private final X12Delimiters delimiters;
+    private final SegmentIdCache segmentIds = new SegmentIdCache();
+
+    private int position;
+    private int limit;
+    private int lineNumber;
+
+    private int segmentStart;
+    private int segmentEnd;
+    private int delimiterCount;
+    private int[] delimiterOffsets = new int[INITIAL_ELEMENT_CAPACITY];
+
+    /**
+     * Creates a tokenizer over {@code content[start, end)} using absolute buffer offsets.
+     *
+     * @param firstLineNumber line number to assign to the first segment found, minus one
+     */
+    public X12Tokenizer(ByteBuffer content, int start, int end, X12Delimiters delimiters, int firstLineNumber) {
+        this.content = content;
+        this.position = start;
+        this.limit = end;
+        this.delimiters = delimiters;
+        this.lineNumber = firstLineNumber;
+    }
+
+    public X12Tokenizer(ByteBuffer content, X12Delimiters delimiters) {
+        this(content, content.position(), content.limit(), delimiters, 0);
+    }
+
+    /**
+     * Re-targets the tokenizer at a new range of the same buffer, reusing its internal arrays.
+     */
+    public void reset(int start, int end, int firstLineNumber) {
+        this.position = start;
+        this.limit = end;
+        this.lineNumber = firstLineNumber;
+    }
+
+    /**
+     * Advances to the next non-blank segment.
+     *
+     * @return false once the end of the range has been reached
+     */
+    public boolean next() {
+        while (position < limit) {
+            int start = position;
+            int count = 0;
+            int cursor = start;
+            byte elementDelimiter = delimiters.element();
+
+            while (cursor < limit) {
+                byte b = content.get(cursor);
+                if (delimiters.isTerminator(b)) {
+                    break;
+                }
+                if (b == elementDelimiter) {
+                    if (count == delimiterOffsets.length) {
+                        delimiterOffsets = Arrays.copyOf(delimiterOffsets, count * 2);
+                    }
+                    delimiterOffsets[count++] = cursor;
+                }
+                cursor++;
+            }
+            position = cursor + 1;
+
+            int end = cursor;
+            while (start < end && isWhitespace(content.get(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(content.get(end - 1))) {
+                end--;
+            }
+            if (start == end) {
+                continue;
+            }
+
+            segmentStart = start;
+            segmentEnd = end;
+            delimiterCount = trimDelimiters(count, start, end);
+            lineNumber++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops delimiter offsets that fell inside the trimmed whitespace at either end.
+     */
+    private int trimDelimiters(int count, int start, int end) {
+        int first = 0;
+        while (first < count && delimiterOffsets[first] < start) {
+            first++;
+        }
+        int last = count;
+        while (last > first && delimiterOffsets[last - 1] >= end) {
+            last--;
+        }
+        if (first > 0) {
+            System.arraycopy(delimiterOffsets, first, delimiterOffsets, 0, last - first);
+        }
+        return last - first;
+    }
+
+    /**
+     * 1-based count of non-blank segments returned so far — the segment's "line number" in DLQ reports.
+     */
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    public int segmentStart() {
+        return segmentStart;
+    }
+
+    public int segmentEnd() {
+        return segmentEnd;
+    }
+
+    /**
+     * Number of data elements after the segment ID (BEG*00*SA has 2).
+     */
+    public int elementCount() {
+        return delimiterCount;
+    }
+
+    /**
+     * Copies the current segment's delimiter offsets; together with {@link #segmentStart()} and
+     * {@link #segmentEnd()} they fully describe every element boundary of the segment.
+     */
+    public int[] delimiterOffsets() {
+        return Arrays.copyOf(delimiterOffsets, delimiterCount);
+    }
+
+    /**
+     * Compares the current segment ID against {@code segmentId} without decoding it.
+     */
+    public boolean segmentIdEquals(String segmentId) {
+        int from = idStart();
+        int to = idEnd();
+        if (to - from != segmentId.length()) {
+            return false;
+        }
+        for (int i = 0; i < segmentId.length(); i++) {
+            if (content.get(from + i) != segmentId.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current segment ID. IDs repeat constantly (every line item is a PO1),
+     * so decoded IDs are cached and the same String instance is returned each time.
+     */
+    public String segmentId() {
+        return segmentIds.lookup(content, idStart(), idEnd());
+    }
+
+    /**
+     * Returns the element at a 1-based position (X12 notation: BEG03 = position 3),
+     * or an empty string if the position is out of range.
+     */
+    public String element(int position) {
+        if (position < 1 || position > delimiterCount) {
+            return "";
+        }
+        int from = delimiterOffsets[position - 1] + 1;
+        int to = position < delimiterCount ? delimiterOffsets[position] : segmentEnd;
+        return decode(content, from, to);
+    }
+
+    /**
+     * Materializes the current segment as a lazily decoded {@link X12Segment} over the same buffer.
+     * Only the segment ID is decoded here; elements are decoded when first read.
+     */
+    public X12Segment toSegment() {
+        return new X12Segment(segmentId(), content, delimiterOffsets(), segmentEnd, lineNumber);
+    }
+
+    public ByteBuffer content() {
+        return content;
+    }
+
+    private int idStart() {
+        int from = segmentStart;
+        int to = delimiterCount > 0 ? delimiterOffsets[0] : segmentEnd;
+        while (from < to && isWhitespace(content.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private int idEnd() {
+        int from = segmentStart;
+        int to = delimiterCount > 0 ? delimiterOffsets[0] : segmentEnd;
+        while (to > from && isWhitespace(content.get(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * True for bytes 0x00-0x20. Compared unsigned so UTF-8 lead and continuation bytes
+     * (0x80-0xFF, negative as a Java byte) are never taken for whitespace.
+     */
+    static boolean isWhitespace(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    /**
+     * Decodes {@code content[from, to)} as UTF-8. Heap buffers are decoded in place;
+     * direct and memory-mapped buffers are copied out only for the bytes being decoded.
+     */
+    public static String decode(ByteBuffer content, int from, int to) {
+        int length = to - from;
+        if (length <= 0) {
+            return "";
+        }
+        if (content.hasArray()) {
+            return new String(content.array(), content.arrayOffset() + from, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        content.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tiny direct-mapped cache of decoded segment IDs, keyed by a hash of the ID bytes.
+     */
+    private static final class SegmentIdCache {
+
+        private static final int SLOTS = 64;
+
+        private final String[] ids = new String[SLOTS];
+
+        String lookup(ByteBuffer content, int from, int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + content.get(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+
+            String cached = ids[slot];
+            if (cached != null && matches(cached, content, from, to)) {
+                return cached;
+            }
+            String decoded = decode(content, from, to);
+            ids[slot] = decoded;
+            return decoded;
+        }
+
+        private static boolean matches(String id, ByteBuffer content, int from, int to) {
+            if (id.length() != to - from) {
+                return false;
+            }
+            for (int i = 0; i < id.length(); i++) {
+                if (id.charAt(i) != content.get(from + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.StreamedTransaction;
+import com.nexaedi.core.model.X12Group;
+import com.nexaedi.core.model.X12Interchange;
+import com.nexaedi.core.model.X12Transaction;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.nexaedi.core.parser.X12Envelopes.GE;
+import static com.nexaedi.core.parser.X12Envelopes.GS;
+import static com.nexaedi.core.parser.X12Envelopes.IEA;
+import static com.nexaedi.core.parser.X12Envelopes.ISA;
+import static com.nexaedi.core.parser.X12Envelopes.SE;
+import static com.nexaedi.core.parser.X12Envelopes.ST;
+
+/**
+ * Pull-style iterator over the transaction sets of an interchange that is never held as a tree.
+ *
+ * This base class owns the ISA &gt; GS &gt; ST envelope state machine; subclasses only decide where
+ * segments come from (a channel read through a window, or a memory-mapped file) and how the body
+ * of an open transaction set is retained until its SE arrives. Only the current envelope headers
+ * are kept, so the interchange and group on each {@link StreamedTransaction} are header-only.
+ *
+ * Envelope validation is identical to {@link UniversalX12Parser}; errors surface as
+ * {@link EdiParseException} from {@link #hasNext()} / {@link #next()}.
+ *
+ * Not thread-safe. Closing the stream releases the underlying channel.
+ */
+public abstract class X12TransactionStream implements Iterator<StreamedTransaction>, Closeable {
+
+    private X12Interchange interchange;
+    private X12Group group;
+    private X12Transaction openTransaction;
+
+    private StreamedTransaction pending;
+    private boolean finished;
+
+    /**
+     * Positions a tokenizer on the next non-blank segment.
+     *
+     * @return the positioned tokenizer, or null once the input is exhausted
+     */
+    protected abstract X12Tokenizer nextSegment();
+
+    protected abstract X12Delimiters delimiters();
+
+    /**
+     * Called with the tokenizer positioned on the ST segment of a new transaction set.
+     */
+    protected abstract void onTransactionStart(X12Tokenizer tokenizer, X12Transaction transaction);
+
+    /**
+     * Called for every segment between ST and SE.
+     */
+    protected abstract void onBodySegment(X12Tokenizer tokenizer, X12Transaction transaction);
+
+    /**
+     * Called when the SE arrives; must leave all body segments added to {@code transaction}.
+     */
+    protected abstract void onTransactionEnd(X12Transaction transaction);
+
+    @Override
+    public boolean hasNext() {
+        if (pending == null && !finished) {
+            pending = advance();
+            finished = pending == null;
+        }
+        return pending != null;
+    }
+
+    @Override
+    public StreamedTransaction next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more transaction sets in stream");
+        }
+        StreamedTransaction result = pending;
+        pending = null;
+        return result;
+    }
+
+    private StreamedTransaction advance() {
+        X12Tokenizer tokenizer;
+        while ((tokenizer = nextSegment()) != null) {
+            if (tokenizer.segmentIdEquals(ISA)) {
+                interchange = X12Envelopes.readInterchange(tokenizer, delimiters());
+            } else if (tokenizer.segmentIdEquals(GS)) {
+                group = X12Envelopes.readGroup(tokenizer, interchange);
+            } else if (tokenizer.segmentIdEquals(ST)) {
+                openTransaction = X12Envelopes.readTransaction(tokenizer, group);
+                onTransactionStart(tokenizer, openTransaction);
+            } else if (tokenizer.segmentIdEquals(SE)) {
+                X12Envelopes.requireTransaction(openTransaction, tokenizer);
+                X12Envelopes.requireGroup(group, tokenizer);
+                X12Transaction completed = openTransaction;
+                openTransaction = null;
+                onTransactionEnd(completed);
+                return new StreamedTransaction(interchange, group, completed);
+            } else if (tokenizer.segmentIdEquals(GE)) {
+                X12Envelopes.requireGroup(group, tokenizer);
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+                group = null;
+            } else if (tokenizer.segmentIdEquals(IEA)) {
+                X12Envelopes.requireInterchange(interchange, tokenizer);
+            } else if (openTransaction != null) {
+                onBodySegment(tokenizer, openTransaction);
+            }
+        }
+
+        if (interchange == null) {
+            throw new EdiParseException("No ISA segment found in EDI content", ISA, 0);
+        }
+        return null;
+    }
+}
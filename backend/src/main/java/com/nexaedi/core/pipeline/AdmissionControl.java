@@ -0,0 +1,162 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for inbound EDI files.
+ *
+ * Tracks how many files, and how many payload bytes, have been accepted but not yet finished —
+ * globally and per seller — and refuses new files once any {@link AdmissionProperties} threshold
+ * would be crossed. Refusing at the edge costs one HTTP round trip; accepting a file the node has
+ * no room for costs heap that the pipeline's bounded queues cannot protect.
+ *
+ * A file larger than a byte limit on its own is still admitted when nothing else is in flight in
+ * that scope, so an oversized file is slowed down rather than rejected forever.
+ */
+@Slf4j
+@Component
+public class AdmissionControl {
+
+    /**
+     * Key for submissions without a seller (no or invalid bearer token).
+     */
+    private static final long ANONYMOUS = -1L;
+
+    private final AdmissionProperties properties;
+
+    private int inFlightFiles;
+    private long inFlightBytes;
+    private final Map<Long, Usage> perSeller = new HashMap<>();
+
+    public AdmissionControl(AdmissionProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Reserves room for one file submitted as text, measured by its UTF-8 encoding — the bytes it
+     * is stored and queued as — so the byte limits mean the same as for uploaded files.
+     *
+     * @return the reservation, to be closed when the file has finished processing;
+     *         empty if the file must be shed
+     */
+    public Optional<Permit> tryAdmit(Long sellerId, String content) {
+        return tryAdmit(sellerId, utf8Length(content));
+    }
+
+    /**
+     * Reserves room for one file of {@code bytes} for {@code sellerId}.
+     *
+     * @return the reservation, to be closed when the file has finished processing;
+     *         empty if the file must be shed
+     */
+    public synchronized Optional<Permit> tryAdmit(Long sellerId, long bytes) {
+        long key = sellerId != null ? sellerId : ANONYMOUS;
+        Usage seller = perSeller.computeIfAbsent(key, k -> new Usage());
+
+        if (exceeds(inFlightFiles, inFlightBytes, bytes,
+                properties.getMaxInFlightFiles(), properties.getMaxInFlightBytes().toBytes())
+                || exceeds(seller.files, seller.bytes, bytes,
+                properties.getMaxInFlightFilesPerSeller(), properties.getMaxInFlightBytesPerSeller().toBytes())) {
+            if (seller.files == 0) {
+                perSeller.remove(key);
+            }
+            log.warn("[ADMISSION] Shedding file — sellerId={} bytes={} inFlightFiles={} inFlightBytes={} "
+                            + "sellerFiles={} sellerBytes={}",
+                    sellerId, bytes, inFlightFiles, inFlightBytes, seller.files, seller.bytes);
+            return Optional.empty();
+        }
+
+        inFlightFiles++;
+        inFlightBytes += bytes;
+        seller.files++;
+        seller.bytes += bytes;
+        return Optional.of(new Permit(key, bytes));
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, properties.getRetryAfter().toSeconds());
+    }
+
+    public synchronized int getInFlightFiles() {
+        return inFlightFiles;
+    }
+
+    public synchronized long getInFlightBytes() {
+        return inFlightBytes;
+    }
+
+    /**
+     * Length of {@code text} encoded as UTF-8, without encoding it.
+     */
+    static long utf8Length(CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static boolean exceeds(int files, long bytes, long incoming, int maxFiles, long maxBytes) {
+        if (files + 1 > maxFiles) {
+            return true;
+        }
+        return files > 0 && bytes + incoming > maxBytes;
+    }
+
+    private synchronized void release(long key, long bytes) {
+        inFlightFiles--;
+        inFlightBytes -= bytes;
+        Usage seller = perSeller.get(key);
+        if (seller != null) {
+            seller.files--;
+            seller.bytes -= bytes;
+            if (seller.files == 0) {
+                perSeller.remove(key);
+            }
+        }
+    }
+
+    private static final class Usage {
+        int files;
+        long bytes;
+    }
+
+    /**
+     * One admitted file. Closing it more than once has no further effect.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long key;
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long key, long bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(key, bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Load-shedding thresholds for the ingest endpoints.
+ * Bound from the "nexaedi.admission" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.admission")
+public class AdmissionProperties {
+
+    /**
+     * Files accepted but not yet finished, across all sellers.
+     */
+    private int maxInFlightFiles = 500;
+
+    /**
+     * Raw payload bytes of those files, across all sellers.
+     */
+    private DataSize maxInFlightBytes = DataSize.ofGigabytes(1);
+
+    /**
+     * Files in flight for a single seller. Unauthenticated submissions share one allowance.
+     */
+    private int maxInFlightFilesPerSeller = 100;
+
+    /**
+     * Payload bytes in flight for a single seller.
+     */
+    private DataSize maxInFlightBytesPerSeller = DataSize.ofMegabytes(256);
+
+    /**
+     * Sent as Retry-After with every 429.
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
@@ -0,0 +1,124 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Write-behind buffering, partitioning and retention of audit trail records.
+ * Bound from the "nexaedi.audit" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.audit")
+public class AuditProperties {
+
+    /**
+     * When false, every audit record is inserted synchronously by the thread that records it.
+     */
+    private boolean writeBehind = true;
+
+    /**
+     * Records held in memory waiting to be written. Also the most that can be lost if the
+     * process dies without a clean shutdown.
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * A batch is written as soon as it holds this many records...
+     */
+    private int batchSize = 500;
+
+    /**
+     * ...or once its oldest record has waited this long.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * How long a caller waits for buffer space before writing its record itself.
+     */
+    private Duration offerTimeout = Duration.ofMillis(50);
+
+    /**
+     * Write out everything still buffered when the application stops. When false, buffered
+     * records are discarded on shutdown.
+     */
+    private boolean flushOnShutdown = true;
+
+    /**
+     * Upper bound on the shutdown flush; records still buffered after it are discarded.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How often the in-process status counters are added to edi_audit_status_counter and
+     * refreshed with what other nodes have counted.
+     */
+    private Duration counterCheckpointInterval = Duration.ofSeconds(10);
+
+    /**
+     * Time partitioning of edi_audit_log, daily rollups and retention.
+     */
+    private Partitioning partitioning = new Partitioning();
+
+    @Data
+    public static class Partitioning {
+
+        /**
+         * Partition edi_audit_log and run the rollup and retention job. When false the table is
+         * left as it is and grows without bound.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Span of created_at covered by one partition.
+         */
+        private Period period = Period.MONTH;
+
+        /**
+         * Partitions created ahead of the current one, so inserts never wait on DDL.
+         */
+        private int premake = 2;
+
+        /**
+         * Detail rows are kept at least this long; a partition goes once all of it is older.
+         * Daily rollups are kept indefinitely.
+         */
+        private Duration retention = Duration.ofDays(90);
+
+        /**
+         * What happens to a partition past retention.
+         */
+        private Expiry expiry = Expiry.DROP;
+
+        /**
+         * How often the rollup and retention job runs.
+         */
+        private Duration maintenanceInterval = Duration.ofHours(1);
+    }
+
+    public enum Period {
+        DAY, MONTH;
+
+        public LocalDate startOf(LocalDate day) {
+            return this == DAY ? day : day.withDayOfMonth(1);
+        }
+
+        public LocalDate next(LocalDate start) {
+            return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+        }
+    }
+
+    public enum Expiry {
+        /**
+         * Drop the partition.
+         */
+        DROP,
+        /**
+         * Detach the partition and keep it as a standalone edi_audit_archive_p* table, e.g. for
+         * export to cold storage.
+         */
+        ARCHIVE
+    }
+}
@@ -0,0 +1,28 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Duplicate file / interchange / PO detection.
+ * Bound from the "nexaedi.dedup" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.dedup")
+public class DedupProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Detect byte-identical inbound files by SHA-256 before parsing, and store inbound files
+     * under their digest. Needs {@code enabled}.
+     */
+    private boolean content = true;
+
+    /**
+     * Keys the in-memory Bloom filter is sized for. About 1.2 MB per million at 1%.
+     */
+    private long expectedKeys = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,264 @@
+package com.nexaedi.core.pipeline;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded queue that hands items out in weighted fair order across tenants.
+ *
+ * Every tenant has its own FIFO. Items are ordered by start-time fair queueing: an item's tag is
+ * {@code max(virtual time, tenant's previous finish tag)}, its finish tag is that plus
+ * {@code 1 / weight}, and {@link #take} serves the lowest-tagged head. A tenant with weight 4
+ * therefore gets four items through for every one of a weight-1 tenant while both are backlogged,
+ * and a tenant that has been idle starts level with the current virtual time — its first item
+ * goes out next, however deep anyone else's backlog is.
+ *
+ * Three bounds keep one tenant from monopolising the stage behind the queue:
+ * <ul>
+ *   <li>the queue as a whole holds at most {@code capacity} items;</li>
+ *   <li>one tenant holds at most {@code maxTenantQueued} of them, so a backlogged tenant blocks
+ *       on {@link #put} while others still have room;</li>
+ *   <li>one tenant has at most {@code maxTenantBusy} items being handled at once, and one group
+ *       (e.g. a retailer) at most its configured cap. Items over a cap wait in the queue even if
+ *       workers are idle.</li>
+ * </ul>
+ * Workers must {@link #release} every entry they {@link #take}.
+ */
+public class FairShareQueue<T> {
+
+    private final int capacity;
+    private final int maxTenantQueued;
+    private final int maxTenantBusy;
+    private final Map<String, Integer> groupCaps;
+    private final Function<T, Ticket> classifier;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Condition space = lock.newCondition();
+
+    private final Map<Object, Tenant<T>> tenants = new LinkedHashMap<>();
+    private final Map<String, Integer> groupBusy = new HashMap<>();
+    private int size;
+    private double virtualTime;
+
+    /**
+     * @param groupCaps  maximum items in service per {@link Ticket#group()}; groups not listed are uncapped
+     * @param classifier tenant, weight and group of an item; called once, on enqueue
+     */
+    public FairShareQueue(int capacity, int maxTenantQueued, int maxTenantBusy, Map<String, Integer> groupCaps,
+                          Function<T, Ticket> classifier) {
+        if (capacity < 1 || maxTenantQueued < 1 || maxTenantBusy < 1) {
+            throw new IllegalArgumentException("Queue capacity and per-tenant limits must be at least one");
+        }
+        this.capacity = capacity;
+        this.maxTenantQueued = Math.min(maxTenantQueued, capacity);
+        this.maxTenantBusy = maxTenantBusy;
+        this.groupCaps = Map.copyOf(groupCaps);
+        this.classifier = classifier;
+    }
+
+    /**
+     * A queue where every item belongs to the same tenant: plain FIFO.
+     */
+    public static <T> FairShareQueue<T> fifo(int capacity) {
+        return new FairShareQueue<>(capacity, capacity, Integer.MAX_VALUE, Map.of(), item -> Ticket.SHARED);
+    }
+
+    /**
+     * Enqueues an item, blocking while the queue or the item's tenant is at its limit.
+     */
+    public void put(T item) throws InterruptedException {
+        Ticket ticket = classifier.apply(item);
+        lock.lockInterruptibly();
+        try {
+            while (size >= capacity || queued(ticket.tenant()) >= maxTenantQueued) {
+                space.await();
+            }
+            enqueue(tenants.computeIfAbsent(ticket.tenant(), k -> new Tenant<>()), item, ticket);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enqueues an item only if neither the queue nor the item's tenant is at its limit.
+     */
+    public boolean offer(T item) {
+        Ticket ticket = classifier.apply(item);
+        lock.lock();
+        try {
+            if (size >= capacity || queued(ticket.tenant()) >= maxTenantQueued) {
+                return false;
+            }
+            enqueue(tenants.computeIfAbsent(ticket.tenant(), k -> new Tenant<>()), item, ticket);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the next item in fair order, waiting until one is eligible.
+     */
+    public Entry<T> take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                Tenant<T> next = null;
+                for (Tenant<T> tenant : tenants.values()) {
+                    Entry<T> head = tenant.items.peekFirst();
+                    if (head != null && tenant.busy < maxTenantBusy && groupHasRoom(head.ticket.group())
+                            && (next == null || head.startTag < next.items.peekFirst().startTag)) {
+                        next = tenant;
+                    }
+                }
+                if (next == null) {
+                    available.await();
+                    continue;
+                }
+                Entry<T> entry = next.items.pollFirst();
+                size--;
+                next.busy++;
+                if (entry.ticket.group() != null) {
+                    groupBusy.merge(entry.ticket.group(), 1, Integer::sum);
+                }
+                virtualTime = Math.max(virtualTime, entry.startTag);
+                space.signalAll();
+                return entry;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a taken entry as handled, freeing its tenant's and group's in-service slot.
+     */
+    public void release(Entry<T> entry) {
+        lock.lock();
+        try {
+            Object key = entry.ticket.tenant();
+            Tenant<T> tenant = tenants.get(key);
+            if (tenant != null) {
+                tenant.busy--;
+                forgetIfIdle(key, tenant);
+            }
+            if (entry.ticket.group() != null) {
+                groupBusy.computeIfPresent(entry.ticket.group(), (g, busy) -> busy > 1 ? busy - 1 : null);
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of tenants with items queued.
+     */
+    public int backloggedTenants() {
+        lock.lock();
+        try {
+            int backlogged = 0;
+            for (Tenant<T> tenant : tenants.values()) {
+                if (!tenant.items.isEmpty()) {
+                    backlogged++;
+                }
+            }
+            return backlogged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Tenant<T> tenant, T item, Ticket ticket) {
+        double startTag = Math.max(virtualTime, tenant.lastFinishTag);
+        tenant.lastFinishTag = startTag + 1.0 / Math.max(1, ticket.weight());
+        tenant.items.addLast(new Entry<>(item, ticket, startTag));
+        size++;
+        available.signal();
+    }
+
+    private int queued(Object key) {
+        Tenant<T> tenant = tenants.get(key);
+        return tenant != null ? tenant.items.size() : 0;
+    }
+
+    private boolean groupHasRoom(String group) {
+        if (group == null) {
+            return true;
+        }
+        Integer cap = groupCaps.get(group);
+        return cap == null || groupBusy.getOrDefault(group, 0) < cap;
+    }
+
+    private void forgetIfIdle(Object key, Tenant<T> tenant) {
+        if (tenant.items.isEmpty() && tenant.busy == 0) {
+            tenants.remove(key);
+        }
+    }
+
+    /**
+     * How an item is scheduled.
+     *
+     * @param tenant key of the FIFO the item joins, e.g. a seller ID
+     * @param weight relative share of the stage while the tenant is backlogged; at least 1
+     * @param group  key of a concurrency cap shared across tenants, e.g. a retailer; may be null
+     */
+    public record Ticket(Object tenant, int weight, String group) {
+
+        static final Ticket SHARED = new Ticket("shared", 1, null);
+    }
+
+    /**
+     * An item taken from the queue, to be passed back to {@link #release} once handled.
+     */
+    public static final class Entry<T> {
+
+        private final T item;
+        private final Ticket ticket;
+        private final double startTag;
+
+        private Entry(T item, Ticket ticket, double startTag) {
+            this.item = item;
+            this.ticket = ticket;
+            this.startTag = startTag;
+        }
+
+        public T item() {
+            return item;
+        }
+    }
+
+    private static final class Tenant<T> {
+        final ArrayDeque<Entry<T>> items = new ArrayDeque<>();
+        double lastFinishTag;
+        int busy;
+    }
+}
@@ -0,0 +1,59 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Durable ingest queue: how often nodes poll for work and how long a claim lasts.
+ * Bound from the "nexaedi.jobs" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.jobs")
+public class IngestJobProperties {
+
+    /**
+     * Whether this node claims queued jobs. Jobs accepted here are processed locally either way.
+     */
+    private boolean pollingEnabled = true;
+
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * How long a claim stays valid without renewal. Leases are renewed every poll, so this only
+     * bounds how long a crashed node's jobs wait before another node takes them over.
+     */
+    private Duration leaseDuration = Duration.ofMinutes(2);
+
+    /**
+     * Upper bound on jobs claimed per poll; the intake stage's free capacity also limits it.
+     */
+    private int claimBatchSize = 16;
+
+    /**
+     * How long a job waits before it is claimed again after being deferred because a byte-identical
+     * file is still being processed.
+     */
+    private Duration deferDelay = Duration.ofSeconds(10);
+
+    /**
+     * Claims after which a job that keeps getting abandoned is marked FAILED instead.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * How long COMPLETED and FAILED jobs are kept as history before polling nodes delete them.
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * How often polling nodes look for finished jobs past retention.
+     */
+    private Duration pruneInterval = Duration.ofHours(1);
+
+    /**
+     * Identifies this node in lease_owner. Defaults to host name and process ID.
+     */
+    private String nodeId;
+}
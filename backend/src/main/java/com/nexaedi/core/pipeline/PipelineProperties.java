@@ -0,0 +1,45 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Worker counts and queue bounds for the staged EDI pipeline.
+ * Bound from the "nexaedi.pipeline" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.pipeline")
+public class PipelineProperties {
+
+    /**
+     * Store the raw file and parse it into transaction sets. Queue entries are whole files.
+     */
+    private Stage intake = new Stage(4, 64);
+
+    /**
+     * Map each transaction set to a CanonicalOrder and validate it. CPU-bound.
+     */
+    private Stage mapping = new Stage(Runtime.getRuntime().availableProcessors(), 256);
+
+    /**
+     * Send orders to Shopify. Workers beyond what the Shopify rate limiter admits only wait.
+     */
+    private Stage transmit = new Stage(8, 256);
+
+    /**
+     * Final audit record and SellerOrder. Keep workers below the JDBC pool size.
+     */
+    private Stage persist = new Stage(8, 256);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Stage {
+
+        private int workers;
+
+        private int queueCapacity;
+    }
+}
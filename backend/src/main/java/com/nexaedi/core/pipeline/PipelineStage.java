@@ -0,0 +1,144 @@
+package com.nexaedi.core.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a SEDA-style pipeline: a bounded queue drained by a fixed number of worker threads.
+ *
+ * Backpressure comes from the queue bound. {@link #submit} blocks while the queue is full, so
+ * when a downstream stage saturates, the upstream workers feeding it stop pulling new work, their
+ * own queues fill, and the slowdown propagates back to the producer that started the pipeline.
+ *
+ * The queue is a {@link FairShareQueue}: with a tenant classifier, workers serve sellers in
+ * weighted fair order rather than arrival order; without one it is a plain FIFO.
+ *
+ * Handlers are expected to deal with their own failures; anything that escapes is logged and the
+ * worker moves on to the next item.
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    private final String name;
+    private final FairShareQueue<T> queue;
+    private final Consumer<T> handler;
+    private final List<Thread> workers;
+
+    private final AtomicInteger busyWorkers = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+
+    private volatile boolean running;
+
+    public PipelineStage(String name, int workers, int capacity, Consumer<T> handler) {
+        this(name, workers, FairShareQueue.fifo(capacity), handler);
+    }
+
+    public PipelineStage(String name, int workers, FairShareQueue<T> queue, Consumer<T> handler) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Stage '" + name + "' needs at least one worker");
+        }
+        this.name = name;
+        this.queue = queue;
+        this.handler = handler;
+        this.workers = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            this.workers.add(Thread.ofVirtual().name("edi-stage-" + name + "-" + i).unstarted(this::drain));
+        }
+    }
+
+    public void start() {
+        running = true;
+        workers.forEach(Thread::start);
+        log.info("Pipeline stage '{}' started — workers={} queueCapacity={}", name, workers.size(),
+                queue.capacity());
+    }
+
+    /**
+     * Stops the workers. Items still queued are not processed.
+     */
+    public void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        int queued = queue.size();
+        if (queued > 0) {
+            log.warn("Pipeline stage '{}' stopped with {} item(s) still queued", name, queued);
+        }
+    }
+
+    /**
+     * Enqueues an item, blocking while the stage, or the item's tenant, is at capacity.
+     *
+     * @throws InterruptedException if the caller is interrupted while waiting for space
+     */
+    public void submit(T item) throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Pipeline stage '" + name + "' is not running");
+        }
+        queue.put(item);
+    }
+
+    /**
+     * Enqueues an item only if there is room right now.
+     *
+     * @return false if the stage, or the item's tenant, is at capacity
+     */
+    public boolean trySubmit(T item) {
+        if (!running) {
+            throw new IllegalStateException("Pipeline stage '" + name + "' is not running");
+        }
+        return queue.offer(item);
+    }
+
+    public int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, queue.size(), queue.capacity(), queue.backloggedTenants(), workers.size(),
+                busyWorkers.get(), completed.get());
+    }
+
+    private void drain() {
+        while (running) {
+            FairShareQueue.Entry<T> entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            busyWorkers.incrementAndGet();
+            try {
+                handler.accept(entry.item());
+            } catch (RuntimeException e) {
+                log.error("Unhandled failure in pipeline stage '{}': {}", name, e.getMessage(), e);
+            } finally {
+                queue.release(entry);
+                busyWorkers.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time view of a stage for operational dashboards.
+     *
+     * @param backloggedSellers tenants with items waiting
+     * @param completed         items handled since startup, successful or not
+     */
+    public record Snapshot(String stage, int queueDepth, int queueCapacity, int backloggedSellers, int workers,
+                           int busyWorkers, long completed) {
+    }
+}
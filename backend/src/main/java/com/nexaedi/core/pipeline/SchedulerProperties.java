@@ -0,0 +1,54 @@
+package com.nexaedi.core.pipeline;
+
+import com.nexaedi.portal.model.SellerPlan;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fair sharing of the pipeline stages between sellers.
+ * Bound from the "nexaedi.scheduler" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.scheduler")
+public class SchedulerProperties {
+
+    /**
+     * Share of each stage a seller gets while others are also backlogged, by plan.
+     */
+    private Map<SellerPlan, Integer> planWeights = new EnumMap<>(Map.of(
+            SellerPlan.STARTER, 1,
+            SellerPlan.GROWTH, 2,
+            SellerPlan.PRO, 4));
+
+    /**
+     * Weight for submissions without a known seller.
+     */
+    private int defaultWeight = 1;
+
+    /**
+     * Fraction of a stage's queue, and of its workers, one seller may occupy. The rest stays free
+     * for other sellers even while one seller has a deep backlog. 1.0 turns the reservation off.
+     */
+    private double maxSellerShare = 0.75;
+
+    /**
+     * Optional cap on transaction sets of one retailer in service at once, per stage, keyed by
+     * retailer ID (e.g. TARGET: 4). Retailers not listed are uncapped.
+     */
+    private Map<String, Integer> retailerConcurrency = new HashMap<>();
+
+    public int weightOf(SellerPlan plan) {
+        return plan != null ? planWeights.getOrDefault(plan, defaultWeight) : defaultWeight;
+    }
+
+    /**
+     * {@code maxSellerShare} of {@code total}, but never less than one.
+     */
+    public int sellerLimit(int total) {
+        return Math.max(1, (int) Math.floor(total * maxSellerShare));
+    }
+}
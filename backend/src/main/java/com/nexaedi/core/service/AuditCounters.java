@@ -0,0 +1,274 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AuditProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Audit transitions counted per retailer and status, so the status summaries never touch
+ * edi_audit_log.
+ *
+ * Every recorded transition increments a {@link LongAdder}, which stripes contended updates
+ * across cells instead of serialising pipeline workers on one counter. A background thread
+ * periodically adds what this node counted since its previous checkpoint to
+ * edi_audit_status_counter and reads the table back, picking up the other nodes' checkpoints.
+ * Reads return that snapshot plus this node's uncheckpointed counts, without a query.
+ *
+ * The adders only ever grow; a checkpoint writes the difference from the last value it wrote,
+ * so increments racing with a checkpoint are carried into the next one rather than lost. On a
+ * first start with an empty table the counters are seeded once from the audit history. A crash
+ * loses at most one checkpoint interval of this node's counts.
+ */
+@Slf4j
+@Component
+public class AuditCounters {
+
+    private static final String ADD_SQL = """
+            UPDATE edi_audit_status_counter SET record_count = record_count + ?
+            WHERE retailer_id = ? AND status = ?
+            """;
+    private static final String INSERT_SQL = """
+            INSERT INTO edi_audit_status_counter (retailer_id, status, record_count) VALUES (?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditRetentionService retentionService;
+    private final AuditProperties properties;
+
+    private final ConcurrentHashMap<Key, LongAdder> counted = new ConcurrentHashMap<>();
+
+    /**
+     * Replaced as a whole at each checkpoint so reads never see the table and the checkpointed
+     * marks out of step.
+     */
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+    private volatile boolean running;
+    private Thread checkpointThread;
+
+    public AuditCounters(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                         AuditRetentionService retentionService, AuditProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retentionService = retentionService;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        seedIfEmpty();
+        snapshot = new Snapshot(load(), Map.of());
+        running = true;
+        checkpointThread = Thread.ofVirtual().name("audit-counters").start(this::loop);
+        log.info("[AUDIT] Status counters loaded — {} retailer/status pair(s), checkpoint every {}",
+                snapshot.base().size(), properties.getCounterCheckpointInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (checkpointThread != null) {
+            checkpointThread.interrupt();
+        }
+        try {
+            checkpoint();
+        } catch (DataAccessException e) {
+            log.warn("[AUDIT] Final counter checkpoint failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Counts one audit transition.
+     */
+    public void increment(String retailerId, EdiProcessingStatus status) {
+        Key key = new Key(retailerId, status);
+        LongAdder adder = counted.get(key);
+        if (adder == null) {
+            adder = counted.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * Transitions by status across all retailers. Every status is present.
+     */
+    public Map<EdiProcessingStatus, Long> statusTotals() {
+        Map<EdiProcessingStatus, Long> totals = emptyTotals();
+        current().forEach((key, count) -> totals.merge(key.status(), count, Long::sum));
+        return totals;
+    }
+
+    /**
+     * Transitions by status for one retailer. Every status is present.
+     */
+    public Map<EdiProcessingStatus, Long> statusTotals(String retailerId) {
+        Map<EdiProcessingStatus, Long> totals = emptyTotals();
+        current().forEach((key, count) -> {
+            if (Objects.equals(key.retailerId(), retailerId)) {
+                totals.merge(key.status(), count, Long::sum);
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Transitions by retailer and status, retailers in name order and transitions without a
+     * retailer first, under a null key. Only non-zero counts appear.
+     */
+    public Map<String, Map<EdiProcessingStatus, Long>> retailerTotals() {
+        Map<String, Map<EdiProcessingStatus, Long>> totals =
+                new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        current().forEach((key, count) -> totals
+                .computeIfAbsent(key.retailerId(), retailer -> new EnumMap<>(EdiProcessingStatus.class))
+                .merge(key.status(), count, Long::sum));
+        return totals;
+    }
+
+    /**
+     * Zeroes every counter, here and in the table. Other nodes keep their uncheckpointed counts.
+     */
+    public synchronized void reset() {
+        jdbcTemplate.update("DELETE FROM edi_audit_status_counter");
+        Map<Key, Long> marks = new HashMap<>();
+        counted.forEach((key, adder) -> marks.put(key, adder.sum()));
+        snapshot = new Snapshot(Map.of(), marks);
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getCounterCheckpointInterval());
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                checkpoint();
+            } catch (Exception e) {
+                log.warn("[AUDIT] Counter checkpoint failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Adds this node's counts since the last checkpoint to the table, in one transaction, then
+     * reloads the table. If the write fails nothing is marked as checkpointed and the same
+     * counts are retried next time.
+     */
+    synchronized void checkpoint() {
+        Snapshot previous = snapshot;
+        Map<Key, Long> marks = new HashMap<>(previous.checkpointed());
+        Map<Key, Long> deltas = new HashMap<>();
+        counted.forEach((key, adder) -> {
+            // retailer_id is NOT NULL: counts without a retailer stay local rather than failing
+            // every checkpoint
+            if (key.retailerId() == null) {
+                return;
+            }
+            long sum = adder.sum();
+            long delta = sum - previous.checkpointed().getOrDefault(key, 0L);
+            if (delta > 0) {
+                deltas.put(key, delta);
+                marks.put(key, sum);
+            }
+        });
+        if (!deltas.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::add));
+            } catch (DuplicateKeyException e) {
+                // Another node inserted one of the rows first. On PostgreSQL the failed INSERT
+                // aborts the transaction, so the batch is rolled back and retried in a new one,
+                // which finds the row and updates it
+                transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::add));
+            }
+        }
+        snapshot = new Snapshot(load(), marks);
+    }
+
+    private void add(Key key, long delta) {
+        if (jdbcTemplate.update(ADD_SQL, delta, key.retailerId(), key.status().name()) == 0) {
+            jdbcTemplate.update(INSERT_SQL, key.retailerId(), key.status().name(), delta);
+        }
+    }
+
+    /**
+     * On the first start against an empty table, counts the audit history once. If another node
+     * seeds at the same time the unique key rejects this one and its seed is used instead.
+     */
+    private void seedIfEmpty() {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edi_audit_status_counter", Long.class);
+        if (rows != null && rows > 0) {
+            return;
+        }
+        Map<String, Map<EdiProcessingStatus, Long>> history = retentionService.retailerStatusTotals();
+        if (history.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> history.forEach((retailerId, byStatus) ->
+                    byStatus.forEach((auditStatus, count) ->
+                            jdbcTemplate.update(INSERT_SQL, retailerId, auditStatus.name(), count))));
+            log.info("[AUDIT] Seeded status counters from the audit history of {} retailer(s)", history.size());
+        } catch (DuplicateKeyException e) {
+            log.debug("[AUDIT] Status counters already seeded by another node");
+        }
+    }
+
+    private Map<Key, Long> load() {
+        Map<Key, Long> base = new HashMap<>();
+        jdbcTemplate.query("SELECT retailer_id, status, record_count FROM edi_audit_status_counter",
+                (RowCallbackHandler) rs -> base.put(
+                        new Key(rs.getString(1), EdiProcessingStatus.valueOf(rs.getString(2))), rs.getLong(3)));
+        return base;
+    }
+
+    /**
+     * The checkpointed totals plus what this node has counted since.
+     */
+    private Map<Key, Long> current() {
+        Snapshot current = snapshot;
+        Map<Key, Long> totals = new HashMap<>(current.base());
+        counted.forEach((key, adder) -> {
+            long pending = adder.sum() - current.checkpointed().getOrDefault(key, 0L);
+            if (pending > 0) {
+                totals.merge(key, pending, Long::sum);
+            }
+        });
+        return totals;
+    }
+
+    private static Map<EdiProcessingStatus, Long> emptyTotals() {
+        Map<EdiProcessingStatus, Long> totals = new EnumMap<>(EdiProcessingStatus.class);
+        for (EdiProcessingStatus status : EdiProcessingStatus.values()) {
+            totals.put(status, 0L);
+        }
+        return totals;
+    }
+
+    private record Key(String retailerId, EdiProcessingStatus status) {
+    }
+
+    /**
+     * @param base         edi_audit_status_counter as read at the last checkpoint
+     * @param checkpointed per key, the adder sum already included in {@code base}
+     */
+    private record Snapshot(Map<Key, Long> base, Map<Key, Long> checkpointed) {
+    }
+}
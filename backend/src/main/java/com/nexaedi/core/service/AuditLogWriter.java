@@ -0,0 +1,213 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.pipeline.AuditProperties;
+import com.nexaedi.infrastructure.persistence.EdiAuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind sink for audit trail records.
+ *
+ * Callers hand records to a bounded buffer and return immediately. A single writer thread drains
+ * it and inserts each batch with one JDBC batch statement in one transaction, flushing once a
+ * batch reaches {@code batchSize} records or its oldest record has waited {@code flushInterval}.
+ * Pipeline workers therefore no longer take a pooled connection and commit for every status
+ * transition.
+ *
+ * Nothing is dropped under load: when the buffer stays full for {@code offerTimeout}, the caller
+ * writes its own record. At shutdown the buffer is flushed, within {@code shutdownTimeout}, unless
+ * {@code flushOnShutdown} is off. What a crash can lose is bounded by {@code bufferSize}.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO edi_audit_log (correlation_id, parent_correlation_id, retailer_id, transaction_set_code,
+                                       po_number, status, source_file_path, message, error_detail, created_at,
+                                       duration_ms)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    /**
+     * Put on the buffer by {@link #stop()} to wake the writer from its poll; never inserted.
+     */
+    private static final EdiAuditLog WAKE_UP = new EdiAuditLog();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditProperties properties;
+    private final BlockingQueue<EdiAuditLog> buffer;
+
+    private final AtomicLong written = new AtomicLong();
+    private final Counter writtenByCaller;
+
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean abandoned;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          AuditProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, properties.getBufferSize()));
+        Gauge.builder("nexaedi.audit.buffer.size", buffer, BlockingQueue::size)
+                .description("Audit records waiting to be written")
+                .register(meterRegistry);
+        this.writtenByCaller = Counter.builder("nexaedi.audit.overflow")
+                .description("Audit records written by the caller because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isWriteBehind()) {
+            log.info("[AUDIT] Write-behind disabled — audit records are inserted synchronously");
+            return;
+        }
+        running = true;
+        writer = Thread.ofVirtual().name("audit-writer").start(this::drain);
+        log.info("[AUDIT] Write-behind started — bufferSize={} batchSize={} flushInterval={}",
+                properties.getBufferSize(), properties.getBatchSize(), properties.getFlushInterval());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        if (!properties.isFlushOnShutdown()) {
+            abandoned = true;
+        }
+        buffer.offer(WAKE_UP);
+        writer.join(properties.getShutdownTimeout().toMillis());
+        abandoned = true;
+        writer.join(properties.getFlushInterval().toMillis() * 2);
+        buffer.remove(WAKE_UP);
+        int discarded = buffer.size();
+        if (discarded > 0) {
+            log.warn("[AUDIT] {} buffered audit record(s) discarded at shutdown", discarded);
+        }
+        log.info("[AUDIT] Write-behind stopped — {} record(s) written", written.get());
+    }
+
+    /**
+     * Queues a record for writing; writes it on the calling thread if write-behind is off or
+     * stopped, or if the buffer stays full.
+     */
+    public void write(EdiAuditLog entry) {
+        if (running) {
+            try {
+                if (buffer.offer(entry, properties.getOfferTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+                writtenByCaller.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        insert(List.of(entry));
+    }
+
+    private void drain() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<EdiAuditLog> batch = new ArrayList<>(batchSize);
+
+        while (!abandoned && (running || !buffer.isEmpty())) {
+            try {
+                EdiAuditLog first = buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    EdiAuditLog next = running && remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null || next == WAKE_UP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                batch.removeIf(entry -> entry == WAKE_UP);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned = true;
+            }
+            if (!batch.isEmpty()) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Inserts records as one JDBC batch in one transaction. If the batch is rejected, each record
+     * is retried on its own so one bad record cannot take the rest of the batch with it.
+     */
+    private void insert(List<EdiAuditLog> entries) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), AuditLogWriter::bind));
+            written.addAndGet(entries.size());
+        } catch (DataAccessException e) {
+            if (entries.size() == 1) {
+                logLost(entries.getFirst(), e);
+                return;
+            }
+            log.warn("[AUDIT] Batch of {} audit records failed, retrying one by one: {}", entries.size(), e.getMessage());
+            for (EdiAuditLog entry : entries) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, entry));
+                    written.incrementAndGet();
+                } catch (DataAccessException single) {
+                    logLost(entry, single);
+                }
+            }
+        }
+    }
+
+    private static void logLost(EdiAuditLog entry, DataAccessException e) {
+        log.error("[AUDIT] Could not write audit record correlationId={} status={} message={}: {}",
+                entry.getCorrelationId(), entry.getStatus(), entry.getMessage(), e.getMessage());
+    }
+
+    private static void bind(PreparedStatement ps, EdiAuditLog entry) throws SQLException {
+        ps.setString(1, entry.getCorrelationId());
+        ps.setString(2, entry.getParentCorrelationId());
+        ps.setString(3, entry.getRetailerId());
+        ps.setString(4, entry.getTransactionSetCode());
+        ps.setString(5, entry.getPoNumber());
+        ps.setString(6, entry.getStatus().name());
+        ps.setString(7, entry.getSourceFilePath());
+        ps.setString(8, entry.getMessage());
+        ps.setString(9, entry.getErrorDetail());
+        ps.setObject(10, entry.getCreatedAt().atOffset(ZoneOffset.UTC));
+        ps.setObject(11, entry.getDurationMs(), Types.BIGINT);
+    }
+}
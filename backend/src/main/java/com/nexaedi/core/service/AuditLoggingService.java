@@ -2,12 +2,9 @@ package com.nexaedi.core.service;
 
 import com.nexaedi.core.model.EdiProcessingStatus;
 import com.nexaedi.infrastructure.persistence.EdiAuditLog;
-import com.nexaedi.infrastructure.persistence.EdiAuditLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 
@@ -15,15 +12,18 @@ import java.time.Instant;
  * Service responsible for writing immutable audit trail records for every EDI file
  * lifecycle transition. Each call creates a new database row, forming an append-only log.
  *
- * Uses REQUIRES_NEW propagation so audit records are committed even if the
- * calling transaction rolls back — ensuring audit completeness on failure.
+ * Rows are written behind by {@link AuditLogWriter}, in batches and outside any calling
+ * transaction — a rolled-back caller still leaves its audit records, as before, without paying
+ * for a connection and a commit per record. A record appears in the table within the writer's
+ * flush interval. Each transition is also counted by {@link AuditCounters} for the status summaries.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuditLoggingService {
 
-    private final EdiAuditLogRepository repository;
+    private final AuditLogWriter writer;
+    private final AuditCounters counters;
 
     /**
      * Records a lifecycle state transition for an EDI file.
@@ -37,12 +37,24 @@ public class AuditLoggingService {
      * @param message            human-readable summary of this transition
      * @param durationMs         how long this stage took in milliseconds
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public EdiAuditLog record(String correlationId, String retailerId, String transactionSetCode,
-                               String poNumber, EdiProcessingStatus status, String sourceFilePath,
-                               String message, Long durationMs) {
+    public void record(String correlationId, String retailerId, String transactionSetCode,
+                       String poNumber, EdiProcessingStatus status, String sourceFilePath,
+                       String message, Long durationMs) {
+        recordTransaction(correlationId, null, retailerId, transactionSetCode, poNumber,
+                status, sourceFilePath, message, durationMs);
+    }
+
+    /**
+     * Records a lifecycle transition for one transaction set fanned out from an interchange.
+     *
+     * @param parentCorrelationId correlation ID of the interchange the transaction set arrived in
+     */
+    public void recordTransaction(String correlationId, String parentCorrelationId, String retailerId,
+                                  String transactionSetCode, String poNumber, EdiProcessingStatus status,
+                                  String sourceFilePath, String message, Long durationMs) {
         EdiAuditLog entry = EdiAuditLog.builder()
                 .correlationId(correlationId)
+                .parentCorrelationId(parentCorrelationId)
                 .retailerId(retailerId)
                 .transactionSetCode(transactionSetCode)
                 .poNumber(poNumber)
@@ -53,20 +65,30 @@ public class AuditLoggingService {
                 .createdAt(Instant.now())
                 .build();
 
-        EdiAuditLog saved = repository.save(entry);
+        writer.write(entry);
+        counters.increment(retailerId, entry.getStatus());
         log.info("[AUDIT] correlationId={} retailer={} poNumber={} status={} durationMs={}",
                 correlationId, retailerId, poNumber, status, durationMs);
-        return saved;
     }
 
     /**
      * Convenience overload for recording a failure with a full error detail payload.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public EdiAuditLog recordFailure(String correlationId, String retailerId, String sourceFilePath,
-                                      String message, String errorDetail) {
+    public void recordFailure(String correlationId, String retailerId, String sourceFilePath,
+                              String message, String errorDetail) {
+        recordTransactionFailure(correlationId, null, retailerId, null, sourceFilePath, message, errorDetail);
+    }
+
+    /**
+     * Records the failure of one transaction set fanned out from an interchange.
+     */
+    public void recordTransactionFailure(String correlationId, String parentCorrelationId, String retailerId,
+                                         String transactionSetCode, String sourceFilePath,
+                                         String message, String errorDetail) {
         EdiAuditLog entry = EdiAuditLog.builder()
                 .correlationId(correlationId)
+                .parentCorrelationId(parentCorrelationId)
+                .transactionSetCode(transactionSetCode)
                 .retailerId(retailerId)
                 .status(EdiProcessingStatus.FAILED)
                 .sourceFilePath(sourceFilePath)
@@ -75,8 +97,8 @@ public class AuditLoggingService {
                 .createdAt(Instant.now())
                 .build();
 
-        EdiAuditLog saved = repository.save(entry);
+        writer.write(entry);
+        counters.increment(retailerId, entry.getStatus());
         log.error("[AUDIT-FAILURE] correlationId={} retailer={} message={}", correlationId, retailerId, message);
-        return saved;
     }
 }
@@ -0,0 +1,539 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AuditProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the cost of the audit trail independent of how much history it holds.
+ *
+ * edi_audit_log is split by created_at into one partition per period (a month by default):
+ * <ul>
+ *   <li>PostgreSQL — native range partitioning. On first start the plain table Hibernate created
+ *       is converted in place: its rows become the partition of the last period they reach into,
+ *       bounded below by MINVALUE, and new partitions are created {@code premake} periods ahead.
+ *       A DEFAULT partition catches anything outside them; its rows are moved into their
+ *       period's partition once that is created.</li>
+ *   <li>H2 — no partitioning, so edi_audit_log holds the current period and each closed period
+ *       is moved into a table of its own. Moved rows no longer show up in audit-trail lookups;
+ *       H2 is for development only.</li>
+ * </ul>
+ * A background job rolls every finished UTC day up into edi_audit_daily_rollup, then drops —
+ * or, with {@code expiry: ARCHIVE}, detaches and renames — each partition whose whole range is
+ * past retention. Either is a catalogue change, whatever the partition holds. Partitions are
+ * only dropped once every day in them has been rolled up, and {@link #retailerStatusTotals()} reads
+ * the rollup plus the detail rows of the days after it, so totals do not shrink as history expires.
+ *
+ * Safe to run on several nodes at once: the conversion takes an advisory lock, a day rolled up
+ * twice is rejected by the rollup's unique key, and failed DDL is retried on the next run.
+ *
+ * On PostgreSQL it also keeps the CHECK constraints Hibernate put on {@link EdiProcessingStatus}
+ * columns in step with the enum, whether or not partitioning is enabled: ddl-auto update never
+ * changes a constraint, so a schema created before a status was added would reject every row
+ * recording it.
+ */
+@Slf4j
+@Service
+public class AuditRetentionService {
+
+    private static final String PARTITION_PREFIX = "edi_audit_log_p";
+    private static final String ARCHIVE_PREFIX = "edi_audit_archive_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile("edi_audit_log_p(\\d{4})_(\\d{2})(?:_(\\d{2}))?");
+
+    /**
+     * A day is rolled up once it has been over for this long, so records still in the audit
+     * writer's buffer at midnight are counted with their day.
+     */
+    private static final Duration ROLLUP_GRACE = Duration.ofMinutes(10);
+
+    /**
+     * Columns mapped to {@link EdiProcessingStatus}, whose CHECK constraints must list every status.
+     */
+    private static final List<StatusColumn> STATUS_COLUMNS = List.of(
+            new StatusColumn("edi_audit_log", "status"),
+            new StatusColumn("edi_audit_daily_rollup", "status"),
+            new StatusColumn("edi_audit_status_counter", "status"),
+            new StatusColumn("ingest_job", "last_completed_stage"),
+            new StatusColumn("ingest_job_unit", "last_completed_stage"));
+
+    private static final String ROLLUP_SQL = """
+            INSERT INTO edi_audit_daily_rollup (rollup_day, retailer_id, status, record_count,
+                                                total_duration_ms, max_duration_ms)
+            SELECT CAST(? AS DATE), retailer_id, status, COUNT(*), COALESCE(SUM(duration_ms), 0), MAX(duration_ms)
+            FROM edi_audit_log
+            WHERE created_at >= ? AND created_at < ?
+            GROUP BY retailer_id, status
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditProperties.Partitioning properties;
+    private final Clock clock;
+
+    private boolean postgres;
+    private volatile boolean running;
+    private Thread maintenanceThread;
+
+    @Autowired
+    public AuditRetentionService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 AuditProperties properties) {
+        this(jdbcTemplate, transactionTemplate, properties, Clock.systemUTC());
+    }
+
+    AuditRetentionService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          AuditProperties properties, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties.getPartitioning();
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres")));
+        if (!properties.isEnabled()) {
+            if (postgres) {
+                refreshStatusChecks();
+            }
+            log.info("[AUDIT] Partitioning disabled — edi_audit_log is kept as a single table");
+            return;
+        }
+        if (postgres) {
+            partitionTable();
+            refreshStatusChecks();
+        }
+        running = true;
+        maintenanceThread = Thread.ofVirtual().name("audit-maintenance").start(this::loop);
+        log.info("[AUDIT] Partitioning by {} ({}) — retention={} expiry={}", properties.getPeriod(),
+                postgres ? "range partitions" : "table per period", properties.getRetention(), properties.getExpiry());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (maintenanceThread != null) {
+            maintenanceThread.interrupt();
+        }
+    }
+
+    /**
+     * Audit rows ever recorded, by retailer and status: the daily rollups plus the rows of days
+     * not yet rolled up. Only the latest partition or two is scanned.
+     */
+    public Map<String, Map<EdiProcessingStatus, Long>> retailerStatusTotals() {
+        Map<String, Map<EdiProcessingStatus, Long>> totals = new HashMap<>();
+        RowCallbackHandler add = rs -> totals
+                .computeIfAbsent(rs.getString(1), retailer -> new EnumMap<>(EdiProcessingStatus.class))
+                .merge(EdiProcessingStatus.valueOf(rs.getString(2)), rs.getLong(3), Long::sum);
+
+        LocalDate lastRolled = lastRolledDay();
+        if (lastRolled == null) {
+            jdbcTemplate.query("SELECT retailer_id, status, COUNT(*) FROM edi_audit_log GROUP BY retailer_id, status",
+                    add);
+            return totals;
+        }
+        jdbcTemplate.query("""
+                SELECT retailer_id, status, SUM(record_count) FROM edi_audit_daily_rollup
+                WHERE rollup_day <= ? GROUP BY retailer_id, status
+                """, add, lastRolled);
+        jdbcTemplate.query("""
+                SELECT retailer_id, status, COUNT(*) FROM edi_audit_log
+                WHERE created_at >= ? GROUP BY retailer_id, status
+                """, add, startOf(lastRolled.plusDays(1)));
+        return totals;
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                maintain();
+            } catch (Exception e) {
+                log.warn("[AUDIT] Maintenance failed: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(properties.getMaintenanceInterval());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * One maintenance pass: roll up finished days, make sure upcoming partitions exist, then
+     * retire what is past retention. Nothing is retired if the rollup fails.
+     */
+    void maintain() {
+        Instant now = clock.instant();
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+
+        LocalDate rolledUntil = rollUp(now);
+        if (postgres) {
+            createPartitions(today);
+        } else {
+            moveClosedPeriods(min(properties.getPeriod().startOf(today), rolledUntil));
+        }
+
+        LocalDate retainFrom = LocalDate.ofInstant(now.minus(properties.getRetention()), ZoneOffset.UTC);
+        retire(min(retainFrom, rolledUntil));
+    }
+
+    /**
+     * Rolls up every finished day after the last one rolled up. Returns the first day that is
+     * not finished yet; every day before it is in the rollup.
+     */
+    LocalDate rollUp(Instant now) {
+        LocalDate until = LocalDate.ofInstant(now.minus(ROLLUP_GRACE), ZoneOffset.UTC);
+        LocalDate lastRolled = lastRolledDay();
+        LocalDate day = lastRolled != null ? lastRolled.plusDays(1) : firstDetailDay();
+        if (day == null) {
+            return until;
+        }
+        for (; day.isBefore(until); day = day.plusDays(1)) {
+            LocalDate rolling = day;
+            try {
+                Integer groups = transactionTemplate.execute(status -> jdbcTemplate.update(ROLLUP_SQL,
+                        rolling, startOf(rolling), startOf(rolling.plusDays(1))));
+                if (groups != null && groups > 0) {
+                    log.info("[AUDIT] Rolled up {} — {} retailer/status group(s)", rolling, groups);
+                }
+            } catch (DuplicateKeyException e) {
+                log.debug("[AUDIT] {} already rolled up by another node", rolling);
+            }
+        }
+        return until;
+    }
+
+    /**
+     * Converts a plain edi_audit_log into a range-partitioned table. Existing rows are kept as
+     * one partition rather than copied, so this is quick however large the table is. The current
+     * and premade partitions are created in the same transaction, so new rows never land in the
+     * DEFAULT partition first.
+     *
+     * ATTACH PARTITION needs a unique index on (id, created_at) for the new primary key and would
+     * otherwise build it while holding ACCESS EXCLUSIVE on the whole table; it is built
+     * beforehand, concurrently, so the conversion only waits on the catalogue changes.
+     */
+    private void partitionTable() {
+        if (!"r".equals(relkind("edi_audit_log"))) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS edi_audit_log_id_created_at_key"
+                    + " ON edi_audit_log (id, created_at)");
+        } catch (DataAccessException e) {
+            log.warn("[AUDIT] Could not prebuild the primary key index, ATTACH PARTITION will build it: {}",
+                    e.getMessage());
+        }
+        LocalDate today = LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('edi_audit_log'))");
+            String kind = jdbcTemplate.queryForObject(
+                    "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('edi_audit_log')", String.class);
+            if (!"r".equals(kind)) {
+                return;
+            }
+            jdbcTemplate.execute("LOCK TABLE edi_audit_log IN ACCESS EXCLUSIVE MODE");
+            OffsetDateTime latest = jdbcTemplate.queryForObject(
+                    "SELECT MAX(created_at) FROM edi_audit_log", OffsetDateTime.class);
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM edi_audit_log", Long.class);
+
+            jdbcTemplate.execute("ALTER TABLE edi_audit_log RENAME TO edi_audit_log_legacy");
+            for (String index : jdbcTemplate.queryForList(
+                    "SELECT indexname FROM pg_indexes WHERE tablename = 'edi_audit_log_legacy'", String.class)) {
+                jdbcTemplate.execute("ALTER INDEX " + index + " RENAME TO " + index + "_legacy");
+            }
+            jdbcTemplate.execute("ALTER TABLE edi_audit_log_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS");
+            jdbcTemplate.execute("ALTER TABLE edi_audit_log_legacy ALTER COLUMN id DROP DEFAULT");
+
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS edi_audit_log_seq");
+            jdbcTemplate.queryForList("SELECT setval('edi_audit_log_seq', ?, false)", maxId + 1);
+            jdbcTemplate.execute("""
+                    CREATE TABLE edi_audit_log (LIKE edi_audit_log_legacy INCLUDING DEFAULTS)
+                    PARTITION BY RANGE (created_at)
+                    """);
+            jdbcTemplate.execute("ALTER TABLE edi_audit_log ALTER COLUMN id SET DEFAULT nextval('edi_audit_log_seq')");
+            jdbcTemplate.execute("ALTER SEQUENCE edi_audit_log_seq OWNED BY edi_audit_log.id");
+            jdbcTemplate.execute("ALTER TABLE edi_audit_log ADD PRIMARY KEY (id, created_at)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_correlation_id ON edi_audit_log (correlation_id)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_parent_correlation_id ON edi_audit_log (parent_correlation_id)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_retailer_status ON edi_audit_log (retailer_id, status)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_created_at ON edi_audit_log (created_at)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_po_number ON edi_audit_log (po_number)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_retailer_created ON edi_audit_log (retailer_id, created_at, id)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_status_created ON edi_audit_log (status, created_at, id)");
+            jdbcTemplate.execute("CREATE INDEX idx_audit_created_id ON edi_audit_log (created_at, id)");
+
+            if (latest == null) {
+                jdbcTemplate.execute("DROP TABLE edi_audit_log_legacy");
+            } else {
+                LocalDate start = properties.getPeriod().startOf(LocalDate.ofInstant(latest.toInstant(), ZoneOffset.UTC));
+                String name = partitionName(start);
+                jdbcTemplate.execute("ALTER TABLE edi_audit_log_legacy RENAME TO " + name);
+                // The CHECK Hibernate put on status would reject statuses added since; the
+                // partitions created here have none
+                jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT IF EXISTS edi_audit_log_status_check");
+                jdbcTemplate.execute("ALTER TABLE edi_audit_log ATTACH PARTITION " + name
+                        + " FOR VALUES FROM (MINVALUE) TO ('" + startOf(properties.getPeriod().next(start)) + "')");
+            }
+            jdbcTemplate.execute("CREATE TABLE edi_audit_log_default PARTITION OF edi_audit_log DEFAULT");
+            for (Partition partition : missingPartitions(today)) {
+                createPartition(partition);
+            }
+            log.info("[AUDIT] Converted edi_audit_log to a partitioned table — existing rows up to {} kept in place",
+                    latest);
+        });
+    }
+
+    /**
+     * Replaces every CHECK constraint on a status column that does not list all of
+     * {@link EdiProcessingStatus}. Plain tables get the full list back as NOT VALID, which checks
+     * new rows without scanning old ones. The partitioned edi_audit_log is left without one, as
+     * its partitions were created without it; only the converted legacy partition carried it.
+     */
+    private void refreshStatusChecks() {
+        List<String> values = new ArrayList<>();
+        for (EdiProcessingStatus status : EdiProcessingStatus.values()) {
+            values.add("'" + status.name() + "'");
+        }
+        for (StatusColumn column : STATUS_COLUMNS) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> refreshStatusCheck(column, values));
+            } catch (DataAccessException e) {
+                log.warn("[AUDIT] Could not update the status check of {}.{}: {}",
+                        column.table(), column.column(), e.getMessage());
+            }
+        }
+    }
+
+    private void refreshStatusCheck(StatusColumn column, List<String> values) {
+        String kind = relkind(column.table());
+        if (kind == null) {
+            return;
+        }
+        List<Map<String, Object>> checks = jdbcTemplate.queryForList("""
+                SELECT c.relname, con.conname, pg_get_constraintdef(con.oid) AS definition
+                FROM pg_constraint con
+                JOIN pg_class c ON c.oid = con.conrelid
+                JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = ANY (con.conkey)
+                WHERE con.contype = 'c' AND con.conislocal AND a.attname = ?
+                  AND (con.conrelid = to_regclass(?)
+                       OR con.conrelid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = to_regclass(?)))
+                """, column.column(), column.table(), column.table());
+        List<Map<String, Object>> stale = checks.stream()
+                .filter(check -> values.stream().anyMatch(value -> !((String) check.get("definition")).contains(value)))
+                .toList();
+        if (stale.isEmpty()) {
+            return;
+        }
+        for (Map<String, Object> check : stale) {
+            jdbcTemplate.execute("ALTER TABLE " + check.get("relname") + " DROP CONSTRAINT IF EXISTS " + check.get("conname"));
+        }
+        if (!"p".equals(kind)) {
+            jdbcTemplate.execute("ALTER TABLE " + column.table() + " ADD CONSTRAINT " + column.table() + "_"
+                    + column.column() + "_check CHECK (" + column.column() + " IN (" + String.join(", ", values)
+                    + ")) NOT VALID");
+        }
+        log.info("[AUDIT] Updated the status check of {}.{} to all {} statuses",
+                column.table(), column.column(), values.size());
+    }
+
+    private void createPartitions(LocalDate today) {
+        for (Partition partition : missingPartitions(today)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> createPartition(partition));
+            } catch (DataAccessException e) {
+                log.warn("[AUDIT] Could not create partition {}: {}", partition.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Periods from the current one to {@code premake} ahead that have no partition yet, preceded
+     * by any earlier ones the DEFAULT partition holds rows for, e.g. after a node was down past
+     * the premade periods. Those rows are only retired once they have a partition of their own.
+     */
+    private List<Partition> missingPartitions(LocalDate today) {
+        List<Partition> existing = partitions();
+        LocalDate first = properties.getPeriod().startOf(today);
+        OffsetDateTime stray = jdbcTemplate.queryForObject(
+                "SELECT MIN(created_at) FROM edi_audit_log_default", OffsetDateTime.class);
+        if (stray != null) {
+            first = min(first, properties.getPeriod().startOf(LocalDate.ofInstant(stray.toInstant(), ZoneOffset.UTC)));
+        }
+        LocalDate last = properties.getPeriod().startOf(today);
+        for (int i = 0; i < properties.getPremake(); i++) {
+            last = properties.getPeriod().next(last);
+        }
+        List<Partition> missing = new ArrayList<>();
+        for (LocalDate start = first; !start.isAfter(last); start = properties.getPeriod().next(start)) {
+            LocalDate from = start;
+            LocalDate end = properties.getPeriod().next(start);
+            if (existing.stream().noneMatch(p -> p.start().isBefore(end) && from.isBefore(p.end()))) {
+                missing.add(new Partition(partitionName(start), start, end));
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Creates one period's partition. PostgreSQL refuses to create a partition for a range the
+     * DEFAULT partition already holds rows for, so when it does, DEFAULT is detached, the partition
+     * created, the rows moved across and DEFAULT attached again — all in the caller's transaction.
+     */
+    private void createPartition(Partition partition) {
+        OffsetDateTime from = startOf(partition.start());
+        OffsetDateTime to = startOf(partition.end());
+        String bounds = " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        Boolean stray = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM edi_audit_log_default WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(stray)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition.name() + " PARTITION OF edi_audit_log" + bounds);
+            log.info("[AUDIT] Created partition {}", partition.name());
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE edi_audit_log DETACH PARTITION edi_audit_log_default");
+        jdbcTemplate.execute("CREATE TABLE " + partition.name() + " PARTITION OF edi_audit_log" + bounds);
+        int moved = jdbcTemplate.update("INSERT INTO " + partition.name()
+                + " SELECT * FROM edi_audit_log_default WHERE created_at >= ? AND created_at < ?", from, to);
+        jdbcTemplate.update("DELETE FROM edi_audit_log_default WHERE created_at >= ? AND created_at < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE edi_audit_log ATTACH PARTITION edi_audit_log_default DEFAULT");
+        log.info("[AUDIT] Created partition {} and moved {} row(s) into it from the default partition",
+                partition.name(), moved);
+    }
+
+    /**
+     * H2 only: moves the rows of every period that ended by {@code until} into that period's table.
+     */
+    private void moveClosedPeriods(LocalDate until) {
+        LocalDate first;
+        while ((first = firstDetailDay()) != null) {
+            LocalDate start = properties.getPeriod().startOf(first);
+            LocalDate end = properties.getPeriod().next(start);
+            if (end.isAfter(until)) {
+                return;
+            }
+            String table = partitionName(start);
+            OffsetDateTime from = startOf(start);
+            OffsetDateTime to = startOf(end);
+            Integer moved = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " AS SELECT * FROM edi_audit_log WITH NO DATA");
+                jdbcTemplate.update("INSERT INTO " + table
+                        + " SELECT * FROM edi_audit_log WHERE created_at >= ? AND created_at < ?", from, to);
+                return jdbcTemplate.update("DELETE FROM edi_audit_log WHERE created_at >= ? AND created_at < ?", from, to);
+            });
+            if (moved == null || moved == 0) {
+                return;
+            }
+            log.info("[AUDIT] Moved {} audit row(s) into {}", moved, table);
+        }
+    }
+
+    /**
+     * Drops or archives every partition that ends on or before {@code before}.
+     */
+    private void retire(LocalDate before) {
+        for (Partition partition : partitions()) {
+            if (partition.end().isAfter(before)) {
+                continue;
+            }
+            try {
+                if (properties.getExpiry() == AuditProperties.Expiry.ARCHIVE) {
+                    String archive = ARCHIVE_PREFIX + partition.name().substring(PARTITION_PREFIX.length());
+                    if (postgres) {
+                        jdbcTemplate.execute("ALTER TABLE edi_audit_log DETACH PARTITION " + partition.name());
+                    }
+                    jdbcTemplate.execute("ALTER TABLE " + partition.name() + " RENAME TO " + archive);
+                    log.info("[AUDIT] Archived partition {} as {}", partition.name(), archive);
+                } else {
+                    jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.name());
+                    log.info("[AUDIT] Dropped partition {}", partition.name());
+                }
+            } catch (DataAccessException e) {
+                log.warn("[AUDIT] Could not retire partition {}: {}", partition.name(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Partitions (PostgreSQL) or period tables (H2), with the range their name stands for.
+     */
+    private List<Partition> partitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query("""
+                SELECT LOWER(table_name) FROM information_schema.tables
+                WHERE table_schema = CURRENT_SCHEMA AND LOWER(table_name) LIKE 'edi_audit_log_p%'
+                """, (RowCallbackHandler) rs -> {
+            Matcher matcher = PARTITION_NAME.matcher(rs.getString(1));
+            if (matcher.matches()) {
+                boolean daily = matcher.group(3) != null;
+                LocalDate start = LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)),
+                        daily ? Integer.parseInt(matcher.group(3)) : 1);
+                partitions.add(new Partition(matcher.group(), start, daily ? start.plusDays(1) : start.plusMonths(1)));
+            }
+        });
+        return partitions;
+    }
+
+    private String relkind(String table) {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+        return kinds.isEmpty() ? null : kinds.getFirst();
+    }
+
+    private String partitionName(LocalDate start) {
+        String name = PARTITION_PREFIX + start.getYear() + "_" + String.format("%02d", start.getMonthValue());
+        return properties.getPeriod() == AuditProperties.Period.DAY
+                ? name + "_" + String.format("%02d", start.getDayOfMonth()) : name;
+    }
+
+    private LocalDate lastRolledDay() {
+        return jdbcTemplate.queryForObject("SELECT MAX(rollup_day) FROM edi_audit_daily_rollup", LocalDate.class);
+    }
+
+    private LocalDate firstDetailDay() {
+        OffsetDateTime first = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM edi_audit_log",
+                OffsetDateTime.class);
+        return first != null ? LocalDate.ofInstant(first.toInstant(), ZoneOffset.UTC) : null;
+    }
+
+    private static OffsetDateTime startOf(LocalDate day) {
+        return day.atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private record Partition(String name, LocalDate start, LocalDate end) {
+    }
+
+    private record StatusColumn(String table, String column) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.infrastructure.persistence.AuditLogView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Filtered search over edi_audit_log, newest first, paged by seeking on (created_at, id).
+ *
+ * Each page starts strictly after the last row of the previous one, so it costs an index range
+ * scan of one page whatever its depth, and rows written while paging neither repeat nor shift
+ * later pages the way OFFSET does. The composite indexes on EdiAuditLog keep the common filters
+ * — retailer, status, PO number — on an index ordered by (created_at, id); a time range also
+ * prunes partitions on PostgreSQL. Only the columns of {@link AuditLogView} are read.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuditSearchService {
+
+    public static final int MAX_LIMIT = 500;
+
+    private static final RowMapper<AuditLogView> VIEW = (rs, row) -> new AuditLogView(
+            rs.getLong("id"),
+            rs.getString("correlation_id"),
+            rs.getString("parent_correlation_id"),
+            rs.getString("retailer_id"),
+            rs.getString("transaction_set_code"),
+            rs.getString("po_number"),
+            EdiProcessingStatus.valueOf(rs.getString("status")),
+            rs.getString("message"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+            rs.getObject("duration_ms", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Search filters; null fields are not filtered on. {@code from} is inclusive, {@code to} exclusive.
+     */
+    public record Filter(String retailerId, EdiProcessingStatus status, String poNumber,
+                         String transactionSetCode, Instant from, Instant to) {
+    }
+
+    /**
+     * @param items      at most {@code limit} rows, newest first
+     * @param nextCursor cursor for the following page, or null if this is the last one
+     */
+    public record Page(List<AuditLogView> items, String nextCursor) {
+    }
+
+    /**
+     * Returns the page of rows matching {@code filter} that follows {@code cursor}, or the first
+     * page when it is null.
+     *
+     * @throws IllegalArgumentException if the cursor was not produced by this service
+     */
+    public Page search(Filter filter, String cursor, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_LIMIT);
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, correlation_id, parent_correlation_id, retailer_id, transaction_set_code, po_number,
+                       status, message, created_at, duration_ms
+                FROM edi_audit_log WHERE 1 = 1""");
+        List<Object> args = new ArrayList<>();
+        where(sql, args, "retailer_id = ?", filter.retailerId());
+        where(sql, args, "status = ?", filter.status() != null ? filter.status().name() : null);
+        where(sql, args, "po_number = ?", filter.poNumber());
+        where(sql, args, "transaction_set_code = ?", filter.transactionSetCode());
+        where(sql, args, "created_at >= ?", utc(filter.from()));
+        where(sql, args, "created_at < ?", utc(filter.to()));
+        if (cursor != null) {
+            Position after = decode(cursor);
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(utc(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<AuditLogView> rows = jdbcTemplate.query(sql.toString(), VIEW, args.toArray());
+        if (rows.size() <= pageSize) {
+            return new Page(rows, null);
+        }
+        List<AuditLogView> items = rows.subList(0, pageSize);
+        AuditLogView last = items.getLast();
+        return new Page(List.copyOf(items), encode(new Position(last.createdAt(), last.id())));
+    }
+
+    private static void where(StringBuilder sql, List<Object> args, String condition, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(condition);
+            args.add(value);
+        }
+    }
+
+    private static OffsetDateTime utc(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+
+    private static String encode(Position position) {
+        String raw = position.createdAt() + "|" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new Position(Instant.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private record Position(Instant createdAt, long id) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.pipeline.BloomFilter;
+import com.nexaedi.core.pipeline.DedupProperties;
+import com.nexaedi.infrastructure.persistence.DedupKey;
+import com.nexaedi.infrastructure.persistence.DedupKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Detects retransmitted interchanges and purchase orders before they reach mapping and Shopify.
+ *
+ * Each key — (sender ID, ISA13) for an interchange, (retailer, BEG03) for a purchase order — is
+ * claimed by inserting it under the unique index on edi_dedup_key, which is the only authority on
+ * what has been seen, across all nodes. An in-memory Bloom filter, warmed from that table at
+ * startup, sits in front of it: a key the filter has never seen is inserted straight away, and
+ * only keys the filter reports as possibly seen cost a lookup first.
+ *
+ * A claim made by the same correlation ID again (a job resumed from the durable queue) is not a
+ * duplicate. Keys are released when their run fails, so a corrected retransmission goes through.
+ */
+@Slf4j
+@Service
+public class DuplicateDetectionService {
+
+    private final DedupKeyRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DedupProperties properties;
+    private final BloomFilter filter;
+    private final Counter interchangeDuplicates;
+    private final Counter purchaseOrderDuplicates;
+
+    public DuplicateDetectionService(DedupKeyRepository repository, JdbcTemplate jdbcTemplate,
+                                     DedupProperties properties, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.filter = new BloomFilter(properties.getExpectedKeys(), properties.getFalsePositiveRate());
+        this.interchangeDuplicates = duplicateCounter(meterRegistry, DedupKey.KeyType.INTERCHANGE);
+        this.purchaseOrderDuplicates = duplicateCounter(meterRegistry, DedupKey.KeyType.PURCHASE_ORDER);
+    }
+
+    @PostConstruct
+    public void warmFilter() {
+        if (!properties.isEnabled()) {
+            log.info("[DEDUP] Duplicate detection disabled");
+            return;
+        }
+        long[] loaded = {0};
+        jdbcTemplate.query("SELECT key_type, scope, key_value FROM edi_dedup_key", (RowCallbackHandler) rs -> {
+            filter.put(filterKey(rs.getString(1), rs.getString(2), rs.getString(3)));
+            loaded[0]++;
+        });
+        log.info("[DEDUP] Bloom filter warmed with {} key(s) — bits={} hashes={}",
+                loaded[0], filter.bitSize(), filter.hashCount());
+    }
+
+    /**
+     * Claims an interchange for {@code correlationId}.
+     *
+     * @return the correlation ID that first processed this interchange, if it is a duplicate
+     */
+    public Optional<String> claimInterchange(String senderId, String controlNumber, String correlationId) {
+        return claim(DedupKey.KeyType.INTERCHANGE, senderId, controlNumber, correlationId);
+    }
+
+    /**
+     * Claims a purchase order for the transaction set {@code correlationId}.
+     *
+     * @return the correlation ID of the transaction set that first carried this PO, if it is a duplicate
+     */
+    public Optional<String> claimPurchaseOrder(String retailerId, String poNumber, String correlationId) {
+        return claim(DedupKey.KeyType.PURCHASE_ORDER, retailerId, poNumber, correlationId);
+    }
+
+    public void releaseInterchange(String senderId, String controlNumber, String correlationId) {
+        release(DedupKey.KeyType.INTERCHANGE, senderId, controlNumber, correlationId);
+    }
+
+    public void releasePurchaseOrder(String retailerId, String poNumber, String correlationId) {
+        release(DedupKey.KeyType.PURCHASE_ORDER, retailerId, poNumber, correlationId);
+    }
+
+    private Optional<String> claim(DedupKey.KeyType type, String scope, String value, String correlationId) {
+        if (!properties.isEnabled() || isBlank(scope) || isBlank(value)) {
+            return Optional.empty();
+        }
+        String normalizedScope = normalize(scope);
+        String normalizedValue = normalize(value);
+        String key = filterKey(type.name(), normalizedScope, normalizedValue);
+
+        if (filter.mightContain(key)) {
+            Optional<DedupKey> existing = repository.findByKeyTypeAndScopeAndKeyValue(type, normalizedScope, normalizedValue);
+            if (existing.isPresent()) {
+                return duplicateUnlessOwn(type, existing.get(), correlationId);
+            }
+        }
+
+        try {
+            repository.saveAndFlush(DedupKey.builder()
+                    .keyType(type)
+                    .scope(normalizedScope)
+                    .keyValue(normalizedValue)
+                    .correlationId(correlationId)
+                    .build());
+            filter.put(key);
+            return Optional.empty();
+        } catch (DataIntegrityViolationException e) {
+            // Claimed concurrently, or by another node whose keys this filter has not seen
+            filter.put(key);
+            return repository.findByKeyTypeAndScopeAndKeyValue(type, normalizedScope, normalizedValue)
+                    .flatMap(existing -> duplicateUnlessOwn(type, existing, correlationId));
+        }
+    }
+
+    private Optional<String> duplicateUnlessOwn(DedupKey.KeyType type, DedupKey existing, String correlationId) {
+        if (existing.getCorrelationId().equals(correlationId)) {
+            return Optional.empty();
+        }
+        (type == DedupKey.KeyType.INTERCHANGE ? interchangeDuplicates : purchaseOrderDuplicates).increment();
+        log.info("[DEDUP] Duplicate {} {}/{} — correlationId={} first seen as {}", type,
+                existing.getScope(), existing.getKeyValue(), correlationId, existing.getCorrelationId());
+        return Optional.of(existing.getCorrelationId());
+    }
+
+    private void release(DedupKey.KeyType type, String scope, String value, String correlationId) {
+        if (!properties.isEnabled() || isBlank(scope) || isBlank(value)) {
+            return;
+        }
+        try {
+            repository.release(type, normalize(scope), normalize(value), correlationId);
+        } catch (Exception e) {
+            log.warn("[DEDUP] Could not release {} {}/{} for correlationId={}: {}",
+                    type, scope, value, correlationId, e.getMessage());
+        }
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, DedupKey.KeyType type) {
+        return Counter.builder("nexaedi.dedup.duplicates")
+                .description("Inbound interchanges and purchase orders short-circuited as duplicates")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private static String filterKey(String type, String scope, String value) {
+        return type + '|' + scope + '|' + value;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -5,51 +5,124 @@ import com.nexaedi.core.mapping.MappingRegistry;
 import com.nexaedi.core.mapping.X12ToCanonicalMapper;
 import com.nexaedi.core.model.CanonicalOrder;
 import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.model.InterchangeResult;
+import com.nexaedi.core.model.InterchangeResult.TransactionResult;
+import com.nexaedi.core.model.StreamedTransaction;
+import com.nexaedi.core.model.X12Group;
 import com.nexaedi.core.model.X12Interchange;
+import com.nexaedi.core.model.X12Segment;
 import com.nexaedi.core.model.X12Transaction;
 import com.nexaedi.core.parser.EdiParseException;
+import com.nexaedi.core.parser.StreamingX12Parser;
 import com.nexaedi.core.parser.UniversalX12Parser;
+import com.nexaedi.core.parser.X12TransactionStream;
+import com.nexaedi.core.pipeline.FairShareQueue;
+import com.nexaedi.core.pipeline.PipelineMetrics;
+import com.nexaedi.core.pipeline.PipelineMetrics.Outcome;
+import com.nexaedi.core.pipeline.PipelineMetrics.Step;
+import com.nexaedi.core.pipeline.PipelineProperties;
+import com.nexaedi.core.pipeline.PipelineStage;
+import com.nexaedi.core.pipeline.SchedulerProperties;
 import com.nexaedi.infrastructure.dlq.DeadLetterQueueService;
+import com.nexaedi.infrastructure.persistence.IngestJob;
+import com.nexaedi.infrastructure.persistence.IngestJobUnit;
 import com.nexaedi.infrastructure.shopify.ShopifyOutboundAdapter;
 import com.nexaedi.infrastructure.shopify.ShopifyTransmissionException;
+import com.nexaedi.infrastructure.storage.InboundUpload;
 import com.nexaedi.infrastructure.storage.StorageService;
 import com.nexaedi.portal.model.OrderSyncStatus;
 import com.nexaedi.portal.model.PlatformType;
+import com.nexaedi.portal.model.Seller;
 import com.nexaedi.portal.model.SellerOrder;
 import com.nexaedi.portal.repository.SellerOrderRepository;
 import com.nexaedi.portal.repository.SellerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * The central orchestrator of the NexaEDI processing pipeline.
  *
  * Pipeline stages for each EDI file:
- *  1. RECEIVED  — Store raw content in S3, write audit record
+ *  1. RECEIVED  — Store raw content in S3 (overlapped with parsing), write audit record
  *  2. PARSED    — Parse X12 envelope, apply MappingProfile, build CanonicalOrder
  *  3. VALIDATED — Run Hibernate Validator against the CanonicalOrder
  *  4. TRANSMITTED — Transmit to Shopify via ShopifyOutboundAdapter
  *  5. ACKNOWLEDGED — Write final success audit record
  *
- * Transaction Isolation: Each file is processed on its own Virtual Thread via @Async.
- * If one file in a batch fails, the exception is caught and quarantined to the DLQ;
- * other files continue processing independently.
+ * Staging: the work runs as a SEDA-style pipeline of {@link PipelineStage}s, each with a bounded
+ * queue and its own worker count (see {@link PipelineProperties}):
+ *   intake (1-2: store, parse) → mapping (2-3: map, validate) → transmit (4) → persist (5)
+ * A stage that falls behind fills its queue, which blocks the stage feeding it, and so on back
+ * to intake — a burst of uploads waits instead of piling up as threads parked on the Shopify
+ * rate limiter or the connection pool.
+ *
+ * Fair share: each stage queue is a {@link FairShareQueue} keyed by seller and weighted by the
+ * seller's plan ({@link SchedulerProperties}). A seller with a 50k-PO backlog gets its weighted
+ * share of every stage, and a seller with five orders is served next rather than behind that
+ * backlog. One seller can hold only part of a stage's queue slots and workers, and retailers can
+ * be capped to a number of items in service per stage.
+ *
+ * Storage overlap: the upload to S3 is started, not awaited, before parsing. Parsing and mapping
+ * run while it is in flight; the intake worker joins it only once the file is parsed, and a
+ * transaction set joins it before being transmitted, so nothing reaches Shopify, and no stage is
+ * checkpointed, for a file that is not yet durably stored. A file's latency is the longer of the
+ * upload and the parse rather than their sum.
+ *
+ * Durability: every accepted file is first written to the ingest job table
+ * ({@link IngestJobService}). When intake is full the file simply stays queued there until this
+ * or another node claims it. Interchange- and transaction-level stage checkpoints let a job
+ * abandoned by a crashed node resume where it stopped.
+ *
+ * Fan-out: intake runs once per interchange. Every ST...SE transaction set in every GS group
+ * then travels through the remaining stages as its own unit, under a child correlation ID linked
+ * to the interchange's. A failing unit is quarantined on its own; other units and other files
+ * continue independently, and the interchange records an aggregate {@link InterchangeResult}.
+ *
+ * Duplicates: before anything is stored or parsed, a file whose bytes were already received for
+ * the retailer (same SHA-256) stops, or goes back on the queue while the first copy is still in
+ * flight — see {@link InboundContentService}; inbound files are stored
+ * under that digest, so identical files share one object. Once the interchange header is parsed,
+ * a retransmitted interchange (same sender and ISA13) stops there; before mapping, a transaction
+ * set whose PO (retailer + BEG03) was already processed is skipped. All are recorded as
+ * DUPLICATE — see {@link DuplicateDetectionService}.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EdiOrchestrationService {
 
+    private static final long DLQ_INLINE_LIMIT_BYTES = 10L * 1024 * 1024;
+
     private final UniversalX12Parser parser;
+    private final StreamingX12Parser streamingParser;
     private final MappingRegistry mappingRegistry;
     private final X12ToCanonicalMapper mapper;
     private final Validator validator;
@@ -59,118 +132,867 @@ public class EdiOrchestrationService {
     private final StorageService storageService;
     private final SellerRepository sellerRepository;
     private final SellerOrderRepository sellerOrderRepository;
+    private final PipelineProperties pipelineProperties;
+    private final SchedulerProperties schedulerProperties;
+    private final MeterRegistry meterRegistry;
+    private final PipelineMetrics metrics;
+    private final IngestJobService ingestJobService;
+    private final DuplicateDetectionService duplicateDetection;
+    private final InboundContentService inboundContent;
+
+    private final Set<String> activeJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Futures of runs whose job went back on the shared queue, by correlation ID. They complete
+     * only once the job finishes, here or on another node, so a caller holding an admission
+     * permit until then keeps queued files counted against admission.
+     */
+    private final Map<String, CompletableFuture<InterchangeResult>> handedOff = new ConcurrentHashMap<>();
+
+    private PipelineStage<IntakeJob> intakeStage;
+    private PipelineStage<TransactionJob> mappingStage;
+    private PipelineStage<TransactionJob> transmitStage;
+    private PipelineStage<TransactionJob> persistStage;
+
+    @PostConstruct
+    public void startStages() {
+        intakeStage = stage("intake", pipelineProperties.getIntake(), job -> job.run().ticket, this::handleIntake);
+        mappingStage = stage("mapping", pipelineProperties.getMapping(), job -> job.run.ticket, this::handleMapping);
+        transmitStage = stage("transmit", pipelineProperties.getTransmit(), job -> job.run.ticket, this::handleTransmit);
+        persistStage = stage("persist", pipelineProperties.getPersist(), job -> job.run.ticket, this::handlePersist);
+        Gauge.builder("nexaedi.pipeline.active.jobs", activeJobs, Set::size)
+                .description("Inbound files this node is processing")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stopStages() {
+        List.of(intakeStage, mappingStage, transmitStage, persistStage).forEach(PipelineStage::stop);
+    }
+
+    /**
+     * Queue depth and worker utilisation per stage, in pipeline order.
+     */
+    public List<PipelineStage.Snapshot> getStageSnapshots() {
+        return List.of(intakeStage.snapshot(), mappingStage.snapshot(),
+                transmitStage.snapshot(), persistStage.snapshot());
+    }
+
+    private <T> PipelineStage<T> stage(String name, PipelineProperties.Stage settings,
+                                       Function<T, FairShareQueue.Ticket> ticket, Consumer<T> handler) {
+        Map<String, Integer> retailerCaps = schedulerProperties.getRetailerConcurrency().entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey().toUpperCase(Locale.ROOT), Map.Entry::getValue));
+        FairShareQueue<T> queue = new FairShareQueue<>(settings.getQueueCapacity(),
+                schedulerProperties.sellerLimit(settings.getQueueCapacity()),
+                schedulerProperties.sellerLimit(settings.getWorkers()),
+                retailerCaps, ticket);
+        PipelineStage<T> stage = new PipelineStage<>(name, settings.getWorkers(), queue, handler);
+        Gauge.builder("nexaedi.pipeline.queue.depth", stage, PipelineStage::queueDepth)
+                .description("Items waiting in a pipeline stage queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+        stage.start();
+        return stage;
+    }
 
     /**
-     * Processes a single raw EDI file asynchronously on a Virtual Thread.
-     * Failures are isolated: they trigger DLQ quarantine without affecting other concurrent files.
+     * Accepts a raw EDI file. The file is first written to the durable ingest queue — once this
+     * returns, a restart cannot lose it. If the intake stage has room the file is processed on
+     * this node straight from memory; otherwise it is left queued for whichever node has
+     * capacity first. Failures are isolated: they trigger DLQ quarantine without affecting other
+     * concurrent files.
      *
      * @param retailerId   the originating retailer (e.g. "TARGET")
      * @param rawContent   the complete raw X12 EDI file content
      * @param fileName     the original file name (for DLQ error reports)
-     * @return CompletableFuture resolving to the correlation ID on success
+     * @return CompletableFuture resolving to the per-transaction outcomes of the interchange once
+     *         it is processed; to null if it was handed to the shared queue and finished on another
+     *         node
      */
-    @Async("ediVirtualThreadExecutor")
-    public CompletableFuture<String> processAsync(String correlationId, String retailerId,
+    public CompletableFuture<InterchangeResult> processAsync(String correlationId, String retailerId,
                                                    String rawContent, String fileName, Long sellerId) {
-        log.info("[ORCHESTRATOR] Starting pipeline — correlationId={} retailer={} sellerId={} file={}",
+        IngestJob job = ingestJobService.enqueue(correlationId, retailerId, sellerId, fileName, rawContent);
+        metrics.bytesIngested(retailerId, job.getPayloadBytes());
+        log.info("[ORCHESTRATOR] Accepted — correlationId={} retailer={} sellerId={} file={}",
+                correlationId, retailerId, sellerId, fileName);
+        InterchangeRun run = new InterchangeRun(correlationId, retailerId, fileName, sellerId, null, Map.of(),
+                ticketFor(sellerId, retailerId));
+        run.contentSha256 = job.getContentSha256();
+        startLocally(new IntakeJob(run, rawContent));
+        return run.result;
+    }
+
+    /**
+     * Accepts an inbound file already spooled to local disk (e.g. a large multipart upload).
+     * The file is streamed into the durable queue, then stored and parsed from a memory mapping,
+     * so its content is never copied onto the heap as a String. The file is deleted once every
+     * transaction set in it has finished, or as soon as it is handed to the shared queue.
+     */
+    public CompletableFuture<InterchangeResult> processFileAsync(String correlationId, String retailerId,
+                                                       Path file, String fileName, Long sellerId) {
+        IngestJob job;
+        try {
+            job = ingestJobService.enqueue(correlationId, retailerId, sellerId, fileName, file);
+            metrics.bytesIngested(retailerId, job.getPayloadBytes());
+        } catch (RuntimeException e) {
+            deleteSpooledFile(file);
+            throw e;
+        }
+        log.info("[ORCHESTRATOR] Accepted file — correlationId={} retailer={} sellerId={} file={}",
                 correlationId, retailerId, sellerId, fileName);
+        InterchangeRun run = new InterchangeRun(correlationId, retailerId, fileName, sellerId, file, Map.of(),
+                ticketFor(sellerId, retailerId));
+        run.contentSha256 = job.getContentSha256();
+        startLocally(new IntakeJob(run, null));
+        return run.result;
+    }
+
+    /**
+     * Continues a job claimed from the durable queue — queued by another node, or abandoned by a
+     * node that died. Stages already checkpointed are not repeated: the file is not stored
+     * again, and transaction sets already transmitted to Shopify are not transmitted again.
+     */
+    public void resume(IngestJob job) {
+        String correlationId = job.getCorrelationId();
+        Path file = null;
+        CompletableFuture<InterchangeResult> submitted = null;
         try {
-            return CompletableFuture.completedFuture(
-                    runPipeline(correlationId, retailerId, rawContent, fileName, sellerId));
+            file = Files.createTempFile("nexaedi-job-", ".edi");
+            InterchangeRun run = new InterchangeRun(correlationId, job.getRetailerId(), job.getFileName(),
+                    job.getSellerId(), file, ingestJobService.loadCheckpoints(correlationId),
+                    ticketFor(job.getSellerId(), job.getRetailerId()));
+            run.contentSha256 = job.getContentSha256();
+            if (job.getLastCompletedStage() != null) {
+                run.s3Key = job.getStorageKey();
+            }
+            // A submission accepted here and handed to the queue completes with this run
+            submitted = handedOff.remove(correlationId);
+            if (submitted != null) {
+                CompletableFuture<InterchangeResult> caller = submitted;
+                run.result.whenComplete((result, error) -> {
+                    if (error != null) {
+                        caller.completeExceptionally(error);
+                    } else {
+                        caller.complete(result);
+                    }
+                });
+            }
+            // Checked before the payload is copied out and before it takes an intake slot: a
+            // duplicate, or a copy of a file still in flight, needs neither
+            if (!checkContent(run)) {
+                return;
+            }
+            ingestJobService.copyPayload(correlationId, file);
+            // Never blocks the poller: if this seller's share of intake is full, the job goes back
+            startLocally(new IntakeJob(run, null));
         } catch (Exception e) {
-            handlePipelineFailure(correlationId, retailerId, rawContent, fileName, e);
-            return CompletableFuture.failedFuture(e);
+            // The lease runs out and the job is claimed again, up to the attempt limit
+            log.error("[ORCHESTRATOR] Could not resume correlationId={}: {}", correlationId, e.getMessage(), e);
+            activeJobs.remove(correlationId);
+            if (submitted != null) {
+                handedOff.putIfAbsent(correlationId, submitted);
+            }
+            if (file != null) {
+                deleteSpooledFile(file);
+            }
         }
     }
 
-    private String runPipeline(String correlationId, String retailerId, String rawContent, String fileName, Long sellerId) {
-        long stageStart = System.currentTimeMillis();
+    /**
+     * IDs of jobs this node is working on, whose leases must be kept alive.
+     */
+    public Set<String> getActiveJobIds() {
+        return Set.copyOf(activeJobs);
+    }
 
-        // Stage 1: RECEIVED — persist to S3 and audit
-        String s3Key = storageService.storeInbound(correlationId, retailerId, rawContent);
-        auditLoggingService.record(correlationId, retailerId, null, null,
-                EdiProcessingStatus.RECEIVED, s3Key,
-                "File received and stored in S3: " + s3Key,
-                System.currentTimeMillis() - stageStart);
+    public int getIntakeCapacity() {
+        return intakeStage.remainingCapacity();
+    }
 
-        // Stage 2: PARSED — parse X12 and map to CDM
-        stageStart = System.currentTimeMillis();
-        X12Interchange interchange = parser.parse(rawContent);
+    private void startLocally(IntakeJob job) {
+        InterchangeRun run = job.run();
+        activeJobs.add(run.correlationId);
+        boolean started;
+        try {
+            started = intakeStage.trySubmit(job);
+        } catch (IllegalStateException e) {
+            started = false;
+        }
+        if (!started) {
+            // Registered before the job is released, so a poller resuming it at once finds it
+            handedOff.putIfAbsent(run.correlationId, run.result);
+            activeJobs.remove(run.correlationId);
+            ingestJobService.release(run.correlationId);
+            releaseSpooledFile(run);
+            log.info("[ORCHESTRATOR] Intake full — correlationId={} left on the shared queue", run.correlationId);
+        }
+    }
 
-        X12Transaction transaction = interchange.getGroups().stream()
-                .flatMap(g -> g.getTransactions().stream())
-                .findFirst()
-                .orElseThrow(() -> new EdiParseException("No ST transaction found in interchange", "ST", 0));
+    /**
+     * Completes, with null, the futures of handed-off jobs that have finished on another node.
+     * Called on every poll.
+     */
+    public void settleHandedOff() {
+        if (handedOff.isEmpty()) {
+            return;
+        }
+        for (String correlationId : ingestJobService.findFinished(handedOff.keySet())) {
+            CompletableFuture<InterchangeResult> result = handedOff.remove(correlationId);
+            if (result != null) {
+                result.complete(null);
+            }
+        }
+    }
 
-        String transactionSetCode = transaction.getTransactionSetCode();
-        MappingProfile profile = mappingRegistry.find(retailerId, transactionSetCode)
-                .orElseThrow(() -> new IllegalStateException(
-                        String.format("No mapping profile found for retailer '%s' and transaction '%s'. " +
-                                "Drop a JSON file named %s-%s.json into the /mappings directory.",
-                                retailerId, transactionSetCode,
-                                retailerId.toLowerCase(), transactionSetCode)));
+    /**
+     * Scheduling key of a file and all of its transaction sets: the seller, weighted by plan, and
+     * the retailer for per-retailer caps.
+     */
+    private FairShareQueue.Ticket ticketFor(Long sellerId, String retailerId) {
+        int weight = schedulerProperties.getDefaultWeight();
+        if (sellerId != null) {
+            weight = sellerRepository.findById(sellerId)
+                    .map(Seller::getPlan)
+                    .map(schedulerProperties::weightOf)
+                    .orElse(weight);
+        }
+        return new FairShareQueue.Ticket(sellerId != null ? sellerId : "anonymous", weight,
+                retailerId != null ? retailerId.toUpperCase(Locale.ROOT) : null);
+    }
 
-        CanonicalOrder canonicalOrder = mapper.map(transaction, profile, retailerId);
-        canonicalOrder = CanonicalOrder.builder()
-                .correlationId(correlationId)
-                .retailerId(canonicalOrder.getRetailerId())
-                .poNumber(canonicalOrder.getPoNumber())
-                .purchaseOrderType(canonicalOrder.getPurchaseOrderType())
-                .poDate(canonicalOrder.getPoDate())
-                .requestedDeliveryDate(canonicalOrder.getRequestedDeliveryDate())
-                .shipToName(canonicalOrder.getShipToName())
-                .shipToAddress(canonicalOrder.getShipToAddress())
-                .shipToCity(canonicalOrder.getShipToCity())
-                .shipToState(canonicalOrder.getShipToState())
-                .shipToZip(canonicalOrder.getShipToZip())
-                .departmentNumber(canonicalOrder.getDepartmentNumber())
-                .lines(canonicalOrder.getLines())
-                .interchangeControlNumber(interchange.getControlNumber())
-                .transactionControlNumber(transaction.getControlNumber())
-                .build();
+    // ── Stage 1: intake (store + parse) ──────────────────────────────────────
+
+    private void handleIntake(IntakeJob job) {
+        InterchangeRun run = job.run();
+        try {
+            if (!run.contentChecked && !checkContent(run)) {
+                return;
+            }
+            if (run.spooledFile != null) {
+                intakeFile(run);
+            } else {
+                intakeContent(run, job.rawContent());
+            }
+            // Nothing is checkpointed or archived before the file is durably stored
+            awaitStored(run);
+            if (run.duplicateOf != null) {
+                completeDuplicateInterchange(run);
+                return;
+            }
+            if (run.units.isEmpty()) {
+                throw new EdiParseException("No ST transaction found in interchange", "ST", 0);
+            }
+            ingestJobService.checkpointStage(run.correlationId, EdiProcessingStatus.PARSED, null);
+            whenUnitsDone(run).thenRun(() -> completeInterchange(run));
+        } catch (Exception e) {
+            // Transaction sets already dispatched stop before Shopify if they have not reached it
+            run.aborted = true;
+            endStep(run, Outcome.FAILURE);
+            settleStore(run);
+            releaseInterchangeKey(run);
+            releaseContent(run);
+            whenUnitsDone(run).thenRun(() -> failIntake(run, job.rawContent(), e));
+        }
+    }
+
+    /**
+     * Quarantines a file whose intake failed, once the transaction sets dispatched from it before
+     * the failure have settled. Those still short of Shopify were skipped; those already past it
+     * stay delivered, so the DLQ entry and the audit record say how many.
+     */
+    private void failIntake(InterchangeRun run, String rawContent, Exception e) {
+        try {
+            String content = run.spooledFile != null ? readForDeadLetter(run.spooledFile) : rawContent;
+            int delivered = run.delivered.get();
+            String outcome = delivered == 0 ? "" : String.format(
+                    " — %d of %d transaction set(s) were already delivered to Shopify; the rest were not sent",
+                    delivered, run.units.size());
+            handlePipelineFailure(run.correlationId, run.retailerId, content, run.fileName, e, outcome);
+        } finally {
+            run.result.completeExceptionally(e);
+            finishJob(run, IngestJobStatus.FAILED);
+        }
+    }
+
+    private void intakeContent(InterchangeRun run, String rawContent) {
+        // Stage 1: RECEIVED — start the S3 upload; it is joined once parsing is done
+        if (run.s3Key == null) {
+            startStore(run, () -> storageService.storeInboundAsync(objectName(run), run.retailerId, rawContent));
+        }
+
+        // Stage 2: PARSED — parse X12, then hand each transaction set to the mapping stage
+        beginStep(run, Step.PARSE);
+        X12Interchange interchange = parser.parseParallel(rawContent);
+        endStep(run, Outcome.SUCCESS);
+        run.interchangeControlNumber = interchange.getControlNumber();
+        if (isDuplicateInterchange(run, interchange)) {
+            return;
+        }
+        for (X12Group group : interchange.getGroups()) {
+            for (X12Transaction transaction : group.getTransactions()) {
+                dispatchTransaction(run, new StreamedTransaction(interchange, group, transaction));
+            }
+        }
+    }
+
+    private void intakeFile(InterchangeRun run) throws IOException {
+        // Stage 1: RECEIVED — start uploading straight from disk; it is joined once parsing is done
+        if (run.s3Key == null) {
+            startStore(run, () -> storageService.storeInboundAsync(objectName(run), run.retailerId,
+                    run.spooledFile));
+        }
+
+        // Stage 2: PARSED — tokenize from the memory-mapped file; each transaction set is handed
+        // on as soon as its SE is read, so a full mapping queue also paces the tokenizer
+        beginStep(run, Step.PARSE);
+        try (X12TransactionStream transactions = streamingParser.stream(run.spooledFile)) {
+            while (transactions.hasNext()) {
+                StreamedTransaction next = transactions.next();
+                long handOffStart = System.nanoTime();
+                if (run.interchangeControlNumber == null) {
+                    run.interchangeControlNumber = next.interchange().getControlNumber();
+                    // Checked on the first transaction set, before the rest of the file is tokenized
+                    if (isDuplicateInterchange(run, next.interchange())) {
+                        endStep(run, Outcome.SUCCESS);
+                        return;
+                    }
+                }
+                dispatchTransaction(run, next);
+                // Time spent waiting on a full mapping queue is not parse time
+                run.stepStart += System.nanoTime() - handOffStart;
+            }
+        }
+        endStep(run, Outcome.SUCCESS);
+    }
+
+    /**
+     * Starts storing the inbound file without waiting for it. The key is known at once; the STORE
+     * step is timed until the upload completes, whichever thread that happens on.
+     */
+    private void startStore(InterchangeRun run, Supplier<InboundUpload> store) {
+        long start = System.nanoTime();
+        InboundUpload upload;
+        try {
+            upload = store.get();
+        } catch (RuntimeException e) {
+            metrics.record(Step.STORE, run.retailerId, PipelineMetrics.NONE, Outcome.FAILURE, System.nanoTime() - start);
+            throw e;
+        }
+        run.s3Key = upload.key();
+        if (run.contentClaimed) {
+            inboundContent.recordStorageKey(run.correlationId, run.s3Key);
+        }
+        run.stored = upload.completion().handle((ignored, error) -> {
+            long durationMs = metrics.record(Step.STORE, run.retailerId, PipelineMetrics.NONE,
+                    error == null ? Outcome.SUCCESS : Outcome.FAILURE, System.nanoTime() - start);
+            if (error != null) {
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
+            return durationMs;
+        });
+    }
+
+    /**
+     * Blocks until the inbound file is durably stored, then records it as RECEIVED — once per
+     * interchange, whichever caller gets there first. Returns at once if there is no upload in
+     * flight. Rethrows the upload's failure.
+     */
+    private void awaitStored(InterchangeRun run) {
+        CompletableFuture<Long> stored = run.stored;
+        if (stored == null) {
+            return;
+        }
+        long durationMs;
+        try {
+            durationMs = stored.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        synchronized (run) {
+            if (run.stored == stored) {
+                recordReceived(run, durationMs);
+                run.stored = null;
+            }
+        }
+    }
+
+    /**
+     * On a failed intake: lets an upload still in flight finish, since it may be reading the
+     * spooled file, and records RECEIVED if it succeeded.
+     */
+    private void settleStore(InterchangeRun run) {
+        try {
+            awaitStored(run);
+        } catch (RuntimeException e) {
+            log.warn("[ORCHESTRATOR] Inbound upload failed — correlationId={}: {}", run.correlationId, e.getMessage());
+        }
+    }
+
+    private void beginStep(InterchangeRun run, Step step) {
+        run.step = step;
+        run.stepStart = System.nanoTime();
+    }
+
+    /**
+     * Records the interchange's current step, if any, and returns its duration in milliseconds.
+     */
+    private long endStep(InterchangeRun run, Outcome outcome) {
+        if (run.step == null) {
+            return 0L;
+        }
+        long durationMs = metrics.record(run.step, run.retailerId, PipelineMetrics.NONE, outcome,
+                System.nanoTime() - run.stepStart);
+        run.step = null;
+        return durationMs;
+    }
+
+    private void beginStep(TransactionJob job, Step step) {
+        job.step = step;
+        job.stepStart = System.nanoTime();
+    }
+
+    /**
+     * Records the transaction set's current step, if any, and returns its duration in milliseconds.
+     */
+    private long endStep(TransactionJob job, Outcome outcome) {
+        if (job.step == null) {
+            return 0L;
+        }
+        long durationMs = metrics.record(job.step, job.run.retailerId,
+                job.unit.transaction().getTransactionSetCode(), outcome, System.nanoTime() - job.stepStart);
+        job.step = null;
+        return durationMs;
+    }
+
+    /**
+     * Claims the file's content digest. A file byte-identical to one already received has nothing
+     * to store or parse: it is completed as a duplicate, or deferred while the original is in flight.
+     *
+     * @return whether the run goes on to intake
+     */
+    private boolean checkContent(InterchangeRun run) {
+        InboundContentService.Original original = claimContent(run);
+        if (original == null) {
+            return true;
+        }
+        if (original.inFlight()) {
+            deferContent(run, original);
+        } else {
+            completeDuplicateContent(run, original);
+        }
+        return false;
+    }
+
+    /**
+     * Claims the file's content digest.
+     *
+     * @return null if this run owns the content; otherwise the run that received it first
+     */
+    private InboundContentService.Original claimContent(InterchangeRun run) {
+        run.contentChecked = true;
+        if (run.contentSha256 == null || !inboundContent.isEnabled()) {
+            return null;
+        }
+        InboundContentService.Original original = inboundContent
+                .claim(run.correlationId, run.retailerId, run.contentSha256)
+                .orElse(null);
+        if (original == null) {
+            run.contentClaimed = true;
+        }
+        return original;
+    }
+
+    /**
+     * The same bytes are still being processed by another run, which may yet fail and release
+     * them. The job goes back on the shared queue, deferred so it is not claimed again on every
+     * poll, and is checked again when next claimed.
+     */
+    private void deferContent(InterchangeRun run, InboundContentService.Original original) {
+        handedOff.putIfAbsent(run.correlationId, run.result);
+        activeJobs.remove(run.correlationId);
+        ingestJobService.defer(run.correlationId);
+        releaseSpooledFile(run);
+        log.info("[ORCHESTRATOR] Same file in flight as {} — correlationId={} deferred on the shared queue",
+                original.correlationId(), run.correlationId);
+    }
+
+    /**
+     * The name an inbound file is stored under: its content digest once claimed, so every copy of
+     * the same bytes maps to one object; otherwise the correlation ID.
+     */
+    private static String objectName(InterchangeRun run) {
+        return run.contentClaimed ? run.contentSha256 : run.correlationId;
+    }
+
+    /**
+     * A duplicate takes on the storage key of the run that first received the content.
+     */
+    private void completeDuplicateContent(InterchangeRun run, InboundContentService.Original original) {
+        run.duplicateOf = original.correlationId();
+        run.s3Key = original.storageKey();
+        auditLoggingService.record(run.correlationId, run.retailerId, null, null,
+                EdiProcessingStatus.DUPLICATE, run.s3Key,
+                String.format("File is byte-identical to %s (SHA-256 %s) — not stored or processed again",
+                        run.duplicateOf, run.contentSha256),
+                0L);
+        log.info("[ORCHESTRATOR] Duplicate file — correlationId={} sha256={} duplicateOf={}",
+                run.correlationId, run.contentSha256, run.duplicateOf);
+        finishJob(run, IngestJobStatus.COMPLETED);
+        run.result.complete(InterchangeResult.duplicate(run.correlationId, null, run.duplicateOf));
+    }
+
+    private void releaseContent(InterchangeRun run) {
+        if (run.contentClaimed) {
+            inboundContent.release(run.correlationId);
+        }
+    }
+
+    private boolean isDuplicateInterchange(InterchangeRun run, X12Interchange interchange) {
+        run.senderId = interchange.getSenderId();
+        run.duplicateOf = duplicateDetection
+                .claimInterchange(run.senderId, interchange.getControlNumber(), run.correlationId)
+                .orElse(null);
+        return run.duplicateOf != null;
+    }
+
+    private void completeDuplicateInterchange(InterchangeRun run) {
+        storageService.archiveProcessed(run.s3Key, run.correlationId);
+        auditLoggingService.record(run.correlationId, run.retailerId, null, null,
+                EdiProcessingStatus.DUPLICATE, run.s3Key,
+                String.format("Interchange %s from sender %s was already received as %s — not processed again",
+                        run.interchangeControlNumber, run.senderId, run.duplicateOf),
+                0L);
+        log.info("[ORCHESTRATOR] Duplicate interchange — correlationId={} isa13={} duplicateOf={}",
+                run.correlationId, run.interchangeControlNumber, run.duplicateOf);
+        finishJob(run, IngestJobStatus.COMPLETED);
+        run.result.complete(InterchangeResult.duplicate(run.correlationId, run.interchangeControlNumber,
+                run.duplicateOf));
+    }
+
+    private void releaseInterchangeKey(InterchangeRun run) {
+        if (run.senderId != null && run.duplicateOf == null) {
+            duplicateDetection.releaseInterchange(run.senderId, run.interchangeControlNumber, run.correlationId);
+        }
+    }
+
+    private void recordReceived(InterchangeRun run, long durationMs) {
+        auditLoggingService.record(run.correlationId, run.retailerId, null, null,
+                EdiProcessingStatus.RECEIVED, run.s3Key,
+                "File received and stored in S3: " + run.s3Key,
+                durationMs);
+        ingestJobService.checkpointStage(run.correlationId, EdiProcessingStatus.RECEIVED, run.s3Key);
+    }
 
-        auditLoggingService.record(correlationId, retailerId, transactionSetCode,
-                canonicalOrder.getPoNumber(), EdiProcessingStatus.PARSED, s3Key,
-                "Parsed " + canonicalOrder.getLines().size() + " line items from " + transactionSetCode + " transaction",
-                System.currentTimeMillis() - stageStart);
+    /**
+     * Starts one transaction set down the per-transaction stages under a child correlation ID.
+     * Its outcome future never completes exceptionally: failures are quarantined and reported
+     * in the result. On a resumed job, a transaction set with a final checkpoint is not run again.
+     */
+    private void dispatchTransaction(InterchangeRun run, StreamedTransaction unit) {
+        int sequence = run.units.size() + 1;
+        X12Transaction transaction = unit.transaction();
+        metrics.segmentsParsed(run.retailerId, transaction.getTransactionSetCode(),
+                transaction.getSegments().size() + 2);
+        TransactionJob job = new TransactionJob(run, sequence, childCorrelationId(run.correlationId, sequence), unit);
+        run.units.add(job.outcome);
 
-        // Stage 3: VALIDATED — Hibernate Validator
-        stageStart = System.currentTimeMillis();
-        Set<ConstraintViolation<CanonicalOrder>> violations = validator.validate(canonicalOrder);
-        if (!violations.isEmpty()) {
-            String violationSummary = violations.stream()
-                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
-                    .reduce((a, b) -> a + "; " + b)
-                    .orElse("unknown");
-            throw new IllegalStateException("Canonical order validation failed: " + violationSummary);
+        IngestJobUnit checkpoint = run.checkpoints.get(sequence);
+        if (checkpoint != null) {
+            String controlNumber = transaction.getControlNumber();
+            switch (checkpoint.getLastCompletedStage()) {
+                case ACKNOWLEDGED -> {
+                    run.delivered.incrementAndGet();
+                    job.outcome.complete(TransactionResult.success(job.correlationId, controlNumber,
+                            checkpoint.getPoNumber()));
+                    return;
+                }
+                case FAILED -> {
+                    job.outcome.complete(TransactionResult.failure(job.correlationId, controlNumber,
+                            "Failed in an earlier attempt; see the DLQ entry for " + job.correlationId));
+                    return;
+                }
+                case TRANSMITTED -> {
+                    run.delivered.incrementAndGet();
+                    job.shopifyOrderId = checkpoint.getShopifyOrderId();
+                }
+                default -> { }
+            }
         }
+        forward(mappingStage, job);
+    }
+
+    // ── Stages 2-3: map + validate ───────────────────────────────────────────
+
+    private void handleMapping(TransactionJob job) {
+        if (job.run.aborted) {
+            skipTransaction(job);
+            return;
+        }
+        try {
+            X12Transaction transaction = job.unit.transaction();
+            String transactionSetCode = transaction.getTransactionSetCode();
+            String retailerId = job.run.retailerId;
 
-        auditLoggingService.record(correlationId, retailerId, transactionSetCode,
-                canonicalOrder.getPoNumber(), EdiProcessingStatus.VALIDATED, s3Key,
-                "Validation passed — " + canonicalOrder.getLines().size() + " lines verified",
-                System.currentTimeMillis() - stageStart);
+            beginStep(job, Step.MAP);
+            if (isDuplicatePurchaseOrder(job)) {
+                endStep(job, Outcome.DUPLICATE);
+                return;
+            }
 
-        // Stage 4: TRANSMITTED — Send to Shopify
-        stageStart = System.currentTimeMillis();
-        String shopifyOrderId = shopifyAdapter.transmit(canonicalOrder);
+            MappingProfile profile = mappingRegistry.find(retailerId, transactionSetCode)
+                    .orElseThrow(() -> new IllegalStateException(
+                            String.format("No mapping profile found for retailer '%s' and transaction '%s'. " +
+                                    "Drop a JSON file named %s-%s.json into the /mappings directory.",
+                                    retailerId, transactionSetCode,
+                                    retailerId.toLowerCase(), transactionSetCode)));
 
-        auditLoggingService.record(correlationId, retailerId, transactionSetCode,
-                canonicalOrder.getPoNumber(), EdiProcessingStatus.TRANSMITTED, s3Key,
-                "Successfully transmitted to Shopify. Draft Order ID: " + shopifyOrderId,
-                System.currentTimeMillis() - stageStart);
+            CanonicalOrder canonicalOrder = mapper.map(transaction, profile, retailerId);
+            canonicalOrder = CanonicalOrder.builder()
+                    .correlationId(job.correlationId)
+                    .retailerId(canonicalOrder.getRetailerId())
+                    .poNumber(canonicalOrder.getPoNumber())
+                    .purchaseOrderType(canonicalOrder.getPurchaseOrderType())
+                    .poDate(canonicalOrder.getPoDate())
+                    .requestedDeliveryDate(canonicalOrder.getRequestedDeliveryDate())
+                    .shipToName(canonicalOrder.getShipToName())
+                    .shipToAddress(canonicalOrder.getShipToAddress())
+                    .shipToCity(canonicalOrder.getShipToCity())
+                    .shipToState(canonicalOrder.getShipToState())
+                    .shipToZip(canonicalOrder.getShipToZip())
+                    .departmentNumber(canonicalOrder.getDepartmentNumber())
+                    .lines(canonicalOrder.getLines())
+                    .interchangeControlNumber(job.unit.interchange().getControlNumber())
+                    .transactionControlNumber(transaction.getControlNumber())
+                    .build();
+            long mapMs = endStep(job, Outcome.SUCCESS);
+            metrics.linesMapped(retailerId, transactionSetCode, canonicalOrder.getLines().size());
 
-        // Stage 5: ACKNOWLEDGED + create SellerOrder for portal visibility
-        storageService.archiveProcessed(s3Key, correlationId);
-        auditLoggingService.record(correlationId, retailerId, transactionSetCode,
-                canonicalOrder.getPoNumber(), EdiProcessingStatus.ACKNOWLEDGED, s3Key,
-                "Pipeline complete. Shopify Draft Order: " + shopifyOrderId, 0L);
+            auditLoggingService.recordTransaction(job.correlationId, job.run.correlationId, retailerId,
+                    transactionSetCode, canonicalOrder.getPoNumber(), EdiProcessingStatus.PARSED, job.run.s3Key,
+                    "Parsed " + canonicalOrder.getLines().size() + " line items from " + transactionSetCode + " transaction",
+                    mapMs);
 
-        createSellerOrder(canonicalOrder, shopifyOrderId, correlationId, sellerId, transactionSetCode);
+            // Stage 3: VALIDATED — Hibernate Validator
+            beginStep(job, Step.VALIDATE);
+            Set<ConstraintViolation<CanonicalOrder>> violations = validator.validate(canonicalOrder);
+            if (!violations.isEmpty()) {
+                String violationSummary = violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .reduce((a, b) -> a + "; " + b)
+                        .orElse("unknown");
+                throw new IllegalStateException("Canonical order validation failed: " + violationSummary);
+            }
 
-        log.info("[ORCHESTRATOR] Pipeline complete — correlationId={} poNumber={} shopifyOrderId={}",
-                correlationId, canonicalOrder.getPoNumber(), shopifyOrderId);
+            auditLoggingService.recordTransaction(job.correlationId, job.run.correlationId, retailerId,
+                    transactionSetCode, canonicalOrder.getPoNumber(), EdiProcessingStatus.VALIDATED, job.run.s3Key,
+                    "Validation passed — " + canonicalOrder.getLines().size() + " lines verified",
+                    endStep(job, Outcome.SUCCESS));
 
-        return correlationId;
+            job.canonicalOrder = canonicalOrder;
+            // A resumed transaction set that already reached Shopify skips straight to persist
+            forward(job.shopifyOrderId != null ? persistStage : transmitStage, job);
+        } catch (Exception e) {
+            failTransaction(job, e);
+        }
+    }
+
+    /**
+     * Claims the transaction set's BEG03 for the retailer. Transaction sets without a BEG segment
+     * are not checked.
+     */
+    private boolean isDuplicatePurchaseOrder(TransactionJob job) {
+        X12Segment beg = job.unit.transaction().findFirst("BEG");
+        String poNumber = beg != null ? beg.getElement(3) : null;
+        if (poNumber == null || poNumber.isBlank()) {
+            return false;
+        }
+        String duplicateOf = duplicateDetection
+                .claimPurchaseOrder(job.run.retailerId, poNumber, job.correlationId)
+                .orElse(null);
+        if (duplicateOf == null) {
+            job.claimedPoNumber = poNumber;
+            return false;
+        }
+
+        X12Transaction transaction = job.unit.transaction();
+        auditLoggingService.recordTransaction(job.correlationId, job.run.correlationId, job.run.retailerId,
+                transaction.getTransactionSetCode(), poNumber, EdiProcessingStatus.DUPLICATE, job.run.s3Key,
+                "PO " + poNumber + " was already received as " + duplicateOf + " — not transmitted again", 0L);
+        job.outcome.complete(TransactionResult.duplicate(job.correlationId, transaction.getControlNumber(),
+                poNumber, duplicateOf));
+        return true;
+    }
+
+    // ── Stage 4: transmit ────────────────────────────────────────────────────
+
+    private void handleTransmit(TransactionJob job) {
+        try {
+            // Nothing goes to Shopify before the inbound file is durably stored
+            awaitStored(job.run);
+            if (job.run.aborted) {
+                skipTransaction(job);
+                return;
+            }
+            beginStep(job, Step.TRANSMIT);
+            job.shopifyOrderId = shopifyAdapter.transmit(job.canonicalOrder);
+            job.run.delivered.incrementAndGet();
+            long transmitMs = endStep(job, Outcome.SUCCESS);
+
+            auditLoggingService.recordTransaction(job.correlationId, job.run.correlationId, job.run.retailerId,
+                    job.unit.transaction().getTransactionSetCode(), job.canonicalOrder.getPoNumber(),
+                    EdiProcessingStatus.TRANSMITTED, job.run.s3Key,
+                    "Successfully transmitted to Shopify. Draft Order ID: " + job.shopifyOrderId,
+                    transmitMs);
+            ingestJobService.checkpointUnit(job.run.correlationId, job.sequence, job.correlationId,
+                    EdiProcessingStatus.TRANSMITTED, job.canonicalOrder.getPoNumber(), job.shopifyOrderId);
+
+            forward(persistStage, job);
+        } catch (Exception e) {
+            failTransaction(job, e);
+        }
+    }
+
+    // ── Stage 5: acknowledge + SellerOrder for portal visibility ─────────────
+
+    private void handlePersist(TransactionJob job) {
+        try {
+            beginStep(job, Step.PERSIST);
+            String transactionSetCode = job.unit.transaction().getTransactionSetCode();
+            auditLoggingService.recordTransaction(job.correlationId, job.run.correlationId, job.run.retailerId,
+                    transactionSetCode, job.canonicalOrder.getPoNumber(), EdiProcessingStatus.ACKNOWLEDGED,
+                    job.run.s3Key, "Pipeline complete. Shopify Draft Order: " + job.shopifyOrderId, 0L);
+
+            createSellerOrder(job.canonicalOrder, job.shopifyOrderId, job.correlationId, job.run.sellerId,
+                    transactionSetCode);
+            ingestJobService.checkpointUnit(job.run.correlationId, job.sequence, job.correlationId,
+                    EdiProcessingStatus.ACKNOWLEDGED, job.canonicalOrder.getPoNumber(), job.shopifyOrderId);
+            endStep(job, Outcome.SUCCESS);
+
+            log.info("[ORCHESTRATOR] Pipeline complete — correlationId={} poNumber={} shopifyOrderId={}",
+                    job.correlationId, job.canonicalOrder.getPoNumber(), job.shopifyOrderId);
+
+            job.outcome.complete(TransactionResult.success(job.correlationId,
+                    job.unit.transaction().getControlNumber(), job.canonicalOrder.getPoNumber()));
+        } catch (Exception e) {
+            failTransaction(job, e);
+        }
+    }
+
+    /**
+     * Hands a transaction to the next stage, blocking while that stage is full.
+     */
+    private void forward(PipelineStage<TransactionJob> next, TransactionJob job) {
+        try {
+            next.submit(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failTransaction(job, new IllegalStateException(
+                    "Interrupted while queueing for stage '" + next.getName() + "'", e));
+        } catch (IllegalStateException e) {
+            failTransaction(job, e);
+        }
+    }
+
+    private void failTransaction(TransactionJob job, Exception e) {
+        endStep(job, Outcome.FAILURE);
+        // Once Shopify has the order, a resend of the PO must still be caught as a duplicate
+        if (job.claimedPoNumber != null && job.shopifyOrderId == null) {
+            duplicateDetection.releasePurchaseOrder(job.run.retailerId, job.claimedPoNumber, job.correlationId);
+        }
+        handleTransactionFailure(job.correlationId, job.run.correlationId, job.run.retailerId,
+                job.unit, job.run.fileName, e);
+        try {
+            ingestJobService.checkpointUnit(job.run.correlationId, job.sequence, job.correlationId,
+                    EdiProcessingStatus.FAILED, null, null);
+        } catch (Exception checkpointFailure) {
+            log.warn("[ORCHESTRATOR] Could not checkpoint failure of correlationId={}: {}",
+                    job.correlationId, checkpointFailure.getMessage());
+        }
+        job.outcome.complete(TransactionResult.failure(job.correlationId,
+                job.unit.transaction().getControlNumber(), e.getMessage()));
+    }
+
+    /**
+     * Drops a transaction set of a file whose intake failed, before it reaches Shopify. It has no
+     * DLQ entry of its own: the whole file is quarantined.
+     */
+    private void skipTransaction(TransactionJob job) {
+        if (job.claimedPoNumber != null) {
+            duplicateDetection.releasePurchaseOrder(job.run.retailerId, job.claimedPoNumber, job.correlationId);
+        }
+        job.outcome.complete(TransactionResult.failure(job.correlationId,
+                job.unit.transaction().getControlNumber(), "Not sent: intake of the interchange failed"));
+    }
+
+    private static CompletableFuture<Void> whenUnitsDone(InterchangeRun run) {
+        return CompletableFuture.allOf(run.units.toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Records the aggregate outcome against the interchange's own correlation ID once every unit
+     * has finished, as COMPLETED: each transaction set has already recorded its own final status.
+     * The inbound file is archived only if every unit succeeded. Runs on the thread that completed
+     * the last unit.
+     */
+    private void completeInterchange(InterchangeRun run) {
+        try {
+            InterchangeResult result = new InterchangeResult(run.correlationId, run.interchangeControlNumber,
+                    run.units.stream().map(CompletableFuture::join).toList());
+
+            if (result.allSucceeded()) {
+                storageService.archiveProcessed(run.s3Key, run.correlationId);
+            } else {
+                // Let a corrected retransmission of the same interchange, or the same file, through
+                releaseInterchangeKey(run);
+                releaseContent(run);
+            }
+            auditLoggingService.record(run.correlationId, run.retailerId, null, null,
+                    EdiProcessingStatus.COMPLETED, run.s3Key,
+                    String.format("Interchange %s: %d of %d transaction set(s) acknowledged, %d duplicate, %d failed",
+                            run.interchangeControlNumber, result.succeeded(), run.units.size(),
+                            result.duplicates(), result.failed()),
+                    0L);
+
+            log.info("[ORCHESTRATOR] Interchange complete — correlationId={} transactions={} succeeded={} "
+                            + "duplicates={} failed={}",
+                    run.correlationId, run.units.size(), result.succeeded(), result.duplicates(), result.failed());
+            finishJob(run, IngestJobStatus.COMPLETED);
+            run.result.complete(result);
+        } catch (Exception e) {
+            log.error("[ORCHESTRATOR] Failed to complete interchange correlationId={}: {}",
+                    run.correlationId, e.getMessage(), e);
+            run.result.completeExceptionally(e);
+            // Otherwise the poller keeps renewing the lease of a job nobody is working on
+            try {
+                finishJob(run, IngestJobStatus.FAILED);
+            } catch (Exception finishFailure) {
+                log.warn("[ORCHESTRATOR] Could not mark correlationId={} failed: {}",
+                        run.correlationId, finishFailure.getMessage());
+            }
+        }
+    }
+
+    private void finishJob(InterchangeRun run, IngestJobStatus status) {
+        try {
+            ingestJobService.complete(run.correlationId, status);
+        } finally {
+            activeJobs.remove(run.correlationId);
+            releaseSpooledFile(run);
+        }
+    }
+
+    private void releaseSpooledFile(InterchangeRun run) {
+        if (run.spooledFile != null) {
+            deleteSpooledFile(run.spooledFile);
+        }
+    }
+
+    /**
+     * Deterministic, so a replay of the same interchange yields the same child IDs.
+     */
+    static String childCorrelationId(String parentCorrelationId, int sequence) {
+        return UUID.nameUUIDFromBytes((parentCorrelationId + "/" + sequence).getBytes(StandardCharsets.UTF_8))
+                .toString();
     }
 
     private void createSellerOrder(CanonicalOrder order, String shopifyOrderId,
@@ -230,16 +1052,183 @@ public class EdiOrchestrationService {
         }
     }
 
+    /**
+     * DLQ entries store the original content inline; very large files are referenced instead.
+     */
+    private String readForDeadLetter(Path file) {
+        try {
+            long size = Files.size(file);
+            if (size > DLQ_INLINE_LIMIT_BYTES) {
+                return String.format("[%d-byte file not inlined — see the RECEIVED audit record for its storage key]", size);
+            }
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "[original file unreadable: " + e.getMessage() + "]";
+        }
+    }
+
+    private void deleteSpooledFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("[ORCHESTRATOR] Could not delete spooled file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Quarantines a single failed transaction set. The DLQ entry holds just its ST...SE segments,
+     * re-rendered with the interchange's delimiters, rather than the whole interchange.
+     */
+    private void handleTransactionFailure(String correlationId, String parentCorrelationId, String retailerId,
+                                          StreamedTransaction unit, String fileName, Exception e) {
+        X12Transaction transaction = unit.transaction();
+        log.error("[ORCHESTRATOR] Transaction FAILED — correlationId={} parent={} st02={} error={}",
+                correlationId, parentCorrelationId, transaction.getControlNumber(), e.getMessage(), e);
+
+        dlqService.quarantine(correlationId, retailerId, renderTransaction(unit), fileName,
+                "Pipeline failure: " + e.getMessage(), e);
+
+        auditLoggingService.recordTransactionFailure(correlationId, parentCorrelationId, retailerId,
+                transaction.getTransactionSetCode(), fileName,
+                "Processing failed: " + e.getMessage(),
+                e.getClass().getName() + ": " + e.getMessage());
+    }
+
+    private static String renderTransaction(StreamedTransaction unit) {
+        String element = String.valueOf(unit.interchange().getElementDelimiter());
+        char terminator = unit.interchange().getSegmentTerminator();
+        X12Transaction transaction = unit.transaction();
+
+        StringBuilder x12 = new StringBuilder()
+                .append("ST").append(element).append(transaction.getTransactionSetCode())
+                .append(element).append(transaction.getControlNumber()).append(terminator);
+        for (X12Segment segment : transaction.getSegments()) {
+            x12.append(segment.getSegmentId());
+            for (String value : segment.getElements()) {
+                x12.append(element).append(value);
+            }
+            x12.append(terminator);
+        }
+        return x12.append("SE").append(element).append(transaction.getSegments().size() + 2)
+                .append(element).append(transaction.getControlNumber()).append(terminator)
+                .toString();
+    }
+
+    /**
+     * @param outcome appended to the DLQ reason and audit message, e.g. what was delivered anyway
+     */
     private void handlePipelineFailure(String correlationId, String retailerId, String rawContent,
-                                       String fileName, Exception e) {
-        log.error("[ORCHESTRATOR] Pipeline FAILED — correlationId={} retailer={} error={}",
-                correlationId, retailerId, e.getMessage(), e);
+                                       String fileName, Exception e, String outcome) {
+        log.error("[ORCHESTRATOR] Pipeline FAILED — correlationId={} retailer={} error={}{}",
+                correlationId, retailerId, e.getMessage(), outcome, e);
 
         dlqService.quarantine(correlationId, retailerId, rawContent, fileName,
-                "Pipeline failure: " + e.getMessage(), e);
+                "Pipeline failure: " + e.getMessage() + outcome, e);
 
         auditLoggingService.recordFailure(correlationId, retailerId, fileName,
-                "Processing failed: " + e.getMessage(),
+                "Processing failed: " + e.getMessage() + outcome,
                 e.getClass().getName() + ": " + e.getMessage());
     }
+
+    /**
+     * One inbound file moving through the intake stage. Exactly one of rawContent and
+     * run.spooledFile is set; resumed jobs always use a file copied out of the queue.
+     */
+    private record IntakeJob(InterchangeRun run, String rawContent) {
+    }
+
+    /**
+     * Per-interchange state shared by all of its transaction sets. Written by the intake worker
+     * before any unit is dispatched, then only read — apart from aborted and delivered.
+     */
+    private static final class InterchangeRun {
+        final String correlationId;
+        final String retailerId;
+        final String fileName;
+        final Long sellerId;
+        final Path spooledFile;
+        /**
+         * Transaction-set checkpoints from an earlier attempt, by sequence number; empty for new jobs.
+         */
+        final Map<Integer, IngestJobUnit> checkpoints;
+        final FairShareQueue.Ticket ticket;
+        final CompletableFuture<InterchangeResult> result = new CompletableFuture<>();
+        final List<CompletableFuture<TransactionResult>> units = new ArrayList<>();
+        volatile String s3Key;
+        /**
+         * Upload of the inbound file, yielding its duration in ms; null once RECEIVED is recorded,
+         * or if the file was stored in an earlier attempt.
+         */
+        volatile CompletableFuture<Long> stored;
+        volatile String interchangeControlNumber;
+        volatile String senderId;
+        /**
+         * SHA-256 of the file from the ingest queue; null for jobs queued before it was recorded.
+         */
+        volatile String contentSha256;
+        /**
+         * Whether this run owns its content digest, and so stores the file under it.
+         */
+        volatile boolean contentClaimed;
+        /**
+         * Whether the content digest has been claimed yet; resumed jobs claim it before intake.
+         */
+        volatile boolean contentChecked;
+        /**
+         * Step the intake worker is timing, and its start in nanoTime; intake worker only.
+         */
+        Step step;
+        long stepStart;
+        /**
+         * Set when the file or interchange turns out to be a retransmission; no unit is dispatched then.
+         */
+        volatile String duplicateOf;
+        /**
+         * Set when intake fails after units were dispatched; those not yet sent to Shopify are skipped.
+         */
+        volatile boolean aborted;
+        /**
+         * Transaction sets sent to Shopify, in this attempt or an earlier one.
+         */
+        final AtomicInteger delivered = new AtomicInteger();
+
+        InterchangeRun(String correlationId, String retailerId, String fileName, Long sellerId, Path spooledFile,
+                       Map<Integer, IngestJobUnit> checkpoints, FairShareQueue.Ticket ticket) {
+            this.correlationId = correlationId;
+            this.retailerId = retailerId;
+            this.fileName = fileName;
+            this.sellerId = sellerId;
+            this.spooledFile = spooledFile;
+            this.checkpoints = checkpoints;
+            this.ticket = ticket;
+        }
+    }
+
+    /**
+     * One transaction set moving through mapping → transmit → persist. Each stage fills in its
+     * output before handing the job on; the queue hand-off publishes it to the next worker.
+     */
+    private static final class TransactionJob {
+        final InterchangeRun run;
+        final int sequence;
+        final String correlationId;
+        final StreamedTransaction unit;
+        final CompletableFuture<TransactionResult> outcome = new CompletableFuture<>();
+        CanonicalOrder canonicalOrder;
+        String shopifyOrderId;
+        /**
+         * BEG03 this transaction set claimed for its retailer; released again if it fails before
+         * reaching Shopify.
+         */
+        String claimedPoNumber;
+        Step step;
+        long stepStart;
+
+        TransactionJob(InterchangeRun run, int sequence, String correlationId, StreamedTransaction unit) {
+            this.run = run;
+            this.sequence = sequence;
+            this.correlationId = correlationId;
+            this.unit = unit;
+        }
+    }
 }
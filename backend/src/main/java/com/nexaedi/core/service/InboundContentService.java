@@ -0,0 +1,172 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.pipeline.DedupProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Content-addressed dedup of inbound files: detects a file whose exact bytes were already
+ * received — a gateway retry, an operator resubmitting — before it is stored or parsed.
+ *
+ * The SHA-256 of each file is computed while it streams into the ingest queue. At intake the run
+ * claims (retailer, digest) by inserting it under the unique index on edi_inbound_content, the
+ * only authority across nodes. The first run to claim a digest stores the file under that digest
+ * and processes it; any other run is a duplicate and shares the first one's stored object.
+ * Every run, duplicate or not, gets a row in edi_inbound_content_ref mapping its correlation ID
+ * to its digest.
+ *
+ * A claim made by the same correlation ID again (a job resumed from the durable queue) is not a
+ * duplicate. A claim is released when its run fails, so the same bytes can be resubmitted once
+ * whatever made them fail is fixed. Because the owner may still fail, a file is only a duplicate
+ * once the owner's ingest job has completed; while it is queued or claimed the later run is told
+ * to retry, and the claim of an owner whose job failed without releasing it is taken over.
+ */
+@Slf4j
+@Service
+public class InboundContentService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DedupProperties properties;
+    private final Counter duplicates;
+
+    public InboundContentService(JdbcTemplate jdbcTemplate, DedupProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.duplicates = Counter.builder("nexaedi.dedup.duplicates")
+                .description("Inbound interchanges and purchase orders short-circuited as duplicates")
+                .tag("type", "content")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The run that owns a digest, and where it stored the content. While the owner is
+     * {@code inFlight} it may still fail and release the digest, and storageKey may be null.
+     */
+    public record Original(String correlationId, String storageKey, boolean inFlight) {
+    }
+
+    private record Owner(String correlationId, String storageKey, IngestJobStatus jobStatus) {
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled() && properties.isContent();
+    }
+
+    /**
+     * Claims {@code sha256} for the retailer on behalf of {@code correlationId}, and records which
+     * content the run received.
+     *
+     * @return the run that already owns this content, if the file is a duplicate or the owner is
+     *         still in flight; nothing is recorded for the run in the latter case
+     */
+    public Optional<Original> claim(String correlationId, String retailerId, String sha256) {
+        if (!isEnabled() || sha256 == null) {
+            return Optional.empty();
+        }
+        String retailer = normalize(retailerId);
+        Original original = null;
+        // Further passes only if the owner's claim went away between our insert and our lookup:
+        // released by the owner, or removed here because the owner's job failed
+        for (int attempt = 0; attempt < 3; attempt++) {
+            try {
+                jdbcTemplate.update("INSERT INTO edi_inbound_content (retailer_id, content_sha256, correlation_id, "
+                        + "created_at) VALUES (?, ?, ?, ?)", retailer, sha256, correlationId, Timestamp.from(Instant.now()));
+                break;
+            } catch (DataIntegrityViolationException e) {
+                Owner owner = findOwner(retailer, sha256);
+                if (owner == null) {
+                    continue;
+                }
+                if (owner.correlationId().equals(correlationId)) {
+                    break;
+                }
+                if (owner.jobStatus() == IngestJobStatus.FAILED) {
+                    log.warn("[DEDUP] Taking over content {}/{} from failed correlationId={}",
+                            retailer, sha256, owner.correlationId());
+                    release(owner.correlationId());
+                    continue;
+                }
+                boolean inFlight = owner.jobStatus() == IngestJobStatus.QUEUED
+                        || owner.jobStatus() == IngestJobStatus.CLAIMED;
+                original = new Original(owner.correlationId(), owner.storageKey(), inFlight);
+                break;
+            }
+        }
+        if (original != null && original.inFlight()) {
+            log.info("[DEDUP] Content {}/{} of correlationId={} is still being processed as {} — retry later",
+                    retailer, sha256, correlationId, original.correlationId());
+            return Optional.of(original);
+        }
+        recordReference(correlationId, retailer, sha256, original);
+        if (original != null) {
+            duplicates.increment();
+            log.info("[DEDUP] Duplicate content {}/{} — correlationId={} first seen as {}",
+                    retailer, sha256, correlationId, original.correlationId());
+        }
+        return Optional.ofNullable(original);
+    }
+
+    /**
+     * Records where the owning run stored its content, for duplicates to point at.
+     */
+    public void recordStorageKey(String correlationId, String storageKey) {
+        if (!isEnabled()) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE edi_inbound_content SET storage_key = ? WHERE correlation_id = ?",
+                storageKey, correlationId);
+    }
+
+    /**
+     * Gives up the run's claim on its content, if it holds one.
+     */
+    public void release(String correlationId) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("DELETE FROM edi_inbound_content WHERE correlation_id = ?", correlationId);
+        } catch (Exception e) {
+            log.warn("[DEDUP] Could not release content claim of correlationId={}: {}", correlationId, e.getMessage());
+        }
+    }
+
+    /**
+     * The run holding a digest and the status of its ingest job, null if the job row is gone.
+     */
+    private Owner findOwner(String retailer, String sha256) {
+        List<Owner> owners = jdbcTemplate.query("SELECT c.correlation_id, c.storage_key, j.status "
+                        + "FROM edi_inbound_content c LEFT JOIN ingest_job j ON j.correlation_id = c.correlation_id "
+                        + "WHERE c.retailer_id = ? AND c.content_sha256 = ?",
+                (rs, row) -> new Owner(rs.getString(1), rs.getString(2),
+                        rs.getString(3) != null ? IngestJobStatus.valueOf(rs.getString(3)) : null),
+                retailer, sha256);
+        return owners.isEmpty() ? null : owners.getFirst();
+    }
+
+    private void recordReference(String correlationId, String retailer, String sha256, Original original) {
+        try {
+            jdbcTemplate.update("INSERT INTO edi_inbound_content_ref (correlation_id, retailer_id, content_sha256, "
+                            + "duplicate_of, created_at) VALUES (?, ?, ?, ?, ?)",
+                    correlationId, retailer, sha256, original != null ? original.correlationId() : null,
+                    Timestamp.from(Instant.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Already recorded by an earlier attempt of the same job
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toUpperCase(Locale.ROOT);
+    }
+}
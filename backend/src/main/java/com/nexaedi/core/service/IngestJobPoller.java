@@ -0,0 +1,110 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.pipeline.IngestJobProperties;
+import com.nexaedi.infrastructure.persistence.IngestJob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Background loop that keeps this node's leases alive and pulls work from the durable ingest
+ * queue: each poll claims at most as many jobs as the intake stage has free slots, so a busy
+ * node leaves queued jobs for its peers instead of hoarding them. Every {@code pruneInterval} it
+ * also deletes finished jobs past retention.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestJobPoller {
+
+    private static final int PRUNE_BATCH_SIZE = 500;
+
+    private final IngestJobService jobService;
+    private final EdiOrchestrationService orchestrationService;
+    private final InboundContentService inboundContent;
+    private final IngestJobProperties properties;
+
+    private volatile boolean running;
+    private Thread pollerThread;
+    private Instant nextPrune = Instant.EPOCH;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        pollerThread = Thread.ofVirtual().name("ingest-job-poller").start(this::poll);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (pollerThread != null) {
+            pollerThread.interrupt();
+        }
+    }
+
+    private void poll() {
+        while (running) {
+            try {
+                Thread.sleep(properties.getPollInterval());
+                pollOnce();
+                if (properties.isPollingEnabled() && !Instant.now().isBefore(nextPrune)) {
+                    nextPrune = Instant.now().plus(properties.getPruneInterval());
+                    prune();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.warn("[JOBS] Poll failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    void pollOnce() {
+        jobService.renewLeases(orchestrationService.getActiveJobIds());
+        orchestrationService.settleHandedOff();
+        if (!properties.isPollingEnabled()) {
+            return;
+        }
+
+        int capacity = Math.min(orchestrationService.getIntakeCapacity(), properties.getClaimBatchSize());
+        if (capacity <= 0) {
+            return;
+        }
+        List<IngestJob> claimed = jobService.claim(capacity);
+        for (IngestJob job : claimed) {
+            log.info("[JOBS] Claimed correlationId={} attempt={} lastCompletedStage={}",
+                    job.getCorrelationId(), job.getAttempts(), job.getLastCompletedStage());
+            orchestrationService.resume(job);
+        }
+    }
+
+    /**
+     * Deletes finished jobs past retention, a batch at a time. A FAILED job's content claim is
+     * released first: with the job row gone, the claim would look like a completed original and
+     * turn every resubmission of the file into a duplicate.
+     */
+    void prune() {
+        int deleted = 0;
+        int batch;
+        List<IngestJob> expired;
+        do {
+            expired = jobService.findExpired(PRUNE_BATCH_SIZE);
+            for (IngestJob job : expired) {
+                if (job.getStatus() == IngestJobStatus.FAILED) {
+                    inboundContent.release(job.getCorrelationId());
+                }
+            }
+            batch = jobService.delete(expired.stream().map(IngestJob::getCorrelationId).toList());
+            deleted += batch;
+        } while (expired.size() == PRUNE_BATCH_SIZE && batch > 0 && running);
+        if (deleted > 0) {
+            log.info("[JOBS] Deleted {} finished job(s) older than {}", deleted, properties.getRetention());
+        }
+    }
+}
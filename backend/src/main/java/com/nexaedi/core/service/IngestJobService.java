@@ -0,0 +1,374 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.pipeline.IngestJobProperties;
+import com.nexaedi.infrastructure.persistence.IngestJob;
+import com.nexaedi.infrastructure.persistence.IngestJobRepository;
+import com.nexaedi.infrastructure.persistence.IngestJobUnit;
+import com.nexaedi.infrastructure.persistence.IngestJobUnitRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Claim/lease protocol and stage checkpoints for the durable ingest queue.
+ *
+ * A job is inserted, together with its raw payload, before the ingest request is answered. The
+ * accepting node holds the lease at first; if it cannot start the job right away it releases it
+ * back to QUEUED. Any node's {@link IngestJobPoller} claims QUEUED jobs — and jobs whose lease
+ * expired because their node died — with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so pollers
+ * never contend for the same rows. Works on PostgreSQL and H2.
+ *
+ * Payloads are stored as large objects — an oid on PostgreSQL, a BLOB on H2 — and streamed over
+ * JDBC in chunks, so an uploaded file goes from disk to the database and back without being
+ * materialised on the heap, whatever its size. A bytea value would be read back whole and is
+ * capped at 1 GB. On PostgreSQL the large object outlives its row, so it is unlinked explicitly.
+ *
+ * Finished jobs are kept as history for {@code retention}, then deleted by the poller.
+ */
+@Slf4j
+@Service
+public class IngestJobService {
+
+    private static final String INSERT_PAYLOAD_SQL =
+            "INSERT INTO ingest_job_payload (correlation_id, content_lob) VALUES (?, ?)";
+
+    private final IngestJobRepository jobRepository;
+    private final IngestJobUnitRepository unitRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestJobProperties properties;
+    private final String nodeId;
+
+    private boolean postgres;
+
+    public IngestJobService(IngestJobRepository jobRepository, IngestJobUnitRepository unitRepository,
+                            JdbcTemplate jdbcTemplate, IngestJobProperties properties) {
+        this.jobRepository = jobRepository;
+        this.unitRepository = unitRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isBlank()
+                ? properties.getNodeId() : defaultNodeId();
+        log.info("[JOBS] Ingest queue node id: {}", nodeId);
+    }
+
+    @PostConstruct
+    public void start() {
+        postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres")));
+        // Schemas created before content_lob made the bytea column mandatory; ddl-auto update
+        // never relaxes a constraint
+        try {
+            jdbcTemplate.execute("ALTER TABLE ingest_job_payload ALTER COLUMN content DROP NOT NULL");
+        } catch (DataAccessException e) {
+            log.warn("[JOBS] Could not make ingest_job_payload.content optional: {}", e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Durably accepts an inbound file held in memory, leased to this node.
+     */
+    @Transactional
+    public IngestJob enqueue(String correlationId, String retailerId, Long sellerId, String fileName,
+                             String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        IngestJob job = jobRepository.saveAndFlush(newJob(correlationId, retailerId, sellerId, fileName, bytes.length));
+        jdbcTemplate.update(INSERT_PAYLOAD_SQL, ps -> {
+            ps.setString(1, correlationId);
+            ps.setBlob(2, new ByteArrayInputStream(bytes), bytes.length);
+        });
+        MessageDigest digest = sha256();
+        digest.update(bytes);
+        job.setContentSha256(HexFormat.of().formatHex(digest.digest()));
+        return job;
+    }
+
+    /**
+     * Durably accepts an inbound file spooled to disk, leased to this node.
+     * The file is streamed into the payload table, and hashed on the way.
+     */
+    @Transactional
+    public IngestJob enqueue(String correlationId, String retailerId, Long sellerId, String fileName,
+                             Path file) {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            long size = Files.size(file);
+            IngestJob job = jobRepository.saveAndFlush(newJob(correlationId, retailerId, sellerId, fileName, size));
+            jdbcTemplate.update(INSERT_PAYLOAD_SQL, ps -> {
+                ps.setString(1, correlationId);
+                ps.setBlob(2, in, size);
+            });
+            job.setContentSha256(HexFormat.of().formatHex(digest.digest()));
+            return job;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading inbound file " + file, e);
+        }
+    }
+
+    /**
+     * Gives up this node's lease on a job it has not started, making it claimable by any node.
+     */
+    @Transactional
+    public void release(String correlationId) {
+        jobRepository.findById(correlationId).ifPresent(job -> {
+            job.setStatus(IngestJobStatus.QUEUED);
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setAttempts(Math.max(0, job.getAttempts() - 1));
+        });
+    }
+
+    /**
+     * Like {@link #release}, but the job is not claimed again before {@code deferDelay} is up.
+     * For jobs that cannot make progress yet, which would otherwise be claimed on every poll.
+     */
+    @Transactional
+    public void defer(String correlationId) {
+        jobRepository.findById(correlationId).ifPresent(job -> {
+            job.setStatus(IngestJobStatus.QUEUED);
+            job.setLeaseOwner(null);
+            job.setLeaseExpiresAt(null);
+            job.setAttempts(Math.max(0, job.getAttempts() - 1));
+            job.setNotBefore(Instant.now().plus(properties.getDeferDelay()));
+        });
+    }
+
+    /**
+     * Claims up to {@code limit} jobs for this node. Jobs that have already been claimed
+     * {@code maxAttempts} times are marked FAILED instead of being handed out again.
+     *
+     * Each job is claimed with an UPDATE that only matches while the job is still claimable, so a
+     * job another poller claimed after it was read is skipped rather than claimed a second time.
+     * The returned jobs are detached copies reflecting this node's claim.
+     */
+    @Transactional
+    public List<IngestJob> claim(int limit) {
+        Instant now = Instant.now();
+        Instant leaseExpiresAt = now.plus(properties.getLeaseDuration());
+        List<IngestJob> claimed = new ArrayList<>();
+        for (IngestJob job : jobRepository.lockClaimable(now, limit)) {
+            String correlationId = job.getCorrelationId();
+            if (job.getAttempts() >= properties.getMaxAttempts()) {
+                if (jobRepository.giveUp(correlationId, now) > 0) {
+                    log.error("[JOBS] Giving up on correlationId={} after {} attempts (last owner {})",
+                            correlationId, job.getAttempts(), job.getLeaseOwner());
+                    dropPayload(correlationId);
+                }
+                continue;
+            }
+            if (jobRepository.claim(correlationId, nodeId, now, leaseExpiresAt) == 0) {
+                log.debug("[JOBS] correlationId={} was claimed by another node first", correlationId);
+                continue;
+            }
+            if (job.getStatus() == IngestJobStatus.CLAIMED) {
+                log.warn("[JOBS] Taking over correlationId={} — lease of {} expired at {}",
+                        correlationId, job.getLeaseOwner(), job.getLeaseExpiresAt());
+            }
+            job.setStatus(IngestJobStatus.CLAIMED);
+            job.setLeaseOwner(nodeId);
+            job.setLeaseExpiresAt(leaseExpiresAt);
+            job.setAttempts(job.getAttempts() + 1);
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public int renewLeases(Collection<String> correlationIds) {
+        if (correlationIds.isEmpty()) {
+            return 0;
+        }
+        return jobRepository.renewLeases(correlationIds, nodeId, Instant.now().plus(properties.getLeaseDuration()));
+    }
+
+    /**
+     * Streams a job's payload into {@code target}. Large objects can only be read inside a
+     * transaction on PostgreSQL.
+     */
+    @Transactional(readOnly = true)
+    public void copyPayload(String correlationId, Path target) {
+        jdbcTemplate.query("SELECT content_lob, content FROM ingest_job_payload WHERE correlation_id = ?",
+                (RowCallbackHandler) rs -> {
+                    Blob blob = rs.getBlob(1);
+                    try (InputStream in = blob != null ? blob.getBinaryStream() : rs.getBinaryStream(2)) {
+                        Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Failed copying payload of job " + correlationId, e);
+                    } finally {
+                        if (blob != null) {
+                            blob.free();
+                        }
+                    }
+                }, correlationId);
+    }
+
+    /**
+     * Transaction-set checkpoints of a job, keyed by sequence number.
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, IngestJobUnit> loadCheckpoints(String correlationId) {
+        return unitRepository.findByJobCorrelationId(correlationId).stream()
+                .collect(Collectors.toMap(IngestJobUnit::getSequenceNumber, Function.identity()));
+    }
+
+    @Transactional
+    public void checkpointStage(String correlationId, EdiProcessingStatus stage, String storageKey) {
+        jobRepository.findById(correlationId).ifPresent(job -> {
+            job.setLastCompletedStage(stage);
+            if (storageKey != null) {
+                job.setStorageKey(storageKey);
+            }
+        });
+    }
+
+    @Transactional
+    public void checkpointUnit(String jobCorrelationId, int sequenceNumber, String correlationId,
+                               EdiProcessingStatus stage, String poNumber, String shopifyOrderId) {
+        IngestJobUnit unit = unitRepository
+                .findByJobCorrelationIdAndSequenceNumber(jobCorrelationId, sequenceNumber)
+                .orElseGet(() -> IngestJobUnit.builder()
+                        .jobCorrelationId(jobCorrelationId)
+                        .sequenceNumber(sequenceNumber)
+                        .correlationId(correlationId)
+                        .build());
+        unit.setLastCompletedStage(stage);
+        if (poNumber != null) {
+            unit.setPoNumber(poNumber);
+        }
+        if (shopifyOrderId != null) {
+            unit.setShopifyOrderId(shopifyOrderId);
+        }
+        unitRepository.save(unit);
+    }
+
+    /**
+     * Marks a job finished and drops its payload and checkpoints; the job row stays as history.
+     */
+    @Transactional
+    public void complete(String correlationId, IngestJobStatus status) {
+        jobRepository.findById(correlationId).ifPresent(job -> finish(job, status));
+    }
+
+    private void finish(IngestJob job, IngestJobStatus status) {
+        job.setStatus(status);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        dropPayload(job.getCorrelationId());
+    }
+
+    /**
+     * Those of {@code correlationIds} whose job has finished, or no longer exists.
+     */
+    @Transactional(readOnly = true)
+    public List<String> findFinished(Collection<String> correlationIds) {
+        Set<String> unfinished = new HashSet<>();
+        for (IngestJob job : jobRepository.findAllById(correlationIds)) {
+            if (job.getStatus() == IngestJobStatus.QUEUED || job.getStatus() == IngestJobStatus.CLAIMED) {
+                unfinished.add(job.getCorrelationId());
+            }
+        }
+        return correlationIds.stream().filter(correlationId -> !unfinished.contains(correlationId)).toList();
+    }
+
+    /**
+     * Finished jobs last updated before {@code retention} ago, oldest first.
+     */
+    @Transactional(readOnly = true)
+    public List<IngestJob> findExpired(int limit) {
+        return jobRepository.findByStatusInAndUpdatedAtBeforeOrderByUpdatedAt(
+                List.of(IngestJobStatus.COMPLETED, IngestJobStatus.FAILED),
+                Instant.now().minus(properties.getRetention()), Limit.of(limit));
+    }
+
+    /**
+     * Deletes finished jobs, with anything left of their payloads and checkpoints. Jobs that are
+     * not finished are left alone.
+     *
+     * @return the number of jobs deleted
+     */
+    @Transactional
+    public int delete(Collection<String> correlationIds) {
+        if (correlationIds.isEmpty()) {
+            return 0;
+        }
+        correlationIds.forEach(this::dropPayload);
+        return jobRepository.deleteFinished(correlationIds);
+    }
+
+    private void dropPayload(String correlationId) {
+        if (postgres) {
+            jdbcTemplate.queryForList("SELECT lo_unlink(content_lob) FROM ingest_job_payload "
+                    + "WHERE correlation_id = ? AND content_lob IS NOT NULL", correlationId);
+        }
+        jdbcTemplate.update("DELETE FROM ingest_job_payload WHERE correlation_id = ?", correlationId);
+        unitRepository.deleteByJobCorrelationId(correlationId);
+    }
+
+    private IngestJob newJob(String correlationId, String retailerId, Long sellerId, String fileName, long size) {
+        return IngestJob.builder()
+                .correlationId(correlationId)
+                .retailerId(retailerId)
+                .sellerId(sellerId)
+                .fileName(fileName)
+                .status(IngestJobStatus.CLAIMED)
+                .payloadBytes(size)
+                .leaseOwner(nodeId)
+                .leaseExpiresAt(Instant.now().plus(properties.getLeaseDuration()))
+                .attempts(1)
+                .build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
@@ -1,8 +1,15 @@
 package com.nexaedi.infrastructure.config;
 
+import com.nexaedi.core.pipeline.AdmissionProperties;
+import com.nexaedi.core.pipeline.AuditProperties;
+import com.nexaedi.core.pipeline.DedupProperties;
+import com.nexaedi.core.pipeline.IngestJobProperties;
+import com.nexaedi.core.pipeline.PipelineProperties;
+import com.nexaedi.core.pipeline.SchedulerProperties;
 import com.nexaedi.infrastructure.shopify.ShopifyProperties;
 import tools.jackson.databind.ObjectMapper;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +18,9 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.web.client.RestClient;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -27,7 +36,9 @@ import java.util.concurrent.Executors;
 @Configuration
 @EnableRetry
 @EnableAsync
-@EnableConfigurationProperties({ShopifyProperties.class, S3Properties.class})
+@EnableConfigurationProperties({ShopifyProperties.class, S3Properties.class, FileSystemStorageProperties.class,
+        StorageCompressionProperties.class, PipelineProperties.class, AdmissionProperties.class, IngestJobProperties.class,
+        DedupProperties.class, SchedulerProperties.class, AuditProperties.class})
 public class AppConfig {
 
     /**
@@ -69,4 +80,23 @@ public class AppConfig {
                 .credentialsProvider(DefaultCredentialsProvider.create())
                 .build();
     }
+
+    /**
+     * Non-blocking S3 client for inbound uploads that overlap with parsing. Splits large payloads
+     * into multipart uploads itself, with the same threshold and part size as the blocking path.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = "nexaedi.s3.enabled", havingValue = "true")
+    public S3AsyncClient s3AsyncClient(S3Properties s3Properties) {
+        return S3AsyncClient.builder()
+                .region(Region.of(s3Properties.getRegion()))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(s3Properties.getMultipartThreshold().toBytes())
+                        .minimumPartSizeInBytes(s3Properties.partSizeBytes())
+                        .build())
+                .build();
+    }
 }
@@ -0,0 +1,43 @@
+package com.nexaedi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Local filesystem storage for EDI files, for on-prem deployments without S3.
+ * Bound from the "nexaedi.storage.filesystem" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.storage.filesystem")
+public class FileSystemStorageProperties {
+
+    /**
+     * Use the filesystem as the storage backend. Ignored when nexaedi.s3.enabled is true.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Directory every stored file lives under.
+     */
+    private Path root = Path.of("storage");
+
+    /**
+     * fsync each file, and its directory after the rename, before a store returns. When false,
+     * a crash can lose files the OS had not yet written back.
+     */
+    private boolean syncWrites = true;
+
+    /**
+     * How long the syncer waits for more writes to join a batch before syncing it. With zero,
+     * a batch is whatever queued up while the previous one was being synced.
+     */
+    private Duration groupCommitWindow = Duration.ZERO;
+
+    /**
+     * Most writes synced in one batch.
+     */
+    private int maxBatch = 256;
+}
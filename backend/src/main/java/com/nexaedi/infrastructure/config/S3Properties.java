@@ -2,6 +2,7 @@ package com.nexaedi.infrastructure.config;
 
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Externalized AWS S3 configuration for EDI file storage.
@@ -11,6 +12,11 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "nexaedi.s3")
 public class S3Properties {
 
+    /**
+     * S3 rejects parts smaller than this, except the last.
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
     /**
      * AWS region where the S3 bucket resides (e.g., "us-east-1").
      */
@@ -32,4 +38,26 @@ public class S3Properties {
     private String processedPrefix = "edi/processed/";
 
     private String outboundPrefix;
+
+    /**
+     * Payloads larger than this are uploaded with S3 multipart upload instead of a single PUT.
+     */
+    private DataSize multipartThreshold = DataSize.ofMegabytes(16);
+
+    /**
+     * Size of each multipart part. S3 requires at least 5 MB for every part but the last.
+     */
+    private DataSize partSize = DataSize.ofMegabytes(8);
+
+    /**
+     * Parts of one upload sent at the same time. Streamed uploads hold this many parts in memory.
+     */
+    private int uploadConcurrency = 4;
+
+    /**
+     * {@link #partSize} in bytes, raised to {@link #MIN_PART_SIZE} and capped at one byte array.
+     */
+    public long partSizeBytes() {
+        return Math.clamp(partSize.toBytes(), MIN_PART_SIZE, Integer.MAX_VALUE);
+    }
 }
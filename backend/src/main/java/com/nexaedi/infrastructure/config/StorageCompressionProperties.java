@@ -0,0 +1,31 @@
+package com.nexaedi.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compression of stored EDI payloads — S3 and filesystem objects, and dead-letter content.
+ * Bound from the "nexaedi.storage.compression" prefix in application.yml.
+ */
+@Data
+@ConfigurationProperties(prefix = "nexaedi.storage.compression")
+public class StorageCompressionProperties {
+
+    /**
+     * Content encoding for retailers without an entry in {@code retailers}: "identity" or "gzip".
+     */
+    private String defaultEncoding = "identity";
+
+    /**
+     * Content encoding per retailer ID, overriding {@code defaultEncoding}.
+     */
+    private Map<String, String> retailers = new HashMap<>();
+
+    /**
+     * Deflate level for gzip, 1 (fastest) to 9 (smallest).
+     */
+    private int gzipLevel = 6;
+}
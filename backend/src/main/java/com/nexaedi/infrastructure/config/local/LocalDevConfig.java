@@ -1,7 +1,8 @@
 package com.nexaedi.infrastructure.config.local;
 
-import com.nexaedi.infrastructure.config.S3Properties;
-import com.nexaedi.infrastructure.s3.S3StorageService;
+import com.nexaedi.infrastructure.config.FileSystemStorageProperties;
+import com.nexaedi.infrastructure.storage.FileSystemStorageService;
+import com.nexaedi.infrastructure.storage.PayloadCompression;
 import com.nexaedi.infrastructure.storage.StorageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,14 +12,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import software.amazon.awssdk.services.s3.S3Client;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.util.UUID;
 
 /**
  * Local development configuration.
@@ -26,7 +20,7 @@ import java.util.UUID;
  *
  * Replaces three external dependencies with zero-infrastructure stubs:
  *   1. S3Client        → No-op stub (prevents AWS SDK from trying to connect)
- *   2. S3StorageService→ Writes files to ./local-storage/ instead of AWS S3
+ *   2. StorageService  → FileSystemStorageService under ./local-storage/ instead of AWS S3
  *   3. ShopifyOutboundAdapter → Returns a fake draft order ID, logs the payload
  */
 @Slf4j
@@ -34,9 +28,6 @@ import java.util.UUID;
 @Profile("local")
 public class LocalDevConfig {
 
-    private static final DateTimeFormatter DATE_PREFIX =
-            DateTimeFormatter.ofPattern("yyyy/MM/dd").withZone(ZoneOffset.UTC);
-
     @Value("${nexaedi.local.storage-dir:local-storage}")
     private String localStorageDir;
 
@@ -59,35 +50,18 @@ public class LocalDevConfig {
     }
 
     /**
-     * Local filesystem implementation of S3StorageService.
-     * Saves EDI files to ./local-storage/inbound/{date}/{retailer}/{correlationId}.edi
+     * Filesystem storage standing in for S3, with the same key layout.
+     * Saves EDI files to ./local-storage/inbound/{date}/{retailer}/{shard}/{correlationId}.edi
      */
     @Bean
-@Primary
-public StorageService storageService() {
-    return new StorageService() {
-
-        @Override
-        public String storeInbound(String correlationId, String retailerId, String ediContent) {
-            log.info("[LOCAL] Stored inbound for {}", correlationId);
-            return "local-inbound-" + correlationId;
-        }
-
-        @Override
-        public String storeOutbound(String correlationId, String retailerId, String content) {
-            return "local-outbound-" + correlationId;
-        }
-
-        @Override
-        public String retrieveContent(String key) {
-            return "";
-        }
-
-        @Override
-        public String archiveProcessed(String key, String correlationId) {
-            return key;
-        }
-    };
-        }
-    
+    @Primary
+    public StorageService storageService(FileSystemStorageProperties properties, PayloadCompression compression) {
+        FileSystemStorageProperties local = new FileSystemStorageProperties();
+        local.setEnabled(true);
+        local.setRoot(Path.of(localStorageDir));
+        local.setSyncWrites(properties.isSyncWrites());
+        local.setGroupCommitWindow(properties.getGroupCommitWindow());
+        local.setMaxBatch(properties.getMaxBatch());
+        return new FileSystemStorageService(local, compression);
     }
+}
@@ -2,10 +2,13 @@ package com.nexaedi.infrastructure.dlq;
 
 import com.nexaedi.infrastructure.persistence.DeadLetterEntry;
 import com.nexaedi.infrastructure.persistence.DeadLetterRepository;
+import com.nexaedi.infrastructure.storage.PayloadCodec;
+import com.nexaedi.infrastructure.storage.PayloadCompression;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -15,19 +18,26 @@ import java.util.UUID;
 public class DeadLetterQueueService {
 
     private final DeadLetterRepository deadLetterRepository;
+    private final PayloadCompression compression;
 
     public DeadLetterEntry quarantine(String correlationId, String retailerId, String originalContent,
                                       String originalFileName, String errorMessage, Throwable cause) {
         try {
             String errorReport = buildErrorReport(correlationId, retailerId, originalFileName, errorMessage, cause);
+            String content = originalContent != null ? originalContent : "";
+            PayloadCodec codec = compression.codecFor(retailerId);
             DeadLetterEntry entry = DeadLetterEntry.builder()
                     .id(UUID.randomUUID())
                     .retailerId(retailerId != null ? retailerId.toLowerCase() : "")
                     .correlationId(correlationId)
-                    .originalContent(originalContent != null ? originalContent : "")
+                    .originalContent(codec == PayloadCodec.IDENTITY ? content : "")
                     .errorReport(errorReport)
                     .createdAt(Instant.now())
                     .build();
+            if (codec != PayloadCodec.IDENTITY) {
+                entry.setContentEncoding(codec.encoding());
+                entry.setEncodedContent(compression.encode(codec, content.getBytes(StandardCharsets.UTF_8)));
+            }
             entry = deadLetterRepository.save(entry);
             log.warn("[DLQ] Quarantined failed EDI file. correlationId={} retailer={} id={}",
                     correlationId, retailerId, entry.getId());
@@ -39,6 +49,17 @@ public class DeadLetterQueueService {
         }
     }
 
+    /**
+     * The payload an entry quarantined, decoded if it was stored compressed.
+     */
+    public String originalContent(DeadLetterEntry entry) {
+        if (entry.getContentEncoding() == null) {
+            return entry.getOriginalContent();
+        }
+        return new String(compression.decode(entry.getContentEncoding(), entry.getEncodedContent()),
+                StandardCharsets.UTF_8);
+    }
+
     private String buildErrorReport(String correlationId, String retailerId, String originalFileName,
                                     String errorMessage, Throwable cause) {
         StringBuilder report = new StringBuilder();
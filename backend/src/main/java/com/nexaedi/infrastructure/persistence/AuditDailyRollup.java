@@ -0,0 +1,50 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Audit rows of one UTC day, counted per retailer and status. Written once per finished day by
+ * AuditRetentionService and kept after the day's detail rows have expired, so totals survive
+ * retention. Mapped for schema generation only: rows are written and summed over JDBC.
+ */
+@Entity
+@Table(
+    name = "edi_audit_daily_rollup",
+    uniqueConstraints = @UniqueConstraint(name = "uk_audit_rollup_day",
+            columnNames = {"rollup_day", "retailer_id", "status"})
+)
+@Getter
+@NoArgsConstructor
+public class AuditDailyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "retailer_id", nullable = false, length = 50)
+    private String retailerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private EdiProcessingStatus status;
+
+    @Column(name = "record_count", nullable = false)
+    private long recordCount;
+
+    /**
+     * Sum of durationMs over the day's rows, for average stage latency.
+     */
+    @Column(name = "total_duration_ms", nullable = false)
+    private long totalDurationMs;
+
+    @Column(name = "max_duration_ms")
+    private Long maxDurationMs;
+}
@@ -0,0 +1,14 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+
+import java.time.Instant;
+
+/**
+ * The columns of an {@link EdiAuditLog} row that audit search returns. Leaves out the source file
+ * path and error detail, which can be large; fetch the full trail by correlation ID for those.
+ */
+public record AuditLogView(long id, String correlationId, String parentCorrelationId, String retailerId,
+                           String transactionSetCode, String poNumber, EdiProcessingStatus status,
+                           String message, Instant createdAt, Long durationMs) {
+}
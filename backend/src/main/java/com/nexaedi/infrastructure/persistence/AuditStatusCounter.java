@@ -0,0 +1,37 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running count of audit transitions for one retailer and status, across all nodes. Each node
+ * adds what it counted since its last checkpoint, so the table is the cluster-wide total as of
+ * the latest checkpoints. Mapped for schema generation only: rows are written and read over JDBC
+ * by AuditCounters.
+ */
+@Entity
+@Table(
+    name = "edi_audit_status_counter",
+    uniqueConstraints = @UniqueConstraint(name = "uk_audit_status_counter",
+            columnNames = {"retailer_id", "status"})
+)
+@Getter
+@NoArgsConstructor
+public class AuditStatusCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "retailer_id", nullable = false, length = 50)
+    private String retailerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private EdiProcessingStatus status;
+
+    @Column(name = "record_count", nullable = false)
+    private long recordCount;
+}
@@ -30,10 +30,24 @@ public class DeadLetterEntry {
     @Column(name = "correlation_id", nullable = false, length = 36)
     private String correlationId;
 
+    /**
+     * The failed payload as received. Empty when it is stored encoded in {@code encodedContent};
+     * read it through DeadLetterQueueService#originalContent either way.
+     */
     @Lob
     @Column(name = "original_content", columnDefinition = "TEXT", nullable = false)
     private String originalContent;
 
+    /**
+     * Content encoding of {@code encodedContent}, e.g. "gzip"; null when the payload is in
+     * {@code originalContent} as it is.
+     */
+    @Column(name = "content_encoding", length = 16)
+    private String contentEncoding;
+
+    @Column(name = "encoded_content", columnDefinition = "BYTEA")
+    private byte[] encodedContent;
+
     @Lob
     @Column(name = "error_report", columnDefinition = "TEXT", nullable = false)
     private String errorReport;
@@ -0,0 +1,68 @@
+package com.nexaedi.infrastructure.persistence;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * First sighting of an interchange (sender, ISA13) or purchase order (retailer, BEG03).
+ * The unique index is the authority on duplicates; the in-memory Bloom filter only decides
+ * whether it is worth asking.
+ */
+@Entity
+@Table(
+    name = "edi_dedup_key",
+    uniqueConstraints = @UniqueConstraint(name = "uk_dedup_key", columnNames = {"key_type", "scope", "key_value"})
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DedupKey {
+
+    public enum KeyType {
+        /**
+         * scope = ISA06 sender ID, value = ISA13 interchange control number.
+         */
+        INTERCHANGE,
+        /**
+         * scope = retailer ID, value = BEG03 purchase order number.
+         */
+        PURCHASE_ORDER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "key_type", nullable = false, length = 20)
+    private KeyType keyType;
+
+    @Column(name = "scope", nullable = false, length = 50)
+    private String scope;
+
+    @Column(name = "key_value", nullable = false, length = 50)
+    private String keyValue;
+
+    /**
+     * Correlation ID of the run that first claimed the key — the interchange's for INTERCHANGE
+     * keys, the transaction set's for PURCHASE_ORDER keys.
+     */
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    protected void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
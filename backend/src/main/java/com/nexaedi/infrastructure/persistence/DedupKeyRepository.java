@@ -0,0 +1,27 @@
+package com.nexaedi.infrastructure.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for duplicate-detection keys.
+ */
+@Repository
+public interface DedupKeyRepository extends JpaRepository<DedupKey, Long> {
+
+    Optional<DedupKey> findByKeyTypeAndScopeAndKeyValue(DedupKey.KeyType keyType, String scope, String keyValue);
+
+    /**
+     * Forgets a key, but only while it still belongs to the given run.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from DedupKey k where k.keyType = :keyType and k.scope = :scope and k.keyValue = :keyValue"
+            + " and k.correlationId = :correlationId")
+    int release(DedupKey.KeyType keyType, String scope, String keyValue, String correlationId);
+}
@@ -18,8 +18,13 @@ import java.time.Instant;
     name = "edi_audit_log",
     indexes = {
         @Index(name = "idx_audit_correlation_id", columnList = "correlation_id"),
+        @Index(name = "idx_audit_parent_correlation_id", columnList = "parent_correlation_id"),
         @Index(name = "idx_audit_retailer_status", columnList = "retailer_id, status"),
-        @Index(name = "idx_audit_created_at", columnList = "created_at")
+        @Index(name = "idx_audit_created_at", columnList = "created_at"),
+        @Index(name = "idx_audit_po_number", columnList = "po_number"),
+        @Index(name = "idx_audit_retailer_created", columnList = "retailer_id, created_at, id"),
+        @Index(name = "idx_audit_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_audit_created_id", columnList = "created_at, id")
     }
 )
 @Data
@@ -38,6 +43,13 @@ public class EdiAuditLog {
     @Column(name = "correlation_id", nullable = false, length = 36)
     private String correlationId;
 
+    /**
+     * For rows about a single transaction set, the correlation ID of the interchange it came in;
+     * null for interchange-level rows.
+     */
+    @Column(name = "parent_correlation_id", length = 36)
+    private String parentCorrelationId;
+
     /**
      * Originating retailer (e.g., "TARGET", "WALMART").
      */
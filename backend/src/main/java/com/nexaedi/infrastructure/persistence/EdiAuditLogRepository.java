@@ -14,6 +14,12 @@ public interface EdiAuditLogRepository extends JpaRepository<EdiAuditLog, Long>
 
     List<EdiAuditLog> findByCorrelationIdOrderByCreatedAtAsc(String correlationId);
 
+    /**
+     * Interchange-level rows plus the rows of every transaction set fanned out from it.
+     */
+    List<EdiAuditLog> findByCorrelationIdOrParentCorrelationIdOrderByCreatedAtAsc(String correlationId,
+                                                                                 String parentCorrelationId);
+
     List<EdiAuditLog> findByRetailerIdAndStatus(String retailerId, EdiProcessingStatus status);
 
     List<EdiAuditLog> findByPoNumber(String poNumber);
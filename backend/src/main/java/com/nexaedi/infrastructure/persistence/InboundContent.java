@@ -0,0 +1,52 @@
+package com.nexaedi.infrastructure.persistence;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One distinct inbound payload per retailer, identified by its SHA-256, and the run that owns it.
+ * The unique index is the authority on whether a file's exact bytes were already received. Mapped
+ * for schema generation only: rows are written and read over JDBC by InboundContentService.
+ */
+@Entity
+@Table(
+    name = "edi_inbound_content",
+    uniqueConstraints = @UniqueConstraint(name = "uk_inbound_content",
+            columnNames = {"retailer_id", "content_sha256"}),
+    indexes = @Index(name = "idx_inbound_content_correlation_id", columnList = "correlation_id")
+)
+@Getter
+@NoArgsConstructor
+public class InboundContent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "retailer_id", nullable = false, length = 50)
+    private String retailerId;
+
+    /**
+     * Lowercase hex SHA-256 of the payload as received.
+     */
+    @Column(name = "content_sha256", nullable = false, length = 64)
+    private String contentSha256;
+
+    /**
+     * Correlation ID of the run that first received the content and stored it.
+     */
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    /**
+     * Storage key of the content-addressed object; null until that run has started storing it.
+     */
+    @Column(name = "storage_key", length = 1024)
+    private String storageKey;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,41 @@
+package com.nexaedi.infrastructure.persistence;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Which payload each inbound file was: maps an interchange correlation ID to the SHA-256 of its
+ * content, and to the run whose stored copy it shares when it was a duplicate. Mapped for schema
+ * generation only: rows are written and read over JDBC by InboundContentService.
+ */
+@Entity
+@Table(
+    name = "edi_inbound_content_ref",
+    indexes = @Index(name = "idx_content_ref_sha256", columnList = "retailer_id, content_sha256")
+)
+@Getter
+@NoArgsConstructor
+public class InboundContentRef {
+
+    @Id
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    @Column(name = "retailer_id", nullable = false, length = 50)
+    private String retailerId;
+
+    @Column(name = "content_sha256", nullable = false, length = 64)
+    private String contentSha256;
+
+    /**
+     * Correlation ID of the run that owns the content, when this file was a byte-identical duplicate.
+     */
+    @Column(name = "duplicate_of", length = 36)
+    private String duplicateOf;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,112 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.model.IngestJobStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Durable record of one accepted EDI file. The row is written before the ingest request is
+ * answered, so accepted work survives a restart, and any node can claim it with a time-limited
+ * lease. The raw content lives in {@link IngestJobPayload} until the job finishes.
+ */
+@Entity
+@Table(
+    name = "ingest_job",
+    indexes = {
+        @Index(name = "idx_ingest_job_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_ingest_job_lease_owner", columnList = "lease_owner")
+    }
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestJob {
+
+    /**
+     * The interchange-level correlation ID returned to the client.
+     */
+    @Id
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    @Column(name = "retailer_id", nullable = false, length = 50)
+    private String retailerId;
+
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private IngestJobStatus status;
+
+    /**
+     * Last interchange-level stage that finished: RECEIVED once the file is in storage, PARSED once
+     * every transaction set was dispatched. Null until the first stage completes.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_completed_stage", length = 20)
+    private EdiProcessingStatus lastCompletedStage;
+
+    /**
+     * Storage key written at RECEIVED, reused on resume instead of storing the file again.
+     */
+    @Column(name = "storage_key", length = 1024)
+    private String storageKey;
+
+    @Column(name = "payload_bytes", nullable = false)
+    private long payloadBytes;
+
+    /**
+     * Lowercase hex SHA-256 of the payload, computed as it is written to the queue. Null for jobs
+     * accepted before content dedup existed.
+     */
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    /**
+     * Node currently holding the job; null while QUEUED or once finished.
+     */
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    /**
+     * A QUEUED job is not claimed before this time; set when the job is deferred, null otherwise.
+     */
+    @Column(name = "not_before")
+    private Instant notBefore;
+
+    /**
+     * Number of times the job has been claimed, including the first.
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        Instant now = Instant.now();
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        updatedAt = now;
+    }
+}
@@ -0,0 +1,41 @@
+package com.nexaedi.infrastructure.persistence;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.sql.Blob;
+
+/**
+ * Raw content of an unfinished {@link IngestJob}, kept in its own table so claiming and
+ * updating jobs never drags the payload along. Mapped for schema generation only: rows are
+ * streamed in and out over JDBC by IngestJobService rather than loaded as entities.
+ */
+@Entity
+@Table(name = "ingest_job_payload")
+@Getter
+@NoArgsConstructor
+public class IngestJobPayload {
+
+    @Id
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    /**
+     * The payload as a large object — an oid on PostgreSQL, a BLOB on H2 — which JDBC streams in
+     * chunks rather than as one value.
+     */
+    @Lob
+    @Column(name = "content_lob")
+    private Blob contentLob;
+
+    /**
+     * Payloads queued before content_lob existed; only read, until those jobs have drained.
+     */
+    @Column(name = "content", columnDefinition = "BYTEA")
+    private byte[] content;
+}
@@ -0,0 +1,117 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.IngestJobStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the durable ingest queue.
+ */
+@Repository
+public interface IngestJobRepository extends JpaRepository<IngestJob, String> {
+
+    /**
+     * Locks up to {@code limit} claimable jobs — queued and not deferred past {@code now}, or
+     * claimed under a lease that has expired. Sellers are taken round-robin, each seller's oldest job first, so one seller's
+     * backlog cannot push another seller's file to the back of the queue. Rows locked by another
+     * node's claim are skipped rather than waited on, so concurrent pollers never block each
+     * other. The claimable filter is repeated on the outer query: under READ COMMITTED a row that
+     * changed after the subquery's snapshot is rechecked only against the outer WHERE, so a job
+     * another poller has just claimed and committed is dropped instead of locked. Must run inside
+     * a transaction; the locks are held until it commits.
+     */
+    @Query(value = """
+            SELECT * FROM ingest_job
+            WHERE correlation_id IN (
+                SELECT correlation_id FROM (
+                    SELECT correlation_id, created_at,
+                           ROW_NUMBER() OVER (PARTITION BY seller_id ORDER BY created_at) AS seller_rank
+                    FROM ingest_job
+                    WHERE (status = 'QUEUED' AND (not_before IS NULL OR not_before <= :now))
+                       OR (status = 'CLAIMED' AND lease_expires_at < :now)
+                ) ranked
+                ORDER BY seller_rank, created_at
+                LIMIT :limit)
+              AND ((status = 'QUEUED' AND (not_before IS NULL OR not_before <= :now))
+                   OR (status = 'CLAIMED' AND lease_expires_at < :now))
+            ORDER BY created_at
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<IngestJob> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Claims a job for {@code owner}, but only while it is still claimable.
+     *
+     * @return 1 if the job was claimed, 0 if another node got there first
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update IngestJob j set j.status = com.nexaedi.core.model.IngestJobStatus.CLAIMED,
+                   j.leaseOwner = :owner, j.leaseExpiresAt = :leaseExpiresAt,
+                   j.attempts = j.attempts + 1, j.notBefore = null, j.updatedAt = :now
+            where j.correlationId = :correlationId
+              and ((j.status = com.nexaedi.core.model.IngestJobStatus.QUEUED
+                    and (j.notBefore is null or j.notBefore <= :now))
+                   or (j.status = com.nexaedi.core.model.IngestJobStatus.CLAIMED and j.leaseExpiresAt < :now))
+            """)
+    int claim(@Param("correlationId") String correlationId,
+              @Param("owner") String owner,
+              @Param("now") Instant now,
+              @Param("leaseExpiresAt") Instant leaseExpiresAt);
+
+    /**
+     * Marks a job FAILED for good, but only while it is still claimable.
+     *
+     * @return 1 if the job was failed, 0 if another node claimed it first
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update IngestJob j set j.status = com.nexaedi.core.model.IngestJobStatus.FAILED,
+                   j.leaseOwner = null, j.leaseExpiresAt = null, j.updatedAt = :now
+            where j.correlationId = :correlationId
+              and (j.status = com.nexaedi.core.model.IngestJobStatus.QUEUED
+                   or (j.status = com.nexaedi.core.model.IngestJobStatus.CLAIMED and j.leaseExpiresAt < :now))
+            """)
+    int giveUp(@Param("correlationId") String correlationId, @Param("now") Instant now);
+
+    /**
+     * Jobs in one of {@code statuses} last updated before {@code updatedBefore}, oldest first.
+     */
+    List<IngestJob> findByStatusInAndUpdatedAtBeforeOrderByUpdatedAt(Collection<IngestJobStatus> statuses,
+                                                                     Instant updatedBefore, Limit limit);
+
+    /**
+     * Deletes the given jobs, but only those that are finished.
+     *
+     * @return the number of jobs deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            delete from IngestJob j
+            where j.correlationId in :correlationIds
+              and j.status in (com.nexaedi.core.model.IngestJobStatus.COMPLETED,
+                               com.nexaedi.core.model.IngestJobStatus.FAILED)
+            """)
+    int deleteFinished(@Param("correlationIds") Collection<String> correlationIds);
+
+    /**
+     * Extends the lease of jobs this node is still working on.
+     */
+    @Modifying
+    @Query("""
+            update IngestJob j set j.leaseExpiresAt = :leaseExpiresAt
+            where j.correlationId in :correlationIds and j.leaseOwner = :owner
+              and j.status = com.nexaedi.core.model.IngestJobStatus.CLAIMED
+            """)
+    int renewLeases(@Param("correlationIds") Collection<String> correlationIds,
+                    @Param("owner") String owner,
+                    @Param("leaseExpiresAt") Instant leaseExpiresAt);
+}
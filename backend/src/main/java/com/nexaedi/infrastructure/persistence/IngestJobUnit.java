@@ -0,0 +1,63 @@
+package com.nexaedi.infrastructure.persistence;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Checkpoint for one transaction set of an {@link IngestJob}. Only stages with external side
+ * effects are recorded — TRANSMITTED, ACKNOWLEDGED and FAILED — so a resumed job never sends
+ * the same order to Shopify twice; mapping and validation are simply re-run.
+ */
+@Entity
+@Table(
+    name = "ingest_job_unit",
+    uniqueConstraints = @UniqueConstraint(name = "uk_ingest_job_unit_sequence",
+            columnNames = {"job_correlation_id", "sequence_number"})
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestJobUnit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_correlation_id", nullable = false, length = 36)
+    private String jobCorrelationId;
+
+    /**
+     * 1-based position of the transaction set in the interchange.
+     */
+    @Column(name = "sequence_number", nullable = false)
+    private int sequenceNumber;
+
+    @Column(name = "correlation_id", nullable = false, length = 36)
+    private String correlationId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_completed_stage", nullable = false, length = 20)
+    private EdiProcessingStatus lastCompletedStage;
+
+    @Column(name = "po_number", length = 50)
+    private String poNumber;
+
+    @Column(name = "shopify_order_id", length = 100)
+    private String shopifyOrderId;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        updatedAt = Instant.now();
+    }
+}
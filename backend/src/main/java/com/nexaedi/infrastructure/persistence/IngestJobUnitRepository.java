@@ -0,0 +1,20 @@
+package com.nexaedi.infrastructure.persistence;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring Data JPA repository for per-transaction ingest checkpoints.
+ */
+@Repository
+public interface IngestJobUnitRepository extends JpaRepository<IngestJobUnit, Long> {
+
+    List<IngestJobUnit> findByJobCorrelationId(String jobCorrelationId);
+
+    Optional<IngestJobUnit> findByJobCorrelationIdAndSequenceNumber(String jobCorrelationId, int sequenceNumber);
+
+    void deleteByJobCorrelationId(String jobCorrelationId);
+}
@@ -2,15 +2,15 @@ package com.nexaedi.infrastructure.s3;
 
 import com.nexaedi.infrastructure.storage.StorageService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
 @Service
-@ConditionalOnProperty(
-        name = "nexaedi.s3.enabled",
-        havingValue = "false",
-        matchIfMissing = true
-)
+@ConditionalOnExpression("!${nexaedi.s3.enabled:false} and !${nexaedi.storage.filesystem.enabled:false}")
 public class DatabaseStorageService implements StorageService {
 
     @Override
@@ -18,6 +18,21 @@ public class DatabaseStorageService implements StorageService {
         return "db://" + correlationId;
     }
 
+    @Override
+    public String storeInbound(String correlationId, String retailerId, Path file) {
+        return "db://" + correlationId;
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, InputStream content, long contentLength) {
+        return "db://" + correlationId;
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, ByteBuffer content) {
+        return "db://" + correlationId;
+    }
+
     @Override
     public String storeOutbound(String correlationId, String retailerId, String content) {
         return "db-outbound://" + correlationId;
@@ -1,52 +1,172 @@
 package com.nexaedi.infrastructure.s3;
 
 import com.nexaedi.infrastructure.config.S3Properties;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import com.nexaedi.infrastructure.storage.ByteBufferInputStream;
+import com.nexaedi.infrastructure.storage.EncodingInputStream;
+import com.nexaedi.infrastructure.storage.InboundUpload;
+import com.nexaedi.infrastructure.storage.PayloadCodec;
+import com.nexaedi.infrastructure.storage.PayloadCompression;
 import com.nexaedi.infrastructure.storage.StorageService;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
 
+/**
+ * Stores EDI payloads in S3.
+ *
+ * Payloads up to {@code multipartThreshold} go up in a single PUT; larger ones as a multipart
+ * upload whose parts are sent {@code uploadConcurrency} at a time on virtual threads. Files are
+ * uploaded from memory-mapped slices and buffers from the buffer itself, so neither is copied
+ * onto the heap; a stream of unknown length holds at most {@code uploadConcurrency} parts in
+ * memory. A failed multipart upload is aborted so S3 does not keep its parts.
+ *
+ * The storeInboundAsync methods go through {@link S3AsyncClient} instead and return as soon as
+ * the upload has started, so the pipeline can parse while the bytes are in flight. That client
+ * does its own multipart splitting with the same threshold and part size.
+ *
+ * Payloads of retailers with compression on are encoded with their {@link PayloadCodec} as they
+ * are uploaded, and the object is tagged with its Content-Encoding; reads decode by that tag, so
+ * objects stored before compression was turned on still read as they are.
+ */
 @Slf4j
 @Service
 @ConditionalOnProperty(
         name = "nexaedi.s3.enabled",
         havingValue = "true"
 )
-@RequiredArgsConstructor
 public class S3StorageService implements StorageService {
 
     private static final DateTimeFormatter DATE_PREFIX_FORMAT =
             DateTimeFormatter.ofPattern("yyyy/MM/dd").withZone(ZoneOffset.UTC);
 
+    private static final String CONTENT_TYPE = "application/edi-x12";
+
     private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
     private final S3Properties s3Properties;
+    private final PayloadCompression compression;
+    private final Executor uploadExecutor;
+
+    public S3StorageService(S3Client s3Client, S3AsyncClient s3AsyncClient, S3Properties s3Properties,
+                            PayloadCompression compression,
+                            @Qualifier("ediVirtualThreadExecutor") Executor uploadExecutor) {
+        this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
+        this.s3Properties = s3Properties;
+        this.compression = compression;
+        this.uploadExecutor = uploadExecutor;
+    }
 
     @Override
     public String storeInbound(String correlationId, String retailerId, String content) {
 
-        String datePrefix = DATE_PREFIX_FORMAT.format(Instant.now());
-        String key = String.format("%s%s/%s/%s.edi",
-                s3Properties.getInboundPrefix(),
-                datePrefix,
-                retailerId.toLowerCase(),
-                correlationId);
+        String key = inboundKey(correlationId, retailerId);
+
+        putBytes(key, content.getBytes(StandardCharsets.UTF_8), retailerId);
+        return key;
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, Path file) {
+
+        String key = inboundKey(correlationId, retailerId);
 
-        putObject(key, content, retailerId);
+        putFile(key, file, retailerId);
         return key;
     }
 
+    @Override
+    public String storeInbound(String correlationId, String retailerId, InputStream content, long contentLength) {
+
+        String key = inboundKey(correlationId, retailerId);
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        try {
+            if (codec == PayloadCodec.IDENTITY) {
+                putStream(key, content, contentLength, retailerId, codec);
+            } else {
+                putStream(key, new EncodingInputStream(content, codec), -1, retailerId, codec);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed uploading inbound stream for " + correlationId, e);
+        }
+        return key;
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, ByteBuffer content) {
+
+        String key = inboundKey(correlationId, retailerId);
+
+        putBuffer(key, content.duplicate(), retailerId);
+        return key;
+    }
+
+    /**
+     * With compression on for the retailer, the payload is compressed in memory, or for a file
+     * compressed and uploaded on an upload thread, since the async client needs a known length.
+     */
+    @Override
+    public InboundUpload storeInboundAsync(String correlationId, String retailerId, String content) {
+
+        String key = inboundKey(correlationId, retailerId);
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        byte[] bytes = compression.encode(codec, content.getBytes(StandardCharsets.UTF_8));
+        return new InboundUpload(key, putObjectAsync(key, AsyncRequestBody.fromBytesUnsafe(bytes), retailerId, codec));
+    }
+
+    @Override
+    public InboundUpload storeInboundAsync(String correlationId, String retailerId, Path file) {
+
+        String key = inboundKey(correlationId, retailerId);
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        if (codec != PayloadCodec.IDENTITY) {
+            return new InboundUpload(key, CompletableFuture.runAsync(() -> putFile(key, file, retailerId), uploadExecutor));
+        }
+        return new InboundUpload(key, putObjectAsync(key, AsyncRequestBody.fromFile(file), retailerId, codec));
+    }
+
     @Override
     public String storeOutbound(String correlationId, String retailerId, String content) {
 
@@ -54,22 +174,38 @@ public class S3StorageService implements StorageService {
                 s3Properties.getOutboundPrefix(),
                 correlationId);
 
-        putObject(key, content, retailerId);
+        putBytes(key, content.getBytes(StandardCharsets.UTF_8), retailerId);
         return key;
     }
 
     @Override
     public String retrieveContent(String key) {
 
+        try (InputStream in = openContent(key)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading " + key, e);
+        }
+    }
+
+    /**
+     * Decodes the object according to its Content-Encoding.
+     */
+    @Override
+    public InputStream openContent(String key) {
+
         GetObjectRequest request = GetObjectRequest.builder()
                 .bucket(s3Properties.getBucketName())
                 .key(key)
                 .build();
 
-        byte[] bytes = s3Client.getObjectAsBytes(request).asByteArray();
-        return new String(bytes, StandardCharsets.UTF_8);
+        ResponseInputStream<GetObjectResponse> object = s3Client.getObject(request);
+        return compression.decode(object.response().contentEncoding(), object);
     }
 
+    /**
+     * Copies the stored bytes as they are; S3 copies the Content-Encoding with them.
+     */
     @Override
     public String archiveProcessed(String key, String correlationId) {
 
@@ -88,19 +224,268 @@ public class S3StorageService implements StorageService {
         return archiveKey;
     }
 
-    private void putObject(String key, String content, String retailerId) {
+    private String inboundKey(String correlationId, String retailerId) {
+
+        String datePrefix = DATE_PREFIX_FORMAT.format(Instant.now());
+        return String.format("%s%s/%s/%s.edi",
+                s3Properties.getInboundPrefix(),
+                datePrefix,
+                retailerId.toLowerCase(),
+                correlationId);
+    }
+
+    private void putFile(String key, Path file, String retailerId) {
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        if (codec != PayloadCodec.IDENTITY) {
+            try (InputStream in = new EncodingInputStream(Files.newInputStream(file), codec)) {
+                putStream(key, in, -1, retailerId, codec);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed uploading inbound file " + file, e);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= multipartThreshold()) {
+                putObject(key, RequestBody.fromFile(file), size, retailerId, codec);
+                return;
+            }
+            long partSize = partSize();
+            long[] offset = {0};
+            uploadMultipart(key, retailerId, codec, () -> {
+                if (offset[0] >= size) {
+                    return null;
+                }
+                long length = Math.min(partSize, size - offset[0]);
+                ByteBuffer slice = channel.map(FileChannel.MapMode.READ_ONLY, offset[0], length);
+                offset[0] += length;
+                return bufferBody(slice, length);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed uploading inbound file " + file, e);
+        }
+    }
 
-        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    /**
+     * Uploads a stream, in parts once it passes the multipart threshold.
+     *
+     * @param contentLength length of the stream in bytes, or -1 if not known up front
+     */
+    private void putStream(String key, InputStream content, long contentLength, String retailerId,
+                           PayloadCodec codec) throws IOException {
+
+        if (contentLength >= 0 && contentLength <= multipartThreshold()) {
+            putObject(key, RequestBody.fromInputStream(content, contentLength), contentLength, retailerId, codec);
+            return;
+        }
+        int partSize = (int) partSize();
+        byte[] first = content.readNBytes(partSize);
+        if (first.length < partSize) {
+            putObject(key, bytesBody(first), first.length, retailerId, codec);
+            return;
+        }
+        byte[][] pending = {first};
+        uploadMultipart(key, retailerId, codec, () -> {
+            byte[] part = pending[0] != null ? pending[0] : content.readNBytes(partSize);
+            pending[0] = null;
+            return part.length > 0 ? bytesBody(part) : null;
+        });
+    }
+
+    private void putBytes(String key, byte[] bytes, String retailerId) {
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        putBuffer(key, ByteBuffer.wrap(compression.encode(codec, bytes)), retailerId, codec);
+    }
+
+    /**
+     * Uploads the remaining bytes of {@code buffer}, advancing it. The buffer is compressed as it
+     * is uploaded when the retailer has compression on.
+     */
+    private void putBuffer(String key, ByteBuffer buffer, String retailerId) {
+
+        PayloadCodec codec = compression.codecFor(retailerId);
+        if (codec == PayloadCodec.IDENTITY) {
+            putBuffer(key, buffer, retailerId, codec);
+            return;
+        }
+        try (InputStream in = new EncodingInputStream(new ByteBufferInputStream(buffer), codec)) {
+            putStream(key, in, -1, retailerId, codec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed uploading " + key, e);
+        }
+    }
+
+    /**
+     * Uploads the remaining bytes of {@code buffer} as they are, tagged as encoded with {@code codec}.
+     */
+    private void putBuffer(String key, ByteBuffer buffer, String retailerId, PayloadCodec codec) {
+
+        int size = buffer.remaining();
+        if (size <= multipartThreshold()) {
+            putObject(key, bufferBody(buffer, size), size, retailerId, codec);
+            return;
+        }
+        int partSize = (int) partSize();
+        try {
+            uploadMultipart(key, retailerId, codec, () -> {
+                if (!buffer.hasRemaining()) {
+                    return null;
+                }
+                int length = Math.min(partSize, buffer.remaining());
+                ByteBuffer slice = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                return bufferBody(slice, length);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed uploading " + key, e);
+        }
+    }
+
+    private void putObject(String key, RequestBody body, long contentLength, String retailerId, PayloadCodec codec) {
 
         PutObjectRequest request = PutObjectRequest.builder()
                 .bucket(s3Properties.getBucketName())
                 .key(key)
-                .contentType("application/edi-x12")
-                .contentLength((long) bytes.length)
+                .contentType(CONTENT_TYPE)
+                .contentEncoding(contentEncoding(codec))
+                .contentLength(contentLength)
+                .tagging("retailer=" + retailerId)
+                .build();
+
+        s3Client.putObject(request, body);
+    }
+
+    private CompletableFuture<Void> putObjectAsync(String key, AsyncRequestBody body, String retailerId,
+                                                   PayloadCodec codec) {
+
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(s3Properties.getBucketName())
+                .key(key)
+                .contentType(CONTENT_TYPE)
+                .contentEncoding(contentEncoding(codec))
+                .tagging("retailer=" + retailerId)
+                .build();
+
+        return s3AsyncClient.putObject(request, body).thenApply(response -> null);
+    }
+
+    /**
+     * Uploads the parts {@code parts} yields, in order, as one multipart upload. Up to
+     * {@code uploadConcurrency} parts are read and in flight at once; the next part is not read
+     * until one of them finishes. On any failure the upload is aborted and the failure rethrown.
+     */
+    private void uploadMultipart(String key, String retailerId, PayloadCodec codec, PartSource parts)
+            throws IOException {
+
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(s3Properties.getBucketName())
+                .key(key)
+                .contentType(CONTENT_TYPE)
+                .contentEncoding(contentEncoding(codec))
                 .tagging("retailer=" + retailerId)
+                .build()).uploadId();
+
+        Semaphore inFlight = new Semaphore(Math.max(1, s3Properties.getUploadConcurrency()));
+        List<CompletableFuture<CompletedPart>> uploads = new ArrayList<>();
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                // The permit is taken before the part is read, so no more parts are buffered
+                // than are allowed in flight
+                inFlight.acquire();
+                RequestBody body = uploads.stream().anyMatch(CompletableFuture::isCompletedExceptionally)
+                        ? null : parts.next();
+                if (body == null) {
+                    inFlight.release();
+                    break;
+                }
+                int number = partNumber;
+                RequestBody part = body;
+                CompletableFuture<CompletedPart> upload = CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, number, part), uploadExecutor);
+                upload.whenComplete((completed, error) -> inFlight.release());
+                uploads.add(upload);
+            }
+            List<CompletedPart> completed = uploads.stream().map(CompletableFuture::join).toList();
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+            log.info("[S3] Multipart upload of {} completed — {} part(s)", key, completed.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId);
+            throw new InterruptedIOException("Interrupted uploading " + key);
+        } catch (IOException | RuntimeException e) {
+            abort(key, uploadId);
+            if (e instanceof CompletionException && e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, RequestBody body) {
+
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(s3Properties.getBucketName())
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(body.optionalContentLength().orElseThrow())
                 .build();
 
-        s3Client.putObject(request, RequestBody.fromBytes(bytes));
+        String eTag = s3Client.uploadPart(request, body).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+    }
+
+    private void abort(String key, String uploadId) {
+
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(s3Properties.getBucketName())
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("[S3] Could not abort multipart upload {} of {}: {}", uploadId, key, e.getMessage());
+        }
+    }
+
+    /**
+     * The Content-Encoding header for {@code codec}; none for identity.
+     */
+    private static String contentEncoding(PayloadCodec codec) {
+        return codec == PayloadCodec.IDENTITY ? null : codec.encoding();
+    }
+
+    private long multipartThreshold() {
+        return s3Properties.getMultipartThreshold().toBytes();
+    }
+
+    private long partSize() {
+        return s3Properties.partSizeBytes();
+    }
+
+    /**
+     * A body that streams from the buffer on every attempt, so SDK retries resend the same bytes.
+     */
+    private static RequestBody bufferBody(ByteBuffer buffer, long length) {
+        return RequestBody.fromContentProvider(() -> new ByteBufferInputStream(buffer.duplicate()), length, CONTENT_TYPE);
+    }
+
+    private static RequestBody bytesBody(byte[] bytes) {
+        return RequestBody.fromContentProvider(() -> new ByteArrayInputStream(bytes), bytes.length, CONTENT_TYPE);
+    }
+
+    /**
+     * Yields the parts of a multipart upload in order, then null.
+     */
+    @FunctionalInterface
+    private interface PartSource {
+        RequestBody next() throws IOException;
     }
-    
 }
@@ -0,0 +1,78 @@
+package com.nexaedi.infrastructure.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Reads {@code source} encoded with a {@link PayloadCodec}, encoding a chunk at a time as it is
+ * read, so an upload that pulls from a stream can send compressed bytes without a second thread
+ * or the whole payload in memory. Closing it closes {@code source}.
+ */
+public class EncodingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+    private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(CHUNK_SIZE);
+    private final OutputStream encoder;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private byte[] ready = new byte[0];
+    private int position;
+    private boolean finished;
+
+    public EncodingInputStream(InputStream source, PayloadCodec codec) throws IOException {
+        this.source = source;
+        this.encoder = codec.encode(encoded);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        while (position == ready.length) {
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int count = Math.min(length, ready.length - position);
+        System.arraycopy(ready, position, bytes, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Encodes the next chunk of the source; false once the source and the encoder's trailer are
+     * used up. A chunk may encode to nothing while the encoder buffers.
+     */
+    private boolean fill() throws IOException {
+        if (finished) {
+            return false;
+        }
+        int count = source.read(chunk);
+        if (count < 0) {
+            encoder.close();
+            finished = true;
+        } else {
+            encoder.write(chunk, 0, count);
+        }
+        ready = encoded.toByteArray();
+        encoded.reset();
+        position = 0;
+        return true;
+    }
+}
@@ -0,0 +1,558 @@
+package com.nexaedi.infrastructure.storage;
+
+import com.nexaedi.infrastructure.config.FileSystemStorageProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores EDI files on a local filesystem — the backend for on-prem deployments, and a stand-in
+ * for S3 in local runs and throughput tests.
+ *
+ * Keys are paths relative to the root, laid out like the S3 keys:
+ * {@code inbound/yyyy/MM/dd/<retailer>/<ab>/<cd>/<correlationId>.edi}, where ab/cd are the first
+ * bytes of the SHA-256 of the correlation ID, so no directory grows past a few thousand entries.
+ *
+ * Every file is written to a temporary name in its target directory and renamed into place, so
+ * a reader never sees a partial file. With {@code syncWrites}, the file is fsync'd before the
+ * rename and the directory after it. Those syncs are group-committed: writers queue up and one
+ * syncer thread takes a whole batch, fsyncs its files concurrently, one virtual thread each, then
+ * syncs each directory in it once. A batch costs about one fsync latency rather than one per
+ * file, and the filesystem can fold the concurrent fsyncs into shared journal commits.
+ *
+ * Reads go through {@link FileChannel}: {@link #transferContent} uses transferTo, which lets the
+ * kernel copy straight from the page cache, and {@link #retrieveContent} decodes from a memory
+ * mapping. Archiving hard-links the file under the processed prefix, so it costs no copy and the
+ * inbound key stays readable, as it does on S3.
+ *
+ * Payloads of retailers with compression on are encoded as they are written and their key gets
+ * the codec's extension (".gz"), which is how reads know to decode them.
+ */
+@Slf4j
+@Service
+@ConditionalOnExpression("${nexaedi.storage.filesystem.enabled:false} and !${nexaedi.s3.enabled:false}")
+public class FileSystemStorageService implements StorageService {
+
+    private static final DateTimeFormatter DATE_PREFIX_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy/MM/dd").withZone(ZoneOffset.UTC);
+
+    private static final String INBOUND_PREFIX = "inbound/";
+    private static final String PROCESSED_PREFIX = "processed/";
+    private static final String OUTBOUND_PREFIX = "outbound/";
+
+    private final FileSystemStorageProperties properties;
+    private final PayloadCompression compression;
+    private final Path root;
+    private final BlockingQueue<PendingWrite> pending = new LinkedBlockingQueue<>();
+
+    /**
+     * Guards {@link #running} against {@link #pending}: a writer checks the flag and queues under
+     * it, so nothing can be queued after the syncer has stopped accepting writes and drained.
+     */
+    private final ReentrantLock lifecycle = new ReentrantLock();
+
+    private volatile boolean running;
+    private Thread syncer;
+    private volatile boolean directorySyncUnsupported;
+
+    public FileSystemStorageService(FileSystemStorageProperties properties, PayloadCompression compression) {
+        this.properties = properties;
+        this.compression = compression;
+        this.root = properties.getRoot().toAbsolutePath().normalize();
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(root);
+        if (properties.isSyncWrites()) {
+            probeDirectorySync();
+            running = true;
+            syncer = Thread.ofVirtual().name("storage-syncer").start(this::syncLoop);
+        }
+        log.info("[STORAGE] Filesystem storage at {} — syncWrites={}", root, properties.isSyncWrites());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        stopAccepting();
+        if (syncer != null) {
+            syncer.join();
+        }
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, String content) {
+        return join(storeInboundAsync(correlationId, retailerId, content));
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, Path file) {
+        return join(storeInboundAsync(correlationId, retailerId, file));
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, InputStream content, long contentLength) {
+        PayloadCodec codec = compression.codecFor(retailerId);
+        String key = inboundKey(correlationId, retailerId, codec);
+        return join(new InboundUpload(key, write(key, body(codec,
+                channel -> content.transferTo(Channels.newOutputStream(channel)), () -> content))));
+    }
+
+    @Override
+    public String storeInbound(String correlationId, String retailerId, ByteBuffer content) {
+        PayloadCodec codec = compression.codecFor(retailerId);
+        String key = inboundKey(correlationId, retailerId, codec);
+        return join(new InboundUpload(key, write(key, body(codec,
+                channel -> writeFully(channel, content.duplicate()),
+                () -> new ByteBufferInputStream(content.duplicate())))));
+    }
+
+    /**
+     * Writes the file before returning; only the fsync is left to complete in the background.
+     */
+    @Override
+    public InboundUpload storeInboundAsync(String correlationId, String retailerId, String content) {
+        PayloadCodec codec = compression.codecFor(retailerId);
+        String key = inboundKey(correlationId, retailerId, codec);
+        return new InboundUpload(key, write(key, bytesBody(codec, content)));
+    }
+
+    /**
+     * Copies the file before returning; only the fsync is left to complete in the background.
+     */
+    @Override
+    public InboundUpload storeInboundAsync(String correlationId, String retailerId, Path file) {
+        PayloadCodec codec = compression.codecFor(retailerId);
+        String key = inboundKey(correlationId, retailerId, codec);
+        return new InboundUpload(key, write(key, body(codec, channel -> {
+            try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, channel);
+                }
+                return size;
+            }
+        }, () -> Files.newInputStream(file))));
+    }
+
+    @Override
+    public String storeOutbound(String correlationId, String retailerId, String content) {
+        PayloadCodec codec = compression.codecFor(retailerId);
+        String key = OUTBOUND_PREFIX + shard(correlationId) + correlationId + "-outbound.edi" + codec.fileExtension();
+        return join(new InboundUpload(key, write(key, bytesBody(codec, content))));
+    }
+
+    @Override
+    public String retrieveContent(String key) {
+        if (compression.codecForKey(key) != PayloadCodec.IDENTITY) {
+            try (InputStream in = openContent(key)) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed reading stored object " + key, e);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Stored object " + key + " is too large to return as a String; "
+                        + "use openContent or transferContent");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return StandardCharsets.UTF_8.decode(mapped).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading stored object " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream openContent(String key) {
+        try {
+            InputStream in = Channels.newInputStream(FileChannel.open(resolve(key), StandardOpenOption.READ));
+            return compression.codecForKey(key).decode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed opening stored object " + key, e);
+        }
+    }
+
+    @Override
+    public long transferContent(String key, WritableByteChannel target) {
+        if (compression.codecForKey(key) != PayloadCodec.IDENTITY) {
+            return StorageService.super.transferContent(key, target);
+        }
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading stored object " + key, e);
+        }
+    }
+
+    @Override
+    public String archiveProcessed(String key, String correlationId) {
+        if (!key.startsWith(INBOUND_PREFIX)) {
+            return key;
+        }
+        String archiveKey = PROCESSED_PREFIX + key.substring(INBOUND_PREFIX.length());
+        Path source = resolve(key);
+        Path target = resolve(archiveKey);
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, source);
+            } catch (FileAlreadyExistsException e) {
+                return archiveKey;
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (properties.isSyncWrites()) {
+                syncDirectory(target.getParent());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed archiving " + key, e);
+        }
+        return archiveKey;
+    }
+
+    private String inboundKey(String correlationId, String retailerId, PayloadCodec codec) {
+        return INBOUND_PREFIX + DATE_PREFIX_FORMAT.format(Instant.now()) + "/"
+                + retailerId.toLowerCase(Locale.ROOT) + "/" + shard(correlationId) + correlationId + ".edi"
+                + codec.fileExtension();
+    }
+
+    private static FileBody bytesBody(PayloadCodec codec, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return body(codec, channel -> writeFully(channel, ByteBuffer.wrap(bytes)), () -> new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * {@code raw} when the payload is stored as it is; otherwise a body that encodes what
+     * {@code source} opens as it writes it.
+     */
+    private static FileBody body(PayloadCodec codec, FileBody raw, ContentSource source) {
+        if (codec == PayloadCodec.IDENTITY) {
+            return raw;
+        }
+        return channel -> {
+            // The channel stays open for the syncer, so the encoder must not close it
+            OutputStream file = new FilterOutputStream(Channels.newOutputStream(channel)) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            try (InputStream in = source.open(); OutputStream out = codec.encode(file)) {
+                return in.transferTo(out);
+            }
+        };
+    }
+
+    /**
+     * Two directory levels from the SHA-256 of the name, e.g. "3f/a2/".
+     */
+    private static String shard(String name) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            HexFormat hex = HexFormat.of();
+            return hex.toHexDigits(digest[0]) + "/" + hex.toHexDigits(digest[1]) + "/";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The file a key names. Keys that would resolve outside the root are rejected.
+     */
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Storage key outside the storage root: " + key);
+        }
+        return path;
+    }
+
+    /**
+     * Writes a temporary file next to {@code key} with {@code body}, then commits it under its
+     * final name — straight away, or through the syncer when writes are synced. The returned
+     * future completes once the file is in place (and durable, with syncWrites).
+     */
+    private CompletableFuture<Void> write(String key, FileBody body) {
+        Path target = resolve(key);
+        Path temp = null;
+        FileChannel channel = null;
+        boolean handedOff = false;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            body.writeTo(channel);
+            PendingWrite write = enqueue(channel, temp, target);
+            if (write != null) {
+                handedOff = true;
+                return write.done();
+            }
+            if (properties.isSyncWrites()) {
+                channel.force(false);
+            }
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            handedOff = true;
+            if (properties.isSyncWrites()) {
+                syncDirectory(target.getParent());
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed writing " + key, e);
+        } finally {
+            // Also covers unchecked exceptions thrown by the body, e.g. from a caller's stream
+            if (!handedOff) {
+                discard(channel, temp);
+            }
+        }
+    }
+
+    /**
+     * Queues a written file for the syncer, or returns null once it no longer accepts writes.
+     */
+    private PendingWrite enqueue(FileChannel channel, Path temp, Path target) {
+        lifecycle.lock();
+        try {
+            if (!running) {
+                return null;
+            }
+            PendingWrite write = new PendingWrite(channel, temp, target, new CompletableFuture<>());
+            pending.add(write);
+            return write;
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    private void stopAccepting() {
+        lifecycle.lock();
+        try {
+            running = false;
+        } finally {
+            lifecycle.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        int maxBatch = Math.max(1, properties.getMaxBatch());
+        long windowNanos = properties.getGroupCommitWindow().toNanos();
+        boolean interrupted = false;
+        while (running || !pending.isEmpty()) {
+            try {
+                PendingWrite first = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    if (pending.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? pending.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Commit everything already queued before exiting; the interrupt is restored
+                // afterwards, since an interrupted thread cannot force a FileChannel
+                interrupted = true;
+                stopAccepting();
+                pending.drainTo(batch);
+            }
+            commit(batch);
+            batch.clear();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Syncs every file in the batch concurrently, renames each synced file into place, then syncs
+     * each directory once, again concurrently. A write completes only once its directory is synced.
+     */
+    private void commit(List<PendingWrite> batch) {
+        List<Future<?>> forces = new ArrayList<>(batch.size());
+        try (ExecutorService syncs = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (PendingWrite write : batch) {
+                forces.add(syncs.submit(() -> {
+                    write.channel().force(false);
+                    return null;
+                }));
+            }
+        }
+        Map<Path, List<PendingWrite>> byDirectory = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingWrite write = batch.get(i);
+            try {
+                await(forces.get(i));
+                write.channel().close();
+                Files.move(write.temp(), write.target(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                byDirectory.computeIfAbsent(write.target().getParent(), directory -> new ArrayList<>()).add(write);
+            } catch (IOException e) {
+                discard(write.channel(), write.temp());
+                write.done().completeExceptionally(new UncheckedIOException("Failed committing " + write.target(), e));
+            }
+        }
+        Map<Path, Future<?>> directorySyncs = new LinkedHashMap<>();
+        try (ExecutorService syncs = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path directory : byDirectory.keySet()) {
+                directorySyncs.put(directory, syncs.submit(() -> {
+                    syncDirectory(directory);
+                    return null;
+                }));
+            }
+        }
+        byDirectory.forEach((directory, writes) -> {
+            try {
+                await(directorySyncs.get(directory));
+                writes.forEach(write -> write.done().complete(null));
+            } catch (IOException e) {
+                // The files are in place but their names may not survive a crash; failing the
+                // writes lets callers store them again
+                writes.forEach(write -> write.done().completeExceptionally(
+                        new UncheckedIOException("Failed syncing directory " + directory, e)));
+            }
+        });
+    }
+
+    /**
+     * Checks once, at startup, whether directories can be synced here. Not every platform can
+     * open a directory for syncing; renames are then only as durable as the filesystem makes them
+     * on its own. Failures after startup are real I/O errors and fail the writes they affect.
+     */
+    private void probeDirectorySync() {
+        try {
+            syncDirectory(root);
+        } catch (IOException | UnsupportedOperationException e) {
+            directorySyncUnsupported = true;
+            log.warn("[STORAGE] Directory fsync not supported here ({}) — skipping it", e.getMessage());
+        }
+    }
+
+    private void syncDirectory(Path directory) throws IOException {
+        if (directorySyncUnsupported) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Waits for a sync started by {@link #commit}, which has already waited for all of them to end.
+     */
+    private static void await(Future<?> sync) throws IOException {
+        try {
+            sync.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException cause ? cause : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for fsync", e);
+        }
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static void discard(FileChannel channel, Path temp) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("[STORAGE] Could not remove temporary file {}: {}", temp, e.getMessage());
+        }
+    }
+
+    private static String join(InboundUpload upload) {
+        try {
+            upload.completion().join();
+            return upload.key();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileBody {
+        long writeTo(FileChannel channel) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ContentSource {
+        InputStream open() throws IOException;
+    }
+
+    private record PendingWrite(FileChannel channel, Path temp, Path target, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.nexaedi.infrastructure.storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An inbound payload on its way into storage. The key is known as soon as the upload starts, so
+ * audit records can reference it while the bytes are still in flight; {@code completion} finishes
+ * once the payload is durably stored, or completes exceptionally if it could not be.
+ */
+public record InboundUpload(String key, CompletableFuture<Void> completion) {
+
+    /**
+     * An upload that had already finished when it was handed over.
+     */
+    public static InboundUpload completed(String key) {
+        return new InboundUpload(key, CompletableFuture.completedFuture(null));
+    }
+}
@@ -0,0 +1,59 @@
+package com.nexaedi.infrastructure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A streaming content encoding for stored payloads. Register an implementation as a bean to make
+ * its {@link #encoding()} selectable in nexaedi.storage.compression.
+ */
+public interface PayloadCodec {
+
+    /**
+     * Stores payloads as they are.
+     */
+    PayloadCodec IDENTITY = new PayloadCodec() {
+
+        @Override
+        public String encoding() {
+            return "identity";
+        }
+
+        @Override
+        public String fileExtension() {
+            return "";
+        }
+
+        @Override
+        public OutputStream encode(OutputStream out) {
+            return out;
+        }
+
+        @Override
+        public InputStream decode(InputStream in) {
+            return in;
+        }
+    };
+
+    /**
+     * The HTTP Content-Encoding token objects written with this codec are tagged with.
+     */
+    String encoding();
+
+    /**
+     * Suffix added to filesystem keys, which have no metadata to carry the encoding, e.g. ".gz".
+     */
+    String fileExtension();
+
+    /**
+     * Wraps {@code out} so bytes written to the result are encoded into it. Closing the result
+     * writes any trailer and closes {@code out}.
+     */
+    OutputStream encode(OutputStream out) throws IOException;
+
+    /**
+     * Wraps {@code in} so reads from the result return the decoded bytes.
+     */
+    InputStream decode(InputStream in) throws IOException;
+}
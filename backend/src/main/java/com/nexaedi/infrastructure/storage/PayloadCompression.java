@@ -0,0 +1,121 @@
+package com.nexaedi.infrastructure.storage;
+
+import com.nexaedi.infrastructure.config.StorageCompressionProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Picks the {@link PayloadCodec} each retailer's payloads are stored with, and the one a stored
+ * object was written with. Unknown encodings in the configuration fail startup rather than the
+ * first store.
+ */
+@Component
+public class PayloadCompression {
+
+    private final Map<String, PayloadCodec> codecs = new HashMap<>();
+    private final Map<String, PayloadCodec> byRetailer = new HashMap<>();
+    private final PayloadCodec defaultCodec;
+
+    public PayloadCompression(StorageCompressionProperties properties, List<PayloadCodec> codecs) {
+        this.codecs.put(PayloadCodec.IDENTITY.encoding(), PayloadCodec.IDENTITY);
+        codecs.forEach(codec -> this.codecs.put(codec.encoding(), codec));
+        this.defaultCodec = configured(properties.getDefaultEncoding());
+        properties.getRetailers().forEach((retailerId, encoding) ->
+                byRetailer.put(retailerId.toLowerCase(Locale.ROOT), configured(encoding)));
+    }
+
+    /**
+     * Compression off for every retailer.
+     */
+    public static PayloadCompression none() {
+        return new PayloadCompression(new StorageCompressionProperties(), List.of());
+    }
+
+    public PayloadCodec codecFor(String retailerId) {
+        return retailerId == null ? defaultCodec
+                : byRetailer.getOrDefault(retailerId.toLowerCase(Locale.ROOT), defaultCodec);
+    }
+
+    /**
+     * The codec for a Content-Encoding tag; null or blank means identity.
+     */
+    public PayloadCodec codec(String encoding) {
+        if (encoding == null || encoding.isBlank()) {
+            return PayloadCodec.IDENTITY;
+        }
+        PayloadCodec codec = codecs.get(encoding.trim().toLowerCase(Locale.ROOT));
+        if (codec == null) {
+            throw new IllegalStateException("No codec for content encoding '" + encoding + "'");
+        }
+        return codec;
+    }
+
+    /**
+     * The codec a filesystem key was written with, from its extension.
+     */
+    public PayloadCodec codecForKey(String key) {
+        return codecs.values().stream()
+                .filter(codec -> !codec.fileExtension().isEmpty() && key.endsWith(codec.fileExtension()))
+                .findFirst()
+                .orElse(PayloadCodec.IDENTITY);
+    }
+
+    public InputStream decode(String encoding, InputStream in) {
+        PayloadCodec codec = codec(encoding);
+        try {
+            return codec.decode(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading " + codec.encoding() + " content", e);
+        }
+    }
+
+    /**
+     * Encodes a payload that is already in memory.
+     */
+    public byte[] encode(PayloadCodec codec, byte[] content) {
+        if (codec == PayloadCodec.IDENTITY) {
+            return content;
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (OutputStream out = codec.encode(encoded)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed encoding content as " + codec.encoding(), e);
+        }
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Decodes a payload that is already in memory.
+     */
+    public byte[] decode(String encoding, byte[] content) {
+        PayloadCodec codec = codec(encoding);
+        if (codec == PayloadCodec.IDENTITY) {
+            return content;
+        }
+        try (InputStream in = codec.decode(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed decoding " + codec.encoding() + " content", e);
+        }
+    }
+
+    private PayloadCodec configured(String encoding) {
+        try {
+            return codec(encoding);
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException("nexaedi.storage.compression: " + e.getMessage()
+                    + "; available: " + codecs.keySet(), e);
+        }
+    }
+}
@@ -1,12 +1,95 @@
 package com.nexaedi.infrastructure.storage;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public interface StorageService {
 
     String storeInbound(String correlationId, String retailerId, String content);
 
+    /**
+     * Stores an inbound file that is already on local disk. Implementations should upload
+     * straight from the file; this default reads it into memory and is only a fallback.
+     */
+    default String storeInbound(String correlationId, String retailerId, Path file) {
+        try {
+            return storeInbound(correlationId, retailerId, Files.readString(file, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading inbound file " + file, e);
+        }
+    }
+
+    /**
+     * Stores an inbound payload read from a stream, which the caller closes. Implementations
+     * should upload it as it is read; this default decodes it into a String and is only a fallback.
+     *
+     * @param contentLength length of the stream in bytes, or -1 if not known up front
+     */
+    default String storeInbound(String correlationId, String retailerId, InputStream content, long contentLength) {
+        try {
+            return storeInbound(correlationId, retailerId, new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading inbound stream for " + correlationId, e);
+        }
+    }
+
+    /**
+     * Stores the remaining bytes of {@code content} without changing its position. Implementations
+     * should upload from the buffer itself; this default decodes it into a String and is only a fallback.
+     */
+    default String storeInbound(String correlationId, String retailerId, ByteBuffer content) {
+        return storeInbound(correlationId, retailerId, StandardCharsets.UTF_8.decode(content.duplicate()).toString());
+    }
+
+    /**
+     * Starts storing an inbound payload and returns without waiting for it to be stored. The caller
+     * must join {@link InboundUpload#completion()} before relying on the payload being durable.
+     * Implementations should upload without blocking the caller; this default stores synchronously.
+     */
+    default InboundUpload storeInboundAsync(String correlationId, String retailerId, String content) {
+        return InboundUpload.completed(storeInbound(correlationId, retailerId, content));
+    }
+
+    /**
+     * As {@link #storeInboundAsync(String, String, String)}, for a file on local disk. The file must
+     * not be deleted or changed until the upload completes.
+     */
+    default InboundUpload storeInboundAsync(String correlationId, String retailerId, Path file) {
+        return InboundUpload.completed(storeInbound(correlationId, retailerId, file));
+    }
+
     String storeOutbound(String correlationId, String retailerId, String content);
 
     String retrieveContent(String key);
 
+    /**
+     * Opens a stored object for reading; the caller closes the stream. Implementations should
+     * stream from the store; this default retrieves the whole content as a String first.
+     */
+    default InputStream openContent(String key) {
+        return new ByteArrayInputStream(retrieveContent(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a stored object to {@code target} and returns the number of bytes written.
+     * Implementations backed by local files should hand the copy to the kernel; this default
+     * copies through {@link #openContent(String)}.
+     */
+    default long transferContent(String key, WritableByteChannel target) {
+        try (InputStream in = openContent(key)) {
+            return in.transferTo(Channels.newOutputStream(target));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed reading stored object " + key, e);
+        }
+    }
+
     String archiveProcessed(String key, String correlationId);
-}
\ No newline at end of file
+}
@@ -1,19 +1,27 @@
 package com.nexaedi.core.mapping;
 
 import com.nexaedi.core.model.CanonicalOrder;
+import com.nexaedi.core.model.CanonicalOrderLine;
 import com.nexaedi.core.model.X12Interchange;
 import com.nexaedi.core.model.X12Transaction;
 import com.nexaedi.core.parser.UniversalX12Parser;
 import com.nexaedi.core.processor.Target850Processor;
 import tools.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -81,6 +89,19 @@ class MappingRegistryAndMapperTest {
             assertThat(profile).isEmpty();
         }
 
+        @Test
+        @DisplayName("should compile qualifiers into the plan at load time")
+        void shouldCompilePlanAtLoadTime() {
+            CompiledMappingPlan plan = registry.find("TARGET", "850").orElseThrow().compiledPlan();
+
+            var shipTo = plan.headerSteps().stream()
+                    .filter(step -> step.segmentId().equals("N1"))
+                    .findFirst().orElseThrow();
+            assertThat(shipTo.qualifierPosition()).isEqualTo(1);
+            assertThat(shipTo.qualifierValue()).isEqualTo("ST");
+            assertThat(plan.lineSteps()).isNotEmpty();
+        }
+
         @Test
         @DisplayName("should load at least 2 profiles (target + walmart)")
         void shouldLoadAtLeastTwoProfiles() {
@@ -88,6 +109,65 @@ class MappingRegistryAndMapperTest {
         }
     }
 
+    @Nested
+    @DisplayName("MappingRegistry — mappings directory")
+    class MappingDirectoryTests {
+
+        @TempDir
+        Path directory;
+
+        private MappingRegistry directoryRegistry;
+
+        @BeforeEach
+        void setUpDirectoryRegistry() {
+            directoryRegistry = new MappingRegistry(new ObjectMapper());
+            ReflectionTestUtils.setField(directoryRegistry, "mappingsDirectory", directory.toString());
+        }
+
+        @AfterEach
+        void stopWatcher() {
+            directoryRegistry.stopWatching();
+        }
+
+        @Test
+        @DisplayName("should let directory profiles override bundled ones")
+        void shouldOverrideBundledProfile() throws IOException {
+            writeProfile("target-850.json", "TARGET", "9.9.9");
+
+            directoryRegistry.loadMappings();
+
+            assertThat(directoryRegistry.find("TARGET", "850").orElseThrow().getVersion()).isEqualTo("9.9.9");
+            assertThat(directoryRegistry.find("WALMART", "850")).isPresent();
+        }
+
+        @Test
+        @DisplayName("should pick up a new profile without a restart")
+        void shouldHotReloadNewProfile() throws Exception {
+            ReflectionTestUtils.setField(directoryRegistry, "watchEnabled", true);
+            directoryRegistry.loadMappings();
+            var snapshot = directoryRegistry.getAllProfiles();
+            assertThat(directoryRegistry.find("COSTCO", "850")).isEmpty();
+
+            writeProfile("costco-850.json", "COSTCO", "1.0.0");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (directoryRegistry.find("COSTCO", "850").isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(directoryRegistry.find("COSTCO", "850")).isPresent();
+            assertThat(snapshot).doesNotContainKey("COSTCO:850");
+        }
+
+        private void writeProfile(String fileName, String retailerId, String version) throws IOException {
+            String json = Files.readString(Path.of("src/main/resources/mappings/target-850.json"))
+                    .replace("\"retailerId\": \"TARGET\"", "\"retailerId\": \"" + retailerId + "\"")
+                    .replace("\"version\": \"1.2.0\"", "\"version\": \"" + version + "\"");
+            Path tmp = directory.resolve(fileName + ".tmp");
+            Files.writeString(tmp, json);
+            Files.move(tmp, directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
     @Nested
     @DisplayName("X12ToCanonicalMapper — Target 850")
     class MapperTests {
@@ -196,5 +276,30 @@ class MappingRegistryAndMapperTest {
         void shouldGenerateCorrelationId() {
             assertThat(order.getCorrelationId()).isNotBlank();
         }
+
+        @Test
+        @DisplayName("should map line rules on segments inside the PO1 loop")
+        void shouldMapSegmentsInsideLineLoop() {
+            String withDescriptions = Target850Processor.SAMPLE_TARGET_850
+                    .replace("UI*089541234567~", "UI*089541234567~PID*F****Red mug~")
+                    .replace("UI*089599876543~", "UI*089599876543~PID*F****Blue mug~");
+            X12Transaction transaction = parser.parse(withDescriptions).getGroups().get(0).getTransactions().get(0);
+
+            MappingRule description = new MappingRule();
+            description.setSegmentId("PID");
+            description.setElementPosition(5);
+            description.setTargetField("productDescription");
+            MappingProfile profile = registry.find("TARGET", "850").orElseThrow();
+            MappingProfile withPid = new MappingProfile();
+            withPid.setHeaderMappings(profile.getHeaderMappings());
+            withPid.setLineMappings(new ArrayList<>(profile.getLineMappings()));
+            withPid.getLineMappings().add(description);
+
+            CanonicalOrder mapped = mapper.map(transaction, withPid, "TARGET");
+
+            assertThat(mapped.getLines()).extracting(CanonicalOrderLine::getProductDescription)
+                    .containsExactly("Red mug", "Blue mug");
+            assertThat(mapped.getLines().get(1).getSku()).isEqualTo("089599876543");
+        }
     }
 }
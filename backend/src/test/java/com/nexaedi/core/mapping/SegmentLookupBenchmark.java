@@ -0,0 +1,128 @@
+package com.nexaedi.core.mapping;
+
+import com.nexaedi.core.model.CanonicalOrder;
+import com.nexaedi.core.model.X12Segment;
+import com.nexaedi.core.model.X12Transaction;
+import com.nexaedi.core.parser.UniversalX12Parser;
+import com.nexaedi.core.parser.X12SampleGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the indexed {@link X12Transaction} lookups against the previous full-scan
+ * implementation, on a single 850 carrying 5,000 PO1 lines. Each invocation resolves every header
+ * rule of the real target-850 profile plus the PO1 loop, as {@link X12ToCanonicalMapper} does.
+ *
+ * Run from the IDE via {@link #main(String[])}, or from the command line as described on
+ * {@code com.nexaedi.core.parser.X12ParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SegmentLookupBenchmark {
+
+    @Param({"5000"})
+    private int lines;
+
+    private X12Transaction transaction;
+    private MappingProfile profile;
+    private X12ToCanonicalMapper mapper;
+
+    @Setup
+    public void setUp() {
+        transaction = new UniversalX12Parser().parse(X12SampleGenerator.interchange(1, lines, true))
+                .getGroups().get(0).getTransactions().get(0);
+        profile = new ObjectMapper().readValue(
+                new File("src/main/resources/mappings/target-850.json"), MappingProfile.class);
+        mapper = new X12ToCanonicalMapper();
+    }
+
+    @Benchmark
+    public void legacyScanLookups(Blackhole blackhole) {
+        for (MappingRule rule : profile.getHeaderMappings()) {
+            blackhole.consume(LegacyScan.resolve(transaction, rule));
+        }
+        blackhole.consume(LegacyScan.findAll(transaction, "PO1"));
+    }
+
+    @Benchmark
+    public void indexedLookups(Blackhole blackhole) {
+        for (MappingRule rule : profile.getHeaderMappings()) {
+            blackhole.consume(resolve(transaction, rule));
+        }
+        blackhole.consume(transaction.findAll("PO1"));
+    }
+
+    @Benchmark
+    public CanonicalOrder fullMapping() {
+        return mapper.map(transaction, profile, "TARGET");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SegmentLookupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static X12Segment resolve(X12Transaction transaction, MappingRule rule) {
+        if (rule.getQualifier() == null || rule.getQualifier().isBlank()) {
+            return transaction.findFirst(rule.getSegmentId());
+        }
+        String[] qualifierParts = rule.getQualifier().split(":");
+        return transaction.findFirst(rule.getSegmentId(), Integer.parseInt(qualifierParts[0]), qualifierParts[1]);
+    }
+
+    /**
+     * Verbatim copy of the pre-index stream scans, kept only as the benchmark baseline.
+     */
+    static final class LegacyScan {
+
+        static X12Segment resolve(X12Transaction transaction, MappingRule rule) {
+            if (rule.getQualifier() == null || rule.getQualifier().isBlank()) {
+                return findFirst(transaction, rule.getSegmentId());
+            }
+            String[] qualifierParts = rule.getQualifier().split(":");
+            int qualPos = Integer.parseInt(qualifierParts[0]);
+            String qualValue = qualifierParts[1];
+
+            return findAll(transaction, rule.getSegmentId()).stream()
+                    .filter(s -> qualValue.equalsIgnoreCase(s.getElement(qualPos)))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        static X12Segment findFirst(X12Transaction transaction, String segmentId) {
+            return transaction.getSegments().stream()
+                    .filter(s -> s.getSegmentId().equals(segmentId))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        static List<X12Segment> findAll(X12Transaction transaction, String segmentId) {
+            return transaction.getSegments().stream()
+                    .filter(s -> s.getSegmentId().equals(segmentId))
+                    .toList();
+        }
+    }
+}
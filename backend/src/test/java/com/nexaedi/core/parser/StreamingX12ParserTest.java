@@ -0,0 +1,133 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.StreamedTransaction;
+import com.nexaedi.core.model.X12Segment;
+import com.nexaedi.core.model.X12Transaction;
+import com.nexaedi.core.processor.Target850Processor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the streaming pull parser.
+ * A deliberately tiny read window and mapped region size force segments and the ISA header
+ * to straddle buffer refills and region boundaries.
+ */
+@DisplayName("StreamingX12Parser")
+class StreamingX12ParserTest {
+
+    private final StreamingX12Parser parser = new StreamingX12Parser(128, 300);
+
+    @Test
+    @DisplayName("should hand out every transaction set in file order")
+    void shouldStreamAllTransactionsInOrder() {
+        List<StreamedTransaction> streamed = new ArrayList<>();
+        int count = parser.forEachTransaction(input(X12SampleGenerator.interchange(5, 3, true)), streamed::add);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(streamed).extracting(s -> s.transaction().getControlNumber())
+                .containsExactly("0001", "0002", "0003", "0004", "0005");
+        assertThat(streamed.get(4).transaction().findFirst("BEG").getElement(3)).isEqualTo("TGT-2026-00005");
+    }
+
+    @Test
+    @DisplayName("should produce the same segments as the tree parser")
+    void shouldMatchTreeParser() {
+        X12Transaction expected = new UniversalX12Parser().parse(Target850Processor.SAMPLE_TARGET_850)
+                .getGroups().get(0).getTransactions().get(0);
+
+        X12Transaction actual;
+        try (X12TransactionStream stream = parser.stream(input(Target850Processor.SAMPLE_TARGET_850))) {
+            actual = stream.next().transaction();
+            assertThat(stream.hasNext()).isFalse();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+
+        assertThat(actual.getSegments()).extracting(X12Segment::toString)
+                .containsExactlyElementsOf(expected.getSegments().stream().map(X12Segment::toString).toList());
+        assertThat(actual.getSegments()).extracting(X12Segment::getLineNumber)
+                .containsExactlyElementsOf(expected.getSegments().stream().map(X12Segment::getLineNumber).toList());
+    }
+
+    @Test
+    @DisplayName("should expose envelope headers without accumulating children")
+    void shouldExposeHeaderOnlyEnvelopes() {
+        List<StreamedTransaction> streamed = new ArrayList<>();
+        parser.forEachTransaction(input(X12SampleGenerator.interchange(3, 1, false)), streamed::add);
+
+        StreamedTransaction last = streamed.get(2);
+        assertThat(last.interchange().getControlNumber()).isEqualTo("000000042");
+        assertThat(last.interchange().getSenderId()).isEqualTo("TARGET");
+        assertThat(last.group().getGroupControlNumber()).isEqualTo("42");
+        assertThat(last.interchange().getGroups()).isEmpty();
+        assertThat(last.group().getTransactions()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should reject SE without a matching ST")
+    void shouldRejectUnmatchedSe() {
+        String broken = Target850Processor.SAMPLE_TARGET_850.replace("ST*850*0001~", "");
+
+        assertThatThrownBy(() -> parser.forEachTransaction(input(broken), t -> { }))
+                .isInstanceOf(EdiParseException.class)
+                .hasMessageContaining("SE without a matching ST");
+    }
+
+    @Test
+    @DisplayName("should reject content too short for an ISA header")
+    void shouldRejectShortContent() {
+        assertThatThrownBy(() -> parser.forEachTransaction(input("ISA*too-short"), t -> { }))
+                .isInstanceOf(EdiParseException.class)
+                .hasMessageContaining("too short");
+    }
+
+    @Test
+    @DisplayName("should stream a memory-mapped file across several mapped regions")
+    void shouldStreamMappedFileAcrossRegions(@TempDir Path dir) throws IOException {
+        String content = X12SampleGenerator.interchange(4, 6, true);
+        Path file = Files.writeString(dir.resolve("batch.edi"), content);
+
+        List<StreamedTransaction> fromChannel = new ArrayList<>();
+        List<StreamedTransaction> fromMapping = new ArrayList<>();
+        parser.forEachTransaction(input(content), fromChannel::add);
+        parser.forEachTransaction(file, fromMapping::add);
+
+        assertThat(Files.size(file)).isGreaterThan(300 * 4);
+        assertThat(fromMapping).hasSize(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(fromMapping.get(i).transaction().getSegments()).extracting(X12Segment::toString)
+                    .containsExactlyElementsOf(fromChannel.get(i).transaction().getSegments().stream()
+                            .map(X12Segment::toString).toList());
+            assertThat(fromMapping.get(i).transaction().getSegments()).extracting(X12Segment::getLineNumber)
+                    .containsExactlyElementsOf(fromChannel.get(i).transaction().getSegments().stream()
+                            .map(X12Segment::getLineNumber).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("should reject an empty mapped file")
+    void shouldRejectEmptyMappedFile(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("empty.edi"), "  \n");
+
+        assertThatThrownBy(() -> parser.forEachTransaction(file, t -> { }))
+                .isInstanceOf(EdiParseException.class)
+                .hasMessageContaining("empty or null");
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
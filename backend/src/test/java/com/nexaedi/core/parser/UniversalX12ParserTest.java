@@ -9,7 +9,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -169,6 +172,17 @@ class UniversalX12ParserTest {
 
             assertThat(beg.getElement(99)).isEqualTo("");
         }
+
+        @Test
+        @DisplayName("should find a segment by qualifier element, ignoring case")
+        void shouldFindByQualifier() {
+            X12Transaction transaction = getFirstTransaction();
+
+            assertThat(transaction.findFirst("N1", 1, "st").getElement(2)).isEqualTo("Target Store #1742");
+            assertThat(transaction.findFirst("N1", 1, "BT")).isNull();
+            assertThat(transaction.findFirst("ZZZ")).isNull();
+            assertThat(transaction.findAll("ZZZ")).isEmpty();
+        }
     }
 
     @Nested
@@ -200,6 +214,118 @@ class UniversalX12ParserTest {
         }
     }
 
+    @Nested
+    @DisplayName("Byte-level tokenization")
+    class ByteLevelTokenization {
+
+        @Test
+        @DisplayName("should parse raw UTF-8 bytes identically to the String entry point")
+        void shouldParseBytesLikeString() {
+            X12Interchange fromBytes = parser.parseBytes(
+                    Target850Processor.SAMPLE_TARGET_850.getBytes(StandardCharsets.UTF_8));
+            X12Transaction transaction = fromBytes.getGroups().get(0).getTransactions().get(0);
+
+            assertThat(fromBytes.getControlNumber()).isEqualTo("000000042");
+            assertThat(transaction.getSegments()).hasSize(9);
+            assertThat(transaction.findFirst("BEG").getElement(3)).isEqualTo("TGT-2026-00042");
+        }
+
+        @Test
+        @DisplayName("should ignore CRLF line breaks between segments")
+        void shouldIgnoreLineBreaksBetweenSegments() {
+            String withCrlf = Target850Processor.SAMPLE_TARGET_850.replace("~", "~\r\n");
+            X12Transaction transaction = parser.parse(withCrlf).getGroups().get(0).getTransactions().get(0);
+
+            assertThat(transaction.findAll("PO1")).hasSize(2);
+            assertThat(transaction.findAll("PO1").get(1).getElement(7)).isEqualTo("089599876543");
+        }
+
+        @Test
+        @DisplayName("should split on line breaks when the ISA declares a newline terminator")
+        void shouldSupportNewlineTerminator() {
+            String newlineTerminated = Target850Processor.SAMPLE_TARGET_850.replace("~", "\r\n");
+            X12Interchange interchange = parser.parse(newlineTerminated);
+
+            assertThat(interchange.getSegmentTerminator()).isEqualTo('\n');
+            assertThat(interchange.getGroups().get(0).getTransactions().get(0).findAll("PO1")).hasSize(2);
+        }
+
+        @Test
+        @DisplayName("should number segments sequentially from the ISA")
+        void shouldAssignLineNumbers() {
+            X12Segment beg = getFirstTransaction().findFirst("BEG");
+
+            assertThat(beg.getLineNumber()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("should decode multi-byte UTF-8 element values")
+        void shouldDecodeMultiByteElements() {
+            String withAccent = Target850Processor.SAMPLE_TARGET_850.replace("Minneapolis", "Montréal");
+            X12Segment n4 = parser.parse(withAccent).getGroups().get(0).getTransactions().get(0).findFirst("N4");
+
+            assertThat(n4.getElement(1)).isEqualTo("Montréal");
+            assertThat(n4.getElement(2)).isEqualTo("MN");
+        }
+
+        @Test
+        @DisplayName("should keep multi-byte UTF-8 characters at the end of an element or segment")
+        void shouldKeepTrailingMultiByteCharacters() {
+            String withAccents = Target850Processor.SAMPLE_TARGET_850
+                    .replace("N3*700 Nicollet Mall~", "N3*700 Rue JOSÉ~")
+                    .replace("N4*Minneapolis*", "N4*Québec É*");
+            X12Transaction transaction = parser.parse(withAccents).getGroups().get(0).getTransactions().get(0);
+
+            assertThat(transaction.findFirst("N3").getElement(1)).isEqualTo("700 Rue JOSÉ");
+            assertThat(transaction.findFirst("N4").getElement(1)).isEqualTo("Québec É");
+            assertThat(transaction.findFirst("N4").getElement(2)).isEqualTo("MN");
+        }
+    }
+
+    @Nested
+    @DisplayName("Parallel transaction parsing")
+    class ParallelTransactionParsing {
+
+        private final UniversalX12Parser parallelParser = new UniversalX12Parser(new ForkJoinPool(4), 1);
+
+        @Test
+        @DisplayName("should keep transaction order within the group")
+        void shouldPreserveTransactionOrder() {
+            X12Interchange interchange = parallelParser.parseParallel(X12SampleGenerator.interchange(50, 5, true));
+            List<X12Transaction> transactions = interchange.getGroups().get(0).getTransactions();
+
+            assertThat(transactions).hasSize(50);
+            assertThat(transactions).extracting(X12Transaction::getControlNumber)
+                    .containsExactlyElementsOf(IntStream.rangeClosed(1, 50).mapToObj(i -> String.format("%04d", i)).toList());
+            assertThat(transactions.get(49).findFirst("BEG").getElement(3)).isEqualTo("TGT-2026-00050");
+        }
+
+        @Test
+        @DisplayName("should produce the same segments and line numbers as the sequential parse")
+        void shouldMatchSequentialParse() {
+            String content = X12SampleGenerator.interchange(20, 7, false);
+            List<X12Transaction> expected = parser.parse(content).getGroups().get(0).getTransactions();
+            List<X12Transaction> actual = parallelParser.parseParallel(content).getGroups().get(0).getTransactions();
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.get(i).getSegments()).extracting(X12Segment::toString)
+                        .containsExactlyElementsOf(expected.get(i).getSegments().stream().map(X12Segment::toString).toList());
+                assertThat(actual.get(i).getSegments()).extracting(X12Segment::getLineNumber)
+                        .containsExactlyElementsOf(expected.get(i).getSegments().stream().map(X12Segment::getLineNumber).toList());
+            }
+        }
+
+        @Test
+        @DisplayName("should apply the same envelope validation as the sequential parse")
+        void shouldRejectUnmatchedSe() {
+            String broken = Target850Processor.SAMPLE_TARGET_850.replace("ST*850*0001~", "");
+
+            assertThatThrownBy(() -> parallelParser.parseParallel(broken))
+                    .isInstanceOf(EdiParseException.class)
+                    .hasMessageContaining("SE without a matching ST");
+        }
+    }
+
     @Nested
     @DisplayName("X12Segment element access")
     class X12SegmentElementAccess {
@@ -217,6 +343,18 @@ class UniversalX12ParserTest {
             assertThat(seg.getElement(5)).isEqualTo("20260219");
         }
 
+        @Test
+        @DisplayName("should decode elements of a tokenized segment on demand")
+        void shouldDecodeTokenizedElementsOnDemand() {
+            X12Segment po1 = getFirstTransaction().findAll("PO1").get(1);
+
+            assertThat(po1.getElementCount()).isEqualTo(7);
+            assertThat(po1.getElement(7)).isEqualTo("089599876543");
+            assertThat(po1.getElement(7)).isSameAs(po1.getElement(7));
+            assertThat(po1.getElement(8)).isEmpty();
+            assertThat(po1.getElements()).hasSize(7).startsWith("2", "60");
+        }
+
         @Test
         @DisplayName("qualifiedRef should return segment ID + zero-padded position")
         void shouldBuildQualifiedRef() {
@@ -0,0 +1,127 @@
+package com.nexaedi.core.parser;
+
+import com.nexaedi.core.model.X12Interchange;
+import com.nexaedi.core.model.X12Segment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the byte-level {@link X12Tokenizer} parse path against the previous
+ * String-based implementation (replace → toCharArray → StringBuilder → trim → regex split),
+ * and of the sequential tree build against {@link UniversalX12Parser#parseParallel}.
+ *
+ * Run from the IDE via {@link #main(String[])}, or after {@code mvn test-compile}:
+ * <pre>
+ *   java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *        com.nexaedi.core.parser.X12ParserBenchmark
+ * </pre>
+ * The GC profiler is enabled so {@code gc.alloc.rate.norm} shows bytes allocated per parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class X12ParserBenchmark {
+
+    /**
+     * 2,500 transactions x 200 lines is roughly a 25 MB interchange.
+     */
+    @Param({"10", "2500"})
+    private int transactions;
+
+    @Param({"200"})
+    private int linesPerTransaction;
+
+    private String content;
+    private byte[] contentBytes;
+    private UniversalX12Parser parser;
+
+    @Setup
+    public void setUp() {
+        content = X12SampleGenerator.interchange(transactions, linesPerTransaction, true);
+        contentBytes = content.getBytes(StandardCharsets.UTF_8);
+        parser = new UniversalX12Parser();
+    }
+
+    @Benchmark
+    public List<X12Segment> legacyStringSplit() {
+        return LegacyStringSplitter.split(content);
+    }
+
+    @Benchmark
+    public X12Interchange tokenizerFromString() {
+        return parser.parse(content);
+    }
+
+    @Benchmark
+    public X12Interchange tokenizerFromBytes() {
+        return parser.parseBytes(contentBytes);
+    }
+
+    @Benchmark
+    public X12Interchange tokenizerParallel() {
+        return parser.parseBufferParallel(ByteBuffer.wrap(contentBytes));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(X12ParserBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    /**
+     * Verbatim copy of the pre-tokenizer segment splitting, kept only as the benchmark baseline.
+     * Envelope building is omitted since it was identical in both implementations.
+     */
+    static final class LegacyStringSplitter {
+
+        static List<X12Segment> split(String rawContent) {
+            String normalized = rawContent.replace("\r\n", "\n").replace("\r", "\n");
+            char elementDelimiter = normalized.charAt(3);
+            char segmentTerminator = normalized.charAt(105);
+
+            List<String> rawSegments = new ArrayList<>();
+            StringBuilder buffer = new StringBuilder();
+            for (char c : normalized.toCharArray()) {
+                if (c == segmentTerminator) {
+                    String seg = buffer.toString().trim();
+                    if (!seg.isBlank()) {
+                        rawSegments.add(seg);
+                    }
+                    buffer.setLength(0);
+                } else {
+                    buffer.append(c);
+                }
+            }
+
+            List<X12Segment> segments = new ArrayList<>();
+            for (int i = 0; i < rawSegments.size(); i++) {
+                String[] parts = rawSegments.get(i).split(
+                        java.util.regex.Pattern.quote(String.valueOf(elementDelimiter)), -1);
+                segments.add(new X12Segment(parts[0].trim(), List.of(parts).subList(1, parts.length), i + 1));
+            }
+            return segments;
+        }
+    }
+}
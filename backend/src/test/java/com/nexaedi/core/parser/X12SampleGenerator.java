@@ -0,0 +1,50 @@
+package com.nexaedi.core.parser;
+
+/**
+ * Builds synthetic Target-style 850 interchanges of arbitrary size for parser tests and benchmarks.
+ * Every transaction set uses the same header segments as {@code Target850Processor.SAMPLE_TARGET_850}
+ * with a configurable number of PO1 line items.
+ */
+public final class X12SampleGenerator {
+
+    private static final String ISA =
+            "ISA*00*          *00*          *ZZ*TARGET         *ZZ*VENDORABC      *260219*1200*^*00501*000000042*0*P*>~";
+
+    private X12SampleGenerator() {
+    }
+
+    /**
+     * @param transactions number of ST/SE transaction sets in the single GS group
+     * @param linesPerTransaction number of PO1 segments per transaction set
+     * @param lineBreaks whether to put a newline after every segment terminator
+     */
+    public static String interchange(int transactions, int linesPerTransaction, boolean lineBreaks) {
+        String nl = lineBreaks ? "\n" : "";
+        StringBuilder edi = new StringBuilder(transactions * (linesPerTransaction * 40 + 250));
+        edi.append(ISA).append(nl);
+        edi.append("GS*PO*TGTBUY*VENDORABC*20260219*1200*42*X*005010~").append(nl);
+
+        for (int t = 1; t <= transactions; t++) {
+            String control = String.format("%04d", t);
+            edi.append("ST*850*").append(control).append('~').append(nl);
+            edi.append("BEG*00*SA*TGT-2026-").append(String.format("%05d", t)).append("**20260219~").append(nl);
+            edi.append("REF*DP*042~").append(nl);
+            edi.append("DTM*002*20260305~").append(nl);
+            edi.append("N1*ST*Target Store #1742*92*1742~").append(nl);
+            edi.append("N3*700 Nicollet Mall~").append(nl);
+            edi.append("N4*Minneapolis*MN*55402~").append(nl);
+            for (int l = 1; l <= linesPerTransaction; l++) {
+                edi.append("PO1*").append(l).append("*120*EA*24.99**UI*0895")
+                        .append(String.format("%08d", l))
+                        .append("*VN*VND-").append(l).append("*PD*Sample product ").append(l)
+                        .append('~').append(nl);
+            }
+            edi.append("CTT*").append(linesPerTransaction).append('~').append(nl);
+            edi.append("SE*").append(linesPerTransaction + 8).append('*').append(control).append('~').append(nl);
+        }
+
+        edi.append("GE*").append(transactions).append("*42~").append(nl);
+        edi.append("IEA*1*000000042~").append(nl);
+        return edi.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.nexaedi.core.pipeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for in-flight file and byte admission limits.
+ */
+@DisplayName("AdmissionControl")
+class AdmissionControlTest {
+
+    private AdmissionControl admission;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setMaxInFlightFiles(3);
+        properties.setMaxInFlightBytes(DataSize.ofBytes(1000));
+        properties.setMaxInFlightFilesPerSeller(2);
+        properties.setMaxInFlightBytesPerSeller(DataSize.ofBytes(500));
+        admission = new AdmissionControl(properties);
+    }
+
+    @Test
+    @DisplayName("should shed once a seller's file limit is reached, without affecting other sellers")
+    void shouldLimitFilesPerSeller() {
+        assertThat(admission.tryAdmit(1L, 10)).isPresent();
+        assertThat(admission.tryAdmit(1L, 10)).isPresent();
+
+        assertThat(admission.tryAdmit(1L, 10)).isEmpty();
+        assertThat(admission.tryAdmit(2L, 10)).isPresent();
+    }
+
+    @Test
+    @DisplayName("should shed once the global file limit is reached")
+    void shouldLimitFilesGlobally() {
+        assertThat(admission.tryAdmit(1L, 10)).isPresent();
+        assertThat(admission.tryAdmit(2L, 10)).isPresent();
+        assertThat(admission.tryAdmit(3L, 10)).isPresent();
+
+        assertThat(admission.tryAdmit(4L, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should shed once a seller's in-flight bytes would exceed the limit")
+    void shouldLimitBytesPerSeller() {
+        assertThat(admission.tryAdmit(1L, 400)).isPresent();
+
+        assertThat(admission.tryAdmit(1L, 200)).isEmpty();
+        assertThat(admission.tryAdmit(1L, 100)).isPresent();
+    }
+
+    @Test
+    @DisplayName("should admit an oversized file when nothing else is in flight")
+    void shouldAdmitOversizedFileWhenIdle() {
+        assertThat(admission.tryAdmit(1L, 5000)).isPresent();
+        assertThat(admission.tryAdmit(2L, 1)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should free capacity when a permit is closed, once")
+    void shouldReleaseOnClose() {
+        Optional<AdmissionControl.Permit> first = admission.tryAdmit(1L, 300);
+        assertThat(admission.tryAdmit(1L, 300)).isEmpty();
+
+        first.orElseThrow().close();
+        first.orElseThrow().close();
+
+        assertThat(admission.getInFlightFiles()).isZero();
+        assertThat(admission.getInFlightBytes()).isZero();
+        assertThat(admission.tryAdmit(1L, 300)).isPresent();
+    }
+
+    @Test
+    @DisplayName("should measure text submissions in UTF-8 bytes, like uploaded files")
+    void shouldMeasureTextInUtf8Bytes() {
+        String text = "N3*700 Rue JOS\u00c9*\u20ac*\ud83d\udce6~";
+
+        admission.tryAdmit(1L, text);
+
+        assertThat(admission.getInFlightBytes())
+                .isEqualTo(text.getBytes(StandardCharsets.UTF_8).length)
+                .isEqualTo(AdmissionControl.utf8Length(text));
+    }
+
+    @Test
+    @DisplayName("should treat submissions without a seller as one tenant")
+    void shouldGroupAnonymousSubmissions() {
+        assertThat(admission.tryAdmit(null, 10)).isPresent();
+        assertThat(admission.tryAdmit(null, 10)).isPresent();
+
+        assertThat(admission.tryAdmit(null, 10)).isEmpty();
+    }
+}
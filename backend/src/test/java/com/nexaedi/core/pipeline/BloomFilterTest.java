@@ -0,0 +1,60 @@
+package com.nexaedi.core.pipeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the duplicate-detection prefilter.
+ */
+@DisplayName("BloomFilter")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("should never report an inserted key as absent")
+    void shouldHaveNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("INTERCHANGE|SENDER|" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("INTERCHANGE|SENDER|" + i)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("should keep false positives near the configured rate at capacity")
+    void shouldBoundFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("PURCHASE_ORDER|TARGET|PO" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("PURCHASE_ORDER|WALMART|PO" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("should report nothing as present when empty")
+    void shouldStartEmpty() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("INTERCHANGE|SENDER|000000001")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should reject nonsensical sizing")
+    void shouldValidateSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
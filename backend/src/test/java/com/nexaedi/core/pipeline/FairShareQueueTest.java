@@ -0,0 +1,132 @@
+package com.nexaedi.core.pipeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for weighted fair ordering and per-tenant limits.
+ */
+@DisplayName("FairShareQueue")
+class FairShareQueueTest {
+
+    /**
+     * Items are "tenant:weight:group:n", e.g. "big:4:TARGET:17".
+     */
+    private static FairShareQueue.Ticket ticket(String item) {
+        String[] parts = item.split(":");
+        return new FairShareQueue.Ticket(parts[0], Integer.parseInt(parts[1]),
+                parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    private static FairShareQueue<String> queue(int capacity, int maxTenantQueued, int maxTenantBusy,
+                                                Map<String, Integer> groupCaps) {
+        return new FairShareQueue<>(capacity, maxTenantQueued, maxTenantBusy, groupCaps,
+                FairShareQueueTest::ticket);
+    }
+
+    private static List<String> drain(FairShareQueue<String> queue, int count) throws InterruptedException {
+        List<String> taken = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            FairShareQueue.Entry<String> entry = queue.take();
+            taken.add(entry.item());
+            queue.release(entry);
+        }
+        return taken;
+    }
+
+    @Test
+    @DisplayName("should serve backlogged tenants in proportion to their weights")
+    void shouldServeByWeight() throws InterruptedException {
+        FairShareQueue<String> queue = queue(100, 100, 10, Map.of());
+        for (int i = 0; i < 40; i++) {
+            queue.put("pro:4::" + i);
+            queue.put("starter:1::" + i);
+        }
+
+        List<String> first = drain(queue, 25);
+
+        assertThat(first.stream().filter(item -> item.startsWith("pro")).count()).isEqualTo(20);
+        assertThat(first.stream().filter(item -> item.startsWith("starter")).count()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("should serve a newly arrived tenant ahead of an existing backlog")
+    void shouldNotQueueSmallTenantBehindBacklog() throws InterruptedException {
+        FairShareQueue<String> queue = queue(1000, 1000, 10, Map.of());
+        for (int i = 0; i < 500; i++) {
+            queue.put("big:4::" + i);
+        }
+        drain(queue, 10);
+
+        queue.put("small:1::0");
+
+        assertThat(drain(queue, 2)).contains("small:1::0");
+    }
+
+    @Test
+    @DisplayName("should keep room for other tenants when one tenant reaches its queue share")
+    void shouldLimitQueuedItemsPerTenant() {
+        FairShareQueue<String> queue = queue(4, 3, 10, Map.of());
+
+        assertThat(queue.offer("big:1::1")).isTrue();
+        assertThat(queue.offer("big:1::2")).isTrue();
+        assertThat(queue.offer("big:1::3")).isTrue();
+
+        assertThat(queue.offer("big:1::4")).isFalse();
+        assertThat(queue.offer("small:1::1")).isTrue();
+        assertThat(queue.offer("other:1::1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should hold back a tenant's items once it has its share of workers busy")
+    void shouldLimitBusyItemsPerTenant() throws InterruptedException {
+        FairShareQueue<String> queue = queue(10, 10, 1, Map.of());
+        queue.put("big:1::1");
+        queue.put("big:1::2");
+        queue.put("small:1::1");
+
+        FairShareQueue.Entry<String> first = queue.take();
+        FairShareQueue.Entry<String> second = queue.take();
+
+        assertThat(first.item()).isEqualTo("big:1::1");
+        assertThat(second.item()).isEqualTo("small:1::1");
+
+        queue.release(first);
+        assertThat(queue.take().item()).isEqualTo("big:1::2");
+    }
+
+    @Test
+    @DisplayName("should cap items in service per group across tenants")
+    void shouldCapGroups() throws InterruptedException {
+        FairShareQueue<String> queue = queue(10, 10, 10, Map.of("TARGET", 1));
+        queue.put("a:1:TARGET:1");
+        queue.put("b:1:TARGET:1");
+        queue.put("c:1:WALMART:1");
+
+        FairShareQueue.Entry<String> first = queue.take();
+        FairShareQueue.Entry<String> second = queue.take();
+
+        assertThat(first.item()).isEqualTo("a:1:TARGET:1");
+        assertThat(second.item()).isEqualTo("c:1:WALMART:1");
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                queue.release(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.join(200);
+        assertThat(waiter.isAlive()).as("second TARGET item waits for the first").isTrue();
+
+        queue.release(first);
+        waiter.join(5000);
+        assertThat(waiter.isAlive()).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+package com.nexaedi.core.pipeline;
+
+import com.nexaedi.core.mapping.MappingRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for pipeline meter names, tags and units.
+ */
+@DisplayName("PipelineMetrics")
+class PipelineMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private AdmissionControl admission;
+    private PipelineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        admission = new AdmissionControl(new AdmissionProperties());
+        MappingRegistry mappingRegistry = new MappingRegistry(new ObjectMapper());
+        mappingRegistry.loadMappings();
+        metrics = new PipelineMetrics(registry, admission, mappingRegistry);
+    }
+
+    @Test
+    @DisplayName("should time a step under its retailer, transaction set and outcome tags")
+    void shouldRecordStepTimer() {
+        long durationMs = metrics.record(PipelineMetrics.Step.TRANSMIT, "target", "850",
+                PipelineMetrics.Outcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(120));
+
+        Timer timer = registry.get("nexaedi.pipeline.step.duration")
+                .tags("step", "transmit", "retailer", "TARGET", "transaction_set", "850", "outcome", "success")
+                .timer();
+        assertThat(durationMs).isEqualTo(120);
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(120.0);
+    }
+
+    @Test
+    @DisplayName("should tag per-interchange steps without a transaction set")
+    void shouldTagMissingTransactionSet() {
+        metrics.record(PipelineMetrics.Step.STORE, "TARGET", null, PipelineMetrics.Outcome.FAILURE, 1_000);
+
+        assertThat(registry.get("nexaedi.pipeline.step.duration")
+                .tags("step", "store", "transaction_set", PipelineMetrics.NONE, "outcome", "failure")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should tag retailers without a mapping profile as other")
+    void shouldBoundRetailerTag() {
+        metrics.record(PipelineMetrics.Step.STORE, "UNKNOWN-1", null, PipelineMetrics.Outcome.SUCCESS, 1_000);
+        metrics.record(PipelineMetrics.Step.STORE, "UNKNOWN-2", null, PipelineMetrics.Outcome.SUCCESS, 1_000);
+        metrics.bytesIngested("UNKNOWN-3", 100);
+
+        assertThat(registry.get("nexaedi.pipeline.step.duration").timers()).hasSize(1);
+        assertThat(registry.get("nexaedi.pipeline.step.duration")
+                .tag("retailer", PipelineMetrics.OTHER).timer().count()).isEqualTo(2);
+        assertThat(registry.get("nexaedi.ingest.bytes").tag("retailer", PipelineMetrics.OTHER).counter().count())
+                .isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("should accumulate throughput counters")
+    void shouldCountThroughput() {
+        metrics.bytesIngested("TARGET", 1_000);
+        metrics.bytesIngested("TARGET", 500);
+        metrics.segmentsParsed("TARGET", "850", 12);
+        metrics.linesMapped("TARGET", "850", 3);
+
+        assertThat(registry.get("nexaedi.ingest.bytes").tag("retailer", "TARGET").counter().count()).isEqualTo(1_500);
+        assertThat(registry.get("nexaedi.parse.segments").counter().count()).isEqualTo(12);
+        assertThat(registry.get("nexaedi.mapping.lines").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should expose admitted in-flight files and bytes as gauges")
+    void shouldGaugeInFlightFiles() {
+        admission.tryAdmit(1L, 2_048);
+
+        assertThat(registry.get("nexaedi.ingest.inflight.files").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("nexaedi.ingest.inflight.bytes").gauge().value()).isEqualTo(2_048);
+    }
+}
@@ -0,0 +1,120 @@
+package com.nexaedi.core.pipeline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for a single bounded pipeline stage.
+ */
+@DisplayName("PipelineStage")
+class PipelineStageTest {
+
+    private PipelineStage<Integer> stage;
+
+    @AfterEach
+    void tearDown() {
+        if (stage != null) {
+            stage.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("should hand every submitted item to the handler")
+    void shouldProcessSubmittedItems() throws InterruptedException {
+        List<Integer> handled = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(10);
+        stage = new PipelineStage<>("test", 2, 4, item -> {
+            handled.add(item);
+            done.countDown();
+        });
+        stage.start();
+
+        for (int i = 0; i < 10; i++) {
+            stage.submit(i);
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).containsExactlyInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    @DisplayName("should block producers once the queue is full")
+    void shouldBlockWhenSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 2, item -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        stage.start();
+
+        stage.submit(1);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        stage.submit(2);
+        stage.submit(3);
+
+        Thread producer = Thread.ofVirtual().start(() -> {
+            try {
+                stage.submit(4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.join(200);
+
+        assertThat(producer.isAlive()).as("producer blocked on a full queue").isTrue();
+        assertThat(stage.snapshot().queueDepth()).isEqualTo(2);
+        assertThat(stage.snapshot().busyWorkers()).isEqualTo(1);
+
+        release.countDown();
+        producer.join(5000);
+        assertThat(producer.isAlive()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should keep draining after a handler throws")
+    void shouldSurviveHandlerFailure() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 4, item -> {
+            if (item == 1) {
+                throw new IllegalStateException("boom");
+            }
+            done.countDown();
+        });
+        stage.start();
+
+        stage.submit(1);
+        stage.submit(2);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should reject submissions once stopped")
+    void shouldRejectWhenStopped() {
+        stage = new PipelineStage<>("test", 1, 1, item -> { });
+        stage.start();
+        stage.stop();
+
+        assertThatThrownBy(() -> stage.submit(1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("not running");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AuditProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the in-process audit status counters and their checkpoints, against in-memory H2.
+ */
+@DisplayName("AuditCounters")
+class AuditCountersTest {
+
+    private String url;
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AuditProperties properties;
+    private AuditRetentionService retentionService;
+    private final List<AuditCounters> started = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:counters-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        dataSource = new DriverManagerDataSource(url, "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    correlation_id VARCHAR(36) NOT NULL,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    duration_ms BIGINT)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_daily_rollup (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    rollup_day DATE NOT NULL,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    record_count BIGINT NOT NULL,
+                    total_duration_ms BIGINT NOT NULL,
+                    max_duration_ms BIGINT)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_status_counter (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    record_count BIGINT NOT NULL,
+                    CONSTRAINT uk_audit_status_counter UNIQUE (retailer_id, status))
+                """);
+        properties = new AuditProperties();
+        properties.setCounterCheckpointInterval(Duration.ofHours(1));
+        retentionService = new AuditRetentionService(jdbcTemplate, transactionTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(AuditCounters::stop);
+    }
+
+    private AuditCounters start() {
+        AuditCounters counters = new AuditCounters(jdbcTemplate, transactionTemplate, retentionService, properties);
+        counters.start();
+        started.add(counters);
+        return counters;
+    }
+
+    private long stored(String retailerId, EdiProcessingStatus status) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(record_count), 0) FROM edi_audit_status_counter
+                WHERE retailer_id = ? AND status = ?
+                """, Long.class, retailerId, status.name());
+    }
+
+    @Test
+    @DisplayName("should count concurrent increments without losing any")
+    void shouldCountConcurrentIncrements() {
+        AuditCounters counters = start();
+
+        CompletableFuture.allOf(IntStream.range(0, 8).mapToObj(i -> CompletableFuture.runAsync(() -> {
+            for (int n = 0; n < 10_000; n++) {
+                counters.increment(i % 2 == 0 ? "TARGET" : "WALMART", EdiProcessingStatus.RECEIVED);
+                if (n % 100 == 0) {
+                    counters.checkpoint();
+                }
+            }
+        })).toArray(CompletableFuture[]::new)).join();
+        counters.checkpoint();
+
+        assertThat(counters.statusTotals().get(EdiProcessingStatus.RECEIVED)).isEqualTo(80_000);
+        assertThat(counters.statusTotals("TARGET").get(EdiProcessingStatus.RECEIVED)).isEqualTo(40_000);
+        assertThat(stored("WALMART", EdiProcessingStatus.RECEIVED)).isEqualTo(40_000);
+    }
+
+    @Test
+    @DisplayName("should add each node's counts to the table and see the other nodes' after a checkpoint")
+    void shouldShareCountsThroughCheckpoints() {
+        AuditCounters first = start();
+        AuditCounters second = start();
+
+        first.increment("TARGET", EdiProcessingStatus.TRANSMITTED);
+        second.increment("TARGET", EdiProcessingStatus.TRANSMITTED);
+        second.increment("TARGET", EdiProcessingStatus.FAILED);
+        assertThat(first.statusTotals().get(EdiProcessingStatus.TRANSMITTED)).isEqualTo(1);
+
+        second.checkpoint();
+        first.checkpoint();
+
+        assertThat(first.statusTotals().get(EdiProcessingStatus.TRANSMITTED)).isEqualTo(2);
+        assertThat(first.statusTotals().get(EdiProcessingStatus.FAILED)).isEqualTo(1);
+        assertThat(stored("TARGET", EdiProcessingStatus.TRANSMITTED)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should add to a row another node inserted while the checkpoint was running")
+    void shouldRetryCheckpointAfterConcurrentInsert() {
+        JdbcTemplate otherNode = new JdbcTemplate(new DriverManagerDataSource(url, "sa", ""));
+        AtomicBoolean raced = new AtomicBoolean();
+        JdbcTemplate racing = new JdbcTemplate(dataSource) {
+            @Override
+            public int update(String sql, Object... args) {
+                if (sql.startsWith("INSERT") && raced.compareAndSet(false, true)) {
+                    otherNode.update(sql, args[0], args[1], 5L);
+                }
+                return super.update(sql, args);
+            }
+        };
+        AuditCounters counters = new AuditCounters(racing, transactionTemplate, retentionService, properties);
+        counters.start();
+        started.add(counters);
+
+        counters.increment("TARGET", EdiProcessingStatus.TRANSMITTED);
+        counters.increment("TARGET", EdiProcessingStatus.TRANSMITTED);
+        counters.checkpoint();
+
+        assertThat(raced).isTrue();
+        assertThat(stored("TARGET", EdiProcessingStatus.TRANSMITTED)).isEqualTo(7);
+        assertThat(counters.statusTotals("TARGET").get(EdiProcessingStatus.TRANSMITTED)).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("should count transitions without a retailer locally, alongside the others")
+    void shouldCountWithoutRetailer() {
+        AuditCounters counters = start();
+        counters.increment(null, EdiProcessingStatus.FAILED);
+        counters.increment("TARGET", EdiProcessingStatus.FAILED);
+
+        counters.checkpoint();
+
+        assertThat(counters.statusTotals("TARGET").get(EdiProcessingStatus.FAILED)).isEqualTo(1);
+        assertThat(counters.statusTotals(null).get(EdiProcessingStatus.FAILED)).isEqualTo(1);
+        assertThat(counters.statusTotals().get(EdiProcessingStatus.FAILED)).isEqualTo(2);
+        assertThat(counters.retailerTotals()).containsKeys(null, "TARGET");
+        assertThat(stored("TARGET", EdiProcessingStatus.FAILED)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should rebuild the counters from the table on restart")
+    void shouldRestoreFromCheckpoint() {
+        AuditCounters counters = start();
+        counters.increment("TARGET", EdiProcessingStatus.ACKNOWLEDGED);
+        counters.increment("TARGET", EdiProcessingStatus.ACKNOWLEDGED);
+        counters.stop();
+
+        AuditCounters restarted = start();
+
+        assertThat(restarted.statusTotals().get(EdiProcessingStatus.ACKNOWLEDGED)).isEqualTo(2);
+        assertThat(restarted.retailerTotals()).containsOnlyKeys("TARGET");
+    }
+
+    @Test
+    @DisplayName("should seed an empty table from the existing audit history")
+    void shouldSeedFromAuditHistory() {
+        for (String retailerId : List.of("TARGET", "TARGET", "WALMART")) {
+            jdbcTemplate.update("""
+                    INSERT INTO edi_audit_log (correlation_id, retailer_id, status, created_at)
+                    VALUES (?, ?, 'PARSED', ?)
+                    """, UUID.randomUUID().toString(), retailerId, Instant.now().atOffset(ZoneOffset.UTC));
+        }
+
+        AuditCounters counters = start();
+
+        assertThat(counters.statusTotals().get(EdiProcessingStatus.PARSED)).isEqualTo(3);
+        assertThat(counters.statusTotals("WALMART").get(EdiProcessingStatus.PARSED)).isEqualTo(1);
+        assertThat(stored("TARGET", EdiProcessingStatus.PARSED)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should zero every counter on reset")
+    void shouldReset() {
+        AuditCounters counters = start();
+        counters.increment("TARGET", EdiProcessingStatus.RECEIVED);
+        counters.checkpoint();
+        counters.increment("TARGET", EdiProcessingStatus.RECEIVED);
+
+        counters.reset();
+        counters.checkpoint();
+
+        assertThat(counters.statusTotals().get(EdiProcessingStatus.RECEIVED)).isZero();
+        assertThat(stored("TARGET", EdiProcessingStatus.RECEIVED)).isZero();
+    }
+}
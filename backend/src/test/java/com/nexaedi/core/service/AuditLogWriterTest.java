@@ -0,0 +1,136 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AuditProperties;
+import com.nexaedi.infrastructure.persistence.EdiAuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the write-behind audit sink, against an in-memory H2 table.
+ */
+@DisplayName("AuditLogWriter")
+class AuditLogWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private AuditProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:audit-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    correlation_id VARCHAR(36) NOT NULL,
+                    parent_correlation_id VARCHAR(36),
+                    retailer_id VARCHAR(50) NOT NULL,
+                    transaction_set_code VARCHAR(10),
+                    po_number VARCHAR(50),
+                    status VARCHAR(20) NOT NULL,
+                    source_file_path VARCHAR(1024),
+                    message VARCHAR(2048),
+                    error_detail CLOB,
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    duration_ms BIGINT)
+                """);
+        properties = new AuditProperties();
+        properties.setFlushInterval(Duration.ofMillis(50));
+    }
+
+    private AuditLogWriter writer() {
+        return new AuditLogWriter(jdbcTemplate, transactionTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    private static EdiAuditLog entry(String retailerId) {
+        return EdiAuditLog.builder()
+                .correlationId(UUID.randomUUID().toString())
+                .retailerId(retailerId)
+                .status(EdiProcessingStatus.RECEIVED)
+                .message("File received")
+                .createdAt(Instant.now())
+                .durationMs(3L)
+                .build();
+    }
+
+    private int rows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edi_audit_log", Integer.class);
+    }
+
+    @Test
+    @DisplayName("should write buffered records within the flush interval")
+    void shouldFlushOnInterval() throws InterruptedException {
+        AuditLogWriter writer = writer();
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.write(entry("TARGET"));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (rows() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        writer.stop();
+
+        assertThat(rows()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should flush everything still buffered on shutdown")
+    void shouldFlushOnShutdown() throws InterruptedException {
+        properties.setFlushInterval(Duration.ofSeconds(30));
+        properties.setBatchSize(10_000);
+        AuditLogWriter writer = writer();
+        writer.start();
+        for (int i = 0; i < 1000; i++) {
+            writer.write(entry("TARGET"));
+        }
+
+        writer.stop();
+
+        assertThat(rows()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("should write synchronously when write-behind is disabled")
+    void shouldWriteThroughWhenDisabled() {
+        properties.setWriteBehind(false);
+        AuditLogWriter writer = writer();
+        writer.start();
+
+        writer.write(entry("TARGET"));
+
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should keep the good records of a batch that contains a bad one")
+    void shouldIsolateBadRecord() throws InterruptedException {
+        properties.setFlushInterval(Duration.ofSeconds(30));
+        AuditLogWriter writer = writer();
+        writer.start();
+        writer.write(entry("TARGET"));
+        writer.write(entry("R".repeat(100)));
+        writer.write(entry("WALMART"));
+
+        writer.stop();
+
+        assertThat(jdbcTemplate.queryForList("SELECT retailer_id FROM edi_audit_log ORDER BY id", String.class))
+                .containsExactly("TARGET", "WALMART");
+    }
+}
@@ -0,0 +1,141 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.pipeline.AuditProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the audit rollup and the H2 table-per-period fallback, at a fixed clock.
+ */
+@DisplayName("AuditRetentionService")
+class AuditRetentionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-16T12:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditProperties properties;
+    private AuditRetentionService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:retention-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    correlation_id VARCHAR(36) NOT NULL,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    duration_ms BIGINT)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_daily_rollup (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    rollup_day DATE NOT NULL,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    status VARCHAR(20) NOT NULL,
+                    record_count BIGINT NOT NULL,
+                    total_duration_ms BIGINT NOT NULL,
+                    max_duration_ms BIGINT,
+                    CONSTRAINT uk_audit_rollup_day UNIQUE (rollup_day, retailer_id, status))
+                """);
+        properties = new AuditProperties();
+        properties.getPartitioning().setRetention(Duration.ofDays(60));
+        service = new AuditRetentionService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), properties,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private void insert(String createdAt, String retailerId, EdiProcessingStatus status, long durationMs) {
+        jdbcTemplate.update("""
+                INSERT INTO edi_audit_log (correlation_id, retailer_id, status, created_at, duration_ms)
+                VALUES (?, ?, ?, ?, ?)
+                """, UUID.randomUUID().toString(), retailerId, status.name(),
+                Instant.parse(createdAt).atOffset(ZoneOffset.UTC), durationMs);
+    }
+
+    private List<String> periodTables() {
+        return jdbcTemplate.queryForList("SELECT LOWER(table_name) FROM information_schema.tables ORDER BY 1",
+                String.class).stream().filter(name -> name.matches("edi_audit_(log|archive)_p\\d.*")).toList();
+    }
+
+    @Test
+    @DisplayName("should roll each finished day up once, per retailer and status")
+    void shouldRollUpFinishedDays() {
+        insert("2026-10-14T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 40);
+        insert("2026-10-14T09:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 60);
+        insert("2026-10-14T10:00:00Z", "WALMART", EdiProcessingStatus.FAILED, 5);
+        insert("2026-10-16T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 50);
+
+        service.maintain();
+        service.maintain();
+
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT rollup_day, retailer_id, status, record_count, total_duration_ms, max_duration_ms
+                FROM edi_audit_daily_rollup ORDER BY retailer_id
+                """)).extracting(row -> List.copyOf(row.values())).containsExactly(
+                List.of(Date.valueOf("2026-10-14"), "TARGET", "TRANSMITTED", 2L, 100L, 60L),
+                List.of(Date.valueOf("2026-10-14"), "WALMART", "FAILED", 1L, 5L, 5L));
+    }
+
+    @Test
+    @DisplayName("should move closed periods into their own tables and drop those past retention")
+    void shouldMoveAndDropPeriods() {
+        insert("2026-07-20T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+        insert("2026-08-20T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+        insert("2026-09-20T08:00:00Z", "TARGET", EdiProcessingStatus.FAILED, 10);
+        insert("2026-10-02T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+
+        service.maintain();
+
+        assertThat(periodTables()).containsExactly("edi_audit_log_p2026_08", "edi_audit_log_p2026_09");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edi_audit_log", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edi_audit_log_p2026_09", Integer.class))
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should archive expired periods instead of dropping them when configured")
+    void shouldArchiveExpiredPeriods() {
+        properties.getPartitioning().setExpiry(AuditProperties.Expiry.ARCHIVE);
+        insert("2026-07-20T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+
+        service.maintain();
+
+        assertThat(periodTables()).containsExactly("edi_audit_archive_p2026_07");
+    }
+
+    @Test
+    @DisplayName("should keep status totals when detail rows expire")
+    void shouldKeepTotalsAcrossRetention() {
+        insert("2026-07-20T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+        insert("2026-09-20T08:00:00Z", "TARGET", EdiProcessingStatus.FAILED, 10);
+        insert("2026-10-16T08:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, 10);
+        Map<String, Map<EdiProcessingStatus, Long>> before = service.retailerStatusTotals();
+
+        service.maintain();
+
+        assertThat(service.retailerStatusTotals()).isEqualTo(before);
+        assertThat(before.get("TARGET").get(EdiProcessingStatus.TRANSMITTED)).isEqualTo(2);
+        assertThat(before.get("TARGET").get(EdiProcessingStatus.FAILED)).isEqualTo(1);
+    }
+}
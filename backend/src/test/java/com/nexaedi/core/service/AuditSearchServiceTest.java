@@ -0,0 +1,111 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.infrastructure.persistence.AuditLogView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for filtered, keyset-paginated audit search against in-memory H2.
+ */
+@DisplayName("AuditSearchService")
+class AuditSearchServiceTest {
+
+    private static final AuditSearchService.Filter ALL =
+            new AuditSearchService.Filter(null, null, null, null, null, null);
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditSearchService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:search-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_audit_log (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    correlation_id VARCHAR(36) NOT NULL,
+                    parent_correlation_id VARCHAR(36),
+                    retailer_id VARCHAR(50) NOT NULL,
+                    transaction_set_code VARCHAR(10),
+                    po_number VARCHAR(50),
+                    status VARCHAR(20) NOT NULL,
+                    source_file_path VARCHAR(1024),
+                    message VARCHAR(2048),
+                    error_detail CLOB,
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    duration_ms BIGINT)
+                """);
+        service = new AuditSearchService(jdbcTemplate);
+    }
+
+    private void insert(String createdAt, String retailerId, EdiProcessingStatus status, String poNumber) {
+        jdbcTemplate.update("""
+                INSERT INTO edi_audit_log (correlation_id, retailer_id, transaction_set_code, po_number, status,
+                                           created_at)
+                VALUES (?, ?, '850', ?, ?, ?)
+                """, UUID.randomUUID().toString(), retailerId, poNumber, status.name(),
+                Instant.parse(createdAt).atOffset(ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("should page through every row newest first, without repeats, across equal timestamps")
+    void shouldPageWithoutRepeats() {
+        for (int i = 0; i < 7; i++) {
+            insert("2026-10-16T08:00:0" + (i / 2) + "Z", "TARGET", EdiProcessingStatus.RECEIVED, "PO-" + i);
+        }
+
+        List<AuditLogView> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AuditSearchService.Page page = service.search(ALL, cursor, 3);
+            seen.addAll(page.items());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).extracting(AuditLogView::poNumber)
+                .containsExactly("PO-6", "PO-5", "PO-4", "PO-3", "PO-2", "PO-1", "PO-0");
+    }
+
+    @Test
+    @DisplayName("should apply retailer, status, PO and time range filters together")
+    void shouldFilter() {
+        insert("2026-10-14T08:00:00Z", "TARGET", EdiProcessingStatus.FAILED, "PO-1");
+        insert("2026-10-15T08:00:00Z", "TARGET", EdiProcessingStatus.FAILED, "PO-2");
+        insert("2026-10-15T09:00:00Z", "TARGET", EdiProcessingStatus.TRANSMITTED, "PO-2");
+        insert("2026-10-15T10:00:00Z", "WALMART", EdiProcessingStatus.FAILED, "PO-2");
+        insert("2026-10-16T08:00:00Z", "TARGET", EdiProcessingStatus.FAILED, "PO-2");
+
+        AuditSearchService.Page page = service.search(new AuditSearchService.Filter("TARGET",
+                EdiProcessingStatus.FAILED, "PO-2", "850",
+                Instant.parse("2026-10-15T00:00:00Z"), Instant.parse("2026-10-16T00:00:00Z")), null, 50);
+
+        assertThat(page.items()).singleElement().satisfies(view -> {
+            assertThat(view.createdAt()).isEqualTo(Instant.parse("2026-10-15T08:00:00Z"));
+            assertThat(view.status()).isEqualTo(EdiProcessingStatus.FAILED);
+        });
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject a cursor it did not issue")
+    void shouldRejectForeignCursor() {
+        assertThatThrownBy(() -> service.search(ALL, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,125 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.pipeline.DedupProperties;
+import com.nexaedi.infrastructure.persistence.DedupKeyRepository;
+import com.nexaedi.infrastructure.shopify.ShopifyOutboundAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests interchange and PO claims, releases and the Bloom filter in front of them, against H2.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("DuplicateDetectionService")
+class DuplicateDetectionServiceTest {
+
+    @MockitoBean
+    private S3Client s3Client;
+
+    @MockitoBean
+    private ShopifyOutboundAdapter shopifyOutboundAdapter;
+
+    @Autowired
+    private DuplicateDetectionService service;
+
+    @Autowired
+    private DedupKeyRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("should report the first transaction set that carried a PO")
+    void shouldDetectDuplicatePurchaseOrder() {
+        String poNumber = poNumber();
+
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-1")).isEmpty();
+
+        assertThat(service.claimPurchaseOrder(" target ", poNumber.toLowerCase(), "c-2")).contains("c-1");
+    }
+
+    @Test
+    @DisplayName("should report the first run that received an interchange")
+    void shouldDetectDuplicateInterchange() {
+        String controlNumber = poNumber();
+
+        assertThat(service.claimInterchange("TARGET", controlNumber, "c-1")).isEmpty();
+
+        assertThat(service.claimInterchange("TARGET", controlNumber, "c-2")).contains("c-1");
+        assertThat(service.claimPurchaseOrder("TARGET", controlNumber, "c-3")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should not treat a resumed run's own claim as a duplicate")
+    void shouldAllowOwnClaim() {
+        String poNumber = poNumber();
+        service.claimPurchaseOrder("TARGET", poNumber, "c-1");
+
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-1")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should let a PO through again once its owner released it")
+    void shouldReclaimAfterRelease() {
+        String poNumber = poNumber();
+        service.claimPurchaseOrder("TARGET", poNumber, "c-1");
+
+        service.releasePurchaseOrder("TARGET", poNumber, "c-1");
+
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-2")).isEmpty();
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-3")).contains("c-2");
+    }
+
+    @Test
+    @DisplayName("should ignore a release by a run that does not own the key")
+    void shouldKeepKeyReleasedByOtherRun() {
+        String poNumber = poNumber();
+        service.claimPurchaseOrder("TARGET", poNumber, "c-1");
+
+        service.releasePurchaseOrder("TARGET", poNumber, "c-2");
+
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-3")).contains("c-1");
+    }
+
+    @Test
+    @DisplayName("should catch a key claimed on another node that its own filter has never seen")
+    void shouldDetectKeyUnknownToFilter() {
+        String poNumber = poNumber();
+        service.claimPurchaseOrder("TARGET", poNumber, "c-1");
+        DuplicateDetectionService otherNode = new DuplicateDetectionService(repository, jdbcTemplate,
+                new DedupProperties(), new SimpleMeterRegistry());
+
+        assertThat(otherNode.claimPurchaseOrder("TARGET", poNumber, "c-2")).contains("c-1");
+    }
+
+    @Test
+    @DisplayName("should claim nothing when disabled")
+    void shouldSkipWhenDisabled() {
+        DedupProperties properties = new DedupProperties();
+        properties.setEnabled(false);
+        DuplicateDetectionService disabled = new DuplicateDetectionService(repository, jdbcTemplate,
+                properties, new SimpleMeterRegistry());
+        String poNumber = poNumber();
+
+        disabled.claimPurchaseOrder("TARGET", poNumber, "c-1");
+
+        assertThat(disabled.claimPurchaseOrder("TARGET", poNumber, "c-2")).isEmpty();
+        assertThat(service.claimPurchaseOrder("TARGET", poNumber, "c-3")).isEmpty();
+    }
+
+    private static String poNumber() {
+        return "PO-" + UUID.randomUUID();
+    }
+}
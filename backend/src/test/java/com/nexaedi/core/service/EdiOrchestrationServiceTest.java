@@ -0,0 +1,341 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.CanonicalOrder;
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.model.InterchangeResult;
+import com.nexaedi.infrastructure.dlq.DeadLetterQueueService;
+import com.nexaedi.infrastructure.persistence.IngestJob;
+import com.nexaedi.infrastructure.persistence.IngestJobRepository;
+import com.nexaedi.infrastructure.shopify.ShopifyOutboundAdapter;
+import com.nexaedi.infrastructure.storage.StorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs interchanges through the whole pipeline against H2, with Shopify mocked.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("EdiOrchestrationService")
+class EdiOrchestrationServiceTest {
+
+    private static final String RETAILER = "TARGET";
+    private static final AtomicInteger SEQUENCE = new AtomicInteger(ThreadLocalRandom.current().nextInt(1_000_000));
+
+    @MockitoBean
+    private S3Client s3Client;
+
+    @MockitoBean
+    private ShopifyOutboundAdapter shopifyOutboundAdapter;
+
+    @MockitoSpyBean
+    private StorageService storageService;
+
+    @Autowired
+    private EdiOrchestrationService orchestrationService;
+
+    @Autowired
+    private AuditCounters auditCounters;
+
+    @MockitoSpyBean
+    private IngestJobService ingestJobService;
+
+    @Autowired
+    private IngestJobRepository ingestJobRepository;
+
+    @MockitoSpyBean
+    private DeadLetterQueueService dlqService;
+
+    @Autowired
+    private InboundContentService inboundContentService;
+
+    /**
+     * PO numbers Shopify rejects on their next transmission only.
+     */
+    private final Set<String> rejectOnce = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        when(shopifyOutboundAdapter.transmit(any())).thenAnswer(invocation -> {
+            CanonicalOrder order = invocation.getArgument(0);
+            if (order.getPoNumber().startsWith("FAIL-") || rejectOnce.remove(order.getPoNumber())) {
+                throw new IllegalStateException("Shopify rejected " + order.getPoNumber());
+            }
+            return "gid://shopify/DraftOrder/" + order.getPoNumber();
+        });
+    }
+
+    @Test
+    @DisplayName("should count each transaction set once, and the interchange only as COMPLETED")
+    void shouldCountTransactionSetsOnce() throws Exception {
+        Map<EdiProcessingStatus, Long> before = auditCounters.statusTotals(RETAILER);
+
+        InterchangeResult result = process(interchange(poNumber("PO-"), poNumber("PO-"), poNumber("FAIL-")));
+
+        Map<EdiProcessingStatus, Long> after = auditCounters.statusTotals(RETAILER);
+        assertThat(result.succeeded()).isEqualTo(2);
+        assertThat(result.failed()).isEqualTo(1);
+        assertThat(added(before, after, EdiProcessingStatus.RECEIVED)).isEqualTo(1);
+        assertThat(added(before, after, EdiProcessingStatus.PARSED)).isEqualTo(3);
+        assertThat(added(before, after, EdiProcessingStatus.TRANSMITTED)).isEqualTo(2);
+        assertThat(added(before, after, EdiProcessingStatus.ACKNOWLEDGED)).isEqualTo(2);
+        assertThat(added(before, after, EdiProcessingStatus.FAILED)).isEqualTo(1);
+        assertThat(added(before, after, EdiProcessingStatus.COMPLETED)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should skip a PO already transmitted in an earlier interchange")
+    void shouldSkipDuplicatePurchaseOrder() throws Exception {
+        String poNumber = poNumber("PO-");
+        String first = process(interchange(poNumber)).transactions().getFirst().correlationId();
+
+        InterchangeResult resend = process(interchange(poNumber, poNumber("PO-")));
+
+        assertThat(resend.succeeded()).isEqualTo(1);
+        assertThat(resend.duplicates()).isEqualTo(1);
+        assertThat(resend.transactions().getFirst().duplicateOf()).isEqualTo(first);
+        verify(shopifyOutboundAdapter, times(1)).transmit(argThat(order -> order.getPoNumber().equals(poNumber)));
+    }
+
+    @Test
+    @DisplayName("should let a PO through again when it failed before reaching Shopify")
+    void shouldReleasePurchaseOrderFailedBeforeTransmission() throws Exception {
+        String poNumber = poNumber("PO-");
+        rejectOnce.add(poNumber);
+
+        assertThat(process(interchange(poNumber)).failed()).isEqualTo(1);
+
+        assertThat(process(interchange(poNumber)).succeeded()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should keep a PO claimed when it failed after Shopify accepted it")
+    void shouldKeepPurchaseOrderFailedAfterTransmission() throws Exception {
+        String poNumber = poNumber("PO-");
+        String correlationId = UUID.randomUUID().toString();
+        doThrow(new IllegalStateException("checkpoint unavailable")).when(ingestJobService).checkpointUnit(
+                eq(correlationId), anyInt(), anyString(), eq(EdiProcessingStatus.TRANSMITTED), any(), any());
+
+        assertThat(process(correlationId, interchange(poNumber)).failed()).isEqualTo(1);
+        InterchangeResult resend = process(interchange(poNumber));
+
+        assertThat(resend.duplicates()).isEqualTo(1);
+        verify(shopifyOutboundAdapter, times(1)).transmit(argThat(order -> order.getPoNumber().equals(poNumber)));
+    }
+
+    @Test
+    @DisplayName("should resume a queued job without transmitting checkpointed transaction sets again")
+    void shouldResumeFromCheckpoints() throws Exception {
+        String done = poNumber("PO-");
+        String pending = poNumber("PO-");
+        String correlationId = UUID.randomUUID().toString();
+        ingestJobService.enqueue(correlationId, RETAILER, null, "resume.edi", interchange(done, pending));
+        ingestJobService.checkpointStage(correlationId, EdiProcessingStatus.RECEIVED, "db://" + correlationId);
+        ingestJobService.checkpointUnit(correlationId, 1, EdiOrchestrationService.childCorrelationId(correlationId, 1),
+                EdiProcessingStatus.ACKNOWLEDGED, done, "gid://shopify/DraftOrder/" + done);
+
+        orchestrationService.resume(ingestJobRepository.findById(correlationId).orElseThrow());
+
+        assertThat(awaitJob(correlationId).getStatus()).isEqualTo(IngestJobStatus.COMPLETED);
+        verify(shopifyOutboundAdapter, never()).transmit(argThat(order -> order.getPoNumber().equals(done)));
+        verify(shopifyOutboundAdapter).transmit(argThat(order -> order.getPoNumber().equals(pending)));
+        assertThat(orchestrationService.getActiveJobIds()).doesNotContain(correlationId);
+    }
+
+    @Test
+    @DisplayName("should leave a file queued while the same bytes are in flight, and process it once they fail")
+    void shouldDeferContentInFlight() throws Exception {
+        String poNumber = poNumber("PO-");
+        String content = interchange(poNumber);
+        String first = UUID.randomUUID().toString();
+        IngestJob original = ingestJobService.enqueue(first, RETAILER, null, "first.edi", content);
+        inboundContentService.claim(first, RETAILER, original.getContentSha256());
+        String retry = UUID.randomUUID().toString();
+
+        CompletableFuture<InterchangeResult> submitted =
+                orchestrationService.processAsync(retry, RETAILER, content, "test.edi", null);
+        IngestJob deferred = awaitDeferred(retry);
+        assertThat(deferred.getStatus()).isEqualTo(IngestJobStatus.QUEUED);
+        assertThat(deferred.getNotBefore()).isAfter(Instant.now());
+
+        orchestrationService.resume(deferred);
+        assertThat(ingestJobRepository.findById(retry).orElseThrow().getStatus()).isEqualTo(IngestJobStatus.QUEUED);
+        verify(ingestJobService, never()).copyPayload(eq(retry), any());
+        // Held open, and with it the caller's admission permit, while the job waits on the queue
+        assertThat(submitted).isNotDone();
+
+        inboundContentService.release(first);
+        ingestJobService.complete(first, IngestJobStatus.FAILED);
+        orchestrationService.resume(ingestJobRepository.findById(retry).orElseThrow());
+
+        assertThat(submitted.get(30, TimeUnit.SECONDS).succeeded()).isEqualTo(1);
+        assertThat(awaitJob(retry).getStatus()).isEqualTo(IngestJobStatus.COMPLETED);
+        verify(shopifyOutboundAdapter).transmit(argThat(order -> order.getPoNumber().equals(poNumber)));
+    }
+
+    @Test
+    @DisplayName("should complete a handed-off submission once its job finishes on another node")
+    void shouldSettleHandedOffJob() throws Exception {
+        String content = interchange(poNumber("PO-"));
+        String first = UUID.randomUUID().toString();
+        IngestJob original = ingestJobService.enqueue(first, RETAILER, null, "first.edi", content);
+        inboundContentService.claim(first, RETAILER, original.getContentSha256());
+        String retry = UUID.randomUUID().toString();
+        CompletableFuture<InterchangeResult> submitted =
+                orchestrationService.processAsync(retry, RETAILER, content, "test.edi", null);
+        awaitDeferred(retry);
+
+        ingestJobService.complete(retry, IngestJobStatus.COMPLETED);
+        orchestrationService.settleHandedOff();
+
+        assertThat(submitted.get(30, TimeUnit.SECONDS)).isNull();
+        ingestJobService.complete(first, IngestJobStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("should record the transaction sets already delivered when intake fails after dispatching them")
+    void shouldRecordPartialDeliveryOnIntakeFailure() throws Exception {
+        String correlationId = UUID.randomUUID().toString();
+        String poNumber = poNumber("PO-");
+        CountDownLatch transmitting = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            transmitting.countDown();
+            return "gid://shopify/DraftOrder/" + poNumber;
+        }).when(shopifyOutboundAdapter).transmit(argThat(order -> order != null && order.getPoNumber().equals(poNumber)));
+        doAnswer(invocation -> {
+            assertThat(transmitting.await(30, TimeUnit.SECONDS)).isTrue();
+            throw new IllegalStateException("checkpoint store unavailable");
+        }).when(ingestJobService).checkpointStage(eq(correlationId), eq(EdiProcessingStatus.PARSED), any());
+
+        assertThatThrownBy(() -> process(correlationId, interchange(poNumber)))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("checkpoint store unavailable");
+
+        verify(dlqService).quarantine(eq(correlationId), eq(RETAILER), anyString(), eq("test.edi"),
+                contains("1 of 1 transaction set(s) were already delivered"), any());
+        assertThat(ingestJobRepository.findById(correlationId).orElseThrow().getStatus())
+                .isEqualTo(IngestJobStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("should finish the job when completing the interchange fails")
+    void shouldFinishJobWhenCompletionFails() {
+        String correlationId = UUID.randomUUID().toString();
+        doThrow(new IllegalStateException("archive unavailable"))
+                .when(storageService).archiveProcessed(anyString(), eq(correlationId));
+
+        assertThatThrownBy(() -> process(correlationId, interchange(poNumber("PO-"))))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("archive unavailable");
+        assertThat(ingestJobRepository.findById(correlationId).orElseThrow().getStatus())
+                .isEqualTo(IngestJobStatus.FAILED);
+        assertThat(orchestrationService.getActiveJobIds()).doesNotContain(correlationId);
+    }
+
+    private InterchangeResult process(String content) throws Exception {
+        return process(UUID.randomUUID().toString(), content);
+    }
+
+    private InterchangeResult process(String correlationId, String content) throws Exception {
+        return orchestrationService.processAsync(correlationId, RETAILER, content, "test.edi", null)
+                .get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Waits for a job to be deferred back onto the shared queue.
+     */
+    private IngestJob awaitDeferred(String correlationId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        IngestJob job = ingestJobRepository.findById(correlationId).orElseThrow();
+        while (job.getNotBefore() == null && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = ingestJobRepository.findById(correlationId).orElseThrow();
+        }
+        return job;
+    }
+
+    /**
+     * Waits for a job the test does not hold a future for to complete or fail.
+     */
+    private IngestJob awaitJob(String correlationId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        IngestJob job = ingestJobRepository.findById(correlationId).orElseThrow();
+        while ((job.getStatus() == IngestJobStatus.QUEUED || job.getStatus() == IngestJobStatus.CLAIMED)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = ingestJobRepository.findById(correlationId).orElseThrow();
+        }
+        return job;
+    }
+
+    private static long added(Map<EdiProcessingStatus, Long> before, Map<EdiProcessingStatus, Long> after,
+                              EdiProcessingStatus status) {
+        return after.get(status) - before.get(status);
+    }
+
+    private static String poNumber(String prefix) {
+        return prefix + SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * A Target 850 interchange with a fresh ISA13 and one transaction set per PO number.
+     */
+    static String interchange(String... poNumbers) {
+        String isa13 = String.format("%09d", SEQUENCE.incrementAndGet());
+        StringBuilder edi = new StringBuilder()
+                .append("ISA*00*          *00*          *ZZ*TARGET         *ZZ*VENDORABC      *260219*1200*^*00501*")
+                .append(isa13).append("*0*P*>~")
+                .append("GS*PO*TGTBUY*VENDORABC*20260219*1200*42*X*005010~");
+        for (int i = 0; i < poNumbers.length; i++) {
+            String control = String.format("%04d", i + 1);
+            edi.append("ST*850*").append(control).append('~')
+                    .append("BEG*00*SA*").append(poNumbers[i]).append("**20260219~")
+                    .append("REF*DP*042~")
+                    .append("DTM*002*20260305~")
+                    .append("N1*ST*Target Store #1742*92*1742~")
+                    .append("N3*700 Nicollet Mall~")
+                    .append("N4*Minneapolis*MN*55402~")
+                    .append("PO1*1*120*EA*24.99**UI*089541234567~")
+                    .append("CTT*1~")
+                    .append("SE*10*").append(control).append('~');
+        }
+        return edi.append("GE*").append(poNumbers.length).append("*42~")
+                .append("IEA*1*").append(isa13).append('~')
+                .toString();
+    }
+}
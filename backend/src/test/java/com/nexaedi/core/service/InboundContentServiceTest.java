@@ -0,0 +1,160 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.pipeline.DedupProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for content-digest claims and the correlation ID → digest references, against in-memory H2.
+ */
+@DisplayName("InboundContentService")
+class InboundContentServiceTest {
+
+    private static final String SHA = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private JdbcTemplate jdbcTemplate;
+    private DedupProperties properties;
+    private InboundContentService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:content-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_inbound_content (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    content_sha256 VARCHAR(64) NOT NULL,
+                    correlation_id VARCHAR(36) NOT NULL,
+                    storage_key VARCHAR(1024),
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+                    CONSTRAINT uk_inbound_content UNIQUE (retailer_id, content_sha256))
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE edi_inbound_content_ref (
+                    correlation_id VARCHAR(36) PRIMARY KEY,
+                    retailer_id VARCHAR(50) NOT NULL,
+                    content_sha256 VARCHAR(64) NOT NULL,
+                    duplicate_of VARCHAR(36),
+                    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL)
+                """);
+        jdbcTemplate.execute("""
+                CREATE TABLE ingest_job (
+                    correlation_id VARCHAR(36) PRIMARY KEY,
+                    status VARCHAR(20) NOT NULL)
+                """);
+        properties = new DedupProperties();
+        service = new InboundContentService(jdbcTemplate, properties, new SimpleMeterRegistry());
+    }
+
+    private void job(String correlationId, IngestJobStatus status) {
+        jdbcTemplate.update("INSERT INTO ingest_job (correlation_id, status) VALUES (?, ?)", correlationId, status.name());
+    }
+
+    private String digestOf(String correlationId) {
+        return jdbcTemplate.queryForList("SELECT content_sha256 FROM edi_inbound_content_ref WHERE correlation_id = ?",
+                String.class, correlationId).stream().findFirst().orElse(null);
+    }
+
+    @Test
+    @DisplayName("should report the first run and its storage key for byte-identical content")
+    void shouldDetectDuplicateContent() {
+        assertThat(service.claim("c-1", "TARGET", SHA)).isEmpty();
+        service.recordStorageKey("c-1", "edi/inbound/2026/10/16/target/" + SHA + ".edi");
+        job("c-1", IngestJobStatus.COMPLETED);
+
+        assertThat(service.claim("c-2", "target", SHA)).contains(new InboundContentService.Original(
+                "c-1", "edi/inbound/2026/10/16/target/" + SHA + ".edi", false));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT duplicate_of FROM edi_inbound_content_ref WHERE correlation_id = 'c-2'", String.class))
+                .isEqualTo("c-1");
+    }
+
+    @Test
+    @DisplayName("should map every correlation ID to its digest")
+    void shouldRecordReferences() {
+        service.claim("c-1", "TARGET", SHA);
+        service.claim("c-2", "TARGET", SHA);
+
+        assertThat(digestOf("c-1")).isEqualTo(SHA);
+        assertThat(digestOf("c-2")).isEqualTo(SHA);
+        assertThat(digestOf("c-3")).isNull();
+    }
+
+    @Test
+    @DisplayName("should tell a run to retry while the owner of the same content is still in flight")
+    void shouldDeferWhileOwnerInFlight() {
+        service.claim("c-1", "TARGET", SHA);
+        job("c-1", IngestJobStatus.CLAIMED);
+
+        assertThat(service.claim("c-2", "TARGET", SHA)).map(InboundContentService.Original::inFlight).contains(true);
+        assertThat(digestOf("c-2")).isNull();
+
+        service.release("c-1");
+
+        assertThat(service.claim("c-2", "TARGET", SHA)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT duplicate_of FROM edi_inbound_content_ref WHERE correlation_id = 'c-2'", String.class))
+                .isNull();
+    }
+
+    @Test
+    @DisplayName("should take over content whose owner's job failed without releasing it")
+    void shouldTakeOverFailedOwner() {
+        service.claim("c-1", "TARGET", SHA);
+        job("c-1", IngestJobStatus.FAILED);
+
+        assertThat(service.claim("c-2", "TARGET", SHA)).isEmpty();
+        assertThat(service.claim("c-3", "TARGET", SHA)).map(InboundContentService.Original::correlationId)
+                .contains("c-2");
+    }
+
+    @Test
+    @DisplayName("should not treat a resumed run's own claim as a duplicate")
+    void shouldAllowOwnClaim() {
+        service.claim("c-1", "TARGET", SHA);
+
+        assertThat(service.claim("c-1", "TARGET", SHA)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should scope content per retailer")
+    void shouldScopePerRetailer() {
+        service.claim("c-1", "TARGET", SHA);
+
+        assertThat(service.claim("c-2", "WALMART", SHA)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should let the same content through again once the owning run released it")
+    void shouldReclaimAfterRelease() {
+        service.claim("c-1", "TARGET", SHA);
+
+        service.release("c-1");
+
+        assertThat(service.claim("c-2", "TARGET", SHA)).isEmpty();
+        assertThat(service.claim("c-3", "TARGET", SHA)).map(InboundContentService.Original::correlationId)
+                .contains("c-2");
+    }
+
+    @Test
+    @DisplayName("should claim nothing when content dedup is disabled")
+    void shouldSkipWhenDisabled() {
+        properties.setContent(false);
+
+        service.claim("c-1", "TARGET", SHA);
+
+        assertThat(service.claim("c-2", "TARGET", SHA)).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM edi_inbound_content", Long.class)).isZero();
+    }
+}
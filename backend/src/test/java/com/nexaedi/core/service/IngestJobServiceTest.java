@@ -0,0 +1,319 @@
+package com.nexaedi.core.service;
+
+import com.nexaedi.core.model.EdiProcessingStatus;
+import com.nexaedi.core.model.IngestJobStatus;
+import com.nexaedi.core.pipeline.IngestJobProperties;
+import com.nexaedi.infrastructure.persistence.IngestJob;
+import com.nexaedi.infrastructure.persistence.IngestJobRepository;
+import com.nexaedi.infrastructure.persistence.IngestJobUnitRepository;
+import com.nexaedi.infrastructure.shopify.ShopifyOutboundAdapter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests the durable ingest queue — enqueue, claim, leases and checkpoints — against H2.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("IngestJobService")
+class IngestJobServiceTest {
+
+    private static final String EDI = "ISA*00*          *00*          *ZZ*TARGET~";
+
+    @MockitoBean
+    private S3Client s3Client;
+
+    @MockitoBean
+    private ShopifyOutboundAdapter shopifyOutboundAdapter;
+
+    @Autowired
+    private IngestJobService jobService;
+
+    @Autowired
+    private IngestJobRepository jobRepository;
+
+    @Autowired
+    private IngestJobProperties properties;
+
+    @Autowired
+    private IngestJobUnitRepository unitRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM ingest_job_unit");
+        jdbcTemplate.update("DELETE FROM ingest_job_payload");
+        jdbcTemplate.update("DELETE FROM ingest_job");
+    }
+
+    @Test
+    @DisplayName("should accept a file leased to this node, with its payload and digest")
+    void shouldEnqueueLeasedToThisNode(@TempDir Path dir) throws IOException {
+        String correlationId = UUID.randomUUID().toString();
+
+        IngestJob job = jobService.enqueue(correlationId, "TARGET", 7L, "po.edi", EDI);
+
+        IngestJob stored = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(IngestJobStatus.CLAIMED);
+        assertThat(stored.getLeaseOwner()).isEqualTo(jobService.getNodeId());
+        assertThat(stored.getLeaseExpiresAt()).isAfter(Instant.now());
+        assertThat(stored.getAttempts()).isEqualTo(1);
+        assertThat(stored.getPayloadBytes()).isEqualTo(EDI.length());
+        assertThat(job.getContentSha256()).hasSize(64);
+
+        Path copy = dir.resolve("copy.edi");
+        jobService.copyPayload(correlationId, copy);
+        assertThat(Files.readString(copy)).isEqualTo(EDI);
+    }
+
+    @Test
+    @DisplayName("should stream a spooled file into the queue with the same digest as its content")
+    void shouldEnqueueSpooledFile(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("po.edi"), EDI);
+
+        IngestJob fromFile = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "po.edi", file);
+        IngestJob fromString = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "po.edi", EDI);
+
+        assertThat(fromFile.getContentSha256()).isEqualTo(fromString.getContentSha256());
+        Path copy = dir.resolve("copy.edi");
+        jobService.copyPayload(fromFile.getCorrelationId(), copy);
+        assertThat(Files.readString(copy)).isEqualTo(EDI);
+    }
+
+    @Test
+    @DisplayName("should hand a released job to the next claim, once")
+    void shouldClaimReleasedJob() {
+        String correlationId = enqueueQueued();
+
+        List<IngestJob> claimed = jobService.claim(10);
+
+        assertThat(claimed).extracting(IngestJob::getCorrelationId).containsExactly(correlationId);
+        IngestJob stored = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(IngestJobStatus.CLAIMED);
+        assertThat(stored.getLeaseOwner()).isEqualTo(jobService.getNodeId());
+        assertThat(stored.getAttempts()).isEqualTo(1);
+        assertThat(jobService.claim(10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should not hand out a deferred job before its delay is up")
+    void shouldHoldDeferredJob() {
+        String correlationId = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "po.edi", EDI)
+                .getCorrelationId();
+
+        jobService.defer(correlationId);
+
+        IngestJob stored = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(IngestJobStatus.QUEUED);
+        assertThat(stored.getAttempts()).isZero();
+        assertThat(jobService.claim(10)).isEmpty();
+
+        stored.setNotBefore(Instant.now().minusSeconds(1));
+        jobRepository.save(stored);
+        assertThat(jobService.claim(10)).extracting(IngestJob::getCorrelationId).containsExactly(correlationId);
+        assertThat(jobRepository.findById(correlationId).orElseThrow().getNotBefore()).isNull();
+    }
+
+    @Test
+    @DisplayName("should leave a job under a live lease alone and take over one whose lease expired")
+    void shouldTakeOverExpiredLease() {
+        String live = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "a.edi", EDI).getCorrelationId();
+        String expired = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "b.edi", EDI).getCorrelationId();
+        jdbcTemplate.update("UPDATE ingest_job SET lease_owner = 'dead-node', lease_expires_at = ? WHERE correlation_id = ?",
+                Timestamp.from(Instant.now().minusSeconds(60)), expired);
+
+        List<IngestJob> claimed = jobService.claim(10);
+
+        assertThat(claimed).extracting(IngestJob::getCorrelationId).containsExactly(expired);
+        assertThat(jobRepository.findById(expired).orElseThrow().getAttempts()).isEqualTo(2);
+        assertThat(jobRepository.findById(live).orElseThrow().getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should hand each job to exactly one of two concurrent pollers")
+    void shouldClaimEachJobOnceAcrossPollers() throws Exception {
+        Set<String> queued = IntStream.range(0, 40).mapToObj(i -> enqueueQueued()).collect(Collectors.toSet());
+        IngestJobProperties otherProperties = new IngestJobProperties();
+        otherProperties.setNodeId("other-node");
+        IngestJobService otherNode = new IngestJobService(jobRepository, unitRepository, jdbcTemplate, otherProperties);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CyclicBarrier start = new CyclicBarrier(2);
+
+        List<String> byThisNode;
+        List<String> byOtherNode;
+        try (ExecutorService pollers = Executors.newFixedThreadPool(2)) {
+            Future<List<String>> thisPoller = pollers.submit(() -> drain(start, jobService::claim));
+            Future<List<String>> otherPoller = pollers.submit(() -> drain(start,
+                    limit -> transaction.execute(status -> otherNode.claim(limit))));
+            byThisNode = thisPoller.get();
+            byOtherNode = otherPoller.get();
+        }
+
+        assertThat(byThisNode).doesNotContainAnyElementsOf(byOtherNode);
+        Set<String> all = new HashSet<>(byThisNode);
+        all.addAll(byOtherNode);
+        assertThat(all).isEqualTo(queued);
+        assertThat(byThisNode.size() + byOtherNode.size()).isEqualTo(queued.size());
+        for (String correlationId : byOtherNode) {
+            IngestJob job = jobRepository.findById(correlationId).orElseThrow();
+            assertThat(job.getLeaseOwner()).isEqualTo("other-node");
+            assertThat(job.getAttempts()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("should not claim a job that another node holds under a live lease")
+    void shouldNotClaimLeasedJob() {
+        String correlationId = enqueueQueued();
+        jobService.claim(10);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Instant now = Instant.now();
+
+        Integer updated = transaction.execute(status ->
+                jobRepository.claim(correlationId, "other-node", now, now.plusSeconds(60)));
+
+        assertThat(updated).isZero();
+        IngestJob job = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(job.getLeaseOwner()).isEqualTo(jobService.getNodeId());
+        assertThat(job.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should fail a job instead of claiming it again once it reached the attempt limit")
+    void shouldGiveUpAfterMaxAttempts() {
+        String correlationId = enqueueQueued();
+        jdbcTemplate.update("UPDATE ingest_job SET attempts = ? WHERE correlation_id = ?",
+                properties.getMaxAttempts(), correlationId);
+
+        assertThat(jobService.claim(10)).isEmpty();
+        assertThat(jobRepository.findById(correlationId).orElseThrow().getStatus()).isEqualTo(IngestJobStatus.FAILED);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ingest_job_payload WHERE correlation_id = ?",
+                Long.class, correlationId)).isZero();
+    }
+
+    @Test
+    @DisplayName("should delete finished jobs past retention and keep the rest")
+    void shouldDeleteExpiredJobs() {
+        String expired = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "a.edi", EDI).getCorrelationId();
+        String recent = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "b.edi", EDI).getCorrelationId();
+        String running = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "c.edi", EDI).getCorrelationId();
+        jobService.complete(expired, IngestJobStatus.FAILED);
+        jobService.complete(recent, IngestJobStatus.COMPLETED);
+        Timestamp old = Timestamp.from(Instant.now().minus(properties.getRetention()).minusSeconds(60));
+        jdbcTemplate.update("UPDATE ingest_job SET updated_at = ? WHERE correlation_id IN (?, ?)", old, expired, running);
+
+        List<IngestJob> found = jobService.findExpired(10);
+        assertThat(found).extracting(IngestJob::getCorrelationId).containsExactly(expired);
+        assertThat(jobService.delete(List.of(expired, running))).isEqualTo(1);
+
+        assertThat(jobRepository.findById(expired)).isEmpty();
+        assertThat(jobRepository.findById(recent)).isPresent();
+        assertThat(jobRepository.findById(running)).isPresent();
+    }
+
+    @Test
+    @DisplayName("should renew only the leases this node holds")
+    void shouldRenewOwnLeases() {
+        String own = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "a.edi", EDI).getCorrelationId();
+        String other = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "b.edi", EDI).getCorrelationId();
+        Timestamp soon = Timestamp.from(Instant.now().plusSeconds(1));
+        jdbcTemplate.update("UPDATE ingest_job SET lease_expires_at = ?", soon);
+        jdbcTemplate.update("UPDATE ingest_job SET lease_owner = 'other-node' WHERE correlation_id = ?", other);
+
+        int renewed = jobService.renewLeases(List.of(own, other));
+
+        assertThat(renewed).isEqualTo(1);
+        assertThat(jobRepository.findById(own).orElseThrow().getLeaseExpiresAt())
+                .isAfter(soon.toInstant().plusSeconds(1));
+        assertThat(jobRepository.findById(other).orElseThrow().getLeaseExpiresAt())
+                .isBefore(soon.toInstant().plusSeconds(1));
+    }
+
+    @Test
+    @DisplayName("should keep stage checkpoints until the job completes")
+    void shouldCheckpointAndComplete() {
+        String correlationId = jobService.enqueue(UUID.randomUUID().toString(), "TARGET", null, "po.edi", EDI)
+                .getCorrelationId();
+
+        jobService.checkpointStage(correlationId, EdiProcessingStatus.RECEIVED, "db://" + correlationId);
+        jobService.checkpointStage(correlationId, EdiProcessingStatus.PARSED, null);
+        jobService.checkpointUnit(correlationId, 1, "child-1", EdiProcessingStatus.TRANSMITTED, "PO-1", "gid-1");
+        jobService.checkpointUnit(correlationId, 1, "child-1", EdiProcessingStatus.ACKNOWLEDGED, null, null);
+        jobService.checkpointUnit(correlationId, 2, "child-2", EdiProcessingStatus.FAILED, null, null);
+
+        IngestJob stored = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(stored.getLastCompletedStage()).isEqualTo(EdiProcessingStatus.PARSED);
+        assertThat(stored.getStorageKey()).isEqualTo("db://" + correlationId);
+        var checkpoints = jobService.loadCheckpoints(correlationId);
+        assertThat(checkpoints).containsOnlyKeys(1, 2);
+        assertThat(checkpoints.get(1).getLastCompletedStage()).isEqualTo(EdiProcessingStatus.ACKNOWLEDGED);
+        assertThat(checkpoints.get(1).getPoNumber()).isEqualTo("PO-1");
+        assertThat(checkpoints.get(1).getShopifyOrderId()).isEqualTo("gid-1");
+
+        jobService.complete(correlationId, IngestJobStatus.COMPLETED);
+
+        IngestJob completed = jobRepository.findById(correlationId).orElseThrow();
+        assertThat(completed.getStatus()).isEqualTo(IngestJobStatus.COMPLETED);
+        assertThat(completed.getLeaseOwner()).isNull();
+        assertThat(jobService.loadCheckpoints(correlationId)).isEmpty();
+        assertThat(jobService.claim(10)).isEmpty();
+    }
+
+    /**
+     * Claims in small batches until a poll comes back empty, like {@link IngestJobPoller}.
+     */
+    private static List<String> drain(CyclicBarrier start, IntFunction<List<IngestJob>> claim) throws Exception {
+        start.await();
+        List<String> claimed = new ArrayList<>();
+        List<IngestJob> batch;
+        while (!(batch = claim.apply(3)).isEmpty()) {
+            batch.forEach(job -> claimed.add(job.getCorrelationId()));
+        }
+        return claimed;
+    }
+
+    /**
+     * A job accepted by this node and handed back to the shared queue, as when intake is full.
+     */
+    private String enqueueQueued() {
+        String correlationId = UUID.randomUUID().toString();
+        jobService.enqueue(correlationId, "TARGET", null, "po.edi", EDI);
+        jobService.release(correlationId);
+        return correlationId;
+    }
+}
@@ -0,0 +1,264 @@
+package com.nexaedi.infrastructure.s3;
+
+import com.nexaedi.infrastructure.config.S3Properties;
+import com.nexaedi.infrastructure.config.StorageCompressionProperties;
+import com.nexaedi.infrastructure.storage.GzipPayloadCodec;
+import com.nexaedi.infrastructure.storage.InboundUpload;
+import com.nexaedi.infrastructure.storage.PayloadCompression;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for single-PUT and parallel multipart uploads, against a mocked S3Client.
+ */
+@DisplayName("S3StorageService")
+class S3StorageServiceTest {
+
+    private static final int MB = 1024 * 1024;
+
+    private S3Client s3Client;
+    private S3AsyncClient s3AsyncClient;
+    private S3StorageService service;
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        s3AsyncClient = mock(S3AsyncClient.class);
+        S3Properties properties = new S3Properties();
+        properties.setBucketName("bucket");
+        properties.setMultipartThreshold(DataSize.ofMegabytes(6));
+        properties.setPartSize(DataSize.ofMegabytes(5));
+        properties.setUploadConcurrency(2);
+        StorageCompressionProperties compressionProperties = new StorageCompressionProperties();
+        compressionProperties.getRetailers().put("walmart", "gzip");
+        PayloadCompression compression = new PayloadCompression(compressionProperties,
+                List.of(new GzipPayloadCodec(compressionProperties)));
+        service = new S3StorageService(s3Client, s3AsyncClient, properties, compression,
+                Executors.newVirtualThreadPerTaskExecutor());
+
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            RequestBody body = invocation.getArgument(1);
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                uploadedParts.put(request.partNumber(), in.readAllBytes());
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        });
+    }
+
+    private static byte[] payload(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) (i % 251);
+        }
+        return bytes;
+    }
+
+    private byte[] reassembled() {
+        return uploadedParts.keySet().stream().sorted().map(uploadedParts::get)
+                .reduce(new byte[0], (a, b) -> {
+                    byte[] joined = Arrays.copyOf(a, a.length + b.length);
+                    System.arraycopy(b, 0, joined, a.length, b.length);
+                    return joined;
+                });
+    }
+
+    private void assertCompleted(int parts) {
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete =
+                ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertThat(complete.getValue().multipartUpload().parts())
+                .extracting(CompletedPart::partNumber, CompletedPart::eTag)
+                .containsExactly(IntStream.rangeClosed(1, parts)
+                        .mapToObj(n -> Tuple.tuple(n, "etag-" + n))
+                        .toArray(Tuple[]::new));
+    }
+
+    @Test
+    @DisplayName("should upload a payload under the threshold with a single PUT")
+    void shouldPutSmallPayload() {
+        service.storeInbound("c-1", "TARGET", ByteBuffer.wrap(payload(MB)));
+
+        verify(s3Client).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+    }
+
+    @Test
+    @DisplayName("should split a large file into ordered parts and complete the upload")
+    void shouldUploadLargeFileInParts() throws IOException {
+        byte[] content = payload(12 * MB + 17);
+        Path file = Files.createTempFile("s3-multipart-", ".edi");
+        try {
+            Files.write(file, content);
+
+            service.storeInbound("c-2", "TARGET", file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertCompleted(3);
+        assertThat(reassembled()).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("should upload a stream of unknown length in parts without reading it all first")
+    void shouldUploadStreamInParts() {
+        byte[] content = payload(11 * MB);
+
+        service.storeInbound("c-3", "TARGET", new ByteArrayInputStream(content), -1);
+
+        assertCompleted(3);
+        assertThat(reassembled()).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("should read no more parts of a stream than are allowed in flight")
+    void shouldBoundBufferedParts() throws Exception {
+        CountDownLatch partsStarted = new CountDownLatch(2);
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            partsStarted.countDown();
+            proceed.await();
+            return UploadPartResponse.builder().eTag("etag").build();
+        });
+        AtomicLong read = new AtomicLong();
+        InputStream content = new FilterInputStream(new ByteArrayInputStream(payload(20 * MB))) {
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                int n = super.read(bytes, offset, length);
+                read.addAndGet(Math.max(n, 0));
+                return n;
+            }
+        };
+
+        CompletableFuture<String> upload = CompletableFuture.supplyAsync(
+                () -> service.storeInbound("c-7", "TARGET", content, -1));
+        assertThat(partsStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+
+        assertThat(read.get()).isEqualTo(10L * MB);
+        proceed.countDown();
+        upload.get(10, TimeUnit.SECONDS);
+        assertThat(read.get()).isEqualTo(20L * MB);
+    }
+
+    @Test
+    @DisplayName("should leave the caller's buffer position untouched")
+    void shouldNotMoveBufferPosition() {
+        ByteBuffer buffer = ByteBuffer.wrap(payload(7 * MB));
+
+        service.storeInbound("c-4", "TARGET", buffer);
+
+        assertThat(buffer.position()).isZero();
+        assertThat(reassembled()).isEqualTo(buffer.array());
+    }
+
+    @Test
+    @DisplayName("should abort the multipart upload when a part fails")
+    void shouldAbortOnFailedPart() {
+        AtomicInteger calls = new AtomicInteger();
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw S3Exception.builder().message("part rejected").build();
+            }
+            return UploadPartResponse.builder().eTag("etag").build();
+        });
+
+        assertThatThrownBy(() -> service.storeInbound("c-5", "TARGET", ByteBuffer.wrap(payload(12 * MB))))
+                .isInstanceOf(S3Exception.class);
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    @DisplayName("should return the key at once and complete the upload when the async PUT does")
+    void shouldStoreAsynchronously() {
+        CompletableFuture<PutObjectResponse> put = new CompletableFuture<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenReturn(put);
+
+        InboundUpload upload = service.storeInboundAsync("c-6", "TARGET", "ISA*00~");
+
+        assertThat(upload.key()).startsWith("edi/inbound/").endsWith("/target/c-6.edi");
+        assertThat(upload.completion()).isNotDone();
+        put.complete(PutObjectResponse.builder().build());
+        assertThat(upload.completion()).isCompleted();
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    @DisplayName("should gzip a retailer's payload as it uploads and tag the object's encoding")
+    void shouldCompressForConfiguredRetailer() throws IOException {
+        byte[] content = payload(MB);
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        ArgumentCaptor<RequestBody> body = ArgumentCaptor.forClass(RequestBody.class);
+
+        service.storeInbound("c-7", "WALMART", ByteBuffer.wrap(content));
+
+        verify(s3Client).putObject(request.capture(), body.capture());
+        assertThat(request.getValue().contentEncoding()).isEqualTo("gzip");
+        assertThat(request.getValue().contentLength()).isLessThan((long) content.length);
+        try (InputStream in = new GZIPInputStream(body.getValue().contentStreamProvider().newStream())) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    @DisplayName("should leave other retailers' payloads uncompressed")
+    void shouldNotCompressOtherRetailers() {
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+
+        service.storeInbound("c-8", "TARGET", "ISA*00~");
+
+        verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+        assertThat(request.getValue().contentEncoding()).isNull();
+    }
+}
@@ -0,0 +1,229 @@
+package com.nexaedi.infrastructure.storage;
+
+import com.nexaedi.infrastructure.config.FileSystemStorageProperties;
+import com.nexaedi.infrastructure.config.StorageCompressionProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests the on-disk layout, atomic commits and reads of the filesystem storage backend.
+ */
+@DisplayName("FileSystemStorageService")
+class FileSystemStorageServiceTest {
+
+    private static final String EDI = "ISA*00*          *00*          *ZZ*TARGET~";
+
+    @TempDir
+    Path root;
+
+    private PayloadCompression compression;
+    private FileSystemStorageService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileSystemStorageProperties properties = new FileSystemStorageProperties();
+        properties.setEnabled(true);
+        properties.setRoot(root);
+        StorageCompressionProperties compressionProperties = new StorageCompressionProperties();
+        compressionProperties.getRetailers().put("walmart", "gzip");
+        compression = new PayloadCompression(compressionProperties, List.of(new GzipPayloadCodec(compressionProperties)));
+        service = new FileSystemStorageService(properties, compression);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.stop();
+    }
+
+    private List<Path> temporaryFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).toList();
+        }
+    }
+
+    @Test
+    @DisplayName("should store under a dated, retailer and hash-sharded key and read it back")
+    void shouldRoundTrip() throws IOException {
+        String key = service.storeInbound("c-1", "TARGET", EDI);
+
+        assertThat(key).matches("inbound/\\d{4}/\\d{2}/\\d{2}/target/[0-9a-f]{2}/[0-9a-f]{2}/c-1\\.edi");
+        assertThat(Files.readString(root.resolve(key))).isEqualTo(EDI);
+        assertThat(service.retrieveContent(key)).isEqualTo(EDI);
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should commit every concurrent write")
+    void shouldCommitConcurrentWrites() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> keys = IntStream.range(0, 200)
+                    .mapToObj(i -> executor.submit(() -> service.storeInbound("c-" + i, "WALMART", EDI + i)))
+                    .toList();
+
+            for (int i = 0; i < keys.size(); i++) {
+                assertThat(service.retrieveContent(keys.get(i).get())).isEqualTo(EDI + i);
+            }
+        }
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should complete every write that races shutdown")
+    void shouldCompleteWritesRacingStop() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> keys = IntStream.range(0, 200)
+                    .mapToObj(i -> executor.submit(() -> service.storeInbound("c-stop-" + i, "TARGET", EDI + i)))
+                    .toList();
+
+            service.stop();
+
+            for (int i = 0; i < keys.size(); i++) {
+                assertThat(service.retrieveContent(keys.get(i).get(10, TimeUnit.SECONDS))).isEqualTo(EDI + i);
+            }
+        }
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should remove the temporary file when the content fails with an unchecked exception")
+    void shouldDiscardTemporaryFileOnUncheckedFailure() throws Exception {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new IllegalStateException("source gone");
+            }
+        };
+
+        assertThatThrownBy(() -> service.storeInbound("c-9", "TARGET", failing, -1))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("source gone");
+        assertThat(temporaryFiles()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should store a file, a stream and a buffer with the same content")
+    void shouldStoreFromFileStreamAndBuffer() throws IOException {
+        Path file = Files.writeString(Files.createTempFile("inbound-", ".edi"), EDI);
+        ByteBuffer buffer = ByteBuffer.wrap(EDI.getBytes(StandardCharsets.UTF_8));
+        try {
+            String fromFile = service.storeInbound("c-2", "TARGET", file);
+            String fromStream = service.storeInbound("c-3", "TARGET",
+                    new ByteArrayInputStream(EDI.getBytes(StandardCharsets.UTF_8)), -1);
+            String fromBuffer = service.storeInbound("c-4", "TARGET", buffer);
+
+            assertThat(Stream.of(fromFile, fromStream, fromBuffer).map(service::retrieveContent))
+                    .containsOnly(EDI);
+            assertThat(buffer.position()).isZero();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("should complete an async store once the file is in place")
+    void shouldStoreAsynchronously() {
+        InboundUpload upload = service.storeInboundAsync("c-5", "TARGET", EDI);
+
+        upload.completion().join();
+        assertThat(service.retrieveContent(upload.key())).isEqualTo(EDI);
+    }
+
+    @Test
+    @DisplayName("should stream and transfer stored content")
+    void shouldStreamAndTransfer() throws IOException {
+        String key = service.storeOutbound("c-6", "TARGET", EDI);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long transferred = service.transferContent(key, Channels.newChannel(out));
+
+        assertThat(key).matches("outbound/[0-9a-f]{2}/[0-9a-f]{2}/c-6-outbound\\.edi");
+        assertThat(transferred).isEqualTo(EDI.length());
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(EDI);
+        try (InputStream in = service.openContent(key)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(EDI);
+        }
+    }
+
+    @Test
+    @DisplayName("should archive under the processed prefix and keep the inbound key readable")
+    void shouldArchive() {
+        String key = service.storeInbound("c-7", "TARGET", EDI);
+
+        String archived = service.archiveProcessed(key, "c-7");
+
+        assertThat(archived).isEqualTo("processed/" + key.substring("inbound/".length()));
+        assertThat(service.retrieveContent(archived)).isEqualTo(EDI);
+        assertThat(service.retrieveContent(key)).isEqualTo(EDI);
+    }
+
+    @Test
+    @DisplayName("should gzip a retailer's payloads under a .gz key and decode them on read")
+    void shouldCompressForConfiguredRetailer() throws IOException {
+        String content = EDI.repeat(1000);
+        Path file = Files.writeString(Files.createTempFile("inbound-", ".edi"), content);
+        try {
+            String fromString = service.storeInbound("c-9", "WALMART", content);
+            String fromFile = service.storeInbound("c-10", "WALMART", file);
+
+            assertThat(fromString).endsWith("c-9.edi.gz");
+            assertThat(Files.size(root.resolve(fromString))).isLessThan(content.length() / 8);
+            try (InputStream raw = new GZIPInputStream(Files.newInputStream(root.resolve(fromFile)))) {
+                assertThat(new String(raw.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(content);
+            }
+            assertThat(service.retrieveContent(fromString)).isEqualTo(content);
+            assertThat(service.retrieveContent(service.archiveProcessed(fromFile, "c-10"))).isEqualTo(content);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            service.transferContent(fromString, Channels.newChannel(out));
+            assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(content);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    @DisplayName("should reject keys that resolve outside the root")
+    void shouldRejectTraversal() {
+        assertThatThrownBy(() -> service.retrieveContent("inbound/../../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("should write without the syncer when syncWrites is off")
+    void shouldWriteWithoutSync() throws Exception {
+        service.stop();
+        FileSystemStorageProperties properties = new FileSystemStorageProperties();
+        properties.setRoot(root);
+        properties.setSyncWrites(false);
+        service = new FileSystemStorageService(properties, compression);
+        service.start();
+
+        String key = service.storeInbound("c-8", "TARGET", EDI);
+
+        assertThat(service.retrieveContent(key)).isEqualTo(EDI);
+    }
+}
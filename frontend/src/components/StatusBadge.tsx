@@ -7,6 +7,8 @@ const config: Record<EdiStatus, { label: string; classes: string; dot: string }>
   TRANSMITTED:  { label: 'Transmitted',  classes: 'bg-amber-50 text-amber-700 border-amber-200',   dot: 'bg-amber-500' },
   ACKNOWLEDGED: { label: 'Acknowledged', classes: 'bg-emerald-50 text-emerald-700 border-emerald-200', dot: 'bg-emerald-500' },
   FAILED:       { label: 'Failed',       classes: 'bg-red-50 text-red-700 border-red-200',         dot: 'bg-red-500' },
+  DUPLICATE:    { label: 'Duplicate',    classes: 'bg-slate-50 text-slate-700 border-slate-200',   dot: 'bg-slate-500' },
+  COMPLETED:    { label: 'Completed',    classes: 'bg-teal-50 text-teal-700 border-teal-200',      dot: 'bg-teal-500' },
 };
 
 interface Props {
@@ -17,6 +17,8 @@ const stepConfig: Record<EdiStatus, { icon: typeof CheckCircle2; color: string;
   TRANSMITTED:  { icon: Zap,          color: 'text-amber-600',   bgColor: 'bg-amber-50',   borderColor: 'border-amber-200' },
   ACKNOWLEDGED: { icon: CheckCircle2, color: 'text-emerald-600', bgColor: 'bg-emerald-50', borderColor: 'border-emerald-200' },
   FAILED:       { icon: XCircle,      color: 'text-red-600',     bgColor: 'bg-red-50',     borderColor: 'border-red-200' },
+  DUPLICATE:    { icon: Copy,         color: 'text-slate-600',   bgColor: 'bg-slate-50',   borderColor: 'border-slate-200' },
+  COMPLETED:    { icon: Package,      color: 'text-teal-600',    bgColor: 'bg-teal-50',    borderColor: 'border-teal-200' },
 };
 
 function TimelineItem({ log, isLast }: { log: AuditLog; isLast: boolean }) {
@@ -7,7 +7,7 @@ import EmptyState from '../components/EmptyState';
 import { fetchAllAuditLogs } from '../api/client';
 import type { AuditLog, EdiStatus } from '../types';
 
-const ALL_STATUSES: EdiStatus[] = ['RECEIVED','PARSED','VALIDATED','TRANSMITTED','ACKNOWLEDGED','FAILED'];
+const ALL_STATUSES: EdiStatus[] = ['RECEIVED','PARSED','VALIDATED','TRANSMITTED','ACKNOWLEDGED','FAILED','DUPLICATE','COMPLETED'];
 
 const statusColors: Record<EdiStatus, string> = {
   RECEIVED: 'bg-blue-50 text-blue-700 border-blue-200',
@@ -16,6 +16,8 @@ const statusColors: Record<EdiStatus, string> = {
   TRANSMITTED: 'bg-amber-50 text-amber-700 border-amber-200',
   ACKNOWLEDGED: 'bg-emerald-50 text-emerald-700 border-emerald-200',
   FAILED: 'bg-red-50 text-red-700 border-red-200',
+  DUPLICATE: 'bg-slate-50 text-slate-700 border-slate-200',
+  COMPLETED: 'bg-teal-50 text-teal-700 border-teal-200',
 };
 
 function groupByCorrelation(logs: AuditLog[]) {
@@ -4,7 +4,9 @@ export type EdiStatus =
   | 'VALIDATED'
   | 'TRANSMITTED'
   | 'ACKNOWLEDGED'
-  | 'FAILED';
+  | 'FAILED'
+  | 'DUPLICATE'
+  | 'COMPLETED';
 
 export interface AuditLog {
   id: number;